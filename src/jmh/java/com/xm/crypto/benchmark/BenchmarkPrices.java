@@ -0,0 +1,72 @@
+package com.xm.crypto.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates directories of crypto CSV price files for the benchmarks, one file per symbol with a price every
+ * five minutes.
+ */
+final class BenchmarkPrices {
+    static final LocalDate START_DATE = LocalDate.of(2022, 1, 1);
+
+    private static final long START_MILLIS = START_DATE.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long STEP_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private BenchmarkPrices() {
+    }
+
+    /**
+     * Writes {@code rowsPerSymbol} random walk prices for each of {@code symbols} symbols into a new temporary directory.
+     *
+     * @return the directory containing the {@code <SYMBOL>_values.csv} files
+     */
+    static Path writeCsvFiles(int symbols, int rowsPerSymbol) throws IOException {
+        Path directory = Files.createTempDirectory("crypto-prices");
+        Random random = new Random(42);
+        for (String symbol : symbols(symbols)) {
+            try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(symbol + "_values.csv"))) {
+                writer.write("timestamp,symbol,price");
+                writer.newLine();
+                long unscaledPrice = 1_000_000 + random.nextInt(5_000_000);
+                for (int i = 0; i < rowsPerSymbol; i++) {
+                    unscaledPrice = Math.max(1, unscaledPrice + random.nextInt(2001) - 1000);
+                    writer.write(START_MILLIS + i * STEP_MILLIS + "," + symbol + ","
+                            + BigDecimal.valueOf(unscaledPrice, 2).toPlainString());
+                    writer.newLine();
+                }
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Returns the symbols used for the given number of symbols.
+     */
+    static List<String> symbols(int symbols) {
+        List<String> result = new ArrayList<>(symbols);
+        for (int i = 0; i < symbols; i++) {
+            result.add("C" + i);
+        }
+        return result;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.xm.crypto.benchmark;
+
+import com.xm.crypto.CryptoInvestmentServiceApplication;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request throughput of the web layer with {@value #CLIENTS} concurrent clients, with the requests
+ * handled on the bounded pool of platform threads or on virtual threads. The application is started on a random
+ * port, each invocation sends one stats request per client over keep-alive connections and waits for all responses,
+ * so the score is the number of requests per second. The {@code ok} and {@code unavailable} counters split it into
+ * the requests answered with 200 and with 503, i.e. without a database connection in time. Any other status fails
+ * the benchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class ConcurrentClientsBenchmark {
+    private static final int CLIENTS = 1000;
+    private static final int SYMBOLS = 100;
+    private static final int ROWS_PER_SYMBOL = 1000;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"memory", "jpa"})
+    private String store;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private List<HttpRequest> requests;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        directory = BenchmarkPrices.writeCsvFiles(SYMBOLS, ROWS_PER_SYMBOL);
+        context = new SpringApplicationBuilder(CryptoInvestmentServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--crypto.prices.dir=" + directory,
+                        "--crypto.store.type=" + store,
+                        "--crypto.watcher.enabled=false",
+                        // all clients share the loopback address
+                        "--crypto.rate-limit.requests-per-minute=1000000000",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.config=classpath:logback-benchmark.xml"
+                );
+        String port = context.getEnvironment().getRequiredProperty("local.server.port");
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        requests = new ArrayList<>(SYMBOLS);
+        for (String symbol : BenchmarkPrices.symbols(SYMBOLS)) {
+            requests.add(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cryptos/" + symbol + "/stats"))
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        httpClient.close();
+        context.close();
+        BenchmarkPrices.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CLIENTS)
+    public void getStats(Responses responses) throws InterruptedException, ExecutionException {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> statuses = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                HttpRequest request = requests.get(i % requests.size());
+                statuses.add(clients.submit(() ->
+                        httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+            }
+            for (Future<Integer> status : statuses) {
+                switch (status.get()) {
+                    case 200 -> responses.ok++;
+                    case 503 -> responses.unavailable++;
+                    default -> throw new IllegalStateException("Unexpected status: " + status.get());
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the responses by status.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Responses {
+        public long ok;
+        public long unavailable;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            unavailable = 0;
+        }
+    }
+}
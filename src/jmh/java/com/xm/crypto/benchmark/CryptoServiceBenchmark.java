@@ -0,0 +1,108 @@
+package com.xm.crypto.benchmark;
+
+import com.xm.crypto.CryptoInvestmentServiceApplication;
+import com.xm.crypto.model.dto.CryptoStatsDto;
+import com.xm.crypto.model.dto.NormalizedCryptoDto;
+import com.xm.crypto.model.dto.RankingOrder;
+import com.xm.crypto.service.CryptoStatsService;
+import com.xm.crypto.service.NormalizedRangeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the query services on both price stores. The application context is started once per trial on a
+ * generated price directory, so the services, the store and for the {@code jpa} store the repository queries
+ * against H2 run exactly as in the application.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CryptoServiceBenchmark {
+
+    @Param({"memory", "jpa"})
+    private String store;
+
+    @Param({"10", "100"})
+    private int symbols;
+
+    @Param({"1000", "10000"})
+    private int rowsPerSymbol;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private CryptoStatsService cryptoStatsService;
+    private NormalizedRangeService normalizedRangeService;
+    private List<String> symbolNames;
+    private LocalDate date;
+    private int nextSymbol;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        directory = BenchmarkPrices.writeCsvFiles(symbols, rowsPerSymbol);
+        context = new SpringApplicationBuilder(CryptoInvestmentServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                // command line arguments, as default properties would be overridden by the application.yaml
+                .run(
+                        "--crypto.prices.dir=" + directory,
+                        "--crypto.store.type=" + store,
+                        "--crypto.watcher.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.config=classpath:logback-benchmark.xml"
+                );
+        cryptoStatsService = context.getBean(CryptoStatsService.class);
+        normalizedRangeService = context.getBean(NormalizedRangeService.class);
+        symbolNames = BenchmarkPrices.symbols(symbols);
+        date = BenchmarkPrices.START_DATE;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        context.close();
+        BenchmarkPrices.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public CryptoStatsDto getStats() {
+        String symbol = symbolNames.get(nextSymbol);
+        nextSymbol = (nextSymbol + 1) % symbolNames.size();
+        return cryptoStatsService.getStats(symbol);
+    }
+
+    @Benchmark
+    public List<NormalizedCryptoDto> listByNormalizedRange() {
+        return normalizedRangeService.listByNormalizedRange();
+    }
+
+    @Benchmark
+    public List<NormalizedCryptoDto> listTopTenByNormalizedRange() {
+        return normalizedRangeService.listByNormalizedRange(null, RankingOrder.DESC, 0, 10);
+    }
+
+    @Benchmark
+    public NormalizedCryptoDto getHighestNormalizedRange() {
+        return normalizedRangeService.getHighestNormalizedRange(date);
+    }
+}
@@ -0,0 +1,84 @@
+package com.xm.crypto.benchmark;
+
+import com.xm.crypto.model.mapper.CryptoCsvDtoMapper;
+import com.xm.crypto.parser.JacksonPriceCsvParser;
+import com.xm.crypto.parser.MappedPriceCsvParser;
+import com.xm.crypto.parser.PriceCsvParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the memory-mapped and the Jackson based CSV parsers on generated price files.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class CsvParserBenchmark {
+    private static final int BATCH_SIZE = 5000;
+
+    @Param({"1", "10"})
+    private int symbols;
+
+    @Param({"100000", "1000000"})
+    private int rowsPerSymbol;
+
+    private Path directory;
+    private List<Path> files;
+    private MappedPriceCsvParser mappedParser;
+    private JacksonPriceCsvParser jacksonParser;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        directory = BenchmarkPrices.writeCsvFiles(symbols, rowsPerSymbol);
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.sorted().toList();
+        }
+        mappedParser = new MappedPriceCsvParser();
+        jacksonParser = new JacksonPriceCsvParser(new CryptoCsvDtoMapper());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        BenchmarkPrices.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long mapped(Blackhole blackhole) throws IOException {
+        return parseAll(mappedParser, blackhole);
+    }
+
+    @Benchmark
+    public long jackson(Blackhole blackhole) throws IOException {
+        return parseAll(jacksonParser, blackhole);
+    }
+
+    private long parseAll(PriceCsvParser parser, Blackhole blackhole) throws IOException {
+        long rows = 0;
+        for (Path file : files) {
+            rows += parser.parse(file, BATCH_SIZE, blackhole::consume).rows();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,94 @@
+package com.xm.crypto.benchmark;
+
+import com.xm.crypto.model.mapper.CryptoCsvDtoMapper;
+import com.xm.crypto.parser.JacksonPriceCsvParser;
+import com.xm.crypto.parser.MappedPriceCsvParser;
+import com.xm.crypto.repository.InMemoryCryptoPriceStore;
+import com.xm.crypto.service.CryptoDataLoaderService;
+import com.xm.crypto.service.DatasetVersionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end startup load of a directory of CSV files into an empty in-memory store,
+ * including the parsing and the building of the statistics, rollups and range indexes. With {@code snapshot} the
+ * snapshot file written by a first load is restored instead, as on a restart with unchanged CSV files.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class LoaderBenchmark {
+    private static final int BATCH_SIZE = 5000;
+
+    @Param({"10", "100"})
+    private int symbols;
+
+    @Param({"10000", "100000"})
+    private int rowsPerSymbol;
+
+    @Param({"1", "8"})
+    private int parallelism;
+
+    @Param({"false", "true"})
+    private boolean snapshot;
+
+    private Path directory;
+    private MappedPriceCsvParser mappedParser;
+    private JacksonPriceCsvParser jacksonParser;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        directory = BenchmarkPrices.writeCsvFiles(symbols, rowsPerSymbol);
+        mappedParser = new MappedPriceCsvParser();
+        jacksonParser = new JacksonPriceCsvParser(new CryptoCsvDtoMapper());
+        if (snapshot) {
+            // the first load writes the snapshot file restored by the measured loads
+            loadCryptoData();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        BenchmarkPrices.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long loadCryptoData() {
+        InMemoryCryptoPriceStore store = new InMemoryCryptoPriceStore();
+        CryptoDataLoaderService loader = new CryptoDataLoaderService(
+                store,
+                mappedParser,
+                jacksonParser,
+                new DatasetVersionService(event -> {}),
+                new SimpleMeterRegistry()
+        );
+        ReflectionTestUtils.setField(loader, "cryptoPricesDir", directory.toString());
+        ReflectionTestUtils.setField(loader, "loaderParallelism", parallelism);
+        ReflectionTestUtils.setField(loader, "loaderBatchSize", BATCH_SIZE);
+        if (snapshot) {
+            ReflectionTestUtils.setField(loader, "snapshotFile", directory.resolve("prices.snapshot").toString());
+        }
+        loader.loadCryptoData();
+        return store.count();
+    }
+}
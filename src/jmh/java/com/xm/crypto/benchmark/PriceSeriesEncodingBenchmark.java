@@ -0,0 +1,115 @@
+package com.xm.crypto.benchmark;
+
+import com.xm.crypto.model.domain.CompressedPriceSeries;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.repository.InMemoryCryptoPriceStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares full scans of the columnar {@link PriceSeries} and the {@link CompressedPriceSeries} of a random walk,
+ * the export scan and the stats of a time range of the {@link InMemoryCryptoPriceStore} keeping it compressed, and the
+ * cost of compressing and decompressing it. The bytes per data point of both forms and the resident bytes per data
+ * point of the store, the compressed series and its candles, are printed on setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PriceSeriesEncodingBenchmark {
+    private static final long START_MILLIS = 1640995200000L;
+    private static final long STEP_MILLIS = 300_000L;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    /**
+     * {@code regular} ticks every 5 minutes, {@code jittered} ticks are off by up to a second.
+     */
+    @Param({"regular", "jittered"})
+    private String ticks;
+
+    private PriceSeries series;
+    private CompressedPriceSeries compressed;
+    private InMemoryCryptoPriceStore store;
+
+    @Setup(Level.Trial)
+    public void buildSeries() {
+        Random random = new Random(42);
+        PriceSeries.Builder builder = PriceSeries.builder("C0");
+        long unscaledPrice = 1_000_000 + random.nextInt(5_000_000);
+        for (int i = 0; i < rows; i++) {
+            unscaledPrice = Math.max(1, unscaledPrice + random.nextInt(2001) - 1000);
+            long jitter = ticks.equals("jittered") ? random.nextInt(1000) : 0;
+            builder.add(START_MILLIS + i * STEP_MILLIS + jitter, unscaledPrice, 2);
+        }
+        series = builder.build();
+        compressed = CompressedPriceSeries.of(series);
+        store = new InMemoryCryptoPriceStore();
+        store.saveAll(series);
+        System.out.printf("%nbytes per data point: columns %.2f, compressed %.2f, store %.2f%n",
+                2.0 * Long.BYTES, (double) compressed.sizeInBytes() / series.size(),
+                (double) store.sizeInBytes() / store.count());
+    }
+
+    @Benchmark
+    public long scanColumns() {
+        long checksum = 0;
+        for (int i = 0; i < series.size(); i++) {
+            checksum += series.timestamp(i) ^ series.unscaledPrice(i);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long scanCompressed() {
+        long checksum = 0;
+        for (CompressedPriceSeries.Scanner scanner = compressed.scan(Long.MIN_VALUE, Long.MAX_VALUE); scanner.next(); ) {
+            checksum += scanner.timestamp() ^ scanner.unscaledPrice();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long scanStore() throws IOException {
+        long[] checksum = new long[1];
+        store.forEachPrice("C0", Long.MIN_VALUE, Long.MAX_VALUE,
+                (timestamp, unscaledPrice, scale) -> checksum[0] += timestamp ^ unscaledPrice);
+        return checksum[0];
+    }
+
+    /**
+     * The stats of the middle half of the series, answered from the block headers and the decoded edge blocks.
+     */
+    @Benchmark
+    public Object storeStats() {
+        long quarter = rows / 4 * STEP_MILLIS;
+        return store.findStats("C0", START_MILLIS + quarter, START_MILLIS + 3 * quarter);
+    }
+
+    @Benchmark
+    public CompressedPriceSeries compress() {
+        return CompressedPriceSeries.of(series);
+    }
+
+    @Benchmark
+    public PriceSeries decompress() {
+        return compressed.toSeries();
+    }
+}
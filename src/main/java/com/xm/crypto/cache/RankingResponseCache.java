@@ -0,0 +1,268 @@
+package com.xm.crypto.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.RankingOrder;
+import com.xm.crypto.model.dto.response.DailyHighestNormalizedRangesResponse;
+import com.xm.crypto.model.dto.response.HighestNormalizedRangeResponse;
+import com.xm.crypto.model.dto.response.NormalizedCryptosResponse;
+import com.xm.crypto.service.DatasetVersionChangedEvent;
+import com.xm.crypto.service.DatasetVersionService;
+import com.xm.crypto.service.NormalizedRangeService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of the serialized responses of the ranking endpoints. Each response is kept as JSON bytes and gzip compressed
+ * JSON bytes per query, e.g. per date of the highest normalized range, together with the dataset version it was
+ * computed from. A cached response is only served while its version is the current one.
+ * <p>
+ * After each load of new prices the most requested cached queries, and at least the list of all cryptos, are computed
+ * again in the background on a single rebuild thread, so neither the loading thread nor the requests following a load
+ * wait for them. Loads while a rebuild is pending are coalesced into it, and a running rebuild stops as soon as a newer
+ * version was loaded.
+ */
+@Component
+public class RankingResponseCache implements ApplicationListener<DatasetVersionChangedEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(RankingResponseCache.class);
+
+    private static final int MAX_QUERIES = 1000;
+    private static final int MAX_REBUILT_QUERIES = 100;
+    private static final RankingQuery LIST_ALL = new ListByNormalizedRange(null);
+
+    private final NormalizedRangeService normalizedRangeService;
+    private final DatasetVersionService datasetVersionService;
+    private final JsonMapper jsonMapper;
+    private final Executor rebuildExecutor;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile CompletableFuture<Void> lastRebuild = CompletableFuture.completedFuture(null);
+    private final Cache<RankingQuery, SerializedResponse> responses = Caffeine.newBuilder()
+            .maximumSize(MAX_QUERIES)
+            .build();
+
+    @Autowired
+    public RankingResponseCache(
+            NormalizedRangeService normalizedRangeService,
+            DatasetVersionService datasetVersionService,
+            JsonMapper jsonMapper
+    ) {
+        this(normalizedRangeService, datasetVersionService, jsonMapper,
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("ranking-cache-rebuild").factory()));
+    }
+
+    RankingResponseCache(
+            NormalizedRangeService normalizedRangeService,
+            DatasetVersionService datasetVersionService,
+            JsonMapper jsonMapper,
+            Executor rebuildExecutor
+    ) {
+        this.normalizedRangeService = normalizedRangeService;
+        this.datasetVersionService = datasetVersionService;
+        this.jsonMapper = jsonMapper;
+        this.rebuildExecutor = rebuildExecutor;
+    }
+
+    /**
+     * Returns the serialized list of cryptos sorted by normalized range.
+     *
+     * @param timeRange the time range, or null for all data
+     * @return the serialized response
+     */
+    public SerializedResponse listByNormalizedRange(TimeRange timeRange) {
+        return get(new ListByNormalizedRange(timeRange));
+    }
+
+    /**
+     * Returns the serialized page of the cryptos ranked by normalized range.
+     *
+     * @param timeRange the time range, or null for all data
+     * @param order     the order of the ranking
+     * @param offset    the number of cryptos to skip
+     * @param limit     the maximum number of cryptos
+     * @return the serialized response
+     */
+    public SerializedResponse listByNormalizedRange(TimeRange timeRange, RankingOrder order, int offset, int limit) {
+        return get(new NormalizedRangePage(timeRange, order, offset, limit));
+    }
+
+    /**
+     * Returns the serialized crypto with the highest normalized range of the given day.
+     *
+     * @param date the requested day
+     * @return the serialized response
+     * @throws com.xm.crypto.exception.NoCryptoDataFoundException if no data is found for the requested date
+     */
+    public SerializedResponse getHighestNormalizedRange(LocalDate date) {
+        return get(new HighestNormalizedRange(date));
+    }
+
+    /**
+     * Returns the serialized cryptos with the highest normalized range of each day within the date range.
+     *
+     * @param from  the first day (inclusive)
+     * @param to    the last day (exclusive)
+     * @param limit the maximum number of cryptos per day
+     * @return the serialized response
+     * @throws com.xm.crypto.exception.NoCryptoDataFoundException if no data is found within the date range
+     */
+    public SerializedResponse getDailyHighestNormalizedRanges(LocalDate from, LocalDate to, int limit) {
+        return get(new DailyHighestNormalizedRanges(from, to, limit));
+    }
+
+    @Override
+    public void onApplicationEvent(DatasetVersionChangedEvent event) {
+        if (rebuildPending.compareAndSet(false, true)) {
+            lastRebuild = CompletableFuture.runAsync(this::rebuildCurrentVersion, rebuildExecutor);
+        }
+    }
+
+    /**
+     * Waits until the last scheduled rebuild finished, e.g. to measure the requests following a load.
+     */
+    public void awaitRebuild() {
+        lastRebuild.join();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuildExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private SerializedResponse get(RankingQuery query) {
+        long version = datasetVersionService.current().version();
+        SerializedResponse cached = responses.getIfPresent(query);
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        SerializedResponse response = serialize(query, version);
+        put(query, response);
+        return response;
+    }
+
+    /**
+     * Rebuilds the cached responses for the version current when the rebuild starts. The pending flag is cleared
+     * before reading the version, so a load after it schedules another rebuild.
+     */
+    private void rebuildCurrentVersion() {
+        rebuildPending.set(false);
+        rebuild(datasetVersionService.current().version());
+    }
+
+    private void rebuild(long version) {
+        List<RankingQuery> queries = new ArrayList<>(
+                responses.policy().eviction().orElseThrow().hottest(MAX_REBUILT_QUERIES).keySet());
+        if (!queries.contains(LIST_ALL)) {
+            queries.add(LIST_ALL);
+        }
+        for (RankingQuery query : queries) {
+            if (datasetVersionService.current().version() != version) {
+                // a newer load scheduled another rebuild
+                return;
+            }
+            SerializedResponse cached = responses.policy().getIfPresentQuietly(query);
+            if (cached != null && cached.version() >= version) {
+                // already computed by a request
+                continue;
+            }
+            try {
+                put(query, serialize(query, version));
+            } catch (RuntimeException exception) {
+                // e.g. no data for the date anymore, the error is reported when the query is requested again
+                responses.invalidate(query);
+                logger.debug("Failed to rebuild the cached response of {}", query, exception);
+            }
+        }
+    }
+
+    /**
+     * Stores the response unless a response of a newer version was stored concurrently.
+     */
+    private void put(RankingQuery query, SerializedResponse response) {
+        responses.asMap().merge(query, response,
+                (previous, next) -> next.version() >= previous.version() ? next : previous);
+    }
+
+    private SerializedResponse serialize(RankingQuery query, long version) {
+        byte[] json = jsonMapper.writeValueAsBytes(query.compute(normalizedRangeService));
+        return new SerializedResponse(version, json, gzip(json));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Serialized response of a ranking endpoint.
+     *
+     * @param version the dataset version the response was computed from
+     * @param json    the JSON bytes
+     * @param gzip    the gzip compressed JSON bytes
+     */
+    public record SerializedResponse(long version, byte[] json, byte[] gzip) {
+    }
+
+    private sealed interface RankingQuery permits ListByNormalizedRange, NormalizedRangePage, HighestNormalizedRange,
+            DailyHighestNormalizedRanges {
+        Object compute(NormalizedRangeService normalizedRangeService);
+    }
+
+    private record ListByNormalizedRange(TimeRange timeRange) implements RankingQuery {
+        @Override
+        public Object compute(NormalizedRangeService normalizedRangeService) {
+            return new NormalizedCryptosResponse(timeRange == null
+                    ? normalizedRangeService.listByNormalizedRange()
+                    : normalizedRangeService.listByNormalizedRange(timeRange));
+        }
+    }
+
+    private record NormalizedRangePage(TimeRange timeRange, RankingOrder order, int offset, int limit)
+            implements RankingQuery {
+        @Override
+        public Object compute(NormalizedRangeService normalizedRangeService) {
+            return new NormalizedCryptosResponse(
+                    normalizedRangeService.listByNormalizedRange(timeRange, order, offset, limit));
+        }
+    }
+
+    private record HighestNormalizedRange(LocalDate date) implements RankingQuery {
+        @Override
+        public Object compute(NormalizedRangeService normalizedRangeService) {
+            return new HighestNormalizedRangeResponse(normalizedRangeService.getHighestNormalizedRange(date));
+        }
+    }
+
+    private record DailyHighestNormalizedRanges(LocalDate from, LocalDate to, int limit) implements RankingQuery {
+        @Override
+        public Object compute(NormalizedRangeService normalizedRangeService) {
+            return new DailyHighestNormalizedRangesResponse(
+                    normalizedRangeService.getHighestNormalizedRanges(from, to, limit));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.xm.crypto.config;
+
+import com.xm.crypto.interceptor.DatasetVersionInterceptor;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.service.DatasetVersionService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC configuration registering the interceptors, exception resolvers and converters of the crypto endpoints.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final DatasetVersionService datasetVersionService;
+
+    public WebConfig(DatasetVersionService datasetVersionService) {
+        this.datasetVersionService = datasetVersionService;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // the cached ranking responses are sent gzip compressed to clients accepting it
+        registry.addInterceptor(new DatasetVersionInterceptor(datasetVersionService, true))
+                .addPathPatterns(
+                        "/cryptos/list-by-normalized-range",
+                        "/cryptos/highest-normalized-range",
+                        "/cryptos/highest-normalized-range/daily"
+                );
+        registry.addInterceptor(new DatasetVersionInterceptor(datasetVersionService, false))
+                .addPathPatterns(
+                        "/cryptos/stats",
+                        "/cryptos/{symbol}/stats",
+                        "/cryptos/{symbol}/values",
+                        "/cryptos/{symbol}/candles"
+                );
+    }
+
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        resolvers.addFirst(DatasetVersionInterceptor.errorValidatorsRemover());
+    }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, CandleInterval.class, CandleInterval::fromCode);
+    }
+}
@@ -1,44 +1,78 @@
 package com.xm.crypto.controller;
 
+import com.xm.crypto.cache.RankingResponseCache;
+import com.xm.crypto.cache.RankingResponseCache.SerializedResponse;
+import com.xm.crypto.exception.NoCryptoDataFoundException;
+import com.xm.crypto.interceptor.AcceptEncoding;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.CryptoStatsDto;
+import com.xm.crypto.model.dto.ErrorCode;
+import com.xm.crypto.model.dto.ExportFormat;
 import com.xm.crypto.model.dto.ErrorResponse;
+import com.xm.crypto.model.dto.RankingOrder;
+import com.xm.crypto.model.dto.response.CandlesResponse;
+import com.xm.crypto.model.dto.response.CryptoStatsBatchResponse;
 import com.xm.crypto.model.dto.response.CryptoStatsResponse;
+import com.xm.crypto.model.dto.response.DailyHighestNormalizedRangesResponse;
 import com.xm.crypto.model.dto.response.HighestNormalizedRangeResponse;
 import com.xm.crypto.model.dto.response.NormalizedCryptosResponse;
+import com.xm.crypto.service.CandleService;
 import com.xm.crypto.service.CryptoStatsService;
-import com.xm.crypto.service.NormalizedRangeService;
+import com.xm.crypto.service.CryptoValuesService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/cryptos")
 @Tag(name = "Crypto Controller", description = "API for listing the cryptos and retrieve statistics about them")
 public class CryptoController {
 
-    private final NormalizedRangeService normalizedRangeService;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final RankingResponseCache rankingResponseCache;
     private final CryptoStatsService cryptoStatsService;
+    private final CryptoValuesService cryptoValuesService;
+    private final CandleService candleService;
 
     public CryptoController(
-            NormalizedRangeService normalizedRangeService,
-            CryptoStatsService cryptoStatsService
+            RankingResponseCache rankingResponseCache,
+            CryptoStatsService cryptoStatsService,
+            CryptoValuesService cryptoValuesService,
+            CandleService candleService
     ) {
-        this.normalizedRangeService = normalizedRangeService;
+        this.rankingResponseCache = rankingResponseCache;
         this.cryptoStatsService = cryptoStatsService;
+        this.cryptoValuesService = cryptoValuesService;
+        this.candleService = candleService;
     }
 
     @GetMapping("/list-by-normalized-range")
-    @Operation(summary = "List cryptos sorted by normalized range", description = "Returns a descending sorted list of all cryptos by normalized range")
+    @Operation(summary = "List cryptos sorted by normalized range", description = "Returns a descending (or ascending) sorted list of all cryptos by normalized range, optionally within a time range and limited to a page of the ranking")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
@@ -48,6 +82,18 @@ public class CryptoController {
                             schema = @Schema(implementation = NormalizedCryptosResponse.class)
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - The provided parameters are invalid",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
@@ -57,12 +103,40 @@ public class CryptoController {
                     )
             ),
     })
-    public NormalizedCryptosResponse listByNormalizedRange() {
-        return new NormalizedCryptosResponse(normalizedRangeService.listByNormalizedRange());
+    public ResponseEntity<byte[]> listByNormalizedRange(
+            @Parameter(
+                    description = "Start of the time range in UTC (inclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-01T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(
+                    description = "End of the time range in UTC (exclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-15T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Order of the ranking, DESC lists the highest normalized range first")
+            @RequestParam(defaultValue = "DESC") RankingOrder order,
+            @Parameter(description = "Number of cryptos to skip from the start of the ranking")
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(
+                    description = "Maximum number of cryptos to return. If not provided, the whole ranking after the offset is returned.",
+                    example = "10"
+            )
+            @RequestParam(required = false) Integer limit,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        TimeRange timeRange = from == null && to == null ? null : TimeRange.of(from, to);
+        if (order == RankingOrder.DESC && offset == 0 && limit == null) {
+            return serialized(rankingResponseCache.listByNormalizedRange(timeRange), acceptEncoding);
+        }
+        return serialized(
+                rankingResponseCache.listByNormalizedRange(timeRange, order, offset, limit == null ? Integer.MAX_VALUE : limit),
+                acceptEncoding
+        );
     }
 
     @GetMapping("/{symbol}/stats")
-    @Operation(summary = "Get statistics for a crypto", description = "Returns statistics about a crypto: oldest/newest/min/max values")
+    @Operation(summary = "Get statistics for a crypto", description = "Returns statistics about a crypto: oldest/newest/min/max values, optionally within a time range")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
@@ -72,9 +146,21 @@ public class CryptoController {
                             schema = @Schema(implementation = CryptoStatsResponse.class)
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - The provided parameters are invalid",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "404",
-                    description = "Not found - There is no data for the requested crypto",
+                    description = "Not found - There is no data for the requested crypto (within the requested time range)",
                     content = @Content(
                             mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class)
@@ -94,9 +180,232 @@ public class CryptoController {
                     description = "Symbol of the crypto to which the statistic should be retrieved",
                     example = "BTC"
             )
-            @PathVariable String symbol
+            @PathVariable String symbol,
+            @Parameter(
+                    description = "Start of the time range in UTC (inclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-01T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(
+                    description = "End of the time range in UTC (exclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-15T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
     ) {
-        return new CryptoStatsResponse(cryptoStatsService.getStats(symbol));
+        if (from == null && to == null) {
+            return new CryptoStatsResponse(cryptoStatsService.getStats(symbol));
+        }
+        return new CryptoStatsResponse(cryptoStatsService.getStats(symbol, TimeRange.of(from, to)));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get statistics for many cryptos", description = "Returns statistics about the requested cryptos, or about all cryptos if no symbol is requested, optionally within a time range. Each requested symbol counts as a request for the rate limit.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successful retrieval of the statistics, with an error for each requested crypto without data",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = CryptoStatsBatchResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - The provided parameters are invalid",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+    })
+    public CryptoStatsBatchResponse getStatsBatch(
+            @Parameter(
+                    description = "Comma separated symbols of the cryptos to which the statistics should be retrieved. If not provided, the statistics of all cryptos are returned.",
+                    example = "BTC,ETH"
+            )
+            @RequestParam(required = false) List<String> symbols,
+            @Parameter(
+                    description = "Start of the time range in UTC (inclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-01T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(
+                    description = "End of the time range in UTC (exclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-15T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        TimeRange timeRange = TimeRange.of(from, to);
+        if (symbols == null) {
+            return new CryptoStatsBatchResponse(cryptoStatsService.getAllStats(timeRange), Map.of());
+        }
+
+        List<String> upperCaseSymbols = symbols.stream()
+                .filter(symbol -> !symbol.isBlank())
+                .map(symbol -> symbol.strip().toUpperCase())
+                .distinct()
+                .toList();
+        Map<String, CryptoStatsDto> stats = cryptoStatsService.getStats(upperCaseSymbols, timeRange);
+        Map<String, ErrorResponse> errors = new LinkedHashMap<>();
+        for (String symbol : upperCaseSymbols) {
+            if (!stats.containsKey(symbol)) {
+                errors.put(symbol, new ErrorResponse(
+                        ErrorCode.CRYPTO_DATA_NOT_FOUND,
+                        NoCryptoDataFoundException.messageFor(symbol)
+                ));
+            }
+        }
+        return new CryptoStatsBatchResponse(stats, errors);
+    }
+
+    @GetMapping("/{symbol}/values")
+    @Operation(summary = "Export the values of a crypto", description = "Streams a page of the values of a crypto in timestamp order, optionally within a time range. If there are more values, the cursor of the next page is returned in the X-Next-Cursor header.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successful export of the values",
+                    headers = @Header(name = NEXT_CURSOR_HEADER, description = "Cursor of the next page, missing on the last page"),
+                    content = {
+                            @Content(mediaType = "application/x-ndjson"),
+                            @Content(mediaType = "text/csv")
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - The provided parameters are invalid",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Not found - There is no data for the requested crypto (within the requested time range)",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+    })
+    public ResponseEntity<StreamingResponseBody> getValues(
+            @Parameter(
+                    description = "Symbol of the crypto whose values should be exported",
+                    example = "BTC"
+            )
+            @PathVariable String symbol,
+            @Parameter(
+                    description = "Start of the time range in UTC (inclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-01T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(
+                    description = "End of the time range in UTC (exclusive). If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-15T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Cursor of the page to export, as returned in the X-Next-Cursor header. If not provided, the first page is exported.")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Format of the exported values")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format
+    ) {
+        PricePage page = cryptoValuesService.findPage(symbol, TimeRange.of(from, to), cursor);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(format.mediaType());
+        page.nextCursor().ifPresent(nextCursor -> builder.header(NEXT_CURSOR_HEADER, nextCursor));
+        return builder.body(outputStream -> cryptoValuesService.writeValues(page, format, outputStream));
+    }
+
+    @GetMapping("/{symbol}/candles")
+    @Operation(summary = "Get candles of a crypto", description = "Returns the open/high/low/close candles of a crypto at the requested interval, optionally within a time range")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successful retrieval of the candles",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = CandlesResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - The provided parameters are invalid, or the time range holds too many candles",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Not found - There is no data for the requested crypto (within the requested time range)",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+    })
+    public CandlesResponse getCandles(
+            @Parameter(
+                    description = "Symbol of the crypto whose candles should be retrieved",
+                    example = "BTC"
+            )
+            @PathVariable String symbol,
+            @Parameter(
+                    description = "Interval of the candles",
+                    schema = @Schema(type = "string", allowableValues = {"1m", "5m", "1h", "1d"}),
+                    example = "1h"
+            )
+            @RequestParam CandleInterval interval,
+            @Parameter(
+                    description = "Start of the time range in UTC (inclusive), rounded up to the start of an interval. If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-01T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(
+                    description = "End of the time range in UTC (exclusive), rounded up to the start of an interval. If neither 'from' nor 'to' is provided, all data is considered.",
+                    example = "2022-01-15T00:00:00"
+            )
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return new CandlesResponse(
+                symbol.toUpperCase(),
+                interval.code(),
+                candleService.getCandles(symbol, interval, TimeRange.of(from, to))
+        );
     }
 
     @GetMapping("/highest-normalized-range")
@@ -110,6 +419,10 @@ public class CryptoController {
                             schema = @Schema(implementation = HighestNormalizedRangeResponse.class)
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Bad request - The provided parameters are invalid",
@@ -133,13 +446,86 @@ public class CryptoController {
                     )
             ),
     })
-    public HighestNormalizedRangeResponse getHighestNormalizedRange(
+    public ResponseEntity<byte[]> getHighestNormalizedRange(
             @Parameter(
                     description = "The requested day. The crypto with the highest normalized range will be returned for the day specified here.",
                     example = "2022-01-01"
             )
-            @RequestParam LocalDate date
+            @RequestParam LocalDate date,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        return new HighestNormalizedRangeResponse(normalizedRangeService.getHighestNormalizedRange(date));
+        return serialized(rankingResponseCache.getHighestNormalizedRange(date), acceptEncoding);
+    }
+
+    @GetMapping("/highest-normalized-range/daily")
+    @Operation(summary = "Get highest normalized range of each day", description = "Returns the cryptos with the highest normalized range for every UTC day of the requested date range, by default only the top one per day")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successful retrieval of the highest normalized ranges, only for the days having data",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = DailyHighestNormalizedRangesResponse.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified - The prices did not change since the version sent in the If-None-Match header"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad request - The provided parameters are invalid",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "404",
+                    description = "Not found - There is no data for the requested date range",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "500",
+                    description = "Internal server error",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)
+                    )
+            ),
+    })
+    public ResponseEntity<byte[]> getDailyHighestNormalizedRanges(
+            @Parameter(
+                    description = "The first day of the date range (inclusive)",
+                    example = "2022-01-01"
+            )
+            @RequestParam LocalDate from,
+            @Parameter(
+                    description = "The end of the date range (exclusive). At most 366 days can be requested at once.",
+                    example = "2022-02-01"
+            )
+            @RequestParam LocalDate to,
+            @Parameter(
+                    description = "The maximum number of cryptos per day, between 1 and 100",
+                    example = "3"
+            )
+            @RequestParam(defaultValue = "1") int limit,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return serialized(rankingResponseCache.getDailyHighestNormalizedRanges(from, to, limit), acceptEncoding);
+    }
+
+    /**
+     * Writes the cached bytes of a serialized response, gzip compressed if the client accepts it.
+     */
+    private static ResponseEntity<byte[]> serialized(SerializedResponse response, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (AcceptEncoding.acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.json());
     }
 }
@@ -0,0 +1,11 @@
+package com.xm.crypto.exception;
+
+/**
+ * Thrown when one or more crypto CSV files could not be loaded. The failure of each file is attached as a
+ * suppressed exception.
+ */
+public class CryptoDataLoadException extends RuntimeException {
+    public CryptoDataLoadException(String message) {
+        super(message);
+    }
+}
@@ -3,8 +3,11 @@ package com.xm.crypto.exception;
 import com.xm.crypto.model.dto.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -16,6 +19,7 @@ import static com.xm.crypto.model.dto.ErrorCode.INTERNAL_ERROR;
 import static com.xm.crypto.model.dto.ErrorCode.INVALID_PARAMETER;
 import static com.xm.crypto.model.dto.ErrorCode.MISSING_PARAMETER;
 import static com.xm.crypto.model.dto.ErrorCode.RESOURCE_NOT_FOUND;
+import static com.xm.crypto.model.dto.ErrorCode.SERVICE_UNAVAILABLE;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -42,6 +46,50 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InvalidTimeRangeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidTimeRangeException(InvalidTimeRangeException exception) {
+        logger.debug("Invalid time range was requested.", exception);
+
+        ErrorResponse error = new ErrorResponse(
+                INVALID_PARAMETER,
+                exception.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException exception) {
+        logger.debug("Invalid cursor was requested.", exception);
+
+        ErrorResponse error = new ErrorResponse(
+                INVALID_PARAMETER,
+                exception.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidLimitException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidLimitException(InvalidLimitException exception) {
+        logger.debug("Invalid limit was requested.", exception);
+
+        ErrorResponse error = new ErrorResponse(
+                INVALID_PARAMETER,
+                exception.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidOffsetException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidOffsetException(InvalidOffsetException exception) {
+        logger.debug("Invalid offset was requested.", exception);
+
+        ErrorResponse error = new ErrorResponse(
+                INVALID_PARAMETER,
+                exception.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<ErrorResponse> handleMissingServletRequestParameter(MissingServletRequestParameterException exception) {
         String parameterName = exception.getParameterName();
@@ -66,6 +114,23 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Answers a request which did not get a database connection within the connection timeout, e.g. because all
+     * connections of the pool were in use, with 503, so clients retry instead of piling up on the pool.
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleDatabaseUnavailableException(Exception exception) {
+        logger.warn("No database connection was available in time.", exception);
+
+        ErrorResponse error = new ErrorResponse(
+                SERVICE_UNAVAILABLE,
+                "The service is temporarily overloaded, please retry later."
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralException(Exception exception) {
         logger.error("Unexpected error occurred.", exception);
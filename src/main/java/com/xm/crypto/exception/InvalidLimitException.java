@@ -0,0 +1,7 @@
+package com.xm.crypto.exception;
+
+public class InvalidLimitException extends RuntimeException {
+    public InvalidLimitException(String message) {
+        super(message);
+    }
+}
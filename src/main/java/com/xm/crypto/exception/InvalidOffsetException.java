@@ -0,0 +1,7 @@
+package com.xm.crypto.exception;
+
+public class InvalidOffsetException extends RuntimeException {
+    public InvalidOffsetException(String message) {
+        super(message);
+    }
+}
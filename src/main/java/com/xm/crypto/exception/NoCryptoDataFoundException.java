@@ -4,4 +4,12 @@ public class NoCryptoDataFoundException extends RuntimeException {
     public NoCryptoDataFoundException(String message) {
         super(message);
     }
+
+    public static NoCryptoDataFoundException forSymbol(String symbol) {
+        return new NoCryptoDataFoundException(messageFor(symbol));
+    }
+
+    public static String messageFor(String symbol) {
+        return "There is no data for the requested crypto: " + symbol;
+    }
 }
@@ -1,38 +1,101 @@
 package com.xm.crypto.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xm.crypto.repository.CryptoPriceStore;
+import com.xm.crypto.service.DatasetVersionService;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.local.SynchronizationStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * Limits the number of requests per client IP to {@code crypto.rate-limit.requests-per-minute}. The accepted and
+ * rejected requests and the number of tracked buckets are recorded as metrics, without tagging them by IP.
+ * <p>
+ * The buckets are kept in a cache bounded to {@code crypto.rate-limit.max-clients} entries, which evicts a bucket
+ * after it was idle for a whole refill interval. Such a bucket is full again, so evicting it does not change the
+ * limit of its client. Looking up an existing bucket and consuming from it allocates nothing.
+ * <p>
+ * A request costs one token, except a batch stats request, which costs one token per requested symbol, see
+ * {@link #cost(ServletRequest)}. The number of stored symbols charged for a request of all symbols is counted once
+ * per dataset version.
+ */
 @Component
 public class RateLimitFilter implements Filter {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
-
-    // 100 requests per minute
-    private static final long CAPACITY = 100;
     private static final Duration DURATION = Duration.ofMinutes(1);
 
-    private Bucket resolveBucket(String ip) {
-        Bandwidth limit = Bandwidth.builder()
-                .capacity(CAPACITY)
-                .refillIntervally(CAPACITY, DURATION)
+    private static final String BATCH_STATS_PATH = "/cryptos/stats";
+    private static final String SYMBOLS_PARAMETER = "symbols";
+
+    private final Bandwidth limit;
+    private final CryptoPriceStore cryptoPriceStore;
+    private final DatasetVersionService datasetVersionService;
+    private final Cache<String, Bucket> buckets;
+    private final Function<String, Bucket> bucketFactory;
+    private final Counter acceptedRequests;
+    private final Counter rejectedRequests;
+    private volatile SymbolCount storedSymbols = new SymbolCount(-1, 0);
+
+    public RateLimitFilter(
+            MeterRegistry meterRegistry,
+            CryptoPriceStore cryptoPriceStore,
+            DatasetVersionService datasetVersionService,
+            @Value("${crypto.rate-limit.max-clients:100000}") long maxClients,
+            @Value("${crypto.rate-limit.requests-per-minute:100}") long requestsPerMinute
+    ) {
+        this.limit = Bandwidth.builder()
+                .capacity(requestsPerMinute)
+                .refillIntervally(requestsPerMinute, DURATION)
                 .build();
+        this.cryptoPriceStore = cryptoPriceStore;
+        this.datasetVersionService = datasetVersionService;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(DURATION)
+                .build();
+        this.bucketFactory = this::newBucket;
+        this.acceptedRequests = requestCounter(meterRegistry, "accepted");
+        this.rejectedRequests = requestCounter(meterRegistry, "rejected");
+        Gauge.builder("crypto.rate.limit.buckets", buckets, Cache::estimatedSize)
+                .description("Number of client IPs with a tracked rate limit bucket")
+                .register(meterRegistry);
+    }
 
-        return buckets.computeIfAbsent(ip, k -> Bucket.builder()
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("crypto.rate.limit.requests")
+                .description("Number of requests checked by the rate limit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the bucket of a new client. The synchronized strategy updates the state of the bucket in place
+     * instead of copying it on every consume like the default lock-free one.
+     */
+    private Bucket newBucket(String ip) {
+        return Bucket.builder()
                 .addLimit(limit)
-                .build());
+                .withSynchronizationStrategy(SynchronizationStrategy.SYNCHRONIZED)
+                .build();
     }
 
     @Override
@@ -40,14 +103,67 @@ public class RateLimitFilter implements Filter {
             throws IOException, ServletException {
 
         String ip = request.getRemoteAddr();
-        Bucket bucket = resolveBucket(ip);
+        Bucket bucket = buckets.get(ip, bucketFactory);
 
-        if (bucket.tryConsume(1)) {
+        if (bucket.tryConsume(cost(request))) {
+            acceptedRequests.increment();
             chain.doFilter(request, response);
         } else {
+            rejectedRequests.increment();
             HttpServletResponse httpResp = (HttpServletResponse) response;
             httpResp.setStatus(429); // Too Many Requests
             httpResp.getWriter().write("Too many requests - rate limit exceeded");
         }
     }
+
+    /**
+     * Returns the number of tokens the request costs. A batch stats request costs one token per distinct requested
+     * symbol, or per stored symbol if it requests all of them. The cost is capped at the capacity of a bucket,
+     * so a batch can still pass once the bucket of its client is full.
+     */
+    private long cost(ServletRequest request) {
+        if (!(request instanceof HttpServletRequest httpRequest) || !isBatchStatsRequest(httpRequest)) {
+            return 1;
+        }
+        String[] values = request.getParameterValues(SYMBOLS_PARAMETER);
+        long symbols = values == null ? storedSymbols() : countSymbols(values);
+        return Math.clamp(symbols, 1, limit.getCapacity());
+    }
+
+    /**
+     * Returns the number of stored symbols, counted again only after the dataset version changed. The version is read
+     * before counting, so a count is never cached under a version newer than the data it was counted from.
+     */
+    private long storedSymbols() {
+        long version = datasetVersionService.current().version();
+        SymbolCount cached = storedSymbols;
+        if (cached.version() != version) {
+            cached = new SymbolCount(version, cryptoPriceStore.findAllSymbols().size());
+            storedSymbols = cached;
+        }
+        return cached.count();
+    }
+
+    private static boolean isBatchStatsRequest(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        return uri.length() == contextPath.length() + BATCH_STATS_PATH.length()
+                && uri.startsWith(contextPath)
+                && uri.endsWith(BATCH_STATS_PATH);
+    }
+
+    private static int countSymbols(String[] values) {
+        Set<String> symbols = new HashSet<>();
+        for (String value : values) {
+            for (String symbol : value.split(",")) {
+                if (!symbol.isBlank()) {
+                    symbols.add(symbol.strip().toUpperCase());
+                }
+            }
+        }
+        return symbols.size();
+    }
+
+    private record SymbolCount(long version, long count) {
+    }
 }
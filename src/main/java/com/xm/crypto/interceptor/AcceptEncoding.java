@@ -0,0 +1,60 @@
+package com.xm.crypto.interceptor;
+
+import java.util.Locale;
+
+/**
+ * Content negotiation of the {@code Accept-Encoding} request header.
+ */
+public final class AcceptEncoding {
+
+    private static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String ANY = "*";
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Returns whether the client accepts a gzip compressed response. gzip is accepted if it is listed with a
+     * positive quality value, or if it is not listed and {@code *} is listed with a positive quality value, so
+     * {@code gzip;q=0} refuses it.
+     *
+     * @param acceptEncoding the value of the {@code Accept-Encoding} header, or null if the header is missing
+     * @return true if the response may be gzip compressed
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            String coding = parameters[0].strip().toLowerCase(Locale.ROOT);
+            if (coding.equals(GZIP) || coding.equals(X_GZIP)) {
+                gzip = Math.max(gzip, quality(parameters));
+            } else if (coding.equals(ANY)) {
+                any = Math.max(any, quality(parameters));
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+
+    /**
+     * Returns the {@code q} parameter of a coding, 1 if it has none and 0 if it is malformed.
+     */
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].strip();
+            if (parameter.length() > 1 && Character.toLowerCase(parameter.charAt(0)) == 'q'
+                    && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).strip());
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
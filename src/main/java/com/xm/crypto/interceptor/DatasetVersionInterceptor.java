@@ -0,0 +1,65 @@
+package com.xm.crypto.interceptor;
+
+import com.xm.crypto.model.domain.DatasetVersion;
+import com.xm.crypto.service.DatasetVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers conditional requests of the endpoints serving the price data from the {@link DatasetVersion}.
+ * The version is sent as a strong {@code ETag} together with the time of the load as {@code Last-Modified}. A request
+ * whose {@code If-None-Match} (or {@code If-Modified-Since}) matches the current version is answered with
+ * {@code 304 Not Modified} before the controller is invoked, so no service or repository work is done for it.
+ * <p>
+ * The cached ranking endpoints send a gzip compressed response to a client accepting gzip, so with
+ * {@code gzipVariant} the {@code ETag} of such a client gets a {@code -gzip} suffix and every response, including a
+ * {@code 304}, varies by {@code Accept-Encoding}. The other endpoints send the same bytes to every client.
+ * <p>
+ * The validators describe the price data, not an error, so {@link #errorValidatorsRemover()} removes them again
+ * from the responses of failed requests.
+ */
+public class DatasetVersionInterceptor implements HandlerInterceptor {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private final DatasetVersionService datasetVersionService;
+    private final boolean gzipVariant;
+
+    public DatasetVersionInterceptor(DatasetVersionService datasetVersionService, boolean gzipVariant) {
+        this.datasetVersionService = datasetVersionService;
+        this.gzipVariant = gzipVariant;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        DatasetVersion version = datasetVersionService.current();
+        String eTag = Long.toString(version.version());
+        if (gzipVariant) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (AcceptEncoding.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                eTag += GZIP_SUFFIX;
+            }
+        }
+        boolean notModified = new ServletWebRequest(request, response)
+                .checkNotModified(eTag, version.lastModified().toEpochMilli());
+        return !notModified;
+    }
+
+    /**
+     * Returns a resolver removing the {@code ETag} and {@code Last-Modified} set before the handler failed. It does not
+     * resolve the exception itself, so it must run before the resolvers writing the error response.
+     *
+     * @return the resolver removing the validators
+     */
+    public static HandlerExceptionResolver errorValidatorsRemover() {
+        return (request, response, handler, exception) -> {
+            response.setHeader(HttpHeaders.ETAG, null);
+            response.setHeader(HttpHeaders.LAST_MODIFIED, null);
+            return null;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.xm.crypto.model.domain;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulk copies of primitive columns between the heap and a {@link ByteBuffer}, e.g. a memory-mapped snapshot file.
+ * A column is written as its length followed by its values in the byte order of the buffer, so reading it is a
+ * single copy without decoding the values one by one.
+ */
+final class BinaryColumns {
+
+    private BinaryColumns() {
+    }
+
+    static long sizeOf(long[] column) {
+        return Integer.BYTES + (long) column.length * Long.BYTES;
+    }
+
+    static long sizeOf(int[] column) {
+        return Integer.BYTES + (long) column.length * Integer.BYTES;
+    }
+
+    static long sizeOf(byte[] column) {
+        return Integer.BYTES + (long) column.length;
+    }
+
+    static long sizeOf(String value) {
+        return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static void put(ByteBuffer buffer, long[] column) {
+        buffer.putInt(column.length);
+        buffer.asLongBuffer().put(column);
+        buffer.position(buffer.position() + column.length * Long.BYTES);
+    }
+
+    static void put(ByteBuffer buffer, int[] column) {
+        buffer.putInt(column.length);
+        buffer.asIntBuffer().put(column);
+        buffer.position(buffer.position() + column.length * Integer.BYTES);
+    }
+
+    static void put(ByteBuffer buffer, byte[] column) {
+        buffer.putInt(column.length);
+        buffer.put(column);
+    }
+
+    static void put(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static long[] getLongs(ByteBuffer buffer) {
+        long[] column = new long[length(buffer, Long.BYTES)];
+        buffer.asLongBuffer().get(column);
+        buffer.position(buffer.position() + column.length * Long.BYTES);
+        return column;
+    }
+
+    static int[] getInts(ByteBuffer buffer) {
+        int[] column = new int[length(buffer, Integer.BYTES)];
+        buffer.asIntBuffer().get(column);
+        buffer.position(buffer.position() + column.length * Integer.BYTES);
+        return column;
+    }
+
+    static byte[] getBytes(ByteBuffer buffer) {
+        byte[] column = new byte[length(buffer, Byte.BYTES)];
+        buffer.get(column);
+        return column;
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[length(buffer, Byte.BYTES)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the length of a column and checks that the buffer holds all of its values, so a corrupt length fails
+     * before allocating the column.
+     */
+    private static int length(ByteBuffer buffer, int valueBytes) {
+        int length = buffer.getInt();
+        if (length < 0 || (long) length * valueBytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+}
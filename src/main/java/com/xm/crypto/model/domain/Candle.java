@@ -0,0 +1,24 @@
+package com.xm.crypto.model.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * OHLC candle of a crypto: the first, highest, lowest and last price and the number of data points of an interval.
+ *
+ * @param start the start of the interval in UTC
+ * @param open  the first price of the interval
+ * @param high  the highest price of the interval
+ * @param low   the lowest price of the interval
+ * @param close the last price of the interval
+ * @param count the number of data points of the interval
+ */
+public record Candle(
+        LocalDateTime start,
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close,
+        long count
+) {
+}
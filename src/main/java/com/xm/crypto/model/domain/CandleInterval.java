@@ -0,0 +1,61 @@
+package com.xm.crypto.model.domain;
+
+import java.time.Duration;
+
+/**
+ * The intervals of the candles, from the finest to the coarsest. Each interval is a multiple of the previous one,
+ * so the candles of an interval are built from the ones of the previous interval.
+ */
+public enum CandleInterval {
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("1d", Duration.ofDays(1));
+
+    private final String code;
+    private final long millis;
+
+    CandleInterval(String code, Duration duration) {
+        this.code = code;
+        this.millis = duration.toMillis();
+    }
+
+    /**
+     * Returns the interval with the given code.
+     *
+     * @param code the code of the interval, e.g. {@code 5m}
+     * @return the interval
+     * @throws IllegalArgumentException if there is no interval with the code
+     */
+    public static CandleInterval fromCode(String code) {
+        for (CandleInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("Unknown candle interval: " + code);
+    }
+
+    /**
+     * Rounds the timestamp up to the start of an interval, saturating at {@link Long#MAX_VALUE}.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the first interval start at or after the timestamp
+     */
+    public long alignUp(long timestamp) {
+        long remainder = Math.floorMod(timestamp, millis);
+        if (remainder == 0) {
+            return timestamp;
+        }
+        long distance = millis - remainder;
+        return timestamp > Long.MAX_VALUE - distance ? Long.MAX_VALUE : timestamp + distance;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public long millis() {
+        return millis;
+    }
+}
@@ -0,0 +1,185 @@
+package com.xm.crypto.model.domain;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable OHLC candles of a {@link CompressedPriceSeries} at every {@link CandleInterval}, all of them maintained on
+ * write. The candles shorter than an hour are kept as {@link CompressedPriceRollup}s: the prices come in ticks of a few
+ * minutes, so most of their buckets hold a single data point, which takes about 4 bytes compressed instead of the 44
+ * bytes of a {@link PriceRollup} bucket. The candles of an hour and longer are kept as one {@link PriceRollup} per
+ * interval. The one minute candles are built from the data points and each coarser interval from the previous one, and
+ * an update only rebuilds the candles from the one containing the first changed data point on.
+ */
+public final class CandleRollups {
+    private static final CandleInterval FIRST_UNCOMPRESSED = CandleInterval.ONE_HOUR;
+    private static final CandleInterval[] COMPRESSED_INTERVALS = Arrays.copyOfRange(
+            CandleInterval.values(), 0, FIRST_UNCOMPRESSED.ordinal());
+    private static final CandleInterval[] UNCOMPRESSED_INTERVALS = Arrays.copyOfRange(
+            CandleInterval.values(), FIRST_UNCOMPRESSED.ordinal(), CandleInterval.values().length);
+
+    private final CompressedPriceRollup[] compressedRollups;
+    private final PriceRollup[] rollups;
+
+    private CandleRollups(CompressedPriceRollup[] compressedRollups, PriceRollup[] rollups) {
+        this.compressedRollups = compressedRollups;
+        this.rollups = rollups;
+    }
+
+    /**
+     * Builds the candles of a whole series.
+     *
+     * @param series the series to build the candles of
+     * @return the candles of the series
+     */
+    public static CandleRollups of(CompressedPriceSeries series) {
+        CompressedPriceRollup[] compressedRollups = new CompressedPriceRollup[COMPRESSED_INTERVALS.length];
+        compressedRollups[0] = CompressedPriceRollup.of(series, COMPRESSED_INTERVALS[0].millis());
+        for (int i = 1; i < COMPRESSED_INTERVALS.length; i++) {
+            compressedRollups[i] = CompressedPriceRollup.of(compressedRollups[i - 1], COMPRESSED_INTERVALS[i].millis());
+        }
+        PriceRollup[] rollups = new PriceRollup[UNCOMPRESSED_INTERVALS.length];
+        rollups[0] = PriceRollup.of(compressedRollups[compressedRollups.length - 1], FIRST_UNCOMPRESSED.millis());
+        for (int i = 1; i < UNCOMPRESSED_INTERVALS.length; i++) {
+            rollups[i] = PriceRollup.of(rollups[i - 1], UNCOMPRESSED_INTERVALS[i].millis());
+        }
+        return new CandleRollups(compressedRollups, rollups);
+    }
+
+    /**
+     * Updates the candles after the series changed.
+     *
+     * @param series      the changed series, containing all data points of the symbol
+     * @param changedFrom the lowest timestamp of the changed data points
+     * @return the candles of the changed series
+     */
+    public CandleRollups update(CompressedPriceSeries series, long changedFrom) {
+        CompressedPriceRollup[] updatedCompressed = new CompressedPriceRollup[COMPRESSED_INTERVALS.length];
+        updatedCompressed[0] = compressedRollups[0].update(series, changedFrom);
+        for (int i = 1; i < COMPRESSED_INTERVALS.length; i++) {
+            updatedCompressed[i] = compressedRollups[i].update(updatedCompressed[i - 1], changedFrom);
+        }
+        PriceRollup[] updated = new PriceRollup[UNCOMPRESSED_INTERVALS.length];
+        updated[0] = rollups[0].update(updatedCompressed[updatedCompressed.length - 1], changedFrom);
+        for (int i = 1; i < UNCOMPRESSED_INTERVALS.length; i++) {
+            updated[i] = rollups[i].update(updated[i - 1], changedFrom);
+        }
+        return new CandleRollups(updatedCompressed, updated);
+    }
+
+    /**
+     * Returns the heap size of the rollups in bytes.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        long size = 0;
+        for (CompressedPriceRollup rollup : compressedRollups) {
+            size += rollup.sizeInBytes();
+        }
+        for (PriceRollup rollup : rollups) {
+            size += rollup.sizeInBytes();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+     *
+     * @return the size of the binary form in bytes
+     */
+    public long serializedSize() {
+        long size = 2 * Integer.BYTES;
+        for (CompressedPriceRollup rollup : compressedRollups) {
+            size += rollup.serializedSize();
+        }
+        for (PriceRollup rollup : rollups) {
+            size += rollup.serializedSize();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the rollups of all intervals in binary form, see {@link #readFrom(ByteBuffer, String)}.
+     *
+     * @param buffer the buffer to write to, with at least {@link #serializedSize()} bytes remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(compressedRollups.length);
+        for (CompressedPriceRollup rollup : compressedRollups) {
+            rollup.writeTo(buffer);
+        }
+        buffer.putInt(rollups.length);
+        for (PriceRollup rollup : rollups) {
+            rollup.writeTo(buffer);
+        }
+    }
+
+    /**
+     * Reads the rollups written by {@link #writeTo(ByteBuffer)} instead of building them from the series.
+     *
+     * @param buffer the buffer to read from
+     * @param symbol the symbol of the rolled up series
+     * @return the candles of the series
+     * @throws IllegalArgumentException if the rollups do not match the kept {@link CandleInterval}s
+     */
+    public static CandleRollups readFrom(ByteBuffer buffer, String symbol) {
+        if (buffer.getInt() != COMPRESSED_INTERVALS.length) {
+            throw new IllegalArgumentException("Invalid candles of " + symbol);
+        }
+        CompressedPriceRollup[] compressedRollups = new CompressedPriceRollup[COMPRESSED_INTERVALS.length];
+        for (int i = 0; i < COMPRESSED_INTERVALS.length; i++) {
+            compressedRollups[i] = CompressedPriceRollup.readFrom(buffer, symbol);
+            if (compressedRollups[i].bucketMillis() != COMPRESSED_INTERVALS[i].millis()) {
+                throw new IllegalArgumentException("Invalid candles of " + symbol);
+            }
+        }
+        if (buffer.getInt() != UNCOMPRESSED_INTERVALS.length) {
+            throw new IllegalArgumentException("Invalid candles of " + symbol);
+        }
+        PriceRollup[] rollups = new PriceRollup[UNCOMPRESSED_INTERVALS.length];
+        for (int i = 0; i < UNCOMPRESSED_INTERVALS.length; i++) {
+            rollups[i] = PriceRollup.readFrom(buffer, symbol);
+            if (rollups[i].bucketMillis() != UNCOMPRESSED_INTERVALS[i].millis()) {
+                throw new IllegalArgumentException("Invalid candles of " + symbol);
+            }
+        }
+        return new CandleRollups(compressedRollups, rollups);
+    }
+
+    /**
+     * Returns the uncompressed candles of the given interval.
+     *
+     * @param interval the interval of the candles, an hour or longer
+     * @return the candles as a rollup with buckets of the interval
+     * @throws IllegalArgumentException if the candles of the interval are compressed
+     */
+    public PriceRollup get(CandleInterval interval) {
+        if (isCompressed(interval)) {
+            throw new IllegalArgumentException("The candles of " + interval.code() + " are compressed");
+        }
+        return rollups[interval.ordinal() - FIRST_UNCOMPRESSED.ordinal()];
+    }
+
+    /**
+     * Returns a rollup holding the candles of the given interval starting within the time range, at most
+     * {@code limit} of them: the uncompressed rollup of the interval, or the buckets of the compressed one within the
+     * time range decoded on demand.
+     *
+     * @param interval    the interval of the candles
+     * @param startMillis the start of the time range (inclusive), the start of an interval
+     * @param endMillis   the end of the time range (exclusive), the start of an interval
+     * @param limit       the maximum number of candles needed
+     * @return the candles as a rollup with buckets of the interval, sliced by {@link PriceRollup#lowerBound(long)}
+     */
+    public PriceRollup get(CandleInterval interval, long startMillis, long endMillis, int limit) {
+        if (isCompressed(interval)) {
+            return PriceRollup.of(compressedRollups[interval.ordinal()], startMillis, endMillis, limit);
+        }
+        return get(interval);
+    }
+
+    private static boolean isCompressed(CandleInterval interval) {
+        return interval.compareTo(FIRST_UNCOMPRESSED) < 0;
+    }
+}
@@ -0,0 +1,480 @@
+package com.xm.crypto.model.domain;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable, compressed rollup of a {@link CompressedPriceSeries} into fixed-width time buckets, for the short
+ * intervals whose buckets hold only one or a few data points each.
+ * <p>
+ * Like in a {@link PriceRollup}, only the buckets holding at least one data point are kept. They are split into blocks
+ * of {@value #BLOCK_SIZE}, the header of each block holds the start of its first bucket and its position in the byte
+ * stream. The byte stream holds every bucket as variable-length integers: the number of bucket widths since the
+ * previous bucket, the delta of its first price to the last price of the previous bucket and the number of data
+ * points, followed by the deltas of the lowest, highest and last price to the first one only if there is more than one
+ * data point. A bucket of a single data point so takes about 4 bytes instead of the 44 bytes of a {@link PriceRollup}
+ * bucket. Blocks are decoded independently, so a scan of a time range skips the blocks before it and an update keeps
+ * the blocks before the first changed bucket as they are.
+ */
+public final class CompressedPriceRollup {
+    public static final int BLOCK_SIZE = 128;
+    private static final int BLOCK_SHIFT = 7;
+
+    private final String symbol;
+    private final long bucketMillis;
+    private final int scale;
+    private final int size;
+    private final long[] firstBucketStarts;
+    private final int[] blockOffsets;
+    private final byte[] bytes;
+
+    private CompressedPriceRollup(
+            String symbol,
+            long bucketMillis,
+            int scale,
+            int size,
+            long[] firstBucketStarts,
+            int[] blockOffsets,
+            byte[] bytes
+    ) {
+        this.symbol = symbol;
+        this.bucketMillis = bucketMillis;
+        this.scale = scale;
+        this.size = size;
+        this.firstBucketStarts = firstBucketStarts;
+        this.blockOffsets = blockOffsets;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Builds the rollup of a whole series in a single pass.
+     *
+     * @param series       the series to roll up
+     * @param bucketMillis the width of the buckets in milliseconds, buckets start at multiples of it since the epoch
+     * @return the rollup of the series
+     */
+    public static CompressedPriceRollup of(CompressedPriceSeries series, long bucketMillis) {
+        return build(series, bucketMillis, null, 0);
+    }
+
+    /**
+     * Builds a coarser rollup from a finer one in a single pass over its buckets, without going back to the data points.
+     *
+     * @param finer        the finer rollup
+     * @param bucketMillis the width of the buckets in milliseconds, a multiple of the bucket width of the finer rollup
+     * @return the coarser rollup
+     */
+    public static CompressedPriceRollup of(CompressedPriceRollup finer, long bucketMillis) {
+        return build(finer, bucketMillis, null, 0);
+    }
+
+    /**
+     * Updates the rollup after the series changed. Blocks before the one containing the bucket of {@code changedFrom}
+     * are reused, only the buckets from there on are rebuilt from the series.
+     *
+     * @param series      the changed series, containing all data points of the symbol
+     * @param changedFrom the lowest timestamp of the changed data points
+     * @return the rollup of the changed series
+     */
+    public CompressedPriceRollup update(CompressedPriceSeries series, long changedFrom) {
+        if (series.scale() != scale) {
+            return of(series, bucketMillis);
+        }
+        return build(series, bucketMillis, this, keptBlocks(changedFrom));
+    }
+
+    /**
+     * Updates the rollup after the finer rollup it was built from changed. Blocks before the one containing the bucket
+     * of {@code changedFrom} are reused, only the buckets from there on are rebuilt from the finer rollup.
+     *
+     * @param finer       the changed finer rollup
+     * @param changedFrom the lowest timestamp of the changed data points
+     * @return the rollup of the changed finer rollup
+     */
+    public CompressedPriceRollup update(CompressedPriceRollup finer, long changedFrom) {
+        if (finer.scale != scale) {
+            return of(finer, bucketMillis);
+        }
+        return build(finer, bucketMillis, this, keptBlocks(changedFrom));
+    }
+
+    /**
+     * Returns the number of blocks before the one holding the bucket of the given timestamp. That block may start
+     * with earlier buckets, so it is rebuilt from its first bucket on.
+     */
+    private int keptBlocks(long changedFrom) {
+        int index = Arrays.binarySearch(firstBucketStarts, bucketStart(changedFrom, bucketMillis));
+        return index >= 0 ? index : Math.max(-index - 2, 0);
+    }
+
+    private static CompressedPriceRollup build(
+            CompressedPriceSeries series,
+            long bucketMillis,
+            CompressedPriceRollup previous,
+            int keptBlocks
+    ) {
+        Encoder encoder = new Encoder(bucketMillis, previous, keptBlocks);
+        for (CompressedPriceSeries.Scanner scanner = series.scan(encoder.resumeFrom(), Long.MAX_VALUE); scanner.next(); ) {
+            long price = scanner.unscaledPrice();
+            encoder.add(scanner.timestamp(), price, price, price, price, 1);
+        }
+        return encoder.build(series.symbol(), series.scale());
+    }
+
+    private static CompressedPriceRollup build(
+            CompressedPriceRollup finer,
+            long bucketMillis,
+            CompressedPriceRollup previous,
+            int keptBlocks
+    ) {
+        if (bucketMillis % finer.bucketMillis != 0) {
+            throw new IllegalArgumentException(
+                    "The bucket width " + bucketMillis + " is not a multiple of the finer one " + finer.bucketMillis);
+        }
+        Encoder encoder = new Encoder(bucketMillis, previous, keptBlocks);
+        for (Scanner scanner = finer.scan(encoder.resumeFrom(), Long.MAX_VALUE); scanner.next(); ) {
+            encoder.add(
+                    scanner.bucketStart(),
+                    scanner.unscaledMin(),
+                    scanner.unscaledMax(),
+                    scanner.unscaledFirst(),
+                    scanner.unscaledLast(),
+                    scanner.count()
+            );
+        }
+        return encoder.build(finer.symbol, finer.scale);
+    }
+
+    private static long bucketStart(long timestamp, long bucketMillis) {
+        return Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a cursor over the buckets starting within the time range.
+     *
+     * @param startMillis the start of the time range (inclusive)
+     * @param endMillis   the end of the time range (exclusive)
+     * @return the cursor, positioned before the first bucket of the time range
+     */
+    public Scanner scan(long startMillis, long endMillis) {
+        int index = Arrays.binarySearch(firstBucketStarts, startMillis);
+        return new Scanner(index >= 0 ? index : Math.max(-index - 2, 0), startMillis, endMillis);
+    }
+
+    /**
+     * Returns the heap size of the byte stream and the block headers in bytes.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return bytes.length + (long) firstBucketStarts.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+     *
+     * @return the size of the binary form in bytes
+     */
+    public long serializedSize() {
+        return Long.BYTES + 2 * Integer.BYTES
+                + BinaryColumns.sizeOf(firstBucketStarts) + BinaryColumns.sizeOf(blockOffsets)
+                + BinaryColumns.sizeOf(bytes);
+    }
+
+    /**
+     * Writes the rollup in binary form, the bucket width, the scale, the size, the block headers and the byte stream,
+     * see {@link #readFrom(ByteBuffer, String)}. The symbol is not written, it is the one of the series.
+     *
+     * @param buffer the buffer to write to, with at least {@link #serializedSize()} bytes remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(bucketMillis);
+        buffer.putInt(scale);
+        buffer.putInt(size);
+        BinaryColumns.put(buffer, firstBucketStarts);
+        BinaryColumns.put(buffer, blockOffsets);
+        BinaryColumns.put(buffer, bytes);
+    }
+
+    /**
+     * Reads a rollup written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @param symbol the symbol of the rolled up series
+     * @return the rollup
+     * @throws IllegalArgumentException if the buffer does not hold a valid rollup
+     */
+    public static CompressedPriceRollup readFrom(ByteBuffer buffer, String symbol) {
+        CompressedPriceRollup rollup = new CompressedPriceRollup(
+                symbol,
+                buffer.getLong(),
+                buffer.getInt(),
+                buffer.getInt(),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getInts(buffer),
+                BinaryColumns.getBytes(buffer)
+        );
+        if (!rollup.isValid()) {
+            throw new IllegalArgumentException("Invalid compressed rollup of " + symbol);
+        }
+        return rollup;
+    }
+
+    /**
+     * Checks that the block headers match the size and are ordered, so a scan never leaves the byte stream.
+     */
+    private boolean isValid() {
+        int blocks = firstBucketStarts.length;
+        if (bucketMillis <= 0 || scale < 0 || scale > FixedPoint.MAX_SCALE || size < 0
+                || blocks != (size + BLOCK_SIZE - 1) >> BLOCK_SHIFT || blockOffsets.length != blocks) {
+            return false;
+        }
+        for (int block = 0; block < blocks; block++) {
+            if (blockOffsets[block] < 0 || blockOffsets[block] >= bytes.length
+                    || Math.floorMod(firstBucketStarts[block], bucketMillis) != 0
+                    || (block > 0 && (firstBucketStarts[block] <= firstBucketStarts[block - 1]
+                    || blockOffsets[block] <= blockOffsets[block - 1]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Forward-only cursor over the buckets of a time range. It decodes one bucket at a time, so it allocates nothing
+     * per bucket.
+     */
+    public final class Scanner {
+        private final long startMillis;
+        private final long endMillis;
+        private int index;
+        private int position;
+        private long bucket;
+        private long min;
+        private long max;
+        private long first;
+        private long last;
+        private int count;
+
+        private Scanner(int block, long startMillis, long endMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.index = Math.min(block << BLOCK_SHIFT, size);
+        }
+
+        /**
+         * Moves to the next bucket of the time range.
+         *
+         * @return true if there is a next bucket, false if the end of the time range was reached
+         */
+        public boolean next() {
+            while (index < size) {
+                if ((index & (BLOCK_SIZE - 1)) == 0) {
+                    int block = index >> BLOCK_SHIFT;
+                    position = blockOffsets[block];
+                    bucket = firstBucketStarts[block] / bucketMillis;
+                    last = 0;
+                }
+                index++;
+                bucket += readVarLong();
+                first = last + unzigzag(readVarLong());
+                count = (int) readVarLong() + 1;
+                if (count == 1) {
+                    min = first;
+                    max = first;
+                    last = first;
+                } else {
+                    min = first + unzigzag(readVarLong());
+                    max = first + unzigzag(readVarLong());
+                    last = first + unzigzag(readVarLong());
+                }
+                long bucketStart = bucketStart();
+                if (bucketStart >= endMillis) {
+                    index = size;
+                    return false;
+                }
+                if (bucketStart >= startMillis) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        public long bucketStart() {
+            return bucket * bucketMillis;
+        }
+
+        public long unscaledMin() {
+            return min;
+        }
+
+        public long unscaledMax() {
+            return max;
+        }
+
+        public long unscaledFirst() {
+            return first;
+        }
+
+        public long unscaledLast() {
+            return last;
+        }
+
+        public int count() {
+            return count;
+        }
+    }
+
+    /**
+     * Growable byte stream and block headers the buckets are encoded into, from data points or from the buckets of a
+     * finer rollup, both added in timestamp order. The open bucket is written once a later bucket starts.
+     */
+    private static final class Encoder {
+        private final long bucketMillis;
+        private final long resumeFrom;
+        private long[] firstBucketStarts;
+        private int[] blockOffsets;
+        private byte[] bytes;
+        private int position;
+        private int size;
+        private long previousBucket;
+        private long previousLast;
+        private long start;
+        private long min;
+        private long max;
+        private long first;
+        private long last;
+        private int count;
+
+        Encoder(long bucketMillis, CompressedPriceRollup previous, int keptBlocks) {
+            this.bucketMillis = bucketMillis;
+            int keptBytes = keptBlocks == 0 ? 0 : previous.blockOffsets[keptBlocks];
+            resumeFrom = keptBlocks == 0 ? Long.MIN_VALUE : previous.firstBucketStarts[keptBlocks];
+            firstBucketStarts = new long[keptBlocks + 16];
+            blockOffsets = new int[keptBlocks + 16];
+            bytes = new byte[keptBytes + 256];
+            if (keptBlocks > 0) {
+                System.arraycopy(previous.firstBucketStarts, 0, firstBucketStarts, 0, keptBlocks);
+                System.arraycopy(previous.blockOffsets, 0, blockOffsets, 0, keptBlocks);
+                System.arraycopy(previous.bytes, 0, bytes, 0, keptBytes);
+            }
+            position = keptBytes;
+            size = keptBlocks << BLOCK_SHIFT;
+        }
+
+        /**
+         * Returns the start of the first bucket to encode, the data before it is in the kept blocks.
+         */
+        long resumeFrom() {
+            return resumeFrom;
+        }
+
+        void add(long timestamp, long min, long max, long first, long last, int count) {
+            long bucketStart = bucketStart(timestamp, bucketMillis);
+            if (this.count > 0 && start == bucketStart) {
+                this.min = Math.min(this.min, min);
+                this.max = Math.max(this.max, max);
+            } else {
+                flush();
+                start = bucketStart;
+                this.min = min;
+                this.max = max;
+                this.first = first;
+            }
+            this.last = last;
+            this.count += count;
+        }
+
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            long bucket = start / bucketMillis;
+            if ((size & (BLOCK_SIZE - 1)) == 0) {
+                int block = size >> BLOCK_SHIFT;
+                if (block == firstBucketStarts.length) {
+                    firstBucketStarts = Arrays.copyOf(firstBucketStarts, block * 2);
+                    blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                }
+                firstBucketStarts[block] = start;
+                blockOffsets[block] = position;
+                previousBucket = bucket;
+                previousLast = 0;
+            }
+            writeVarLong(bucket - previousBucket);
+            writeVarLong(zigzag(first - previousLast));
+            writeVarLong(count - 1);
+            if (count > 1) {
+                writeVarLong(zigzag(min - first));
+                writeVarLong(zigzag(max - first));
+                writeVarLong(zigzag(last - first));
+            }
+            previousBucket = bucket;
+            previousLast = last;
+            size++;
+            count = 0;
+        }
+
+        private void writeVarLong(long value) {
+            // a long takes at most 10 bytes of 7 bits
+            if (position + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        CompressedPriceRollup build(String symbol, int scale) {
+            flush();
+            int blocks = (size + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+            return new CompressedPriceRollup(
+                    symbol,
+                    bucketMillis,
+                    scale,
+                    size,
+                    Arrays.copyOf(firstBucketStarts, blocks),
+                    Arrays.copyOf(blockOffsets, blocks),
+                    Arrays.copyOf(bytes, position)
+            );
+        }
+    }
+}
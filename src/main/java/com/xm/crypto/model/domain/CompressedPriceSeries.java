@@ -0,0 +1,785 @@
+package com.xm.crypto.model.domain;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable, compressed form of a {@link PriceSeries}, encoded in the style of the Gorilla time series compression.
+ * <p>
+ * The data points are split into blocks of {@value #BLOCK_SIZE}. The header of each block holds the first and last
+ * timestamp, the first, lowest and highest price, the timestamps of the oldest lowest and highest price and the
+ * position of the block in the bit stream, in primitive columns. The bit stream holds every further data point of a
+ * block as the delta of the delta of its timestamp and the delta of its unscaled price, both zigzag encoded and
+ * prefixed with a variable-length code selecting the number of bits, so regular timestamps take a single bit and small
+ * price moves one or two bytes. Blocks are decoded
+ * independently, so a scan of a time range skips the blocks before it without decoding them, and a merge keeps the
+ * blocks before the first changed data point as they are.
+ * <p>
+ * A {@link RangeExtremaIndex} over the lowest and highest prices of the block headers answers the blocks fully within
+ * a time range with a single table lookup, so a price range or statistics query costs two binary searches over the
+ * block headers, the lookup and the decoding of the two blocks at the edges of the time range.
+ */
+public final class CompressedPriceSeries {
+    public static final int BLOCK_SIZE = 128;
+
+    private static final int BLOCK_SHIFT = 7;
+    private static final int MAX_PREFIX = 4;
+
+    private final String symbol;
+    private final int scale;
+    private final int size;
+    private final long[] firstTimestamps;
+    private final long[] lastTimestamps;
+    private final long[] firstPrices;
+    private final long[] minPrices;
+    private final long[] maxPrices;
+    private final long[] minTimestamps;
+    private final long[] maxTimestamps;
+    private final long[] blockOffsets;
+    private final long[] bits;
+    private final RangeExtremaIndex rangeIndex;
+
+    private CompressedPriceSeries(
+            String symbol,
+            int scale,
+            int size,
+            long[] firstTimestamps,
+            long[] lastTimestamps,
+            long[] firstPrices,
+            long[] minPrices,
+            long[] maxPrices,
+            long[] minTimestamps,
+            long[] maxTimestamps,
+            long[] blockOffsets,
+            long[] bits,
+            RangeExtremaIndex rangeIndex
+    ) {
+        this.symbol = symbol;
+        this.scale = scale;
+        this.size = size;
+        this.firstTimestamps = firstTimestamps;
+        this.lastTimestamps = lastTimestamps;
+        this.firstPrices = firstPrices;
+        this.minPrices = minPrices;
+        this.maxPrices = maxPrices;
+        this.minTimestamps = minTimestamps;
+        this.maxTimestamps = maxTimestamps;
+        this.blockOffsets = blockOffsets;
+        this.bits = bits;
+        this.rangeIndex = rangeIndex;
+    }
+
+    /**
+     * Compresses a series in a single pass.
+     *
+     * @param series the series to compress
+     * @return the compressed series
+     */
+    public static CompressedPriceSeries of(PriceSeries series) {
+        return encode(series, null, 0);
+    }
+
+    /**
+     * Checks whether the series holds every data point of the given series with the same price and scale, so merging
+     * them would leave it unchanged. Only the blocks from the first of the given data points on are decoded.
+     *
+     * @param other the data points to look for
+     * @return true if all data points are held, false if merging them would change the series
+     */
+    public boolean containsAll(PriceSeries other) {
+        if (other.isEmpty()) {
+            return true;
+        }
+        if (other.scale() > scale) {
+            return false;
+        }
+        long factor = FixedPoint.powerOfTen(scale - other.scale());
+        Scanner scanner = scan(other.timestamp(0), Long.MAX_VALUE);
+        for (int i = 0; i < other.size(); i++) {
+            long timestamp = other.timestamp(i);
+            do {
+                if (!scanner.next()) {
+                    return false;
+                }
+            } while (scanner.timestamp() < timestamp);
+            long price = scanner.unscaledPrice();
+            // dividing the held price instead of multiplying the other one cannot overflow
+            if (scanner.timestamp() != timestamp || price % factor != 0 || price / factor != other.unscaledPrice(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges data points into the compressed series, the same way as {@link PriceSeries#merge(PriceSeries)}. The blocks
+     * ending before the first changed data point are kept as they are, only the blocks from there on are decoded,
+     * merged with the changes and encoded again. All blocks are encoded again if the changes have a higher scale.
+     *
+     * @param changes the data points to merge into this series, of the same symbol
+     * @return a new compressed series containing the data points of both series
+     */
+    public CompressedPriceSeries merge(PriceSeries changes) {
+        if (!symbol.equals(changes.symbol())) {
+            throw new IllegalArgumentException("Cannot merge series of " + changes.symbol() + " into " + symbol);
+        }
+        if (changes.isEmpty()) {
+            return this;
+        }
+        // the end of the last block in the bit stream is not kept, so the last block is always encoded again
+        int keptBlocks = changes.scale() > scale
+                ? 0
+                : Math.min(firstBlockEndingAtOrAfter(changes.timestamp(0)), Math.max(firstTimestamps.length - 1, 0));
+        return encode(decode(keptBlocks).merge(changes), this, keptBlocks);
+    }
+
+    /**
+     * Encodes the data points of a series after the first blocks of a previous compressed series. The kept blocks
+     * are full, so the series starts a block.
+     */
+    private static CompressedPriceSeries encode(PriceSeries series, CompressedPriceSeries previous, int keptBlocks) {
+        int blocks = keptBlocks + ((series.size() + BLOCK_SIZE - 1) >> BLOCK_SHIFT);
+        long[] firstTimestamps = headers(previous == null ? null : previous.firstTimestamps, blocks);
+        long[] lastTimestamps = headers(previous == null ? null : previous.lastTimestamps, blocks);
+        long[] firstPrices = headers(previous == null ? null : previous.firstPrices, blocks);
+        long[] minPrices = headers(previous == null ? null : previous.minPrices, blocks);
+        long[] maxPrices = headers(previous == null ? null : previous.maxPrices, blocks);
+        long[] minTimestamps = headers(previous == null ? null : previous.minTimestamps, blocks);
+        long[] maxTimestamps = headers(previous == null ? null : previous.maxTimestamps, blocks);
+        long[] blockOffsets = headers(previous == null ? null : previous.blockOffsets, blocks);
+        BitWriter writer = keptBlocks == 0
+                ? new BitWriter(series.size())
+                : new BitWriter(previous.bits, previous.blockOffsets[keptBlocks], series.size());
+        for (int block = keptBlocks; block < blocks; block++) {
+            int from = (block - keptBlocks) << BLOCK_SHIFT;
+            int to = Math.min(from + BLOCK_SIZE, series.size());
+            long timestamp = series.timestamp(from);
+            long price = series.unscaledPrice(from);
+            long delta = 0;
+            long min = price;
+            long max = price;
+            long minTimestamp = timestamp;
+            long maxTimestamp = timestamp;
+            blockOffsets[block] = writer.position();
+            firstTimestamps[block] = timestamp;
+            firstPrices[block] = price;
+            for (int i = from + 1; i < to; i++) {
+                long nextDelta = series.timestamp(i) - timestamp;
+                writer.writeCoded(zigzag(nextDelta - delta));
+                writer.writeCoded(zigzag(series.unscaledPrice(i) - price));
+                delta = nextDelta;
+                timestamp = series.timestamp(i);
+                price = series.unscaledPrice(i);
+                if (price < min) {
+                    min = price;
+                    minTimestamp = timestamp;
+                }
+                if (price > max) {
+                    max = price;
+                    maxTimestamp = timestamp;
+                }
+            }
+            lastTimestamps[block] = timestamp;
+            minPrices[block] = min;
+            maxPrices[block] = max;
+            minTimestamps[block] = minTimestamp;
+            maxTimestamps[block] = maxTimestamp;
+        }
+        return new CompressedPriceSeries(
+                series.symbol(),
+                series.scale(),
+                (keptBlocks << BLOCK_SHIFT) + series.size(),
+                firstTimestamps,
+                lastTimestamps,
+                firstPrices,
+                minPrices,
+                maxPrices,
+                minTimestamps,
+                maxTimestamps,
+                blockOffsets,
+                writer.toArray(),
+                keptBlocks == 0
+                        ? RangeExtremaIndex.of(minPrices, maxPrices)
+                        : previous.rangeIndex.update(minPrices, maxPrices, keptBlocks)
+        );
+    }
+
+    /**
+     * Returns a header column of the given number of blocks, starting with the entries of the previous column.
+     */
+    private static long[] headers(long[] previous, int blocks) {
+        return previous == null ? new long[blocks] : Arrays.copyOf(previous, blocks);
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Decompresses the whole series.
+     *
+     * @return the series
+     * @throws IllegalArgumentException if the decoded timestamps are not strictly ascending
+     */
+    public PriceSeries toSeries() {
+        PriceSeries series = decode(0);
+        for (int i = 1; i < size; i++) {
+            if (series.timestamp(i) <= series.timestamp(i - 1)) {
+                throw new IllegalArgumentException("Invalid compressed price series of " + symbol);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Decodes the data points from the given block on.
+     */
+    private PriceSeries decode(int firstBlock) {
+        int offset = firstBlock << BLOCK_SHIFT;
+        long[] timestamps = new long[size - offset];
+        long[] prices = new long[size - offset];
+        for (int block = firstBlock; block < firstTimestamps.length; block++) {
+            decodeBlock(block, timestamps, prices, (block << BLOCK_SHIFT) - offset);
+        }
+        return PriceSeries.of(symbol, timestamps, prices, scale);
+    }
+
+    /**
+     * Returns the timestamp of the first data point.
+     *
+     * @return the timestamp in epoch milliseconds
+     * @throws ArrayIndexOutOfBoundsException if the series is empty
+     */
+    public long firstTimestamp() {
+        return firstTimestamps[0];
+    }
+
+    /**
+     * Returns the timestamp of the last data point.
+     *
+     * @return the timestamp in epoch milliseconds
+     * @throws ArrayIndexOutOfBoundsException if the series is empty
+     */
+    public long lastTimestamp() {
+        return lastTimestamps[lastTimestamps.length - 1];
+    }
+
+    /**
+     * Returns the timestamp of the data point at the given index, decoding its block.
+     *
+     * @param index the index of the data point
+     * @return the timestamp in epoch milliseconds
+     */
+    public long timestamp(int index) {
+        return new DecodedBlock().timestamp(Objects.checkIndex(index, size));
+    }
+
+    /**
+     * Returns the index of the first data point with a timestamp greater than or equal to the given one. The block
+     * is found by the last timestamps of the blocks, only that block is decoded.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the index of the first matching data point, or {@link #size()} if there is none
+     */
+    public int lowerBound(long timestamp) {
+        return lowerBound(timestamp, new DecodedBlock());
+    }
+
+    private int lowerBound(long timestamp, DecodedBlock decoded) {
+        int block = firstBlockEndingAtOrAfter(timestamp);
+        if (block == firstTimestamps.length) {
+            return size;
+        }
+        if (firstTimestamps[block] >= timestamp) {
+            return block << BLOCK_SHIFT;
+        }
+        decoded.decode(block);
+        int index = Arrays.binarySearch(decoded.timestamps, 0, decoded.count, timestamp);
+        return (block << BLOCK_SHIFT) + (index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * Returns the statistics of the data points within the time range. The blocks fully within the time range are
+     * answered by the range index and their headers, only the blocks at the edges of the time range are decoded. On
+     * equal prices the oldest data point wins.
+     *
+     * @param startMillis the start of the time range (inclusive)
+     * @param endMillis   the end of the time range (exclusive)
+     * @return the statistics, or empty if there is no data point within the time range
+     */
+    public Optional<CryptoStats> stats(long startMillis, long endMillis) {
+        // the blocks at both edges of the time range stay decoded for the whole query
+        DecodedBlock head = new DecodedBlock();
+        DecodedBlock tail = new DecodedBlock();
+        int from = lowerBound(startMillis, head);
+        int to = lowerBound(endMillis, tail);
+        if (from >= to) {
+            return Optional.empty();
+        }
+        Extremum min = extremum(from, to, false, head, tail);
+        Extremum max = extremum(from, to, true, head, tail);
+        return Optional.of(new CryptoStats(
+                symbol,
+                crypto(head.timestamp(from), head.price(from)),
+                crypto(tail.timestamp(to - 1), tail.price(to - 1)),
+                crypto(min.timestamp(), min.price()),
+                crypto(max.timestamp(), max.price()),
+                to - from
+        ));
+    }
+
+    /**
+     * Returns the lowest and highest price within the time range, in the same way as {@link #stats(long, long)}.
+     *
+     * @param startMillis the start of the time range (inclusive)
+     * @param endMillis   the end of the time range (exclusive)
+     * @return the price range, or empty if there is no data point within the time range
+     */
+    public Optional<PriceRange> priceRange(long startMillis, long endMillis) {
+        DecodedBlock head = new DecodedBlock();
+        DecodedBlock tail = new DecodedBlock();
+        int from = lowerBound(startMillis, head);
+        int to = lowerBound(endMillis, tail);
+        if (from >= to) {
+            return Optional.empty();
+        }
+        return Optional.of(new PriceRange(
+                symbol,
+                extremum(from, to, false, head, tail).price(),
+                extremum(from, to, true, head, tail).price(),
+                scale
+        ));
+    }
+
+    /**
+     * Returns the oldest data point with the lowest or highest price in the index range [from, to): the extremum of
+     * the data points before the first full block, the one of the full blocks looked up in the range index and the
+     * one of the data points after the last full block.
+     */
+    private Extremum extremum(int from, int to, boolean highest, DecodedBlock head, DecodedBlock tail) {
+        int headBlock = from >> BLOCK_SHIFT;
+        int firstFullBlock = (from + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int endFullBlock = to == size ? firstTimestamps.length : to >> BLOCK_SHIFT;
+        if (firstFullBlock >= endFullBlock) {
+            return scan(from, to, headBlock, highest, head, tail, null);
+        }
+        Extremum extremum = scan(from, firstFullBlock << BLOCK_SHIFT, headBlock, highest, head, tail, null);
+        int block = highest
+                ? rangeIndex.blockOfMax(firstFullBlock, endFullBlock)
+                : rangeIndex.blockOfMin(firstFullBlock, endFullBlock);
+        long price = highest ? maxPrices[block] : minPrices[block];
+        if (extremum == null || exceeds(price, extremum.price(), highest)) {
+            extremum = new Extremum(highest ? maxTimestamps[block] : minTimestamps[block], price);
+        }
+        return scan(endFullBlock << BLOCK_SHIFT, to, headBlock, highest, head, tail, extremum);
+    }
+
+    /**
+     * Continues the search of an extremum over the data points [from, to), decoded into the head buffer if they are
+     * in the head block and into the tail buffer otherwise. The given extremum wins on equal prices.
+     */
+    private Extremum scan(
+            int from,
+            int to,
+            int headBlock,
+            boolean highest,
+            DecodedBlock head,
+            DecodedBlock tail,
+            Extremum extremum
+    ) {
+        if (from >= to) {
+            return extremum;
+        }
+        boolean found = extremum != null;
+        long timestamp = found ? extremum.timestamp() : 0;
+        long price = found ? extremum.price() : 0;
+        for (int i = from; i < to; i++) {
+            DecodedBlock decoded = i >> BLOCK_SHIFT == headBlock ? head : tail;
+            if (!found || exceeds(decoded.price(i), price, highest)) {
+                found = true;
+                timestamp = decoded.timestamp(i);
+                price = decoded.price(i);
+            }
+        }
+        return new Extremum(timestamp, price);
+    }
+
+    private static boolean exceeds(long price, long extremum, boolean highest) {
+        return highest ? price > extremum : price < extremum;
+    }
+
+    private Crypto crypto(long timestamp, long price) {
+        return new Crypto(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC),
+                symbol,
+                BigDecimal.valueOf(price, scale)
+        );
+    }
+
+    /**
+     * Returns a scanner over the data points within the time range, in time order. The blocks ending before the
+     * time range are skipped without decoding them.
+     *
+     * @param startMillis the start of the time range (inclusive)
+     * @param endMillis   the end of the time range (exclusive)
+     * @return the scanner, positioned before the first data point of the time range
+     */
+    public Scanner scan(long startMillis, long endMillis) {
+        return new Scanner(firstBlockEndingAtOrAfter(startMillis), startMillis, endMillis);
+    }
+
+    /**
+     * Returns the heap size of the bit stream, the block headers and the range index in bytes.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return (long) (bits.length + 8 * firstTimestamps.length) * Long.BYTES + rangeIndex.sizeInBytes();
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+     *
+     * @return the size of the binary form in bytes
+     */
+    public long serializedSize() {
+        return BinaryColumns.sizeOf(symbol) + 2 * Integer.BYTES
+                + BinaryColumns.sizeOf(firstTimestamps) + BinaryColumns.sizeOf(lastTimestamps)
+                + BinaryColumns.sizeOf(firstPrices) + BinaryColumns.sizeOf(minPrices) + BinaryColumns.sizeOf(maxPrices)
+                + BinaryColumns.sizeOf(minTimestamps) + BinaryColumns.sizeOf(maxTimestamps)
+                + BinaryColumns.sizeOf(blockOffsets) + BinaryColumns.sizeOf(bits);
+    }
+
+    /**
+     * Writes the compressed series in binary form, the symbol, the scale, the size, the block headers and the bit
+     * stream, see {@link #readFrom(ByteBuffer)}. The range index is not written, it is built from the block headers.
+     *
+     * @param buffer the buffer to write to, with at least {@link #serializedSize()} bytes remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        BinaryColumns.put(buffer, symbol);
+        buffer.putInt(scale);
+        buffer.putInt(size);
+        BinaryColumns.put(buffer, firstTimestamps);
+        BinaryColumns.put(buffer, lastTimestamps);
+        BinaryColumns.put(buffer, firstPrices);
+        BinaryColumns.put(buffer, minPrices);
+        BinaryColumns.put(buffer, maxPrices);
+        BinaryColumns.put(buffer, minTimestamps);
+        BinaryColumns.put(buffer, maxTimestamps);
+        BinaryColumns.put(buffer, blockOffsets);
+        BinaryColumns.put(buffer, bits);
+    }
+
+    /**
+     * Reads a compressed series written by {@link #writeTo(ByteBuffer)}. The bit stream is not decoded, only the block
+     * headers are checked.
+     *
+     * @param buffer the buffer to read from
+     * @return the compressed series
+     * @throws IllegalArgumentException if the buffer does not hold a valid compressed series
+     */
+    public static CompressedPriceSeries readFrom(ByteBuffer buffer) {
+        String symbol = BinaryColumns.getString(buffer);
+        int scale = buffer.getInt();
+        int size = buffer.getInt();
+        long[] firstTimestamps = BinaryColumns.getLongs(buffer);
+        long[] lastTimestamps = BinaryColumns.getLongs(buffer);
+        long[] firstPrices = BinaryColumns.getLongs(buffer);
+        long[] minPrices = BinaryColumns.getLongs(buffer);
+        long[] maxPrices = BinaryColumns.getLongs(buffer);
+        if (minPrices.length != maxPrices.length) {
+            throw new IllegalArgumentException("Invalid compressed price series of " + symbol);
+        }
+        CompressedPriceSeries series = new CompressedPriceSeries(
+                symbol,
+                scale,
+                size,
+                firstTimestamps,
+                lastTimestamps,
+                firstPrices,
+                minPrices,
+                maxPrices,
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                RangeExtremaIndex.of(minPrices, maxPrices)
+        );
+        if (!series.isValid()) {
+            throw new IllegalArgumentException("Invalid compressed price series of " + series.symbol);
+        }
+        return series;
+    }
+
+    private boolean isValid() {
+        int blocks = (size + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        if (scale < 0 || scale > FixedPoint.MAX_SCALE || size < 0 || firstTimestamps.length != blocks
+                || lastTimestamps.length != blocks || firstPrices.length != blocks || minPrices.length != blocks
+                || maxPrices.length != blocks || minTimestamps.length != blocks || maxTimestamps.length != blocks
+                || blockOffsets.length != blocks || bits.length == 0) {
+            return false;
+        }
+        // the decoder reads ahead by one word, so the last word of the bit stream is padding
+        long payloadBits = (long) (bits.length - 1) * Long.SIZE;
+        for (int block = 0; block < blocks; block++) {
+            if (blockOffsets[block] < (block == 0 ? 0 : blockOffsets[block - 1]) || blockOffsets[block] > payloadBits
+                    || firstTimestamps[block] > lastTimestamps[block] || minPrices[block] > maxPrices[block]
+                    || minTimestamps[block] < firstTimestamps[block] || minTimestamps[block] > lastTimestamps[block]
+                    || maxTimestamps[block] < firstTimestamps[block] || maxTimestamps[block] > lastTimestamps[block]
+                    || (block > 0 && firstTimestamps[block] <= lastTimestamps[block - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first block whose last timestamp is at or after the given one, or the number of blocks.
+     */
+    private int firstBlockEndingAtOrAfter(long timestamp) {
+        int index = Arrays.binarySearch(lastTimestamps, timestamp);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Decodes the data points of a block into the given columns, keeping the position in the bit stream and the
+     * running values in local variables, and returns the number of data points of the block.
+     */
+    private int decodeBlock(int block, long[] timestamps, long[] prices, int offset) {
+        int count = Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT));
+        long[] words = bits;
+        long position = blockOffsets[block];
+        long timestamp = firstTimestamps[block];
+        long price = firstPrices[block];
+        long delta = 0;
+        timestamps[offset] = timestamp;
+        prices[offset] = price;
+        for (int i = 1; i < count; i++) {
+            // a timestamp of up to 4 + 16 bits leaves room for the longest price but a 64 bit one in the same peek
+            long peek = peek(words, position);
+            int prefix = Math.min(Long.numberOfLeadingZeros(~peek), MAX_PREFIX);
+            int width = payloadBits(prefix);
+            int consumed = prefixBits(prefix);
+            delta += unzigzag(width == Long.SIZE ? peek(words, position + consumed) : payload(peek, consumed, width));
+            consumed += width;
+            peek = consumed <= 20 ? peek << consumed : peek(words, position + consumed);
+
+            prefix = Math.min(Long.numberOfLeadingZeros(~peek), MAX_PREFIX);
+            width = payloadBits(prefix);
+            int prefixBits = prefixBits(prefix);
+            price += unzigzag(width == Long.SIZE
+                    ? peek(words, position + consumed + prefixBits)
+                    : payload(peek, prefixBits, width));
+            position += consumed + prefixBits + width;
+
+            timestamp += delta;
+            timestamps[offset + i] = timestamp;
+            prices[offset + i] = price;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the payload of less than 64 bits following a prefix of the given length at the top of the peeked bits.
+     */
+    private static long payload(long peek, int prefixBits, int width) {
+        // shifting by 1 and then by 63 - width yields 0 for a width of 0, where a shift by 64 would be a shift by 0
+        return (peek << prefixBits >>> 1) >>> (Long.SIZE - 1 - width);
+    }
+
+    /**
+     * Returns the number of payload bits following a prefix of 0 to 4 leading ones: 0, 8, 16, 32 or 64.
+     */
+    private static int payloadBits(int prefix) {
+        return (4 << prefix) & -Math.min(prefix, 1);
+    }
+
+    /**
+     * Returns the length of a prefix of 0 to 3 leading ones terminated by a zero, or of 4 leading ones.
+     */
+    private static int prefixBits(int prefix) {
+        return prefix + 1 - (prefix >>> 2);
+    }
+
+    /**
+     * Returns the 64 bits starting at the given position. The bit stream ends with a padding word, so the word
+     * following the one of the position always exists.
+     */
+    private static long peek(long[] words, long position) {
+        int word = (int) (position >>> 6);
+        int bit = (int) (position & 63);
+        // shifting by 1 and then by 63 - bit also works for bit = 0, where a shift by 64 would be a shift by 0
+        return words[word] << bit | (words[word + 1] >>> 1) >>> (63 - bit);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * The oldest data point with the lowest or highest price found so far.
+     */
+    private record Extremum(long timestamp, long price) {
+    }
+
+    /**
+     * Buffer holding the last decoded block, so a query reading several data points of a block decodes it once.
+     */
+    private final class DecodedBlock {
+        private final long[] timestamps = new long[BLOCK_SIZE];
+        private final long[] prices = new long[BLOCK_SIZE];
+        private int block = -1;
+        private int count;
+
+        void decode(int block) {
+            if (this.block != block) {
+                count = decodeBlock(block, timestamps, prices, 0);
+                this.block = block;
+            }
+        }
+
+        long timestamp(int index) {
+            decode(index >> BLOCK_SHIFT);
+            return timestamps[index & (BLOCK_SIZE - 1)];
+        }
+
+        long price(int index) {
+            decode(index >> BLOCK_SHIFT);
+            return prices[index & (BLOCK_SIZE - 1)];
+        }
+    }
+
+    /**
+     * Forward-only cursor over the data points of a time range. It decodes one block at a time into a buffer,
+     * so it allocates nothing per data point.
+     */
+    public final class Scanner {
+        private final long startMillis;
+        private final long endMillis;
+        private final long[] timestamps = new long[BLOCK_SIZE];
+        private final long[] prices = new long[BLOCK_SIZE];
+        private int block;
+        private int index;
+        private int count;
+
+        private Scanner(int block, long startMillis, long endMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.block = block - 1;
+            this.index = -1;
+        }
+
+        /**
+         * Moves to the next data point of the time range.
+         *
+         * @return true if there is a next data point, false if the end of the time range was reached
+         */
+        public boolean next() {
+            do {
+                if (++index >= count) {
+                    if (++block >= firstTimestamps.length || firstTimestamps[block] >= endMillis) {
+                        return finish();
+                    }
+                    count = decodeBlock(block, timestamps, prices, 0);
+                    index = 0;
+                }
+            } while (timestamps[index] < startMillis);
+            return timestamps[index] < endMillis || finish();
+        }
+
+        private boolean finish() {
+            block = firstTimestamps.length;
+            index = 0;
+            count = 0;
+            return false;
+        }
+
+        public long timestamp() {
+            return timestamps[index];
+        }
+
+        public long unscaledPrice() {
+            return prices[index];
+        }
+    }
+
+    /**
+     * Growable bit stream written most significant bit first, with a trailing padding word.
+     */
+    private static final class BitWriter {
+        private long[] words;
+        private long position;
+
+        BitWriter(int dataPoints) {
+            words = new long[Math.max(dataPoints / 16, 1) + 1];
+        }
+
+        /**
+         * Continues the given bit stream at the given position, dropping the bits after it.
+         */
+        BitWriter(long[] prefix, long position, int dataPoints) {
+            int word = (int) (position >>> 6);
+            int bit = (int) (position & 63);
+            words = Arrays.copyOf(prefix, word + Math.max(dataPoints / 16, 1) + 2);
+            words[word] &= bit == 0 ? 0 : -1L << (Long.SIZE - bit);
+            Arrays.fill(words, word + 1, words.length, 0);
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        void writeCoded(long value) {
+            int prefix = 0;
+            while (prefix < MAX_PREFIX && (prefix == 0 ? value != 0 : value >>> payloadBits(prefix) != 0)) {
+                prefix++;
+            }
+            // prefix ones, followed by a zero unless there are 4 of them
+            write(((1L << prefix) - 1) << (prefixBits(prefix) - prefix), prefixBits(prefix));
+            if (prefix > 0) {
+                write(value, payloadBits(prefix));
+            }
+        }
+
+        private void write(long value, int width) {
+            int word = (int) (position >>> 6);
+            int bit = (int) (position & 63);
+            if (word + 2 > words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            long aligned = width == Long.SIZE ? value : value & ((1L << width) - 1);
+            int free = Long.SIZE - bit;
+            if (width <= free) {
+                words[word] |= aligned << (free - width);
+            } else {
+                words[word] |= aligned >>> (width - free);
+                words[word + 1] |= aligned << (Long.SIZE - (width - free));
+            }
+            position += width;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((position + 63) >>> 6) + 1);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.xm.crypto.model.domain;
+
+public record CryptoStats(
+        String symbol,
+        Crypto oldest,
+        Crypto newest,
+        Crypto min,
+        Crypto max,
+        long count
+) {
+}
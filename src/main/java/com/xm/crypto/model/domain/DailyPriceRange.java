@@ -0,0 +1,15 @@
+package com.xm.crypto.model.domain;
+
+import java.time.LocalDate;
+
+/**
+ * The lowest and highest price of a crypto on a UTC day.
+ *
+ * @param date       the UTC day
+ * @param priceRange the price range of the crypto on the day
+ */
+public record DailyPriceRange(
+        LocalDate date,
+        PriceRange priceRange
+) {
+}
@@ -0,0 +1,15 @@
+package com.xm.crypto.model.domain;
+
+import java.time.Instant;
+
+/**
+ * Version of the loaded price data, changed on every load of new prices.
+ *
+ * @param version      the version number, increasing with every load, also across restarts
+ * @param lastModified the time of the load
+ */
+public record DatasetVersion(
+        long version,
+        Instant lastModified
+) {
+}
@@ -0,0 +1,91 @@
+package com.xm.crypto.model.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on fixed-point decimals held as an unscaled {@code long} and a scale, i.e. {@code unscaled * 10^-scale}.
+ * Prices are stored and computed in this form; {@link BigDecimal}s are only created at the API boundary.
+ * The results are exactly the ones of the equivalent {@link BigDecimal} operations.
+ */
+public final class FixedPoint {
+
+    /**
+     * The scale of the normalized ranges.
+     */
+    public static final int NORMALIZED_RANGE_SCALE = 8;
+
+    static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * The highest scale whose power of ten fits into a {@code long}.
+     */
+    public static final int MAX_SCALE = 18;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Returns 10 to the power of the given exponent.
+     *
+     * @param exponent the exponent, between 0 and {@value #MAX_SCALE}
+     * @return the power of ten
+     */
+    public static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * Calculates the normalized range {@code (max - min) / min} of two prices of the same scale, rounded half up
+     * to {@value #NORMALIZED_RANGE_SCALE} decimal places.
+     *
+     * @param min the unscaled lowest price, must not be zero
+     * @param max the unscaled highest price, with the same scale as {@code min}
+     * @return the unscaled normalized range with a scale of {@value #NORMALIZED_RANGE_SCALE}
+     * @throws ArithmeticException if the normalized range does not fit into a {@code long}, i.e. max / min is
+     *                             above about 9 * 10^10
+     */
+    public static long normalizedRange(long min, long max) {
+        long range = max - min;
+        long scaledRange = range * POWERS_OF_TEN[NORMALIZED_RANGE_SCALE];
+        boolean exact = min > 0 && range >= 0
+                && Math.multiplyHigh(range, POWERS_OF_TEN[NORMALIZED_RANGE_SCALE]) == 0 && scaledRange >= 0;
+        if (!exact) {
+            // negative prices or a range too wide for 64 bits, not expected for real prices
+            return BigDecimal.valueOf(max).subtract(BigDecimal.valueOf(min))
+                    .divide(BigDecimal.valueOf(min), NORMALIZED_RANGE_SCALE, RoundingMode.HALF_UP)
+                    .unscaledValue()
+                    .longValueExact();
+        }
+        long quotient = scaledRange / min;
+        long remainder = scaledRange % min;
+        return remainder >= min - remainder ? quotient + 1 : quotient;
+    }
+
+    /**
+     * Strips the trailing zeros of a decimal, e.g. a price read from a column with a fixed scale, keeping a scale of
+     * at least 0, so it has the least scale it can be stored with as a fixed-point decimal.
+     *
+     * @param value the decimal
+     * @return the decimal without trailing zeros after the decimal point
+     */
+    public static BigDecimal normalize(BigDecimal value) {
+        BigDecimal stripped = value.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    /**
+     * Converts a fixed-point decimal to a {@link BigDecimal}.
+     *
+     * @param unscaled the unscaled value
+     * @param scale    the scale
+     * @return the value as a {@link BigDecimal}
+     */
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+}
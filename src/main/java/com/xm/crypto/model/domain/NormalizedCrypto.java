@@ -1,9 +1,13 @@
 package com.xm.crypto.model.domain;
 
-import java.math.BigDecimal;
-
+/**
+ * The normalized range {@code (max - min) / min} of a crypto.
+ *
+ * @param symbol          the crypto symbol
+ * @param normalizedRange the unscaled normalized range with a scale of {@link FixedPoint#NORMALIZED_RANGE_SCALE}
+ */
 public record NormalizedCrypto(
         String symbol,
-        BigDecimal normalizedRange
+        long normalizedRange
 ) {
 }
@@ -0,0 +1,49 @@
+package com.xm.crypto.model.domain;
+
+import com.xm.crypto.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor pointing at the timestamp of the first data point of a page. Unlike an offset, it keeps
+ * pointing at the same data point when data points are added before it, and it is resolved by a binary search
+ * (or an index seek) instead of skipping the data points of the previous pages.
+ */
+public final class PriceCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PriceCursor() {
+    }
+
+    /**
+     * Encodes the timestamp of the first data point of a page.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the URL safe cursor
+     */
+    public static String encode(long timestamp) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(timestamp).array());
+    }
+
+    /**
+     * Decodes a cursor created by {@link #encode(long)}.
+     *
+     * @param cursor the cursor
+     * @return the timestamp of the first data point of the page in epoch milliseconds
+     * @throws InvalidCursorException if the cursor was not created by {@link #encode(long)}
+     */
+    public static long decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        if (bytes.length != Long.BYTES) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+}
@@ -0,0 +1,29 @@
+package com.xm.crypto.model.domain;
+
+import java.util.Optional;
+
+/**
+ * A page of the data points of a crypto: the data points within [startMillis, endMillis). If the time range
+ * had more data points than fit into the page, the page ends at the timestamp of the first data point of the next page.
+ *
+ * @param symbol      the crypto symbol
+ * @param startMillis the start of the page in epoch milliseconds (inclusive)
+ * @param endMillis   the end of the page in epoch milliseconds (exclusive)
+ * @param hasNext     whether there are more data points after the page within the requested time range
+ */
+public record PricePage(
+        String symbol,
+        long startMillis,
+        long endMillis,
+        boolean hasNext
+) {
+
+    /**
+     * Returns the cursor of the next page.
+     *
+     * @return the cursor of the next page, or empty if this is the last page
+     */
+    public Optional<String> nextCursor() {
+        return hasNext ? Optional.of(PriceCursor.encode(endMillis)) : Optional.empty();
+    }
+}
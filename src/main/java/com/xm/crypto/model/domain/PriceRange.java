@@ -0,0 +1,49 @@
+package com.xm.crypto.model.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * The lowest and highest price of a crypto as fixed-point decimals sharing the same scale.
+ *
+ * @param symbol      the crypto symbol
+ * @param unscaledMin the unscaled lowest price
+ * @param unscaledMax the unscaled highest price
+ * @param scale       the scale of the prices
+ */
+public record PriceRange(
+        String symbol,
+        long unscaledMin,
+        long unscaledMax,
+        int scale
+) {
+
+    /**
+     * Creates a price range from decimal prices, e.g. the result of an SQL aggregate. Trailing zeros, like the ones
+     * of a column with a fixed scale, are not kept.
+     *
+     * @param symbol the crypto symbol
+     * @param min    the lowest price
+     * @param max    the highest price
+     * @throws ArithmeticException if a price does not fit into a fixed-point decimal
+     */
+    public PriceRange(String symbol, BigDecimal min, BigDecimal max) {
+        this(symbol, min, max, Math.max(FixedPoint.normalize(min).scale(), FixedPoint.normalize(max).scale()));
+    }
+
+    private PriceRange(String symbol, BigDecimal min, BigDecimal max, int scale) {
+        this(
+                symbol,
+                min.setScale(scale).unscaledValue().longValueExact(),
+                max.setScale(scale).unscaledValue().longValueExact(),
+                scale
+        );
+    }
+
+    public BigDecimal min() {
+        return FixedPoint.toBigDecimal(unscaledMin, scale);
+    }
+
+    public BigDecimal max() {
+        return FixedPoint.toBigDecimal(unscaledMax, scale);
+    }
+}
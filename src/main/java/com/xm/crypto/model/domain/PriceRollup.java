@@ -0,0 +1,429 @@
+package com.xm.crypto.model.domain;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable rollup of a {@link CompressedPriceSeries} into fixed-width time buckets (e.g. UTC days).
+ * For each bucket holding at least one data point the lowest, highest, first and last price and the number of
+ * data points are kept in primitive columns, ordered by the bucket start.
+ */
+public final class PriceRollup {
+
+    private final String symbol;
+    private final long bucketMillis;
+    private final int scale;
+    private final long[] bucketStarts;
+    private final long[] mins;
+    private final long[] maxes;
+    private final long[] firsts;
+    private final long[] lasts;
+    private final int[] counts;
+
+    private PriceRollup(
+            String symbol,
+            long bucketMillis,
+            int scale,
+            long[] bucketStarts,
+            long[] mins,
+            long[] maxes,
+            long[] firsts,
+            long[] lasts,
+            int[] counts
+    ) {
+        this.symbol = symbol;
+        this.bucketMillis = bucketMillis;
+        this.scale = scale;
+        this.bucketStarts = bucketStarts;
+        this.mins = mins;
+        this.maxes = maxes;
+        this.firsts = firsts;
+        this.lasts = lasts;
+        this.counts = counts;
+    }
+
+    /**
+     * Builds the rollup of a whole series in a single pass.
+     *
+     * @param series       the series to roll up
+     * @param bucketMillis the width of the buckets in milliseconds, buckets start at multiples of it since the epoch
+     * @return the rollup of the series
+     */
+    public static PriceRollup of(CompressedPriceSeries series, long bucketMillis) {
+        return build(series, bucketMillis, null, 0, Long.MIN_VALUE);
+    }
+
+    /**
+     * Decodes the buckets of a compressed rollup starting within a time range, stopping at bucket
+     * {@code maxBuckets + 1}.
+     *
+     * @param rollup      the compressed rollup
+     * @param startMillis the start of the time range (inclusive)
+     * @param endMillis   the end of the time range (exclusive)
+     * @param maxBuckets  the maximum number of buckets
+     * @return the buckets of the compressed rollup starting within the time range
+     */
+    public static PriceRollup of(CompressedPriceRollup rollup, long startMillis, long endMillis, int maxBuckets) {
+        Buckets buckets = new Buckets(rollup.bucketMillis(), null, 0, rollup.size());
+        for (CompressedPriceRollup.Scanner scanner = rollup.scan(startMillis, endMillis);
+             buckets.size() < maxBuckets && scanner.next(); ) {
+            add(buckets, scanner);
+        }
+        return buckets.build(rollup.symbol(), rollup.scale());
+    }
+
+    /**
+     * Builds a coarser rollup from a finer one in a single pass over its buckets, without going back to the data points.
+     *
+     * @param finer        the finer rollup
+     * @param bucketMillis the width of the buckets in milliseconds, a multiple of the bucket width of the finer rollup
+     * @return the coarser rollup
+     */
+    public static PriceRollup of(PriceRollup finer, long bucketMillis) {
+        return build(finer, bucketMillis, null, 0, 0);
+    }
+
+    /**
+     * Builds a coarser rollup from a compressed finer one in a single pass over its buckets.
+     *
+     * @param finer        the compressed finer rollup
+     * @param bucketMillis the width of the buckets in milliseconds, a multiple of the bucket width of the finer rollup
+     * @return the coarser rollup
+     */
+    public static PriceRollup of(CompressedPriceRollup finer, long bucketMillis) {
+        return build(finer, bucketMillis, null, 0, Long.MIN_VALUE);
+    }
+
+    /**
+     * Updates the rollup after the finer rollup it was built from changed. Buckets before the one containing
+     * {@code changedFrom} are reused, only the buckets from there on are rebuilt from the finer rollup.
+     *
+     * @param finer       the changed finer rollup
+     * @param changedFrom the lowest timestamp of the changed data points
+     * @return the rollup of the changed finer rollup
+     */
+    public PriceRollup update(PriceRollup finer, long changedFrom) {
+        if (finer.scale != scale) {
+            return of(finer, bucketMillis);
+        }
+        long changedBucketStart = bucketStart(changedFrom, bucketMillis);
+        int keptBuckets = lowerBound(changedBucketStart);
+        return build(finer, bucketMillis, this, keptBuckets, finer.lowerBound(changedBucketStart));
+    }
+
+    /**
+     * Updates the rollup after the compressed finer rollup it was built from changed. Buckets before the one
+     * containing {@code changedFrom} are reused, only the buckets from there on are rebuilt from the finer rollup.
+     *
+     * @param finer       the changed compressed finer rollup
+     * @param changedFrom the lowest timestamp of the changed data points
+     * @return the rollup of the changed finer rollup
+     */
+    public PriceRollup update(CompressedPriceRollup finer, long changedFrom) {
+        if (finer.scale() != scale) {
+            return of(finer, bucketMillis);
+        }
+        long changedBucketStart = bucketStart(changedFrom, bucketMillis);
+        return build(finer, bucketMillis, this, lowerBound(changedBucketStart), changedBucketStart);
+    }
+
+    private static PriceRollup build(
+            CompressedPriceSeries series,
+            long bucketMillis,
+            PriceRollup previous,
+            int keptBuckets,
+            long startMillis
+    ) {
+        Buckets buckets = new Buckets(bucketMillis, previous, keptBuckets, series.size());
+        for (CompressedPriceSeries.Scanner scanner = series.scan(startMillis, Long.MAX_VALUE); scanner.next(); ) {
+            long price = scanner.unscaledPrice();
+            buckets.add(scanner.timestamp(), price, price, price, price, 1);
+        }
+        return buckets.build(series.symbol(), series.scale());
+    }
+
+    private static PriceRollup build(
+            CompressedPriceRollup finer,
+            long bucketMillis,
+            PriceRollup previous,
+            int keptBuckets,
+            long startMillis
+    ) {
+        checkMultiple(bucketMillis, finer.bucketMillis());
+        Buckets buckets = new Buckets(bucketMillis, previous, keptBuckets, finer.size());
+        for (CompressedPriceRollup.Scanner scanner = finer.scan(startMillis, Long.MAX_VALUE); scanner.next(); ) {
+            add(buckets, scanner);
+        }
+        return buckets.build(finer.symbol(), finer.scale());
+    }
+
+    private static void add(Buckets buckets, CompressedPriceRollup.Scanner scanner) {
+        buckets.add(
+                scanner.bucketStart(),
+                scanner.unscaledMin(),
+                scanner.unscaledMax(),
+                scanner.unscaledFirst(),
+                scanner.unscaledLast(),
+                scanner.count()
+        );
+    }
+
+    private static PriceRollup build(PriceRollup finer, long bucketMillis, PriceRollup previous, int keptBuckets, int firstIndex) {
+        checkMultiple(bucketMillis, finer.bucketMillis);
+        Buckets buckets = new Buckets(bucketMillis, previous, keptBuckets, finer.size() - firstIndex);
+        for (int i = firstIndex; i < finer.size(); i++) {
+            buckets.add(finer.bucketStarts[i], finer.mins[i], finer.maxes[i], finer.firsts[i], finer.lasts[i], finer.counts[i]);
+        }
+        return buckets.build(finer.symbol, finer.scale);
+    }
+
+    private static void checkMultiple(long bucketMillis, long finerBucketMillis) {
+        if (bucketMillis % finerBucketMillis != 0) {
+            throw new IllegalArgumentException(
+                    "The bucket width " + bucketMillis + " is not a multiple of the finer one " + finerBucketMillis);
+        }
+    }
+
+    private static long bucketStart(long timestamp, long bucketMillis) {
+        return Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public int size() {
+        return bucketStarts.length;
+    }
+
+    public long bucketStart(int index) {
+        return bucketStarts[index];
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    public long unscaledMin(int index) {
+        return mins[index];
+    }
+
+    public long unscaledMax(int index) {
+        return maxes[index];
+    }
+
+    public long unscaledFirst(int index) {
+        return firsts[index];
+    }
+
+    public long unscaledLast(int index) {
+        return lasts[index];
+    }
+
+    public BigDecimal min(int index) {
+        return BigDecimal.valueOf(mins[index], scale);
+    }
+
+    public BigDecimal max(int index) {
+        return BigDecimal.valueOf(maxes[index], scale);
+    }
+
+    public BigDecimal first(int index) {
+        return BigDecimal.valueOf(firsts[index], scale);
+    }
+
+    public BigDecimal last(int index) {
+        return BigDecimal.valueOf(lasts[index], scale);
+    }
+
+    public int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Returns the index of the bucket starting at the given timestamp.
+     *
+     * @param bucketStart the start of the bucket in epoch milliseconds
+     * @return the index of the bucket, or -1 if there is no data point in the bucket
+     */
+    public int indexOf(long bucketStart) {
+        int index = Arrays.binarySearch(bucketStarts, bucketStart);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the index of the first bucket starting at or after the given timestamp.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the index of the first matching bucket, or {@link #size()} if there is none
+     */
+    public int lowerBound(long timestamp) {
+        int index = Arrays.binarySearch(bucketStarts, timestamp);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Returns the heap size of the columns in bytes.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return (long) bucketStarts.length * (5 * Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+     *
+     * @return the size of the binary form in bytes
+     */
+    public long serializedSize() {
+        return Long.BYTES + Integer.BYTES
+                + BinaryColumns.sizeOf(bucketStarts) + BinaryColumns.sizeOf(mins) + BinaryColumns.sizeOf(maxes)
+                + BinaryColumns.sizeOf(firsts) + BinaryColumns.sizeOf(lasts) + BinaryColumns.sizeOf(counts);
+    }
+
+    /**
+     * Writes the rollup in binary form, the bucket width, the scale and the columns, see
+     * {@link #readFrom(ByteBuffer, String)}. The symbol is not written, it is the one of the series.
+     *
+     * @param buffer the buffer to write to, with at least {@link #serializedSize()} bytes remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(bucketMillis);
+        buffer.putInt(scale);
+        BinaryColumns.put(buffer, bucketStarts);
+        BinaryColumns.put(buffer, mins);
+        BinaryColumns.put(buffer, maxes);
+        BinaryColumns.put(buffer, firsts);
+        BinaryColumns.put(buffer, lasts);
+        BinaryColumns.put(buffer, counts);
+    }
+
+    /**
+     * Reads a rollup written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     * @param symbol the symbol of the rolled up series
+     * @return the rollup
+     * @throws IllegalArgumentException if the buffer does not hold a valid rollup
+     */
+    public static PriceRollup readFrom(ByteBuffer buffer, String symbol) {
+        long bucketMillis = buffer.getLong();
+        int scale = buffer.getInt();
+        PriceRollup rollup = new PriceRollup(
+                symbol,
+                bucketMillis,
+                scale,
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getLongs(buffer),
+                BinaryColumns.getInts(buffer)
+        );
+        int size = rollup.size();
+        if (bucketMillis <= 0 || scale < 0 || scale > FixedPoint.MAX_SCALE || rollup.mins.length != size
+                || rollup.maxes.length != size || rollup.firsts.length != size || rollup.lasts.length != size
+                || rollup.counts.length != size) {
+            throw new IllegalArgumentException("Invalid rollup of " + symbol);
+        }
+        return rollup;
+    }
+
+    /**
+     * Growable columns the buckets are accumulated in, from data points or from the buckets of a finer rollup,
+     * both added in timestamp order.
+     */
+    private static final class Buckets {
+        private final long bucketMillis;
+        private final int keptBuckets;
+        private long[] bucketStarts;
+        private long[] mins;
+        private long[] maxes;
+        private long[] firsts;
+        private long[] lasts;
+        private int[] counts;
+        private int bucket;
+
+        Buckets(long bucketMillis, PriceRollup previous, int keptBuckets, int remaining) {
+            this.bucketMillis = bucketMillis;
+            this.keptBuckets = keptBuckets;
+            int capacity = keptBuckets + Math.min(remaining, 16) + 1;
+            bucketStarts = new long[capacity];
+            mins = new long[capacity];
+            maxes = new long[capacity];
+            firsts = new long[capacity];
+            lasts = new long[capacity];
+            counts = new int[capacity];
+            if (previous != null) {
+                System.arraycopy(previous.bucketStarts, 0, bucketStarts, 0, keptBuckets);
+                System.arraycopy(previous.mins, 0, mins, 0, keptBuckets);
+                System.arraycopy(previous.maxes, 0, maxes, 0, keptBuckets);
+                System.arraycopy(previous.firsts, 0, firsts, 0, keptBuckets);
+                System.arraycopy(previous.lasts, 0, lasts, 0, keptBuckets);
+                System.arraycopy(previous.counts, 0, counts, 0, keptBuckets);
+            }
+            bucket = keptBuckets - 1;
+        }
+
+        int size() {
+            return bucket + 1;
+        }
+
+        /**
+         * Returns whether a data point of the given timestamp would start a new bucket.
+         */
+        boolean startsBucket(long timestamp) {
+            return bucket < keptBuckets || bucketStarts[bucket] != bucketStart(timestamp, bucketMillis);
+        }
+
+        void add(long timestamp, long min, long max, long first, long last, int count) {
+            long start = bucketStart(timestamp, bucketMillis);
+            if (bucket < keptBuckets || bucketStarts[bucket] != start) {
+                bucket++;
+                if (bucket == bucketStarts.length) {
+                    grow();
+                }
+                bucketStarts[bucket] = start;
+                mins[bucket] = min;
+                maxes[bucket] = max;
+                firsts[bucket] = first;
+            } else {
+                mins[bucket] = Math.min(mins[bucket], min);
+                maxes[bucket] = Math.max(maxes[bucket], max);
+            }
+            lasts[bucket] = last;
+            counts[bucket] += count;
+        }
+
+        private void grow() {
+            int newCapacity = bucketStarts.length * 2;
+            bucketStarts = Arrays.copyOf(bucketStarts, newCapacity);
+            mins = Arrays.copyOf(mins, newCapacity);
+            maxes = Arrays.copyOf(maxes, newCapacity);
+            firsts = Arrays.copyOf(firsts, newCapacity);
+            lasts = Arrays.copyOf(lasts, newCapacity);
+            counts = Arrays.copyOf(counts, newCapacity);
+        }
+
+        PriceRollup build(String symbol, int scale) {
+            int size = bucket + 1;
+            return new PriceRollup(
+                    symbol,
+                    bucketMillis,
+                    scale,
+                    Arrays.copyOf(bucketStarts, size),
+                    Arrays.copyOf(mins, size),
+                    Arrays.copyOf(maxes, size),
+                    Arrays.copyOf(firsts, size),
+                    Arrays.copyOf(lasts, size),
+                    Arrays.copyOf(counts, size)
+            );
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.xm.crypto.model.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Immutable, columnar price history of a single crypto.
+ * Timestamps are kept sorted in ascending order and are unique, prices are stored as unscaled values
+ * sharing the same scale, so the whole series is backed by two primitive arrays.
+ */
+public final class PriceSeries {
+    private final String symbol;
+    private final long[] timestamps;
+    private final long[] prices;
+    private final int scale;
+
+    private PriceSeries(String symbol, long[] timestamps, long[] prices, int scale) {
+        this.symbol = symbol;
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.scale = scale;
+    }
+
+    /**
+     * Creates a series from columns which are already sorted by timestamp and share the given scale, without copying
+     * them, e.g. the ones decoded by {@link CompressedPriceSeries#toSeries()}.
+     */
+    static PriceSeries of(String symbol, long[] timestamps, long[] prices, int scale) {
+        return new PriceSeries(symbol, timestamps, prices, scale);
+    }
+
+    /**
+     * Creates a new builder for the given symbol.
+     *
+     * @param symbol the crypto symbol
+     * @return a new {@link Builder}
+     */
+    public static Builder builder(String symbol) {
+        return new Builder(symbol);
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public long unscaledPrice(int index) {
+        return prices[index];
+    }
+
+    public BigDecimal price(int index) {
+        return BigDecimal.valueOf(prices[index], scale);
+    }
+
+    /**
+     * Returns the data point at the given index as a {@link Crypto}, with the timestamp converted to UTC.
+     *
+     * @param index the index of the data point
+     * @return the data point as a {@link Crypto}
+     */
+    public Crypto crypto(int index) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamps[index]), ZoneOffset.UTC);
+        return new Crypto(timestamp, symbol, price(index));
+    }
+
+    /**
+     * Returns the index of the first data point with a timestamp greater than or equal to the given one.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the index of the first matching data point, or {@link #size()} if there is none
+     */
+    public int lowerBound(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, timestamp);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Merges another series of the same symbol into this one. On equal timestamps the data point
+     * of the other series wins, the same way a repeated save overwrites a stored row.
+     *
+     * @param other the series to merge into this one
+     * @return a new series containing the data points of both series
+     */
+    public PriceSeries merge(PriceSeries other) {
+        if (!symbol.equals(other.symbol)) {
+            throw new IllegalArgumentException("Cannot merge series of " + other.symbol + " into " + symbol);
+        }
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+
+        int mergedScale = Math.max(scale, other.scale);
+        long[] mergedTimestamps = new long[size() + other.size()];
+        long[] mergedPrices = new long[mergedTimestamps.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size() || j < other.size()) {
+            if (j == other.size() || (i < size() && timestamps[i] < other.timestamps[j])) {
+                mergedTimestamps[k] = timestamps[i];
+                mergedPrices[k++] = rescale(prices[i++], scale, mergedScale);
+            } else {
+                if (i < size() && timestamps[i] == other.timestamps[j]) {
+                    i++;
+                }
+                mergedTimestamps[k] = other.timestamps[j];
+                mergedPrices[k++] = rescale(other.prices[j++], other.scale, mergedScale);
+            }
+        }
+        return new PriceSeries(
+                symbol,
+                Arrays.copyOf(mergedTimestamps, k),
+                Arrays.copyOf(mergedPrices, k),
+                mergedScale
+        );
+    }
+
+    private static long rescale(long unscaled, int fromScale, int toScale) {
+        return fromScale == toScale ? unscaled : Math.multiplyExact(unscaled, FixedPoint.POWERS_OF_TEN[toScale - fromScale]);
+    }
+
+    /**
+     * Collects data points in arbitrary order and builds a sorted {@link PriceSeries} out of them.
+     * Prices are rescaled to the highest scale seen, so no decimal places are lost.
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final String symbol;
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        private long[] prices = new long[INITIAL_CAPACITY];
+        private byte[] scales = new byte[INITIAL_CAPACITY];
+        private int size;
+        private int scale;
+        private boolean sorted = true;
+
+        private Builder(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public Builder add(long timestamp, BigDecimal price) {
+            BigDecimal normalized = price.scale() < 0 ? price.setScale(0) : price;
+            return add(timestamp, normalized.unscaledValue().longValueExact(), normalized.scale());
+        }
+
+        public Builder add(long timestamp, long unscaledPrice, int priceScale) {
+            if (priceScale < 0 || priceScale >= FixedPoint.POWERS_OF_TEN.length) {
+                throw new IllegalArgumentException("Unsupported price scale: " + priceScale);
+            }
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+                scales = Arrays.copyOf(scales, size * 2);
+            }
+            if (size > 0 && timestamps[size - 1] > timestamp) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            prices[size] = unscaledPrice;
+            scales[size++] = (byte) priceScale;
+            scale = Math.max(scale, priceScale);
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public PriceSeries build() {
+            int[] order = sorted ? null : sortedOrder();
+
+            long[] sortedTimestamps = new long[size];
+            long[] sortedPrices = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int index = order == null ? i : order[i];
+                // the order is stable, so the last of the data points sharing a timestamp is kept
+                if (count > 0 && sortedTimestamps[count - 1] == timestamps[index]) {
+                    count--;
+                }
+                sortedTimestamps[count] = timestamps[index];
+                sortedPrices[count++] = rescale(prices[index], scales[index], scale);
+            }
+            return new PriceSeries(
+                    symbol,
+                    Arrays.copyOf(sortedTimestamps, count),
+                    Arrays.copyOf(sortedPrices, count),
+                    scale
+            );
+        }
+
+        /**
+         * Returns the indexes of the collected data points ordered by timestamp, using a stable merge sort.
+         */
+        private int[] sortedOrder() {
+            int[] order = new int[size];
+            int[] buffer = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            for (int width = 1; width < size; width *= 2) {
+                for (int from = 0; from < size; from += 2 * width) {
+                    int middle = Math.min(from + width, size);
+                    int to = Math.min(from + 2 * width, size);
+                    int left = from;
+                    int right = middle;
+                    for (int k = from; k < to; k++) {
+                        if (left < middle && (right == to || timestamps[order[left]] <= timestamps[order[right]])) {
+                            buffer[k] = order[left++];
+                        } else {
+                            buffer[k] = order[right++];
+                        }
+                    }
+                }
+                int[] swap = order;
+                order = buffer;
+                buffer = swap;
+            }
+            return order;
+        }
+    }
+}
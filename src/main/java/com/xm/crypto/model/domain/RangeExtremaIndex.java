@@ -0,0 +1,136 @@
+package com.xm.crypto.model.domain;
+
+/**
+ * Range minimum/maximum index over the blocks of a {@link CompressedPriceSeries}, answering the block with the lowest
+ * and highest price of any run of blocks in constant time.
+ * <p>
+ * A sparse table holds the block with the extremum of every run of 2^k blocks, computed from the lowest and highest
+ * price in the header of each block, so a query combines two overlapping table entries without decoding any block.
+ * Keeping the table on block level makes it take roughly {@code n / 16 * log2(n / 128)} bytes for a series of
+ * {@code n} data points. On equal prices the earliest block wins.
+ */
+public final class RangeExtremaIndex {
+    private final long[] minPrices;
+    private final long[] maxPrices;
+    private final int[][] minTable;
+    private final int[][] maxTable;
+
+    private RangeExtremaIndex(long[] minPrices, long[] maxPrices, int[][] minTable, int[][] maxTable) {
+        this.minPrices = minPrices;
+        this.maxPrices = maxPrices;
+        this.minTable = minTable;
+        this.maxTable = maxTable;
+    }
+
+    /**
+     * Builds the index of the given block headers.
+     *
+     * @param minPrices the lowest price of each block
+     * @param maxPrices the highest price of each block
+     * @return the index of the blocks
+     */
+    public static RangeExtremaIndex of(long[] minPrices, long[] maxPrices) {
+        return build(minPrices, maxPrices, null, 0);
+    }
+
+    /**
+     * Updates the index after blocks changed. Table entries covering only blocks before {@code changedFrom} are
+     * reused, the rest is rebuilt from the block headers.
+     *
+     * @param minPrices   the lowest price of each block, the ones before {@code changedFrom} must be the same as before
+     * @param maxPrices   the highest price of each block, the ones before {@code changedFrom} must be the same as before
+     * @param changedFrom the first changed block
+     * @return the index of the changed blocks
+     */
+    public RangeExtremaIndex update(long[] minPrices, long[] maxPrices, int changedFrom) {
+        return build(minPrices, maxPrices, this, changedFrom);
+    }
+
+    private static RangeExtremaIndex build(long[] minPrices, long[] maxPrices, RangeExtremaIndex previous, int keptBlocks) {
+        int blocks = minPrices.length;
+        // a run of a single block is its own extremum, so the table starts with the runs of 2 blocks
+        int levels = blocks < 2 ? 0 : 31 - Integer.numberOfLeadingZeros(blocks);
+        int[][] minTable = new int[levels][];
+        int[][] maxTable = new int[levels][];
+        for (int level = 1; level <= levels; level++) {
+            int entries = blocks - (1 << level) + 1;
+            int[] minEntries = new int[entries];
+            int[] maxEntries = new int[entries];
+            // an entry covers the blocks [block, block + 2^level), so it is unchanged if all of them are kept
+            int kept = reuse(previous, level, keptBlocks - (1 << level) + 1, minEntries, maxEntries);
+            int span = 1 << (level - 1);
+            for (int block = kept; block < entries; block++) {
+                minEntries[block] = min(minPrices, entry(minTable, level - 1, block), entry(minTable, level - 1, block + span));
+                maxEntries[block] = max(maxPrices, entry(maxTable, level - 1, block), entry(maxTable, level - 1, block + span));
+            }
+            minTable[level - 1] = minEntries;
+            maxTable[level - 1] = maxEntries;
+        }
+        return new RangeExtremaIndex(minPrices, maxPrices, minTable, maxTable);
+    }
+
+    /**
+     * Copies the first entries of a level of the previous tables and returns the number of copied entries.
+     */
+    private static int reuse(RangeExtremaIndex previous, int level, int entries, int[] minEntries, int[] maxEntries) {
+        if (previous == null || level > previous.minTable.length || entries <= 0) {
+            return 0;
+        }
+        int kept = Math.min(Math.min(entries, previous.minTable[level - 1].length), minEntries.length);
+        System.arraycopy(previous.minTable[level - 1], 0, minEntries, 0, kept);
+        System.arraycopy(previous.maxTable[level - 1], 0, maxEntries, 0, kept);
+        return kept;
+    }
+
+    /**
+     * Returns the block with the extremum of the blocks [block, block + 2^level).
+     */
+    private static int entry(int[][] table, int level, int block) {
+        return level == 0 ? block : table[level - 1][block];
+    }
+
+    /**
+     * Returns the block with the lowest price in the block range [from, to).
+     *
+     * @param from the first block of the range (inclusive)
+     * @param to   the last block of the range (exclusive), must be greater than {@code from}
+     * @return the block with the lowest price
+     */
+    public int blockOfMin(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from);
+        return min(minPrices, entry(minTable, level, from), entry(minTable, level, to - (1 << level)));
+    }
+
+    /**
+     * Returns the block with the highest price in the block range [from, to).
+     *
+     * @param from the first block of the range (inclusive)
+     * @param to   the last block of the range (exclusive), must be greater than {@code from}
+     * @return the block with the highest price
+     */
+    public int blockOfMax(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from);
+        return max(maxPrices, entry(maxTable, level, from), entry(maxTable, level, to - (1 << level)));
+    }
+
+    /**
+     * Returns the approximate heap size of the index tables in bytes.
+     *
+     * @return the size of the index tables in bytes
+     */
+    public long sizeInBytes() {
+        long entries = 0;
+        for (int level = 0; level < minTable.length; level++) {
+            entries += minTable[level].length + maxTable[level].length;
+        }
+        return entries * Integer.BYTES;
+    }
+
+    private static int min(long[] prices, int left, int right) {
+        return prices[right] < prices[left] || (prices[right] == prices[left] && right < left) ? right : left;
+    }
+
+    private static int max(long[] prices, int left, int right) {
+        return prices[right] > prices[left] || (prices[right] == prices[left] && right < left) ? right : left;
+    }
+}
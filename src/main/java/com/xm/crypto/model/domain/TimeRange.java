@@ -0,0 +1,32 @@
+package com.xm.crypto.model.domain;
+
+import com.xm.crypto.exception.InvalidTimeRangeException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Half-open time range [startMillis, endMillis) in epoch milliseconds.
+ */
+public record TimeRange(
+        long startMillis,
+        long endMillis
+) {
+
+    /**
+     * Creates a time range from UTC date-times. A missing bound leaves the range open on that side.
+     *
+     * @param from the start of the range (inclusive), or null for no lower bound
+     * @param to   the end of the range (exclusive), or null for no upper bound
+     * @return the time range
+     * @throws InvalidTimeRangeException if the start of the range is not before its end
+     */
+    public static TimeRange of(LocalDateTime from, LocalDateTime to) {
+        long startMillis = from == null ? Long.MIN_VALUE : from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        long endMillis = to == null ? Long.MAX_VALUE : to.toInstant(ZoneOffset.UTC).toEpochMilli();
+        if (startMillis >= endMillis) {
+            throw new InvalidTimeRangeException("The start of the time range (" + from + ") must be before its end (" + to + ").");
+        }
+        return new TimeRange(startMillis, endMillis);
+    }
+}
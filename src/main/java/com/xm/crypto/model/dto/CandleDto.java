@@ -0,0 +1,28 @@
+package com.xm.crypto.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(name = "Candle", description = "Open/high/low/close prices of a crypto within an interval")
+public record CandleDto(
+        @Schema(description = "Start of the interval in UTC", example = "2022-01-01T00:00:00")
+        LocalDateTime timestamp,
+
+        @Schema(description = "The first price of the interval", example = "46813.21")
+        BigDecimal open,
+
+        @Schema(description = "The highest price of the interval", example = "47143.98")
+        BigDecimal high,
+
+        @Schema(description = "The lowest price of the interval", example = "46722.05")
+        BigDecimal low,
+
+        @Schema(description = "The last price of the interval", example = "46979.61")
+        BigDecimal close,
+
+        @Schema(description = "The number of values of the interval", example = "3")
+        long count
+) {
+}
@@ -17,6 +17,9 @@ public record CryptoStatsDto(
         CryptoValueDto min,
 
         @Schema(description = "The maximum value of a crypto")
-        CryptoValueDto max
+        CryptoValueDto max,
+
+        @Schema(description = "The number of available values of a crypto", example = "100")
+        long count
 ) {
 }
@@ -0,0 +1,16 @@
+package com.xm.crypto.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Schema(name = "DailyNormalizedCryptos", description = "Cryptos with the highest normalized range on a given day")
+public record DailyNormalizedCryptosDto(
+        @Schema(description = "The UTC day", example = "2022-01-01")
+        LocalDate date,
+
+        @Schema(description = "Cryptos with the highest normalized range on the day, in descending order")
+        List<NormalizedCryptoDto> normalizedCryptos
+) {
+}
@@ -5,5 +5,6 @@ public enum ErrorCode {
     CRYPTO_DATA_NOT_FOUND,
     MISSING_PARAMETER,
     INVALID_PARAMETER,
+    SERVICE_UNAVAILABLE,
     INTERNAL_ERROR
 }
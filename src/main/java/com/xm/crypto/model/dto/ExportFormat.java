@@ -0,0 +1,29 @@
+package com.xm.crypto.model.dto;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The formats of the exported data points.
+ */
+public enum ExportFormat {
+    /**
+     * Newline delimited JSON, one {@code {"timestamp":...,"symbol":...,"price":...}} object per line.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    /**
+     * CSV with the {@code timestamp,symbol,price} header of the imported files, so an export can be loaded again.
+     */
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+    private final MediaType mediaType;
+
+    ExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,15 @@
+package com.xm.crypto.model.dto;
+
+/**
+ * The orders of the cryptos ranked by normalized range.
+ */
+public enum RankingOrder {
+    /**
+     * Lowest normalized range first.
+     */
+    ASC,
+    /**
+     * Highest normalized range first.
+     */
+    DESC
+}
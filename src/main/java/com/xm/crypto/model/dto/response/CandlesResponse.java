@@ -0,0 +1,19 @@
+package com.xm.crypto.model.dto.response;
+
+import com.xm.crypto.model.dto.CandleDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Response containing the candles of a crypto")
+public record CandlesResponse(
+        @Schema(description = "Symbol of a crypto", example = "BTC")
+        String symbol,
+
+        @Schema(description = "Interval of the candles", example = "1h")
+        String interval,
+
+        @Schema(description = "Candles in time order, only for the intervals having values")
+        List<CandleDto> candles
+) {
+}
@@ -0,0 +1,17 @@
+package com.xm.crypto.model.dto.response;
+
+import com.xm.crypto.model.dto.CryptoStatsDto;
+import com.xm.crypto.model.dto.ErrorResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+
+@Schema(description = "Response containing statistics about many cryptos, and an error for each requested crypto without data")
+public record CryptoStatsBatchResponse(
+        @Schema(description = "Statistics by crypto symbol")
+        Map<String, CryptoStatsDto> stats,
+
+        @Schema(description = "Errors by requested crypto symbol, for the cryptos without data (within the requested time range)")
+        Map<String, ErrorResponse> errors
+) {
+}
@@ -0,0 +1,13 @@
+package com.xm.crypto.model.dto.response;
+
+import com.xm.crypto.model.dto.DailyNormalizedCryptosDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Response containing the cryptos with the highest normalized range of each day")
+public record DailyHighestNormalizedRangesResponse(
+        @Schema(description = "The days in ascending order, only the days having data")
+        List<DailyNormalizedCryptosDto> days
+) {
+}
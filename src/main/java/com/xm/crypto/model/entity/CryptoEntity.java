@@ -14,7 +14,7 @@ public class CryptoEntity {
     @EmbeddedId
     private CryptoKey id;
 
-    @Column(nullable = false)
+    @Column(nullable = false, precision = 38, scale = 18)
     private BigDecimal price;
 
     public CryptoEntity() {
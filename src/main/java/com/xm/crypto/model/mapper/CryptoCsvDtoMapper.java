@@ -1,13 +1,24 @@
 package com.xm.crypto.model.mapper;
 
+import com.xm.crypto.model.domain.PriceSeries;
 import com.xm.crypto.model.dto.CryptoCsvDto;
-import com.xm.crypto.model.entity.CryptoEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class CryptoCsvDtoMapper {
 
-    public CryptoEntity toEntity(CryptoCsvDto dto) {
-        return new CryptoEntity(dto.timestamp(), dto.symbol().toUpperCase(), dto.price());
+    public List<PriceSeries> toPriceSeries(List<CryptoCsvDto> dtos) {
+        Map<String, PriceSeries.Builder> builders = new LinkedHashMap<>();
+        for (CryptoCsvDto dto : dtos) {
+            builders.computeIfAbsent(dto.symbol().toUpperCase(), PriceSeries::builder)
+                    .add(dto.timestamp(), dto.price());
+        }
+        return builders.values().stream()
+                .map(PriceSeries.Builder::build)
+                .toList();
     }
 }
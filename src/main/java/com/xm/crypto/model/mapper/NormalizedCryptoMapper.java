@@ -1,5 +1,6 @@
 package com.xm.crypto.model.mapper;
 
+import com.xm.crypto.model.domain.FixedPoint;
 import com.xm.crypto.model.domain.NormalizedCrypto;
 import com.xm.crypto.model.dto.NormalizedCryptoDto;
 import org.springframework.stereotype.Component;
@@ -8,6 +9,9 @@ import org.springframework.stereotype.Component;
 public class NormalizedCryptoMapper {
 
     public NormalizedCryptoDto toDto(NormalizedCrypto normalizedCrypto) {
-        return new NormalizedCryptoDto(normalizedCrypto.symbol(), normalizedCrypto.normalizedRange());
+        return new NormalizedCryptoDto(
+                normalizedCrypto.symbol(),
+                FixedPoint.toBigDecimal(normalizedCrypto.normalizedRange(), FixedPoint.NORMALIZED_RANGE_SCALE)
+        );
     }
 }
@@ -0,0 +1,60 @@
+package com.xm.crypto.parser;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.model.dto.CryptoCsvDto;
+import com.xm.crypto.model.mapper.CryptoCsvDtoMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link PriceCsvParser} binding the rows to {@link CryptoCsvDto} records with Jackson. The columns are matched by
+ * the header, so it also reads files with reordered columns, quoted values or other non-standard formatting.
+ * It always reads the whole file.
+ */
+@Component
+public class JacksonPriceCsvParser implements PriceCsvParser {
+    private static final ObjectReader CRYPTO_CSV_READER = new CsvMapper()
+            .readerFor(CryptoCsvDto.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final CryptoCsvDtoMapper cryptoCsvDtoMapper;
+
+    public JacksonPriceCsvParser(CryptoCsvDtoMapper cryptoCsvDtoMapper) {
+        this.cryptoCsvDtoMapper = cryptoCsvDtoMapper;
+    }
+
+    @Override
+    public ParseResult parse(Path file, int batchSize, Consumer<List<PriceSeries>> consumer) throws IOException {
+        List<CryptoCsvDto> batch = new ArrayList<>(batchSize);
+        long rows = 0;
+        try (MappingIterator<CryptoCsvDto> iterator = CRYPTO_CSV_READER.readValues(file.toFile())) {
+            while (iterator.hasNextValue()) {
+                batch.add(iterator.nextValue());
+                rows++;
+                if (batch.size() == batchSize) {
+                    flush(batch, consumer);
+                }
+            }
+        }
+        flush(batch, consumer);
+        return new ParseResult(rows, Files.size(file));
+    }
+
+    private void flush(List<CryptoCsvDto> batch, Consumer<List<PriceSeries>> consumer) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        consumer.accept(cryptoCsvDtoMapper.toPriceSeries(batch));
+        batch.clear();
+    }
+}
@@ -0,0 +1,309 @@
+package com.xm.crypto.parser;
+
+import com.xm.crypto.model.domain.PriceSeries;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@link PriceCsvParser} for files with the exact {@value #HEADER} header.
+ * The file is memory-mapped window by window and the bytes are scanned straight into the primitive columns of
+ * {@link PriceSeries.Builder}s: no {@code String} is created per row, only when the symbol changes between rows.
+ * Prices must be plain decimals with at most 18 digits. Files with any other header are not supported, see
+ * {@link #supports(Path)}.
+ * <p>
+ * Besides whole files, it can parse the rows appended to a file since a previous parse, see {@link #parseAppended}.
+ */
+@Component
+public class MappedPriceCsvParser implements PriceCsvParser {
+    static final String HEADER = "timestamp,symbol,price";
+
+    private static final byte[] HEADER_BYTES = HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+    private static final int MAX_DIGITS = 18;
+
+    private final int windowSize;
+
+    public MappedPriceCsvParser() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedPriceCsvParser(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Checks whether the given file starts with the {@value #HEADER} header and can be parsed by this parser.
+     *
+     * @param file the CSV file
+     * @return true if the file has the expected header
+     * @throws IOException if the file cannot be read
+     */
+    public boolean supports(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return headerLength(channel) >= 0;
+        }
+    }
+
+    @Override
+    public ParseResult parse(Path file, int batchSize, Consumer<List<PriceSeries>> consumer) throws IOException {
+        return parse(file, 0, batchSize, true, consumer);
+    }
+
+    /**
+     * Parses the rows of the file starting at the given offset, e.g. the end offset of a previous parse.
+     * A last row without a line break is considered to be still written and is left for the next call.
+     *
+     * @param file      the CSV file to parse
+     * @param offset    the byte offset to start at, 0 to parse the file from its header
+     * @param batchSize the number of rows per batch
+     * @param consumer  the consumer of the batches
+     * @return the number of parsed rows and the offset after the last parsed row
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public ParseResult parseAppended(Path file, long offset, int batchSize, Consumer<List<PriceSeries>> consumer)
+            throws IOException {
+        return parse(file, offset, batchSize, false, consumer);
+    }
+
+    private ParseResult parse(
+            Path file,
+            long offset,
+            int batchSize,
+            boolean includeUnterminatedRow,
+            Consumer<List<PriceSeries>> consumer
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = offset;
+            if (offset == 0) {
+                int headerLength = headerLength(channel);
+                if (headerLength < 0) {
+                    throw new IOException("Unexpected header in " + file.getFileName() + ", expected: " + HEADER);
+                }
+                position = headerLength;
+            }
+
+            RowReader reader = new RowReader(file, batchSize, consumer);
+            long size = channel.size();
+            while (position < size) {
+                int length = (int) Math.min(windowSize, size - position);
+                boolean lastWindow = position + length == size;
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = reader.read(window, lastWindow && includeUnterminatedRow);
+                position += consumed;
+                if (lastWindow) {
+                    break;
+                }
+                if (consumed == 0) {
+                    throw new IOException("A row is longer than " + windowSize + " bytes in " + file.getFileName());
+                }
+            }
+            reader.flush();
+            return new ParseResult(reader.rows, position);
+        }
+    }
+
+    /**
+     * Returns the length of the header including its line break, or -1 if the file does not start with the expected header.
+     */
+    private static int headerLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES.length + 2);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // read until the buffer is full or the end of the file is reached
+        }
+        buffer.flip();
+        if (buffer.remaining() < HEADER_BYTES.length) {
+            return -1;
+        }
+        for (int i = 0; i < HEADER_BYTES.length; i++) {
+            if (buffer.get(i) != HEADER_BYTES[i]) {
+                return -1;
+            }
+        }
+
+        int length = HEADER_BYTES.length;
+        if (length < buffer.limit() && buffer.get(length) == '\r') {
+            length++;
+        }
+        if (length == buffer.limit()) {
+            return length;
+        }
+        return buffer.get(length) == '\n' ? length + 1 : -1;
+    }
+
+    /**
+     * Scans rows into per-symbol builders and hands them over to the consumer every {@code batchSize} rows.
+     */
+    private static final class RowReader {
+        private final Path file;
+        private final int batchSize;
+        private final Consumer<List<PriceSeries>> consumer;
+        private final Map<String, PriceSeries.Builder> builders = new LinkedHashMap<>();
+
+        private byte[] symbolBytes = new byte[16];
+        private int symbolLength = -1;
+        private PriceSeries.Builder builder;
+        private int pendingRows;
+        private long rows;
+        private long line = 1;
+
+        RowReader(Path file, int batchSize, Consumer<List<PriceSeries>> consumer) {
+            this.file = file;
+            this.batchSize = batchSize;
+            this.consumer = consumer;
+        }
+
+        /**
+         * Reads the complete rows of the window. A last row without a line break is left for the next window,
+         * unless {@code readUnterminatedRow} is set.
+         *
+         * @return the number of bytes consumed
+         */
+        int read(ByteBuffer window, boolean readUnterminatedRow) throws IOException {
+            int limit = window.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && window.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                if (lineEnd == limit && !readUnterminatedRow) {
+                    return lineStart;
+                }
+                line++;
+                readRow(window, lineStart, lineEnd);
+                lineStart = lineEnd + 1;
+            }
+            return limit;
+        }
+
+        void flush() {
+            if (builders.isEmpty()) {
+                return;
+            }
+            List<PriceSeries> batch = new ArrayList<>(builders.size());
+            for (PriceSeries.Builder pending : builders.values()) {
+                batch.add(pending.build());
+            }
+            consumer.accept(batch);
+            builders.clear();
+            builder = null;
+            symbolLength = -1;
+            pendingRows = 0;
+        }
+
+        private void readRow(ByteBuffer window, int from, int to) throws IOException {
+            if (to > from && window.get(to - 1) == '\r') {
+                to--;
+            }
+            if (from == to) {
+                return;
+            }
+
+            int timestampEnd = indexOfComma(window, from, to);
+            long timestamp = parseTimestamp(window, from, timestampEnd);
+            int symbolEnd = indexOfComma(window, timestampEnd + 1, to);
+            selectSymbol(window, timestampEnd + 1, symbolEnd);
+            addPrice(window, symbolEnd + 1, to, timestamp);
+
+            rows++;
+            if (++pendingRows == batchSize) {
+                flush();
+            }
+        }
+
+        private int indexOfComma(ByteBuffer window, int from, int to) throws IOException {
+            for (int i = from; i < to; i++) {
+                if (window.get(i) == ',') {
+                    return i;
+                }
+            }
+            throw invalidRow("number of columns");
+        }
+
+        private long parseTimestamp(ByteBuffer window, int from, int to) throws IOException {
+            if (from == to || to - from > MAX_DIGITS) {
+                throw invalidRow("timestamp");
+            }
+            long timestamp = 0;
+            for (int i = from; i < to; i++) {
+                int digit = window.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw invalidRow("timestamp");
+                }
+                timestamp = timestamp * 10 + digit;
+            }
+            return timestamp;
+        }
+
+        /**
+         * Switches the current builder if the symbol of the row differs from the one of the previous row.
+         */
+        private void selectSymbol(ByteBuffer window, int from, int to) throws IOException {
+            int length = to - from;
+            if (length == 0) {
+                throw invalidRow("symbol");
+            }
+            if (length == symbolLength && sameSymbol(window, from)) {
+                return;
+            }
+
+            if (length > symbolBytes.length) {
+                symbolBytes = Arrays.copyOf(symbolBytes, length);
+            }
+            window.get(from, symbolBytes, 0, length);
+            symbolLength = length;
+            String symbol = new String(symbolBytes, 0, length, StandardCharsets.UTF_8).toUpperCase();
+            builder = builders.computeIfAbsent(symbol, PriceSeries::builder);
+        }
+
+        private boolean sameSymbol(ByteBuffer window, int from) {
+            for (int i = 0; i < symbolLength; i++) {
+                if (window.get(from + i) != symbolBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void addPrice(ByteBuffer window, int from, int to, long timestamp) throws IOException {
+            long unscaled = 0;
+            int digits = 0;
+            int scale = -1;
+            for (int i = from; i < to; i++) {
+                byte b = window.get(i);
+                if (b == '.' && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                int digit = b - '0';
+                if (digit < 0 || digit > 9 || ++digits > MAX_DIGITS) {
+                    throw invalidRow("price");
+                }
+                unscaled = unscaled * 10 + digit;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            if (digits == 0) {
+                throw invalidRow("price");
+            }
+            builder.add(timestamp, unscaled, Math.max(scale, 0));
+        }
+
+        private IOException invalidRow(String field) {
+            return new IOException("Invalid " + field + " at line " + line + " of " + file.getFileName());
+        }
+    }
+}
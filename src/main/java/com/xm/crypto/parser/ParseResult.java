@@ -0,0 +1,10 @@
+package com.xm.crypto.parser;
+
+/**
+ * Outcome of parsing a crypto CSV file.
+ *
+ * @param rows      the number of parsed rows
+ * @param endOffset the byte offset in the file up to which it was parsed
+ */
+public record ParseResult(long rows, long endOffset) {
+}
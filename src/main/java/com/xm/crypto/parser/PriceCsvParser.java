@@ -0,0 +1,27 @@
+package com.xm.crypto.parser;
+
+import com.xm.crypto.model.domain.PriceSeries;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parser of the {@code timestamp,symbol,price} crypto CSV files.
+ * The rows are streamed and handed over in batches, so the memory used does not depend on the size of the file.
+ */
+public interface PriceCsvParser {
+
+    /**
+     * Parses the given CSV file. Every {@code batchSize} rows, the rows parsed since the previous batch are passed
+     * to the consumer as a batch holding one price series per symbol.
+     *
+     * @param file      the CSV file to parse
+     * @param batchSize the number of rows per batch
+     * @param consumer  the consumer of the batches
+     * @return the number of parsed rows and the offset up to which the file was parsed
+     * @throws IOException if the file cannot be read or parsed
+     */
+    ParseResult parse(Path file, int batchSize, Consumer<List<PriceSeries>> consumer) throws IOException;
+}
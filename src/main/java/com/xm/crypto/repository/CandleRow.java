@@ -0,0 +1,21 @@
+package com.xm.crypto.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a row of the candle query of {@link CryptoRepository}: the OHLC candle of one interval.
+ */
+public interface CandleRow {
+
+    long getBucketStart();
+
+    BigDecimal getOpenPrice();
+
+    BigDecimal getHighPrice();
+
+    BigDecimal getLowPrice();
+
+    BigDecimal getClosePrice();
+
+    long getDataPointCount();
+}
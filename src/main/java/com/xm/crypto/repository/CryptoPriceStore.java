@@ -0,0 +1,214 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.model.domain.Candle;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.DailyPriceRange;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.domain.PriceSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Storage of the crypto prices used by the services.
+ * The implementation is selected by the {@code crypto.store.type} property: {@code memory} (default) keeps
+ * the prices in per-symbol columnar series, while {@code jpa} persists them through {@link CryptoRepository}.
+ */
+public interface CryptoPriceStore {
+
+    /**
+     * Stores the data points of the given series, overwriting already stored data points with the same timestamp.
+     * The batch is applied atomically: readers see either none or all of its data points.
+     *
+     * @param batch the series to store, at most one per symbol
+     * @return true if the stored data points changed, false if all of them were already stored with the same price
+     */
+    boolean saveAll(List<PriceSeries> batch);
+
+    /**
+     * Stores the data points of the given series, overwriting already stored data points with the same timestamp.
+     *
+     * @param series the series to store
+     * @return true if the stored data points changed, false if all of them were already stored with the same price
+     */
+    default boolean saveAll(PriceSeries series) {
+        return saveAll(List.of(series));
+    }
+
+    /**
+     * Replaces all stored data points of the symbols of the given series with the data points of the series, e.g. after
+     * the file of a crypto was rewritten. The batch is applied atomically like {@link #saveAll(List)}.
+     *
+     * @param batch the series replacing the stored ones, at most one per symbol
+     * @return true if the stored data points changed, false if exactly the same data points were stored already
+     */
+    boolean replaceAll(List<PriceSeries> batch);
+
+    /**
+     * Returns the number of stored data points.
+     *
+     * @return the number of stored data points
+     */
+    long count();
+
+    /**
+     * Returns the approximate heap size of the prices and the indexes derived from them kept in memory by the store.
+     *
+     * @return the size in bytes, 0 if the store keeps no prices in memory
+     */
+    long sizeInBytes();
+
+    /**
+     * Returns the symbols of all stored cryptos.
+     *
+     * @return the list of symbols
+     */
+    List<String> findAllSymbols();
+
+    /**
+     * Returns the statistics (oldest, newest, min and max data points and their count) of the given crypto.
+     *
+     * @param symbol the crypto symbol (upper case)
+     * @return the statistics, or empty if there is no data for the symbol
+     */
+    Optional<CryptoStats> findStats(String symbol);
+
+    /**
+     * Returns the statistics (oldest, newest, min and max data points and their count) of the given crypto
+     * within the given time range.
+     *
+     * @param symbol      the crypto symbol (upper case)
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive)
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive)
+     * @return the statistics, or empty if there is no data for the symbol in the time range
+     */
+    Optional<CryptoStats> findStats(String symbol, long startMillis, long endMillis);
+
+    /**
+     * Returns the statistics of the given cryptos within the given time range, computed in one pass over the data.
+     *
+     * @param symbols     the crypto symbols (upper case)
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive)
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive)
+     * @return the statistics by symbol, without the symbols having no data in the time range
+     */
+    Map<String, CryptoStats> findStats(Collection<String> symbols, long startMillis, long endMillis);
+
+    /**
+     * Returns the statistics of all cryptos within the given time range, computed in one pass over the data.
+     *
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive)
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive)
+     * @return the statistics by symbol of the cryptos having data in the time range
+     */
+    Map<String, CryptoStats> findAllStats(long startMillis, long endMillis);
+
+    /**
+     * Returns the lowest and highest price of each crypto.
+     *
+     * @return the price ranges of all cryptos
+     */
+    List<PriceRange> findPriceRanges();
+
+    /**
+     * Returns the lowest and highest price of each crypto having data within the given time range.
+     *
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive)
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive)
+     * @return the price ranges of the cryptos having data within the time range
+     */
+    List<PriceRange> findPriceRanges(long startMillis, long endMillis);
+
+    /**
+     * Returns the lowest and highest price of each crypto having data on the given UTC day.
+     *
+     * @param date the UTC day
+     * @return the price ranges of the cryptos having data on the given day
+     */
+    List<PriceRange> findDailyPriceRanges(LocalDate date);
+
+    /**
+     * Returns the lowest and highest price of each crypto on each UTC day within the given time range,
+     * for the days on which the crypto has data.
+     *
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive), the start of a UTC day
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive), the start of a UTC day
+     * @return the daily price ranges of the cryptos, in no particular order
+     */
+    List<DailyPriceRange> findDailyPriceRanges(long startMillis, long endMillis);
+
+    /**
+     * Returns the page of the first {@code limit} data points of the given crypto within the given time range.
+     *
+     * @param symbol      the crypto symbol (upper case)
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive)
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive)
+     * @param limit       the maximum number of data points of the page
+     * @return the page, or empty if there is no data for the symbol in the time range
+     */
+    Optional<PricePage> findPage(String symbol, long startMillis, long endMillis, int limit);
+
+    /**
+     * Streams the data points of the given crypto within the given time range to the consumer in timestamp order,
+     * without loading them into memory at once. A slow consumer slows down the iteration.
+     *
+     * @param symbol      the crypto symbol (upper case)
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive)
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive)
+     * @param consumer    the consumer of the data points
+     * @throws IOException if the consumer fails to write a data point
+     */
+    void forEachPrice(String symbol, long startMillis, long endMillis, PricePointConsumer consumer) throws IOException;
+
+    /**
+     * Returns the OHLC candles of the given crypto at the given interval within the given time range, in time order.
+     * Only intervals holding at least one data point have a candle.
+     *
+     * @param symbol      the crypto symbol (upper case)
+     * @param interval    the interval of the candles
+     * @param startMillis the start of the time range in epoch milliseconds (inclusive), aligned to the interval
+     * @param endMillis   the end of the time range in epoch milliseconds (exclusive), aligned to the interval
+     *                    or {@link Long#MAX_VALUE}
+     * @param limit       the maximum number of candles to return
+     * @return the first {@code limit} candles, empty if there is no data for the symbol in the time range
+     */
+    List<Candle> findCandles(String symbol, CandleInterval interval, long startMillis, long endMillis, int limit);
+
+    /**
+     * Checks whether the store can be written to and restored from a {@link PriceSnapshotFile}.
+     *
+     * @return true if the store supports snapshots, false if it keeps the prices elsewhere
+     */
+    default boolean supportsSnapshots() {
+        return false;
+    }
+
+    /**
+     * Returns the stored prices, together with the indexes derived from them, as the sections of a
+     * {@link PriceSnapshotFile}.
+     *
+     * @return the sections of the current prices
+     * @throws UnsupportedOperationException if the store does not support snapshots
+     */
+    default List<? extends PriceSnapshotFile.Section> snapshotSections() {
+        throw new UnsupportedOperationException("The price store does not support snapshots");
+    }
+
+    /**
+     * Replaces all stored prices with the ones of the sections written by {@link #snapshotSections()}, atomically.
+     *
+     * @param sections the sections of a {@link PriceSnapshotFile}
+     * @throws UnsupportedOperationException if the store does not support snapshots
+     * @throws IllegalArgumentException      if a section is invalid, in which case the stored prices are unchanged
+     */
+    default void restoreSnapshot(List<ByteBuffer> sections) {
+        throw new UnsupportedOperationException("The price store does not support snapshots");
+    }
+}
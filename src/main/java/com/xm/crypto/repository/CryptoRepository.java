@@ -5,51 +5,213 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CryptoRepository extends JpaRepository<CryptoEntity, Long> {
 
-    Optional<CryptoEntity> findFirstByIdSymbolOrderByIdTimestampAsc(String symbol);
+    /**
+     * Selects the oldest, newest, min and max data points and the count of each symbol with window functions over
+     * the parts of a time range: the summaries of the month partitions it fully covers, [:coveredStart, :coveredEnd),
+     * and the data points of the partially covered months before and after them. Each data point is a part of its
+     * own, so the query reads the summary rows of the covered months and the rows of at most two months of data
+     * points, whatever the length of the stored history. Ties are broken by the older data point.
+     */
+    String STATS_SELECT = """
+            SELECT DISTINCT symbol,
+                   FIRST_VALUE(oldestTimestamp) OVER (PARTITION BY symbol ORDER BY oldestTimestamp) AS oldestTimestamp,
+                   FIRST_VALUE(oldestPrice) OVER (PARTITION BY symbol ORDER BY oldestTimestamp) AS oldestPrice,
+                   FIRST_VALUE(newestTimestamp) OVER (PARTITION BY symbol ORDER BY newestTimestamp DESC) AS newestTimestamp,
+                   FIRST_VALUE(newestPrice) OVER (PARTITION BY symbol ORDER BY newestTimestamp DESC) AS newestPrice,
+                   FIRST_VALUE(minTimestamp) OVER (PARTITION BY symbol ORDER BY minPrice, minTimestamp) AS minTimestamp,
+                   FIRST_VALUE(minPrice) OVER (PARTITION BY symbol ORDER BY minPrice, minTimestamp) AS minPrice,
+                   FIRST_VALUE(maxTimestamp) OVER (PARTITION BY symbol ORDER BY maxPrice DESC, maxTimestamp) AS maxTimestamp,
+                   FIRST_VALUE(maxPrice) OVER (PARTITION BY symbol ORDER BY maxPrice DESC, maxTimestamp) AS maxPrice,
+                   CAST(SUM(dataPointCount) OVER (PARTITION BY symbol) AS BIGINT) AS dataPointCount
+            FROM (
+            """;
 
-    Optional<CryptoEntity> findFirstByIdSymbolOrderByIdTimestampDesc(String symbol);
+    String STATS_OF_COVERED_MONTHS = """
+                SELECT symbol,
+                       first_timestamp AS oldestTimestamp, first_price AS oldestPrice,
+                       last_timestamp AS newestTimestamp, last_price AS newestPrice,
+                       min_timestamp AS minTimestamp, min_price AS minPrice,
+                       max_timestamp AS maxTimestamp, max_price AS maxPrice,
+                       data_point_count AS dataPointCount
+                FROM crypto_value_partitions
+                WHERE month_start >= :coveredStart
+                  AND month_start < :coveredEnd
+            """;
 
-    Optional<CryptoEntity> findFirstByIdSymbolOrderByPriceAsc(String symbol);
+    String STATS_OF_DATA_POINTS = """
+                SELECT symbol, timestamp, price, timestamp, price, timestamp, price, timestamp, price, 1
+                FROM crypto_values
+            """;
 
-    Optional<CryptoEntity> findFirstByIdSymbolOrderByPriceDesc(String symbol);
+    String BEFORE_COVERED_MONTHS = """
+                WHERE timestamp >= :startMillis
+                  AND timestamp < :coveredStart
+            """;
 
-    @Query("SELECT DISTINCT c.id.symbol FROM CryptoEntity c")
+    String AFTER_COVERED_MONTHS = """
+                WHERE timestamp >= :coveredEnd
+                  AND timestamp < :endMillis
+            """;
+
+    String OF_SYMBOLS = """
+                  AND symbol IN (:symbols)
+            """;
+
+    String UNION_ALL = """
+                UNION ALL
+            """;
+
+    String PARTS = """
+            ) parts
+            """;
+
+    // BETWEEN includes both ends, so the upper bound is inclusive.
+
+    boolean existsByIdSymbolAndIdTimestampBetween(String symbol, long from, long to);
+
+    /**
+     * Returns the symbols from the month partitions, which hold a row for each month of a crypto instead of one for
+     * each data point.
+     */
+    @Query(value = "SELECT DISTINCT symbol FROM crypto_value_partitions", nativeQuery = true)
     List<String> findAllSymbols();
 
-    @Query("SELECT MIN(c.price) FROM CryptoEntity c WHERE c.id.symbol = :symbol")
-    BigDecimal findMinPriceBySymbol(@Param("symbol") String symbol);
+    /**
+     * Returns the lowest and highest price of each symbol from the summaries of its month partitions.
+     */
+    @Query(value = """
+            SELECT symbol, MIN(min_price) AS minPrice, MAX(max_price) AS maxPrice
+            FROM crypto_value_partitions
+            GROUP BY symbol
+            """, nativeQuery = true)
+    List<PriceRangeRow> findPriceRangesGroupedBySymbol();
+
+    /**
+     * Returns the lowest and highest price of each symbol within the time range, from the summaries of the months
+     * fully covered by it, [coveredStart, coveredEnd), and the data points of the partially covered months.
+     */
+    @Query(value = """
+            SELECT symbol, MIN(minPrice) AS minPrice, MAX(maxPrice) AS maxPrice
+            FROM (
+                SELECT symbol, min_price AS minPrice, max_price AS maxPrice
+                FROM crypto_value_partitions
+                WHERE month_start >= :coveredStart
+                  AND month_start < :coveredEnd
+                UNION ALL
+                SELECT symbol, price, price
+                FROM crypto_values
+                WHERE timestamp >= :startMillis
+                  AND timestamp < :coveredStart
+                UNION ALL
+                SELECT symbol, price, price
+                FROM crypto_values
+                WHERE timestamp >= :coveredEnd
+                  AND timestamp < :endMillis
+            ) parts
+            GROUP BY symbol
+            """, nativeQuery = true)
+    List<PriceRangeRow> findPriceRangesGroupedBySymbolAndTimeRange(
+            @Param("startMillis") long startMillis,
+            @Param("endMillis") long endMillis,
+            @Param("coveredStart") long coveredStart,
+            @Param("coveredEnd") long coveredEnd
+    );
+
+    @Query(value = STATS_SELECT
+            + STATS_OF_COVERED_MONTHS + OF_SYMBOLS
+            + UNION_ALL + STATS_OF_DATA_POINTS + BEFORE_COVERED_MONTHS + OF_SYMBOLS
+            + UNION_ALL + STATS_OF_DATA_POINTS + AFTER_COVERED_MONTHS + OF_SYMBOLS
+            + PARTS, nativeQuery = true)
+    List<CryptoStatsRow> findStatsBySymbolsAndTimeRange(
+            @Param("symbols") Collection<String> symbols,
+            @Param("startMillis") long startMillis,
+            @Param("endMillis") long endMillis,
+            @Param("coveredStart") long coveredStart,
+            @Param("coveredEnd") long coveredEnd
+    );
 
-    @Query("SELECT MAX(c.price) FROM CryptoEntity c WHERE c.id.symbol = :symbol")
-    BigDecimal findMaxPriceBySymbol(@Param("symbol") String symbol);
+    @Query(value = STATS_SELECT
+            + STATS_OF_COVERED_MONTHS
+            + UNION_ALL + STATS_OF_DATA_POINTS + BEFORE_COVERED_MONTHS
+            + UNION_ALL + STATS_OF_DATA_POINTS + AFTER_COVERED_MONTHS
+            + PARTS, nativeQuery = true)
+    List<CryptoStatsRow> findStatsByTimeRange(
+            @Param("startMillis") long startMillis,
+            @Param("endMillis") long endMillis,
+            @Param("coveredStart") long coveredStart,
+            @Param("coveredEnd") long coveredEnd
+    );
 
-    @Query("""
-            SELECT MIN(c.price)
-            FROM CryptoEntity c
-            WHERE c.id.symbol = :symbol
-              AND c.id.timestamp >= :startMillis
-              AND c.id.timestamp < :endMillis
-            """)
-    BigDecimal findMinPriceBySymbolAndTimeRange(
+    /**
+     * Returns the timestamp of the data point following the first {@code offset} data points of the symbol within
+     * the time range.
+     */
+    @Query(value = """
+            SELECT timestamp
+            FROM crypto_values
+            WHERE symbol = :symbol
+              AND timestamp >= :startMillis
+              AND timestamp < :endMillis
+            ORDER BY timestamp
+            OFFSET :offset ROWS FETCH NEXT 1 ROWS ONLY
+            """, nativeQuery = true)
+    Optional<Long> findTimestampAfter(
             @Param("symbol") String symbol,
             @Param("startMillis") long startMillis,
-            @Param("endMillis") long endMillis
+            @Param("endMillis") long endMillis,
+            @Param("offset") int offset
     );
 
-    @Query("""
-            SELECT MAX(c.price)
-            FROM CryptoEntity c
-            WHERE c.id.symbol = :symbol
-              AND c.id.timestamp >= :startMillis
-              AND c.id.timestamp < :endMillis
-            """)
-    BigDecimal findMaxPriceBySymbolAndTimeRange(
+    /**
+     * Returns the OHLC candles of the symbol within the time range, one per bucket of {@code bucketMillis} holding
+     * at least one data point, in time order. The time range has to be aligned to the buckets.
+     */
+    @Query(value = """
+            SELECT DISTINCT bucketStart,
+                   FIRST_VALUE(price) OVER (PARTITION BY bucketStart ORDER BY timestamp) AS openPrice,
+                   MAX(price) OVER (PARTITION BY bucketStart) AS highPrice,
+                   MIN(price) OVER (PARTITION BY bucketStart) AS lowPrice,
+                   FIRST_VALUE(price) OVER (PARTITION BY bucketStart ORDER BY timestamp DESC) AS closePrice,
+                   COUNT(*) OVER (PARTITION BY bucketStart) AS dataPointCount
+            FROM (
+                SELECT timestamp, price, timestamp - MOD(timestamp, :bucketMillis) AS bucketStart
+                FROM crypto_values
+                WHERE symbol = :symbol
+                  AND timestamp >= :startMillis
+                  AND timestamp < :endMillis
+            ) points
+            ORDER BY bucketStart
+            FETCH FIRST :limit ROWS ONLY
+            """, nativeQuery = true)
+    List<CandleRow> findCandles(
             @Param("symbol") String symbol,
+            @Param("bucketMillis") long bucketMillis,
+            @Param("startMillis") long startMillis,
+            @Param("endMillis") long endMillis,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Returns the lowest and highest price of each symbol on each UTC day within the time range, in one pass
+     * grouping the rows by symbol and day. The time range has to be aligned to days.
+     */
+    @Query(value = """
+            SELECT symbol,
+                   timestamp - MOD(timestamp, 86400000) AS dayStart,
+                   MIN(price) AS minPrice,
+                   MAX(price) AS maxPrice
+            FROM crypto_values
+            WHERE timestamp >= :startMillis
+              AND timestamp < :endMillis
+            GROUP BY symbol, timestamp - MOD(timestamp, 86400000)
+            """, nativeQuery = true)
+    List<DailyPriceRangeRow> findDailyPriceRanges(
             @Param("startMillis") long startMillis,
             @Param("endMillis") long endMillis
     );
@@ -0,0 +1,29 @@
+package com.xm.crypto.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a row of the statistics queries of {@link CryptoRepository}: the statistics of one crypto.
+ */
+public interface CryptoStatsRow {
+
+    String getSymbol();
+
+    long getOldestTimestamp();
+
+    BigDecimal getOldestPrice();
+
+    long getNewestTimestamp();
+
+    BigDecimal getNewestPrice();
+
+    long getMinTimestamp();
+
+    BigDecimal getMinPrice();
+
+    long getMaxTimestamp();
+
+    BigDecimal getMaxPrice();
+
+    long getDataPointCount();
+}
@@ -0,0 +1,18 @@
+package com.xm.crypto.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a row of the daily price range query of {@link CryptoRepository}: the lowest and highest price of
+ * a crypto on a UTC day.
+ */
+public interface DailyPriceRangeRow {
+
+    String getSymbol();
+
+    long getDayStart();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getMaxPrice();
+}
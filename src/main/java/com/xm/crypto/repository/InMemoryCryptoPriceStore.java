@@ -0,0 +1,386 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.model.domain.Candle;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.CandleRollups;
+import com.xm.crypto.model.domain.CompressedPriceSeries;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.DailyPriceRange;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.domain.PriceRollup;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.model.domain.RangeExtremaIndex;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * {@link CryptoPriceStore} keeping the prices of each crypto in memory as an immutable {@link CompressedPriceSeries}.
+ * The statistics and the {@link CandleRollups} of each series are maintained on write and stored next to it, so they
+ * are answered with a single map lookup. Scans and exports decode the series block by block through its
+ * {@link CompressedPriceSeries.Scanner}, and the statistics and price ranges of a time range look up the blocks with
+ * the lowest and highest price of the blocks fully within it in the {@link RangeExtremaIndex} over their headers.
+ * <p>
+ * All symbols are kept in an immutable snapshot map. A write builds the new entries of the touched symbols and swaps
+ * in a new snapshot with a compare-and-set, so readers work on one consistent snapshot without locking and never see
+ * a partially applied batch.
+ * <p>
+ * Each symbol is one section of a {@link PriceSnapshotFile}, holding the compressed series together with its candles,
+ * so restoring a snapshot copies the columns back without decoding, sorting or indexing anything again.
+ */
+@Repository
+@ConditionalOnProperty(name = "crypto.store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCryptoPriceStore implements CryptoPriceStore {
+    private static final long DAY_MILLIS = CandleInterval.ONE_DAY.millis();
+
+    private final AtomicReference<Map<String, SymbolPrices>> snapshot = new AtomicReference<>(Map.of());
+
+    @Override
+    public boolean saveAll(List<PriceSeries> batch) {
+        return apply(batch, false);
+    }
+
+    @Override
+    public boolean replaceAll(List<PriceSeries> batch) {
+        return apply(batch, true);
+    }
+
+    /**
+     * Merges or replaces the series of the batch and swaps in the new snapshot. The symbols the batch leaves unchanged
+     * keep their entry, and a batch changing nothing leaves the snapshot as it is.
+     */
+    private boolean apply(List<PriceSeries> batch, boolean replace) {
+        Map<String, SymbolPrices> bases = new HashMap<>();
+        Map<String, SymbolPrices> updates = new HashMap<>();
+        while (true) {
+            Map<String, SymbolPrices> current = snapshot.get();
+            for (PriceSeries series : batch) {
+                if (series.isEmpty()) {
+                    continue;
+                }
+                String symbol = series.symbol();
+                SymbolPrices base = current.get(symbol);
+                // on a retry, only the symbols changed by the concurrent write are merged again
+                if (bases.containsKey(symbol) && bases.get(symbol) == base) {
+                    continue;
+                }
+                bases.put(symbol, base);
+                SymbolPrices update = base == null
+                        ? SymbolPrices.of(series)
+                        : replace ? base.replace(series) : base.update(series);
+                if (update == base) {
+                    updates.remove(symbol);
+                } else {
+                    updates.put(symbol, update);
+                }
+            }
+            if (updates.isEmpty()) {
+                return false;
+            }
+
+            Map<String, SymbolPrices> next = new HashMap<>(current);
+            next.putAll(updates);
+            if (snapshot.compareAndSet(current, Map.copyOf(next))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long count() {
+        return snapshot.get().values().stream()
+                .mapToLong(prices -> prices.stats().count())
+                .sum();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return snapshot.get().values().stream()
+                .mapToLong(prices -> prices.series().sizeInBytes() + prices.candles().sizeInBytes())
+                .sum();
+    }
+
+    @Override
+    public List<String> findAllSymbols() {
+        return List.copyOf(snapshot.get().keySet());
+    }
+
+    @Override
+    public Optional<CryptoStats> findStats(String symbol) {
+        return findPrices(symbol).map(SymbolPrices::stats);
+    }
+
+    @Override
+    public Optional<CryptoStats> findStats(String symbol, long startMillis, long endMillis) {
+        return findPrices(symbol).flatMap(prices -> prices.stats(startMillis, endMillis));
+    }
+
+    @Override
+    public Map<String, CryptoStats> findStats(Collection<String> symbols, long startMillis, long endMillis) {
+        Map<String, SymbolPrices> pricesBySymbol = snapshot.get();
+        Map<String, CryptoStats> stats = new HashMap<>();
+        for (String symbol : symbols) {
+            SymbolPrices prices = pricesBySymbol.get(symbol);
+            if (prices != null) {
+                prices.stats(startMillis, endMillis).ifPresent(symbolStats -> stats.put(symbol, symbolStats));
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public Map<String, CryptoStats> findAllStats(long startMillis, long endMillis) {
+        Map<String, CryptoStats> stats = new HashMap<>();
+        snapshot.get().forEach((symbol, prices) ->
+                prices.stats(startMillis, endMillis).ifPresent(symbolStats -> stats.put(symbol, symbolStats)));
+        return stats;
+    }
+
+    @Override
+    public List<PriceRange> findPriceRanges() {
+        Map<String, SymbolPrices> pricesBySymbol = snapshot.get();
+        List<PriceRange> priceRanges = new ArrayList<>(pricesBySymbol.size());
+        for (SymbolPrices prices : pricesBySymbol.values()) {
+            priceRanges.add(prices.priceRange());
+        }
+        return priceRanges;
+    }
+
+    @Override
+    public List<PriceRange> findPriceRanges(long startMillis, long endMillis) {
+        List<PriceRange> priceRanges = new ArrayList<>();
+        for (SymbolPrices prices : snapshot.get().values()) {
+            prices.series().priceRange(startMillis, endMillis).ifPresent(priceRanges::add);
+        }
+        return priceRanges;
+    }
+
+    @Override
+    public List<PriceRange> findDailyPriceRanges(LocalDate date) {
+        long dayStart = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        List<PriceRange> priceRanges = new ArrayList<>();
+        for (SymbolPrices prices : snapshot.get().values()) {
+            PriceRollup dailyRollup = prices.candles().get(CandleInterval.ONE_DAY);
+            int day = dailyRollup.indexOf(dayStart);
+            if (day >= 0) {
+                priceRanges.add(priceRange(dailyRollup, day));
+            }
+        }
+        return priceRanges;
+    }
+
+    /**
+     * Slices the daily rollup of each crypto, which holds the days in time order, so each symbol is read in a single
+     * sorted pass. The symbols are sliced in parallel.
+     */
+    @Override
+    public List<DailyPriceRange> findDailyPriceRanges(long startMillis, long endMillis) {
+        return List.copyOf(snapshot.get().values()).parallelStream()
+                .flatMap(prices -> {
+                    PriceRollup dailyRollup = prices.candles().get(CandleInterval.ONE_DAY);
+                    return IntStream.range(dailyRollup.lowerBound(startMillis), dailyRollup.lowerBound(endMillis))
+                            .mapToObj(day -> new DailyPriceRange(
+                                    LocalDate.ofEpochDay(Math.floorDiv(dailyRollup.bucketStart(day), DAY_MILLIS)),
+                                    priceRange(dailyRollup, day)
+                            ));
+                })
+                .toList();
+    }
+
+    private static PriceRange priceRange(PriceRollup rollup, int index) {
+        return new PriceRange(rollup.symbol(), rollup.unscaledMin(index), rollup.unscaledMax(index), rollup.scale());
+    }
+
+    @Override
+    public Optional<PricePage> findPage(String symbol, long startMillis, long endMillis, int limit) {
+        return findPrices(symbol).flatMap(prices -> {
+            CompressedPriceSeries series = prices.series();
+            int from = series.lowerBound(startMillis);
+            int to = series.lowerBound(endMillis);
+            if (from >= to) {
+                return Optional.empty();
+            }
+            if (to - from > limit) {
+                return Optional.of(new PricePage(symbol, startMillis, series.timestamp(from + limit), true));
+            }
+            return Optional.of(new PricePage(symbol, startMillis, endMillis, false));
+        });
+    }
+
+    /**
+     * Scans the series of the current snapshot, so data points written meanwhile are not streamed. The blocks before
+     * the time range are skipped, the others are decoded one at a time into the buffer of the scanner.
+     */
+    @Override
+    public void forEachPrice(String symbol, long startMillis, long endMillis, PricePointConsumer consumer)
+            throws IOException {
+        SymbolPrices prices = snapshot.get().get(symbol);
+        if (prices == null) {
+            return;
+        }
+        CompressedPriceSeries series = prices.series();
+        int scale = series.scale();
+        for (CompressedPriceSeries.Scanner scanner = series.scan(startMillis, endMillis); scanner.next(); ) {
+            consumer.accept(scanner.timestamp(), scanner.unscaledPrice(), scale);
+        }
+    }
+
+    @Override
+    public List<Candle> findCandles(String symbol, CandleInterval interval, long startMillis, long endMillis, int limit) {
+        SymbolPrices prices = snapshot.get().get(symbol);
+        if (prices == null) {
+            return List.of();
+        }
+        PriceRollup rollup = prices.candles().get(interval, startMillis, endMillis, limit);
+        int from = rollup.lowerBound(startMillis);
+        int to = Math.min(rollup.lowerBound(endMillis), from + limit);
+        List<Candle> candles = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            candles.add(new Candle(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(rollup.bucketStart(i)), ZoneOffset.UTC),
+                    rollup.first(i),
+                    rollup.max(i),
+                    rollup.min(i),
+                    rollup.last(i),
+                    rollup.count(i)
+            ));
+        }
+        return candles;
+    }
+
+    @Override
+    public boolean supportsSnapshots() {
+        return true;
+    }
+
+    @Override
+    public List<? extends PriceSnapshotFile.Section> snapshotSections() {
+        return List.copyOf(snapshot.get().values());
+    }
+
+    /**
+     * Reads the sections in parallel and swaps in the restored snapshot once all of them were read.
+     */
+    @Override
+    public void restoreSnapshot(List<ByteBuffer> sections) {
+        Map<String, SymbolPrices> restored = new HashMap<>();
+        sections.parallelStream()
+                .map(SymbolPrices::readFrom)
+                .toList()
+                .forEach(prices -> restored.put(prices.series().symbol(), prices));
+        snapshot.set(Map.copyOf(restored));
+    }
+
+    private Optional<SymbolPrices> findPrices(String symbol) {
+        return Optional.ofNullable(snapshot.get().get(symbol));
+    }
+
+    /**
+     * Immutable snapshot of the compressed prices of a crypto together with the statistics and the candles derived
+     * from them, written to a snapshot file as it is.
+     */
+    private record SymbolPrices(CompressedPriceSeries series, CryptoStats stats, CandleRollups candles)
+            implements PriceSnapshotFile.Section {
+
+        static SymbolPrices of(PriceSeries series) {
+            CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+            return of(compressed, CandleRollups.of(compressed));
+        }
+
+        private static SymbolPrices of(CompressedPriceSeries series, CandleRollups candles) {
+            return new SymbolPrices(series, series.stats(Long.MIN_VALUE, Long.MAX_VALUE).orElseThrow(), candles);
+        }
+
+        /**
+         * Reads the compressed series and the candles written by {@link #writeTo(ByteBuffer)}. Only the statistics are
+         * computed again, from the block headers and the blocks holding the oldest, newest, lowest and highest price.
+         */
+        static SymbolPrices readFrom(ByteBuffer section) {
+            ByteBuffer buffer = section.duplicate().order(section.order());
+            try {
+                CompressedPriceSeries series = CompressedPriceSeries.readFrom(buffer);
+                CandleRollups candles = CandleRollups.readFrom(buffer, series.symbol());
+                if (series.size() == 0 || buffer.hasRemaining()) {
+                    throw new IllegalArgumentException("Invalid snapshot section of " + series.symbol());
+                }
+                return of(series, candles);
+            } catch (BufferUnderflowException exception) {
+                throw new IllegalArgumentException("Truncated snapshot section", exception);
+            }
+        }
+
+        /**
+         * Merges the given data points into the snapshot. Only the blocks of the series and the candles from the first
+         * changed data point on are encoded and rolled up again, so appending data points costs little more than
+         * copying the compressed series. Data points which are all stored already leave the snapshot as it is.
+         */
+        SymbolPrices update(PriceSeries changes) {
+            if (series.containsAll(changes)) {
+                return this;
+            }
+            CompressedPriceSeries merged = series.merge(changes);
+            return of(merged, candles.update(merged, changes.timestamp(0)));
+        }
+
+        /**
+         * Replaces the data points with the given ones, unless they are the same as the stored ones.
+         */
+        SymbolPrices replace(PriceSeries replacement) {
+            if (series.size() == replacement.size() && series.scale() == replacement.scale()
+                    && series.containsAll(replacement)) {
+                return this;
+            }
+            return of(replacement);
+        }
+
+        /**
+         * Returns the statistics of the time range, the ones computed on write if it covers the whole series.
+         */
+        Optional<CryptoStats> stats(long startMillis, long endMillis) {
+            if (startMillis <= series.firstTimestamp() && endMillis > series.lastTimestamp()) {
+                return Optional.of(stats);
+            }
+            return series.stats(startMillis, endMillis);
+        }
+
+        /**
+         * Returns the price range of the whole series from the statistics computed on write, whose prices have the
+         * scale of the series.
+         */
+        PriceRange priceRange() {
+            return new PriceRange(
+                    series.symbol(),
+                    stats.min().price().unscaledValue().longValueExact(),
+                    stats.max().price().unscaledValue().longValueExact(),
+                    series.scale()
+            );
+        }
+
+        @Override
+        public long serializedSize() {
+            return series.serializedSize() + candles.serializedSize();
+        }
+
+        @Override
+        public void writeTo(ByteBuffer buffer) {
+            series.writeTo(buffer);
+            candles.writeTo(buffer);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.model.domain.Candle;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.Crypto;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.DailyPriceRange;
+import com.xm.crypto.model.domain.FixedPoint;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.entity.CryptoEntity;
+import com.xm.crypto.model.mapper.CryptoEntityMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link CryptoPriceStore} persisting the prices to the database through {@link CryptoRepository}.
+ * Writes bypass JPA: as the entity id is assigned, {@code saveAll} would select every row before inserting it,
+ * so the data points are upserted with a single batched {@code MERGE} statement instead, in one transaction per batch.
+ * Exports read the rows in keyset chunks of {@value #EXPORT_CHUNK_SIZE} rows, each with its own short query, and write
+ * a chunk to the client only after its connection was returned to the pool, so a slow client never holds a
+ * connection.
+ * <p>
+ * The data points are partitioned by crypto and UTC calendar month: each write refreshes the summary of the months it
+ * touched in {@code crypto_value_partitions}, in the same transaction. Range queries answer the months fully covered
+ * by their time range from these summaries and only read the data points of the months at its edges, see
+ * {@link MonthPartitions#coveredMonths(long, long)}, so their cost grows with the length of the time range instead of
+ * the stored history.
+ * <p>
+ * The schema is created by the Flyway migrations. Prices are stored with 18 decimal places, the trailing zeros are
+ * stripped again when they are read, see {@link FixedPoint#normalize(BigDecimal)}.
+ */
+@Repository
+@ConditionalOnProperty(name = "crypto.store.type", havingValue = "jpa")
+public class JpaCryptoPriceStore implements CryptoPriceStore {
+
+    private static final String UPSERT_SQL = """
+            MERGE INTO crypto_values target
+            USING (VALUES (?, ?, ?)) AS source (symbol, timestamp, price)
+            ON target.symbol = source.symbol AND target.timestamp = source.timestamp
+            WHEN MATCHED AND target.price <> source.price THEN UPDATE SET price = source.price
+            WHEN NOT MATCHED THEN INSERT (symbol, timestamp, price) VALUES (source.symbol, source.timestamp, source.price)
+            """;
+
+    private static final String SYMBOL_TIMESTAMPS_SQL = "SELECT timestamp FROM crypto_values WHERE symbol = ?";
+
+    private static final String DELETE_VALUE_SQL = "DELETE FROM crypto_values WHERE symbol = ? AND timestamp = ?";
+
+    private static final String DELETE_PARTITIONS_SQL = "DELETE FROM crypto_value_partitions WHERE symbol = ?";
+
+    /**
+     * Recomputes the summary of the month partition of a crypto from its data points, as an overwritten price may
+     * have been its min or max. Ties of the min and max price are broken by the older data point.
+     */
+    private static final String REFRESH_PARTITION_SQL = """
+            MERGE INTO crypto_value_partitions target
+            USING (
+                SELECT DISTINCT CAST(? AS BIGINT) AS month_start,
+                       symbol,
+                       FIRST_VALUE(timestamp) OVER (ORDER BY timestamp) AS first_timestamp,
+                       FIRST_VALUE(price) OVER (ORDER BY timestamp) AS first_price,
+                       FIRST_VALUE(timestamp) OVER (ORDER BY timestamp DESC) AS last_timestamp,
+                       FIRST_VALUE(price) OVER (ORDER BY timestamp DESC) AS last_price,
+                       FIRST_VALUE(timestamp) OVER (ORDER BY price, timestamp) AS min_timestamp,
+                       FIRST_VALUE(price) OVER (ORDER BY price, timestamp) AS min_price,
+                       FIRST_VALUE(timestamp) OVER (ORDER BY price DESC, timestamp) AS max_timestamp,
+                       FIRST_VALUE(price) OVER (ORDER BY price DESC, timestamp) AS max_price,
+                       COUNT(*) OVER () AS data_point_count
+                FROM crypto_values
+                WHERE symbol = ?
+                  AND timestamp >= ?
+                  AND timestamp < ?
+            ) source
+            ON target.month_start = source.month_start AND target.symbol = source.symbol
+            WHEN MATCHED THEN UPDATE SET
+                first_timestamp = source.first_timestamp, first_price = source.first_price,
+                last_timestamp = source.last_timestamp, last_price = source.last_price,
+                min_timestamp = source.min_timestamp, min_price = source.min_price,
+                max_timestamp = source.max_timestamp, max_price = source.max_price,
+                data_point_count = source.data_point_count
+            WHEN NOT MATCHED THEN INSERT (
+                month_start, symbol, first_timestamp, first_price, last_timestamp, last_price,
+                min_timestamp, min_price, max_timestamp, max_price, data_point_count
+            ) VALUES (
+                source.month_start, source.symbol, source.first_timestamp, source.first_price,
+                source.last_timestamp, source.last_price, source.min_timestamp, source.min_price,
+                source.max_timestamp, source.max_price, source.data_point_count
+            )
+            """;
+
+    private static final String EXPORT_SQL = """
+            SELECT timestamp, price
+            FROM crypto_values
+            WHERE symbol = ?
+              AND timestamp >= ?
+              AND timestamp < ?
+            ORDER BY timestamp
+            FETCH FIRST ? ROWS ONLY
+            """;
+
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+    private static final long DAY_MILLIS = CandleInterval.ONE_DAY.millis();
+
+    private final CryptoRepository cryptoRepository;
+    private final CryptoEntityMapper cryptoEntityMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    public JpaCryptoPriceStore(
+            CryptoRepository cryptoRepository,
+            CryptoEntityMapper cryptoEntityMapper,
+            JdbcTemplate jdbcTemplate
+    ) {
+        this.cryptoRepository = cryptoRepository;
+        this.cryptoEntityMapper = cryptoEntityMapper;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public boolean saveAll(List<PriceSeries> batch) {
+        boolean changed = false;
+        for (PriceSeries series : batch) {
+            if (upsert(series)) {
+                refreshPartitions(series);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Deletes the stored data points of each symbol missing from its series before upserting the series. The month
+     * summaries of a changed symbol are rebuilt, as a month may have lost all of its data points.
+     */
+    @Override
+    @Transactional
+    public boolean replaceAll(List<PriceSeries> batch) {
+        boolean changed = false;
+        for (PriceSeries series : batch) {
+            boolean deleted = deleteMissing(series);
+            if (upsert(series) || deleted) {
+                jdbcTemplate.update(DELETE_PARTITIONS_SQL, series.symbol());
+                refreshPartitions(series);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Upserts the data points of the series and returns whether any row was inserted or updated. Rows already holding
+     * the same price are not updated.
+     */
+    private boolean upsert(PriceSeries series) {
+        int[] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException {
+                statement.setString(1, series.symbol());
+                statement.setLong(2, series.timestamp(index));
+                statement.setBigDecimal(3, series.price(index));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return series.size();
+            }
+        });
+        // a driver may report a batched statement as executed without a row count, which counts as a change
+        return Arrays.stream(counts).anyMatch(count -> count != 0);
+    }
+
+    /**
+     * Deletes the stored data points of the symbol of the series whose timestamp is not in the series and returns
+     * whether any was deleted.
+     */
+    private boolean deleteMissing(PriceSeries series) {
+        List<Long> missing = new ArrayList<>();
+        jdbcTemplate.query(SYMBOL_TIMESTAMPS_SQL, resultSet -> {
+            long timestamp = resultSet.getLong(1);
+            int index = series.lowerBound(timestamp);
+            if (index == series.size() || series.timestamp(index) != timestamp) {
+                missing.add(timestamp);
+            }
+        }, series.symbol());
+        if (missing.isEmpty()) {
+            return false;
+        }
+        jdbcTemplate.batchUpdate(DELETE_VALUE_SQL, missing, missing.size(), (statement, timestamp) -> {
+            statement.setString(1, series.symbol());
+            statement.setLong(2, timestamp);
+        });
+        return true;
+    }
+
+    /**
+     * Refreshes the summaries of the months holding at least one of the data points of the series, with one
+     * batched statement. Appending data points in time order usually touches a single month.
+     */
+    private void refreshPartitions(PriceSeries series) {
+        List<Long> monthStarts = new ArrayList<>();
+        int index = 0;
+        while (index < series.size()) {
+            long nextMonthStart = MonthPartitions.nextMonthStart(series.timestamp(index));
+            monthStarts.add(MonthPartitions.monthStart(series.timestamp(index)));
+            index = nextMonthStart == Long.MAX_VALUE ? series.size() : series.lowerBound(nextMonthStart);
+        }
+        jdbcTemplate.batchUpdate(REFRESH_PARTITION_SQL, monthStarts, monthStarts.size(), (statement, monthStart) -> {
+            statement.setLong(1, monthStart);
+            statement.setString(2, series.symbol());
+            statement.setLong(3, monthStart);
+            statement.setLong(4, MonthPartitions.nextMonthStart(monthStart));
+        });
+    }
+
+    @Override
+    public long count() {
+        return cryptoRepository.count();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return 0;
+    }
+
+    @Override
+    public List<String> findAllSymbols() {
+        return cryptoRepository.findAllSymbols();
+    }
+
+    @Override
+    public Optional<CryptoStats> findStats(String symbol) {
+        return findStats(symbol, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Computes the statistics with the single statement of the batch stats, instead of one round trip for each of
+     * the oldest, newest, min and max data points and the count, so a request holds a connection only once.
+     */
+    @Override
+    public Optional<CryptoStats> findStats(String symbol, long startMillis, long endMillis) {
+        return Optional.ofNullable(findStats(List.of(symbol), startMillis, endMillis).get(symbol));
+    }
+
+    @Override
+    public Map<String, CryptoStats> findStats(Collection<String> symbols, long startMillis, long endMillis) {
+        if (symbols.isEmpty()) {
+            return Map.of();
+        }
+        TimeRange covered = MonthPartitions.coveredMonths(startMillis, endMillis);
+        return toStats(cryptoRepository.findStatsBySymbolsAndTimeRange(
+                symbols, startMillis, endMillis, covered.startMillis(), covered.endMillis()));
+    }
+
+    @Override
+    public Map<String, CryptoStats> findAllStats(long startMillis, long endMillis) {
+        TimeRange covered = MonthPartitions.coveredMonths(startMillis, endMillis);
+        return toStats(cryptoRepository.findStatsByTimeRange(
+                startMillis, endMillis, covered.startMillis(), covered.endMillis()));
+    }
+
+    private Map<String, CryptoStats> toStats(List<CryptoStatsRow> rows) {
+        Map<String, CryptoStats> stats = new HashMap<>(rows.size());
+        for (CryptoStatsRow row : rows) {
+            String symbol = row.getSymbol();
+            stats.put(symbol, new CryptoStats(
+                    symbol,
+                    toDomain(row.getOldestTimestamp(), symbol, row.getOldestPrice()),
+                    toDomain(row.getNewestTimestamp(), symbol, row.getNewestPrice()),
+                    toDomain(row.getMinTimestamp(), symbol, row.getMinPrice()),
+                    toDomain(row.getMaxTimestamp(), symbol, row.getMaxPrice()),
+                    row.getDataPointCount()
+            ));
+        }
+        return stats;
+    }
+
+    private Crypto toDomain(long timestamp, String symbol, BigDecimal price) {
+        return cryptoEntityMapper.toDomain(new CryptoEntity(timestamp, symbol, FixedPoint.normalize(price)));
+    }
+
+    @Override
+    public List<PriceRange> findPriceRanges() {
+        return toPriceRanges(cryptoRepository.findPriceRangesGroupedBySymbol());
+    }
+
+    @Override
+    public List<PriceRange> findPriceRanges(long startMillis, long endMillis) {
+        TimeRange covered = MonthPartitions.coveredMonths(startMillis, endMillis);
+        return toPriceRanges(cryptoRepository.findPriceRangesGroupedBySymbolAndTimeRange(
+                startMillis, endMillis, covered.startMillis(), covered.endMillis()));
+    }
+
+    private static List<PriceRange> toPriceRanges(List<PriceRangeRow> rows) {
+        return rows.stream()
+                .map(row -> new PriceRange(row.getSymbol(), row.getMinPrice(), row.getMaxPrice()))
+                .toList();
+    }
+
+    @Override
+    public List<PriceRange> findDailyPriceRanges(LocalDate date) {
+        long startMillis = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long endMillis = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return findPriceRanges(startMillis, endMillis);
+    }
+
+    @Override
+    public List<DailyPriceRange> findDailyPriceRanges(long startMillis, long endMillis) {
+        return cryptoRepository.findDailyPriceRanges(startMillis, endMillis).stream()
+                .map(row -> new DailyPriceRange(
+                        LocalDate.ofEpochDay(Math.floorDiv(row.getDayStart(), DAY_MILLIS)),
+                        new PriceRange(row.getSymbol(), row.getMinPrice(), row.getMaxPrice())
+                ))
+                .toList();
+    }
+
+    @Override
+    public Optional<PricePage> findPage(String symbol, long startMillis, long endMillis, int limit) {
+        if (!cryptoRepository.existsByIdSymbolAndIdTimestampBetween(symbol, startMillis, endMillis - 1)) {
+            return Optional.empty();
+        }
+        return Optional.of(cryptoRepository.findTimestampAfter(symbol, startMillis, endMillis, limit)
+                .map(next -> new PricePage(symbol, startMillis, next, true))
+                .orElseGet(() -> new PricePage(symbol, startMillis, endMillis, false)));
+    }
+
+    /**
+     * Aggregates the candles from the rows on each call, as the database holds no rollups.
+     */
+    @Override
+    public List<Candle> findCandles(String symbol, CandleInterval interval, long startMillis, long endMillis, int limit) {
+        return cryptoRepository.findCandles(symbol, interval.millis(), startMillis, endMillis, limit).stream()
+                .map(row -> new Candle(
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(row.getBucketStart()), ZoneOffset.UTC),
+                        FixedPoint.normalize(row.getOpenPrice()),
+                        FixedPoint.normalize(row.getHighPrice()),
+                        FixedPoint.normalize(row.getLowPrice()),
+                        FixedPoint.normalize(row.getClosePrice()),
+                        row.getDataPointCount()
+                ))
+                .toList();
+    }
+
+    /**
+     * Reads the rows chunk by chunk, each chunk starting after the timestamp of the last row of the previous one.
+     * Every chunk is a query of its own outside of any transaction, so data points written between two chunks are
+     * streamed if they lie after the rows already written.
+     */
+    @Override
+    public void forEachPrice(String symbol, long startMillis, long endMillis, PricePointConsumer consumer)
+            throws IOException {
+        ExportChunk chunk = new ExportChunk();
+        long chunkStart = startMillis;
+        do {
+            readChunk(symbol, chunkStart, endMillis, chunk);
+            for (int i = 0; i < chunk.size; i++) {
+                consumer.accept(chunk.timestamps[i], chunk.unscaledPrices[i], chunk.scales[i]);
+            }
+            // a full chunk ends before endMillis, so the next one starts after its last timestamp without overflow
+            chunkStart = chunk.size > 0 ? chunk.timestamps[chunk.size - 1] + 1 : endMillis;
+        } while (chunk.size == EXPORT_CHUNK_SIZE);
+    }
+
+    private void readChunk(String symbol, long startMillis, long endMillis, ExportChunk chunk) {
+        chunk.size = 0;
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(EXPORT_SQL);
+                    statement.setString(1, symbol);
+                    statement.setLong(2, startMillis);
+                    statement.setLong(3, endMillis);
+                    statement.setInt(4, EXPORT_CHUNK_SIZE);
+                    return statement;
+                },
+                resultSet -> {
+                    BigDecimal price = FixedPoint.normalize(resultSet.getBigDecimal(2));
+                    chunk.timestamps[chunk.size] = resultSet.getLong(1);
+                    chunk.unscaledPrices[chunk.size] = price.unscaledValue().longValueExact();
+                    chunk.scales[chunk.size] = price.scale();
+                    chunk.size++;
+                }
+        );
+    }
+
+    /**
+     * Columns of the rows of one export chunk, reused for every chunk of an export.
+     */
+    private static final class ExportChunk {
+        private final long[] timestamps = new long[EXPORT_CHUNK_SIZE];
+        private final long[] unscaledPrices = new long[EXPORT_CHUNK_SIZE];
+        private final int[] scales = new int[EXPORT_CHUNK_SIZE];
+        private int size;
+    }
+}
@@ -0,0 +1,66 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.TimeRange;
+
+import java.time.LocalDate;
+
+/**
+ * Boundaries of the UTC calendar month partitions of {@code crypto_value_partitions}. Month starts beyond the range of
+ * epoch milliseconds are clamped to {@link Long#MIN_VALUE} and {@link Long#MAX_VALUE}.
+ */
+final class MonthPartitions {
+    private static final long DAY_MILLIS = CandleInterval.ONE_DAY.millis();
+
+    private MonthPartitions() {
+    }
+
+    /**
+     * Returns the start of the month containing the given timestamp.
+     *
+     * @param millis the timestamp in epoch milliseconds
+     * @return the start of the month in epoch milliseconds
+     */
+    static long monthStart(long millis) {
+        return toMillis(monthOf(millis));
+    }
+
+    /**
+     * Returns the start of the month following the one containing the given timestamp.
+     *
+     * @param millis the timestamp in epoch milliseconds
+     * @return the start of the next month in epoch milliseconds
+     */
+    static long nextMonthStart(long millis) {
+        return toMillis(monthOf(millis).plusMonths(1));
+    }
+
+    /**
+     * Returns the whole months within a time range, the ones answered from their summaries. The rest of the time
+     * range, before and after them, is read from the data points.
+     *
+     * @param startMillis the start of the time range (inclusive)
+     * @param endMillis   the end of the time range (exclusive)
+     * @return the months fully covered by the time range, or the empty range [endMillis, endMillis) if there is none
+     */
+    static TimeRange coveredMonths(long startMillis, long endMillis) {
+        long firstMonth = monthStart(startMillis) == startMillis ? startMillis : nextMonthStart(startMillis);
+        long endMonth = monthStart(endMillis);
+        return firstMonth < endMonth ? new TimeRange(firstMonth, endMonth) : new TimeRange(endMillis, endMillis);
+    }
+
+    private static LocalDate monthOf(long millis) {
+        return LocalDate.ofEpochDay(Math.floorDiv(millis, DAY_MILLIS)).withDayOfMonth(1);
+    }
+
+    private static long toMillis(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        if (epochDay > Long.MAX_VALUE / DAY_MILLIS) {
+            return Long.MAX_VALUE;
+        }
+        if (epochDay < Long.MIN_VALUE / DAY_MILLIS) {
+            return Long.MIN_VALUE;
+        }
+        return epochDay * DAY_MILLIS;
+    }
+}
@@ -0,0 +1,21 @@
+package com.xm.crypto.repository;
+
+import java.io.IOException;
+
+/**
+ * Consumer of the data points streamed by {@link CryptoPriceStore#forEachPrice}, taking the price as a fixed-point
+ * decimal so no object is created per data point.
+ */
+@FunctionalInterface
+public interface PricePointConsumer {
+
+    /**
+     * Consumes a data point.
+     *
+     * @param timestamp     the timestamp in epoch milliseconds
+     * @param unscaledPrice the unscaled price
+     * @param scale         the scale of the price
+     * @throws IOException if the data point cannot be written
+     */
+    void accept(long timestamp, long unscaledPrice, int scale) throws IOException;
+}
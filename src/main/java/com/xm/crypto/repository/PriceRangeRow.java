@@ -0,0 +1,15 @@
+package com.xm.crypto.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of a row of the price range queries of {@link CryptoRepository}: the lowest and highest price of a crypto.
+ */
+public interface PriceRangeRow {
+
+    String getSymbol();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getMaxPrice();
+}
@@ -0,0 +1,282 @@
+package com.xm.crypto.repository;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary snapshot of the prices of a {@link CryptoPriceStore}, written after the CSV files were loaded and
+ * restored on the next start instead of parsing them again, as long as none of them changed.
+ * <p>
+ * The file starts with a header holding the format version, the source CSV files with their size, modification time
+ * and loaded offset, and the size of each section, e.g. one per crypto. The sections follow, each written and read
+ * through its own memory mapping, and the file ends with a CRC32C checksum of all preceding bytes. A file of another
+ * format version or of other source files is ignored, a file with a wrong checksum is rejected. Files are written to
+ * a temporary file first and moved in place, so a crash never leaves a partially written snapshot behind.
+ */
+public final class PriceSnapshotFile {
+    static final int FORMAT_VERSION = 6;
+
+    private static final long MAGIC = 0x4352595054534E50L;
+    private static final int PREFIX_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private PriceSnapshotFile() {
+    }
+
+    /**
+     * A source CSV file of a snapshot. The snapshot is only restored if the size and modification time of every
+     * source file are unchanged.
+     *
+     * @param path               the absolute path of the file
+     * @param size               the size of the file in bytes
+     * @param lastModifiedMillis the modification time of the file in epoch milliseconds
+     * @param loadedOffset       the byte offset up to which the file was loaded, -1 if unknown
+     */
+    public record SourceFile(String path, long size, long lastModifiedMillis, long loadedOffset) {
+
+        /**
+         * Returns the source file of the given file with its current size and modification time.
+         *
+         * @param file         the CSV file
+         * @param loadedOffset the byte offset up to which the file was loaded, -1 if unknown
+         * @return the source file
+         * @throws IOException if the attributes of the file cannot be read
+         */
+        public static SourceFile of(Path file, long loadedOffset) throws IOException {
+            return new SourceFile(
+                    file.toAbsolutePath().normalize().toString(),
+                    Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis(),
+                    loadedOffset
+            );
+        }
+
+        boolean isUnchanged(SourceFile current) {
+            return path.equals(current.path) && size == current.size && lastModifiedMillis == current.lastModifiedMillis;
+        }
+    }
+
+    /**
+     * A section of a snapshot, written straight into its memory mapping.
+     */
+    public interface Section {
+
+        /**
+         * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes, at most {@link Integer#MAX_VALUE}.
+         *
+         * @return the size of the section in bytes
+         */
+        long serializedSize();
+
+        /**
+         * Writes the section.
+         *
+         * @param buffer the buffer to write to, with exactly {@link #serializedSize()} bytes remaining
+         */
+        void writeTo(ByteBuffer buffer);
+    }
+
+    /**
+     * The contents of a snapshot file.
+     *
+     * @param sources  the source files, with the offsets up to which they were loaded
+     * @param sections the sections as read-only memory mappings, in the order they were written
+     */
+    public record Snapshot(List<SourceFile> sources, List<ByteBuffer> sections) {
+    }
+
+    /**
+     * Writes a snapshot file, replacing the existing one. It is written to a temporary file, which is forced to the
+     * storage device before it is atomically moved over the existing one.
+     *
+     * @param file     the snapshot file
+     * @param sources  the source files the sections were loaded from
+     * @param sections the sections to write
+     * @throws IOException if the file cannot be written or a section is larger than 2 GiB
+     */
+    public static void write(Path file, List<SourceFile> sources, List<? extends Section> sections) throws IOException {
+        long[] sizes = new long[sections.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = sections.get(i).serializedSize();
+            if (sizes[i] > Integer.MAX_VALUE) {
+                throw new IOException("A snapshot section of " + sizes[i] + " bytes exceeds the maximum of 2 GiB");
+            }
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            CRC32C checksum = new CRC32C();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = header(sources, sizes);
+                checksum.update(header.duplicate());
+                writeFully(channel, header, 0);
+                long position = header.limit();
+                for (int i = 0; i < sizes.length; i++) {
+                    MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_WRITE, position, sizes[i]);
+                    ByteBuffer mapped = section.duplicate().order(BYTE_ORDER);
+                    sections.get(i).writeTo(mapped);
+                    if (mapped.hasRemaining()) {
+                        throw new IllegalStateException("Snapshot section " + i + " is shorter than its size");
+                    }
+                    checksum.update(mapped.flip());
+                    // the channel is not guaranteed to flush the writes through a mapping, so the section is forced itself
+                    section.force();
+                    position += sizes[i];
+                }
+                writeFully(channel, ByteBuffer.allocate(Long.BYTES).order(BYTE_ORDER).putLong(0, checksum.getValue()), position);
+                // the file must be durable before the move, or a crash may leave a renamed but incomplete snapshot
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads a snapshot file if it has the current format version and the given source files are unchanged since it
+     * was written. The sections are memory-mapped, not copied.
+     *
+     * @param file    the snapshot file
+     * @param sources the current source files, in the order they were written
+     * @return the snapshot, or empty if there is no snapshot file or it is outdated
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static Optional<Snapshot> read(Path file, List<SourceFile> sources) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = channel.size() - Long.BYTES;
+            ByteBuffer prefix = readFully(channel, 0, PREFIX_BYTES);
+            if (prefix.getLong() != MAGIC) {
+                throw new IOException("Not a price snapshot file: " + file);
+            }
+            if (prefix.getInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            int headerLength = prefix.getInt();
+            if (headerLength < 0 || headerLength > end - PREFIX_BYTES) {
+                throw corrupt(file);
+            }
+            ByteBuffer header = readFully(channel, PREFIX_BYTES, headerLength);
+            CRC32C checksum = new CRC32C();
+            checksum.update(prefix.rewind());
+            checksum.update(header.duplicate());
+
+            List<SourceFile> storedSources = readSources(header);
+            if (!isUnchanged(storedSources, sources)) {
+                return Optional.empty();
+            }
+            List<ByteBuffer> sections = new ArrayList<>();
+            long position = PREFIX_BYTES + headerLength;
+            for (int i = 0, count = header.getInt(); i < count; i++) {
+                long size = header.getLong();
+                if (size < 0 || size > Integer.MAX_VALUE || size > end - position) {
+                    throw corrupt(file);
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                checksum.update(mapped.duplicate());
+                sections.add(mapped.order(BYTE_ORDER));
+                position += size;
+            }
+            if (position != end || readFully(channel, end, Long.BYTES).getLong() != checksum.getValue()) {
+                throw corrupt(file);
+            }
+            return Optional.of(new Snapshot(storedSources, sections));
+        }
+    }
+
+    private static ByteBuffer header(List<SourceFile> sources, long[] sizes) {
+        List<byte[]> paths = new ArrayList<>(sources.size());
+        int headerLength = Integer.BYTES + Integer.BYTES + sizes.length * Long.BYTES;
+        for (SourceFile source : sources) {
+            byte[] path = source.path().getBytes(StandardCharsets.UTF_8);
+            paths.add(path);
+            headerLength += Integer.BYTES + path.length + 3 * Long.BYTES;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(PREFIX_BYTES + headerLength).order(BYTE_ORDER)
+                .putLong(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(headerLength)
+                .putInt(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            SourceFile source = sources.get(i);
+            header.putInt(paths.get(i).length)
+                    .put(paths.get(i))
+                    .putLong(source.size())
+                    .putLong(source.lastModifiedMillis())
+                    .putLong(source.loadedOffset());
+        }
+        header.putInt(sizes.length);
+        for (long size : sizes) {
+            header.putLong(size);
+        }
+        return header.flip();
+    }
+
+    private static List<SourceFile> readSources(ByteBuffer header) {
+        int count = header.getInt();
+        List<SourceFile> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] path = new byte[header.getInt()];
+            header.get(path);
+            sources.add(new SourceFile(
+                    new String(path, StandardCharsets.UTF_8),
+                    header.getLong(),
+                    header.getLong(),
+                    header.getLong()
+            ));
+        }
+        return sources;
+    }
+
+    private static boolean isUnchanged(List<SourceFile> storedSources, List<SourceFile> sources) {
+        if (storedSources.size() != sources.size()) {
+            return false;
+        }
+        for (int i = 0; i < sources.size(); i++) {
+            if (!storedSources.get(i).isUnchanged(sources.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(BYTE_ORDER);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of the price snapshot file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static IOException corrupt(Path file) {
+        return new IOException("The price snapshot file is corrupt: " + file);
+    }
+}
@@ -0,0 +1,25 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.CandleDto;
+
+import java.util.List;
+
+/**
+ * Service interface for retrieving the OHLC candles of a cryptocurrency for charting.
+ */
+public interface CandleService {
+
+    /**
+     * Retrieves the candles of the given crypto at the given interval, for the intervals starting within the time range.
+     *
+     * @param symbol    the crypto symbol (case-insensitive)
+     * @param interval  the interval of the candles
+     * @param timeRange the time range of the candles
+     * @return the candles in time order
+     * @throws NoCryptoDataFoundException if no data is found for the given symbol within the time range
+     * @throws InvalidTimeRangeException  if the time range holds more candles than can be returned at once
+     */
+    List<CandleDto> getCandles(String symbol, CandleInterval interval, TimeRange timeRange);
+}
@@ -0,0 +1,72 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.exception.InvalidTimeRangeException;
+import com.xm.crypto.exception.NoCryptoDataFoundException;
+import com.xm.crypto.model.domain.Candle;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.CandleDto;
+import com.xm.crypto.repository.CryptoPriceStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service implementation for retrieving the OHLC candles of a cryptocurrency for charting.
+ * At most {@code crypto.candles.max-count} candles are returned at once.
+ */
+@Service
+public class CandleServiceImpl implements CandleService {
+
+    private final CryptoPriceStore cryptoPriceStore;
+    private final int maxCount;
+
+    /**
+     * Constructs a new CandleServiceImpl with the required dependencies.
+     *
+     * @param cryptoPriceStore The store for accessing crypto data
+     * @param maxCount         The maximum number of candles returned at once
+     */
+    public CandleServiceImpl(
+            CryptoPriceStore cryptoPriceStore,
+            @Value("${crypto.candles.max-count:10000}") int maxCount
+    ) {
+        this.cryptoPriceStore = cryptoPriceStore;
+        this.maxCount = maxCount;
+    }
+
+    /**
+     * Retrieves the candles of the given crypto at the given interval, for the intervals starting within the time range.
+     *
+     * @param symbol    the crypto symbol (case-insensitive)
+     * @param interval  the interval of the candles
+     * @param timeRange the time range of the candles
+     * @return the candles in time order
+     * @throws NoCryptoDataFoundException if no data is found for the given symbol within the time range
+     * @throws InvalidTimeRangeException  if the time range holds more candles than can be returned at once
+     */
+    @Override
+    public List<CandleDto> getCandles(String symbol, CandleInterval interval, TimeRange timeRange) {
+        var upperCaseSymbol = symbol.toUpperCase();
+        long startMillis = interval.alignUp(timeRange.startMillis());
+        long endMillis = interval.alignUp(timeRange.endMillis());
+
+        // one more candle than allowed is requested to tell whether the time range holds too many
+        List<Candle> candles = cryptoPriceStore.findCandles(upperCaseSymbol, interval, startMillis, endMillis, maxCount + 1);
+        if (candles.isEmpty()) {
+            throw NoCryptoDataFoundException.forSymbol(upperCaseSymbol);
+        }
+        if (candles.size() > maxCount) {
+            throw new InvalidTimeRangeException("The time range holds more than " + maxCount + " candles of "
+                    + interval.code() + ", request a shorter time range or a longer interval.");
+        }
+        return candles.stream()
+                .map(CandleServiceImpl::toDto)
+                .toList();
+    }
+
+    private static CandleDto toDto(Candle candle) {
+        return new CandleDto(candle.start(), candle.open(), candle.high(), candle.low(), candle.close(), candle.count());
+    }
+}
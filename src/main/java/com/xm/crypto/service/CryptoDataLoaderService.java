@@ -1,11 +1,17 @@
 package com.xm.crypto.service;
 
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
-import com.xm.crypto.model.dto.CryptoCsvDto;
-import com.xm.crypto.model.entity.CryptoEntity;
-import com.xm.crypto.model.mapper.CryptoCsvDtoMapper;
-import com.xm.crypto.repository.CryptoRepository;
+import com.xm.crypto.exception.CryptoDataLoadException;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.parser.JacksonPriceCsvParser;
+import com.xm.crypto.parser.MappedPriceCsvParser;
+import com.xm.crypto.parser.ParseResult;
+import com.xm.crypto.repository.CryptoPriceStore;
+import com.xm.crypto.repository.PriceSnapshotFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,16 +21,44 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
- * Service responsible for loading cryptocurrency data from CSV files into the database on application startup.
- * The service locates CSV files, parses them, maps them to entities, and persists them using the repository.
+ * Service responsible for loading cryptocurrency data from CSV files into the price store on application startup.
+ * The service locates CSV files, parses them, maps them to columnar price series, and saves them using the store.
+ * Files are loaded concurrently on virtual threads, at most {@code crypto.loader.parallelism} at a time, so the
+ * startup time is bounded by the slowest files rather than the sum of all files. The rows of a file are streamed
+ * and saved in batches of {@code crypto.loader.batch-size} rows, so the memory used per file does not depend on its size.
+ * Files with the standard header are read by the {@link MappedPriceCsvParser}, other files by the
+ * {@link JacksonPriceCsvParser}.
+ * <p>
+ * The loaded files, rows and bytes as well as the parse and persist time per file are recorded as metrics,
+ * tagged by the parser used. After each load changing the stored prices the {@link DatasetVersionService} version is
+ * increased.
+ * <p>
+ * If {@code crypto.snapshot.file} is set and the store supports it, a {@link PriceSnapshotFile} of the loaded prices
+ * is written after the CSV files were loaded. On the next start it is restored instead, as long as the size and
+ * modification time of every CSV file are unchanged, which skips the parsing and the building of the indexes.
+ * An outdated, unreadable or corrupt snapshot falls back to loading the CSV files.
  */
 @Service
 public class CryptoDataLoaderService {
     private static final String CRYPTO_CSV_FILE_POSTFIX = "_values.csv";
+    private static final String MAPPED_PARSER = "mapped";
+    private static final String JACKSON_PARSER = "jackson";
 
     private static final Logger logger = LoggerFactory.getLogger(CryptoDataLoaderService.class);
 
@@ -34,98 +68,443 @@ public class CryptoDataLoaderService {
     @Value("${crypto.prices.dir}")
     private String cryptoPricesDir;
 
-    private final CryptoRepository cryptoRepository;
-    private final CryptoCsvDtoMapper cryptoCsvDtoMapper;
+    /**
+     * The maximum number of CSV files loaded concurrently.
+     */
+    @Value("${crypto.loader.parallelism:4}")
+    private int loaderParallelism;
+
+    /**
+     * The number of CSV rows saved to the store at once.
+     */
+    @Value("${crypto.loader.batch-size:5000}")
+    private int loaderBatchSize;
+
+    /**
+     * The binary snapshot of the loaded prices, empty to always load the CSV files.
+     */
+    @Value("${crypto.snapshot.file:}")
+    private String snapshotFile;
+
+    private final Map<Path, Long> loadedOffsets = new ConcurrentHashMap<>();
+    private Path pricesDirectory;
+
+    private final CryptoPriceStore cryptoPriceStore;
+    private final MappedPriceCsvParser mappedPriceCsvParser;
+    private final JacksonPriceCsvParser jacksonPriceCsvParser;
+    private final DatasetVersionService datasetVersionService;
+    private final MeterRegistry meterRegistry;
+    private final Counter loadFailures;
+    private final AtomicLong lastRowsPerSecond = new AtomicLong();
 
     /**
      * Constructs a new CryptoDataLoaderService with the required dependencies.
      *
-     * @param cryptoRepository   The repository for persisting crypto entities
-     * @param cryptoCsvDtoMapper The mapper for converting CSV DTOs to entities
+     * @param cryptoPriceStore      The store for saving the crypto prices
+     * @param mappedPriceCsvParser  The parser for files with the standard header
+     * @param jacksonPriceCsvParser The fallback parser for files with a non-standard header
+     * @param datasetVersionService The service keeping the version of the loaded prices
+     * @param meterRegistry         The registry of the loader metrics
      */
     public CryptoDataLoaderService(
-            CryptoRepository cryptoRepository,
-            CryptoCsvDtoMapper cryptoCsvDtoMapper
+            CryptoPriceStore cryptoPriceStore,
+            MappedPriceCsvParser mappedPriceCsvParser,
+            JacksonPriceCsvParser jacksonPriceCsvParser,
+            DatasetVersionService datasetVersionService,
+            MeterRegistry meterRegistry
     ) {
-        this.cryptoRepository = cryptoRepository;
-        this.cryptoCsvDtoMapper = cryptoCsvDtoMapper;
+        this.cryptoPriceStore = cryptoPriceStore;
+        this.mappedPriceCsvParser = mappedPriceCsvParser;
+        this.jacksonPriceCsvParser = jacksonPriceCsvParser;
+        this.datasetVersionService = datasetVersionService;
+        this.meterRegistry = meterRegistry;
+        this.loadFailures = Counter.builder("crypto.loader.failures")
+                .description("Number of crypto CSV files which failed to load")
+                .register(meterRegistry);
+        Gauge.builder("crypto.loader.rows.per.second", lastRowsPerSecond, AtomicLong::get)
+                .description("Rows loaded per second by the last load")
+                .register(meterRegistry);
     }
 
     /**
-     * Loads crypto data from CSV files into the database on application startup.
-     * It throws a runtime exception if loading fails and the application will be stopped in that case.
+     * Loads crypto data from CSV files into the price store on application startup.
+     * Every file is attempted even if others fail. It throws a runtime exception listing all failed files
+     * if loading fails and the application will be stopped in that case.
      */
     @PostConstruct
     public void loadCryptoData() {
         logger.info("Loading crypto data on startup from location: {}", cryptoPricesDir);
 
         try {
-            File[] cryptoCsvFiles = resolveCryptoCsvFiles(cryptoPricesDir);
+            File dir = resolveCryptoPricesDir(cryptoPricesDir);
+            pricesDirectory = dir.toPath();
+            File[] cryptoCsvFiles = dir.listFiles((d, name) -> isCryptoCsvFile(name));
             if (cryptoCsvFiles == null || cryptoCsvFiles.length == 0) {
                 logger.error("No valid crypto CSV files were found on the provided path: {}", cryptoPricesDir);
                 throw new IllegalArgumentException("No valid crypto CSV files were found on the provided path: " + cryptoPricesDir);
             }
 
-            Arrays.stream(cryptoCsvFiles)
-                    .forEach(this::processCryptoCsvFile);
+            Arrays.sort(cryptoCsvFiles);
+            List<PriceSnapshotFile.SourceFile> sources = sourceFiles(cryptoCsvFiles);
+            if (!restoreSnapshot(cryptoCsvFiles, sources)) {
+                loadCryptoCsvFiles(cryptoCsvFiles);
+                writeSnapshot(cryptoCsvFiles, sources);
+            }
+            datasetVersionService.increment();
         } catch (Exception exception) {
             throw new RuntimeException("An error occurred during the loading of the crypto data", exception);
         }
 
-        logger.info("Crypto data was successfully loaded.");
+        long dataPoints = cryptoPriceStore.count();
+        long sizeInBytes = cryptoPriceStore.sizeInBytes();
+        logger.info(
+                "Crypto data was successfully loaded: {} data points, in-memory size: {} bytes ({} bytes per data point).",
+                dataPoints,
+                sizeInBytes,
+                dataPoints == 0 ? 0 : Math.round(100.0 * sizeInBytes / dataPoints) / 100.0
+        );
     }
 
     /**
-     * Resolves and returns all CSV files with the expected postfix from the given path.
+     * Returns the directory the crypto CSV files were loaded from on startup.
+     *
+     * @return the directory of the crypto CSV files
+     */
+    public Path getPricesDirectory() {
+        return pricesDirectory;
+    }
+
+    /**
+     * Returns the byte offset up to which each crypto CSV file was loaded on startup.
+     *
+     * @return the loaded offset by file
+     */
+    public Map<Path, Long> getLoadedOffsets() {
+        return Map.copyOf(loadedOffsets);
+    }
+
+    /**
+     * Checks whether the given file name is the name of a crypto CSV file.
+     *
+     * @param fileName The file name
+     * @return true if the file name has the expected postfix
+     */
+    public static boolean isCryptoCsvFile(String fileName) {
+        return fileName.endsWith(CRYPTO_CSV_FILE_POSTFIX);
+    }
+
+    /**
+     * Loads the rows appended to a CSV file since it was loaded up to the given offset. A last row without a line
+     * break is left for the next call, as it may still be written. A file loaded from offset 0, i.e. a new, truncated
+     * or rewritten file, and a file with a non-standard header, which is always loaded again as a whole, replace the
+     * stored data points of their symbols at once. Such a file is collected in memory before it is stored.
+     * The {@link DatasetVersionService} version is only increased if the stored prices changed.
+     *
+     * @param file   The CSV file to load
+     * @param offset The byte offset up to which the file was already loaded, 0 for a new or rewritten file
+     * @return The number of loaded rows and the offset up to which the file is loaded now
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public ParseResult loadAppendedRows(Path file, long offset) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            boolean mapped = mappedPriceCsvParser.supports(file);
+            MeteredBatchSaver saver = new MeteredBatchSaver(offset == 0 || !mapped);
+            ParseResult result;
+            if (mapped) {
+                result = mappedPriceCsvParser.parseAppended(file, offset, batchSize(), saver);
+                saver.replaceCollected();
+                recordLoad(MAPPED_PARSER, result, result.endOffset() - offset, startNanos, saver);
+            } else {
+                result = jacksonPriceCsvParser.parse(file, batchSize(), saver);
+                saver.replaceCollected();
+                recordLoad(JACKSON_PARSER, result, result.endOffset(), startNanos, saver);
+            }
+            if (saver.changed) {
+                datasetVersionService.increment();
+            }
+            lastRowsPerSecond.set(rowsPerSecond(result.rows(), startNanos));
+            logLoadedRows(file, result, startNanos);
+            return result;
+        } catch (IOException | RuntimeException exception) {
+            loadFailures.increment();
+            throw exception;
+        }
+    }
+
+    /**
+     * Resolves the directory of the crypto CSV files from the given path.
      * Supports both classpath and filesystem locations.
      *
      * @param path The directory path (can be prefixed with "classpath:")
-     * @return An array of CSV files, or null if none found
-     * @throws IOException if an I/O error occurs while accessing the files
+     * @return The directory of the crypto CSV files
+     * @throws IOException if an I/O error occurs while accessing the classpath resource
      */
-    private File[] resolveCryptoCsvFiles(String path) throws IOException {
+    private File resolveCryptoPricesDir(String path) throws IOException {
         if (path.startsWith("classpath:")) {
             String resourcePath = path.substring("classpath:".length());
             ClassPathResource resource = new ClassPathResource(resourcePath);
-            File dir = resource.getFile();
-            return dir.listFiles((d, name) -> name.endsWith(CRYPTO_CSV_FILE_POSTFIX));
+            return resource.getFile();
         } else {
-            File dir = new File(path);
-            return dir.listFiles((d, name) -> name.endsWith(CRYPTO_CSV_FILE_POSTFIX));
+            return new File(path);
         }
     }
 
     /**
-     * Processes a single CSV file: parses its contents, maps DTOs to entities, and saves them to the database.
+     * Loads the given CSV files concurrently and waits for all of them. The failures of the files are collected
+     * and reported together once every file was attempted.
      *
-     * @param file The CSV file to process
+     * @param files The CSV files to load
+     * @throws CryptoDataLoadException if any of the files could not be loaded
      */
-    private void processCryptoCsvFile(File file) {
-        List<CryptoCsvDto> cryptoCsvDtos = readCryptoCsv(file);
-        List<CryptoEntity> cryptoEntities = cryptoCsvDtos.stream()
-                .map(cryptoCsvDtoMapper::toEntity)
-                .toList();
-        cryptoRepository.saveAll(cryptoEntities);
+    private void loadCryptoCsvFiles(File[] files) {
+        long startNanos = System.nanoTime();
+        int parallelism = Math.max(1, Math.min(loaderParallelism, files.length));
+        Map<File, Future<Long>> results = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+                parallelism,
+                Thread.ofVirtual().name("crypto-loader-", 0).factory()
+        )) {
+            for (File file : files) {
+                results.put(file, executor.submit(() -> processCryptoCsvFile(file)));
+            }
+        }
+
+        long rows = 0;
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<File, Future<Long>> result : results.entrySet()) {
+            Future<Long> future = result.getValue();
+            if (future.state() == Future.State.SUCCESS) {
+                rows += future.resultNow();
+            } else {
+                String fileName = result.getKey().getName();
+                logger.error("Failed to load file: {}", fileName, future.exceptionNow());
+                failures.put(fileName, future.exceptionNow());
+                loadFailures.increment();
+            }
+        }
+        if (!failures.isEmpty()) {
+            CryptoDataLoadException exception = new CryptoDataLoadException("Failed to load "
+                    + failures.size() + " of " + files.length + " crypto CSV files: " + failures.keySet());
+            failures.values().forEach(exception::addSuppressed);
+            throw exception;
+        }
+
+        lastRowsPerSecond.set(rowsPerSecond(rows, startNanos));
+        logger.info(
+                "Loaded {} rows from {} files in {} ms with parallelism {}.",
+                rows,
+                files.length,
+                elapsedMillis(startNanos),
+                parallelism
+        );
+    }
+
+    private static List<PriceSnapshotFile.SourceFile> sourceFiles(File[] files) throws IOException {
+        List<PriceSnapshotFile.SourceFile> sources = new ArrayList<>(files.length);
+        for (File file : files) {
+            sources.add(PriceSnapshotFile.SourceFile.of(file.toPath(), -1));
+        }
+        return sources;
     }
 
     /**
-     * Reads and parses a CSV file into a list of {@link CryptoCsvDto} objects.
-     * Returns an empty list if reading or parsing fails.
+     * Restores the prices from the snapshot file if it was written from the same, unchanged CSV files.
+     * The files are then considered loaded up to the offsets recorded in the snapshot.
      *
-     * @param csvFile The CSV file to read
-     * @return A list of parsed {@link CryptoCsvDto} objects, or an empty list on error
-     */
-    private List<CryptoCsvDto> readCryptoCsv(File csvFile) {
-        try (var input = csvFile.toURI().toURL().openStream()) {
-            var mapper = new CsvMapper();
-            var schema = CsvSchema.emptySchema().withHeader();
-            return mapper.readerFor(CryptoCsvDto.class)
-                    .with(schema)
-                    .<CryptoCsvDto>readValues(input)
-                    .readAll();
-        } catch (Exception exception) {
-            logger.warn("Failed to read file: {}", csvFile.getName(), exception);
-            return List.of();
+     * @param files   The CSV files, sorted
+     * @param sources The current size and modification time of the CSV files
+     * @return true if the snapshot was restored, false if the CSV files have to be loaded
+     */
+    private boolean restoreSnapshot(File[] files, List<PriceSnapshotFile.SourceFile> sources) {
+        if (!snapshotsEnabled()) {
+            return false;
+        }
+        long startNanos = System.nanoTime();
+        Path path = Path.of(snapshotFile);
+        try {
+            Optional<PriceSnapshotFile.Snapshot> snapshot = PriceSnapshotFile.read(path, sources);
+            if (snapshot.isEmpty()) {
+                logger.info("No up-to-date snapshot in {}, loading the CSV files.", path);
+                return false;
+            }
+            cryptoPriceStore.restoreSnapshot(snapshot.get().sections());
+            for (int i = 0; i < files.length; i++) {
+                loadedOffsets.put(files[i].toPath(), snapshot.get().sources().get(i).loadedOffset());
+            }
+        } catch (IOException | RuntimeException exception) {
+            logger.warn("Failed to restore the snapshot {}, loading the CSV files.", path, exception);
+            return false;
+        }
+        recordSnapshot("restore", startNanos);
+        logger.info("Restored the crypto data of {} files from the snapshot {} in {} ms.",
+                files.length, path, elapsedMillis(startNanos));
+        return true;
+    }
+
+    /**
+     * Writes the loaded prices to the snapshot file. A failure is only logged, the next start loads the CSV files again.
+     *
+     * @param files   The loaded CSV files, sorted
+     * @param sources The size and modification time of the CSV files before they were loaded
+     */
+    private void writeSnapshot(File[] files, List<PriceSnapshotFile.SourceFile> sources) {
+        if (!snapshotsEnabled()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        Path path = Path.of(snapshotFile);
+        List<PriceSnapshotFile.SourceFile> loadedSources = new ArrayList<>(sources.size());
+        for (int i = 0; i < files.length; i++) {
+            PriceSnapshotFile.SourceFile source = sources.get(i);
+            loadedSources.add(new PriceSnapshotFile.SourceFile(
+                    source.path(),
+                    source.size(),
+                    source.lastModifiedMillis(),
+                    loadedOffsets.get(files[i].toPath())
+            ));
+        }
+        try {
+            PriceSnapshotFile.write(path, loadedSources, cryptoPriceStore.snapshotSections());
+        } catch (IOException | RuntimeException exception) {
+            logger.warn("Failed to write the snapshot {}.", path, exception);
+            return;
+        }
+        recordSnapshot("write", startNanos);
+        logger.info("Wrote the snapshot {} in {} ms.", path, elapsedMillis(startNanos));
+    }
+
+    private boolean snapshotsEnabled() {
+        return snapshotFile != null && !snapshotFile.isBlank() && cryptoPriceStore.supportsSnapshots();
+    }
+
+    private void recordSnapshot(String operation, long startNanos) {
+        Timer.builder("crypto.loader.snapshot")
+                .description("Time spent writing or restoring the snapshot of the crypto data")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Processes a single CSV file: streams its rows into price series and saves each batch of them to the store.
+     * Only one batch of rows is held in memory at a time.
+     *
+     * @param file The CSV file to process
+     * @return The number of rows loaded from the file
+     * @throws IOException if the file cannot be read or parsed
+     */
+    private long processCryptoCsvFile(File file) throws IOException {
+        long startNanos = System.nanoTime();
+        Path path = file.toPath();
+        MeteredBatchSaver saver = new MeteredBatchSaver(false);
+        ParseResult result;
+        if (mappedPriceCsvParser.supports(path)) {
+            result = mappedPriceCsvParser.parse(path, batchSize(), saver);
+            recordLoad(MAPPED_PARSER, result, result.endOffset(), startNanos, saver);
+        } else {
+            logger.info("File {} has a non-standard header, falling back to the Jackson CSV parser.", file.getName());
+            result = jacksonPriceCsvParser.parse(path, batchSize(), saver);
+            recordLoad(JACKSON_PARSER, result, result.endOffset(), startNanos, saver);
+        }
+        loadedOffsets.put(path, result.endOffset());
+        logLoadedRows(path, result, startNanos);
+        return result.rows();
+    }
+
+    /**
+     * Records the metrics of a loaded file. The parse time is the load time without the time spent saving the batches.
+     */
+    private void recordLoad(String parser, ParseResult result, long bytes, long startNanos, MeteredBatchSaver saver) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Counter.builder("crypto.loader.files")
+                .description("Number of loaded crypto CSV files")
+                .tag("parser", parser)
+                .register(meterRegistry)
+                .increment();
+        Counter.builder("crypto.loader.rows")
+                .description("Number of loaded CSV rows")
+                .baseUnit("rows")
+                .tag("parser", parser)
+                .register(meterRegistry)
+                .increment(result.rows());
+        Counter.builder("crypto.loader.bytes")
+                .description("Number of loaded CSV bytes")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("parser", parser)
+                .register(meterRegistry)
+                .increment(bytes);
+        Timer.builder("crypto.loader.parse")
+                .description("Time spent parsing a crypto CSV file")
+                .tag("parser", parser)
+                .register(meterRegistry)
+                .record(elapsedNanos - saver.persistNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("crypto.loader.persist")
+                .description("Time spent saving the rows of a crypto CSV file to the store")
+                .tag("parser", parser)
+                .register(meterRegistry)
+                .record(saver.persistNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void logLoadedRows(Path file, ParseResult result, long startNanos) {
+        logger.info(
+                "Loaded {} rows from {} in {} ms ({} rows/s).",
+                result.rows(),
+                file.getFileName(),
+                elapsedMillis(startNanos),
+                rowsPerSecond(result.rows(), startNanos)
+        );
+    }
+
+    private int batchSize() {
+        return Math.max(1, loaderBatchSize);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static long rowsPerSecond(long rows, long startNanos) {
+        return rows * 1000 / Math.max(1, elapsedMillis(startNanos));
+    }
+
+    /**
+     * Saves the batches of a file to the store and measures the time spent on it. When the file replaces the stored
+     * data points of its symbols, the batches are collected instead and stored at once by {@link #replaceCollected()}.
+     * A file is parsed on a single thread, so no synchronization is needed.
+     */
+    private final class MeteredBatchSaver implements Consumer<List<PriceSeries>> {
+        private final Map<String, PriceSeries.Builder> collected;
+        private long persistNanos;
+        private boolean changed;
+
+        MeteredBatchSaver(boolean replace) {
+            this.collected = replace ? new LinkedHashMap<>() : null;
+        }
+
+        @Override
+        public void accept(List<PriceSeries> batch) {
+            if (collected != null) {
+                for (PriceSeries series : batch) {
+                    PriceSeries.Builder builder = collected.computeIfAbsent(series.symbol(), PriceSeries::builder);
+                    for (int i = 0; i < series.size(); i++) {
+                        builder.add(series.timestamp(i), series.unscaledPrice(i), series.scale());
+                    }
+                }
+                return;
+            }
+            long startNanos = System.nanoTime();
+            changed |= cryptoPriceStore.saveAll(batch);
+            persistNanos += System.nanoTime() - startNanos;
+        }
+
+        void replaceCollected() {
+            if (collected == null || collected.isEmpty()) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            changed |= cryptoPriceStore.replaceAll(collected.values().stream().map(PriceSeries.Builder::build).toList());
+            persistNanos += System.nanoTime() - startNanos;
         }
     }
 }
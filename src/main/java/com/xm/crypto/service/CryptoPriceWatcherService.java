@@ -0,0 +1,141 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.parser.ParseResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Service watching the crypto CSV directory for new files and for rows appended to the already loaded files,
+ * so new prices are picked up without a restart. It starts after the initial load of {@link CryptoDataLoaderService}
+ * and only reads the bytes after the offset up to which a file was already loaded. The price store applies each
+ * batch of new rows, together with the statistics derived from them, atomically. A truncated file is loaded again from
+ * the start and replaces the stored prices of its symbol, so rows removed from the file are removed from the store.
+ */
+@Service
+@ConditionalOnProperty(name = "crypto.watcher.enabled", havingValue = "true", matchIfMissing = true)
+public class CryptoPriceWatcherService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CryptoPriceWatcherService.class);
+
+    private final CryptoDataLoaderService cryptoDataLoaderService;
+
+    /**
+     * The offset up to which each file is loaded, only accessed by the watcher thread.
+     */
+    private final Map<Path, Long> offsets = new HashMap<>();
+
+    private WatchService watchService;
+
+    /**
+     * Constructs a new CryptoPriceWatcherService with the required dependencies.
+     *
+     * @param cryptoDataLoaderService The service which loaded the crypto CSV files on startup
+     */
+    public CryptoPriceWatcherService(CryptoDataLoaderService cryptoDataLoaderService) {
+        this.cryptoDataLoaderService = cryptoDataLoaderService;
+    }
+
+    /**
+     * Starts watching the directory of the crypto CSV files on a background thread.
+     *
+     * @throws IOException if the directory cannot be watched
+     */
+    @PostConstruct
+    public void startWatching() throws IOException {
+        Path directory = cryptoDataLoaderService.getPricesDirectory();
+        offsets.putAll(cryptoDataLoaderService.getLoadedOffsets());
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread.ofVirtual()
+                .name("crypto-price-watcher")
+                .start(() -> watch(directory));
+        logger.info("Watching {} for new crypto prices.", directory);
+    }
+
+    /**
+     * Stops watching the directory.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @PreDestroy
+    public void stopWatching() throws IOException {
+        watchService.close();
+    }
+
+    private void watch(Path directory) {
+        // catches up with the changes made between the initial load and the registration of the watch service
+        scan(directory);
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        scan(directory);
+                    } else if (event.context() instanceof Path fileName
+                            && CryptoDataLoaderService.isCryptoCsvFile(fileName.toString())) {
+                        load(directory.resolve(fileName));
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warn("The directory {} is no longer accessible, stopped watching it.", directory);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException exception) {
+            logger.info("Stopped watching {}.", directory);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            logger.info("Stopped watching {}.", directory);
+        }
+    }
+
+    private void scan(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (CryptoDataLoaderService.isCryptoCsvFile(file.getFileName().toString())) {
+                    load(file);
+                }
+            }
+        } catch (IOException exception) {
+            logger.error("Failed to scan the directory: {}", directory, exception);
+        }
+    }
+
+    /**
+     * Loads the rows of the file after its remembered offset. On failure the offset is kept, so the rows are read
+     * again on the next change of the file.
+     */
+    private void load(Path file) {
+        try {
+            long offset = offsets.getOrDefault(file, 0L);
+            long size = Files.size(file);
+            if (size == offset) {
+                return;
+            }
+            if (size < offset) {
+                logger.warn("File {} was truncated, replacing its prices with the ones of the whole file.", file.getFileName());
+                offset = 0;
+            }
+            ParseResult result = cryptoDataLoaderService.loadAppendedRows(file, offset);
+            offsets.put(file, result.endOffset());
+        } catch (IOException | RuntimeException exception) {
+            logger.error("Failed to load new crypto prices from file: {}", file.getFileName(), exception);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.xm.crypto.service;
 
+import com.xm.crypto.model.domain.TimeRange;
 import com.xm.crypto.model.dto.CryptoStatsDto;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Service interface for retrieving statistics about a specific cryptocurrency.
  * Provides methods to obtain the oldest, newest, minimum, and maximum price data for a given symbol.
@@ -17,4 +21,33 @@ public interface CryptoStatsService {
      * @throws NoCryptoDataFoundException if no data is found for the given symbol
      */
     CryptoStatsDto getStats(String symbol);
+
+    /**
+     * Retrieves statistics for the given crypto symbol within the given time range, including the oldest, newest,
+     * minimum, and maximum price data points of the range.
+     *
+     * @param symbol    the crypto symbol (case-insensitive)
+     * @param timeRange the time range of the data points to consider
+     * @return a {@link CryptoStatsDto} containing the stats for the symbol within the time range
+     * @throws NoCryptoDataFoundException if no data is found for the given symbol within the time range
+     */
+    CryptoStatsDto getStats(String symbol, TimeRange timeRange);
+
+    /**
+     * Retrieves statistics for each of the given crypto symbols within the given time range, computed in one pass
+     * over the data. Symbols without data in the time range are left out instead of failing the whole batch.
+     *
+     * @param symbols   the crypto symbols (case-insensitive)
+     * @param timeRange the time range of the data points to consider
+     * @return the stats by upper case symbol in the order of the given symbols, without the symbols having no data
+     */
+    Map<String, CryptoStatsDto> getStats(Collection<String> symbols, TimeRange timeRange);
+
+    /**
+     * Retrieves statistics for all cryptos having data within the given time range, computed in one pass over the data.
+     *
+     * @param timeRange the time range of the data points to consider
+     * @return the stats by symbol, sorted by symbol
+     */
+    Map<String, CryptoStatsDto> getAllStats(TimeRange timeRange);
 }
@@ -1,12 +1,17 @@
 package com.xm.crypto.service;
 
 import com.xm.crypto.exception.NoCryptoDataFoundException;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.TimeRange;
 import com.xm.crypto.model.dto.CryptoStatsDto;
 import com.xm.crypto.model.dto.CryptoValueDto;
-import com.xm.crypto.model.mapper.CryptoEntityMapper;
-import com.xm.crypto.repository.CryptoRepository;
+import com.xm.crypto.repository.CryptoPriceStore;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.Supplier;
 
 /**
@@ -16,18 +21,15 @@ import java.util.function.Supplier;
 @Service
 public class CryptoStatsServiceImpl implements CryptoStatsService {
 
-    private final CryptoRepository cryptoRepository;
-    private final CryptoEntityMapper cryptoEntityMapper;
+    private final CryptoPriceStore cryptoPriceStore;
 
     /**
      * Constructs a new CryptoStatsServiceImpl with the required dependencies.
      *
-     * @param cryptoRepository   The repository for accessing crypto data
-     * @param cryptoEntityMapper The mapper for converting entities to domain objects
+     * @param cryptoPriceStore The store for accessing crypto data
      */
-    public CryptoStatsServiceImpl(CryptoRepository cryptoRepository, CryptoEntityMapper cryptoEntityMapper) {
-        this.cryptoRepository = cryptoRepository;
-        this.cryptoEntityMapper = cryptoEntityMapper;
+    public CryptoStatsServiceImpl(CryptoPriceStore cryptoPriceStore) {
+        this.cryptoPriceStore = cryptoPriceStore;
     }
 
     /**
@@ -42,28 +44,80 @@ public class CryptoStatsServiceImpl implements CryptoStatsService {
     public CryptoStatsDto getStats(String symbol) {
         var upperCaseSymbol = symbol.toUpperCase();
 
-        var oldest = cryptoRepository.findFirstByIdSymbolOrderByIdTimestampAsc(upperCaseSymbol)
-                .map(cryptoEntityMapper::toDomain)
+        var stats = cryptoPriceStore.findStats(upperCaseSymbol)
                 .orElseThrow(noCryptoDataFoundException(upperCaseSymbol));
 
-        var newest = cryptoRepository.findFirstByIdSymbolOrderByIdTimestampDesc(upperCaseSymbol)
-                .map(cryptoEntityMapper::toDomain)
-                .orElseThrow(noCryptoDataFoundException(upperCaseSymbol));
+        return toDto(stats);
+    }
 
-        var min = cryptoRepository.findFirstByIdSymbolOrderByPriceAsc(upperCaseSymbol)
-                .map(cryptoEntityMapper::toDomain)
-                .orElseThrow(noCryptoDataFoundException(upperCaseSymbol));
+    /**
+     * Retrieves statistics for the given crypto symbol within the given time range, including the oldest, newest,
+     * minimum, and maximum price data points of the range.
+     *
+     * @param symbol    the crypto symbol (case-insensitive)
+     * @param timeRange the time range of the data points to consider
+     * @return a {@link CryptoStatsDto} containing the stats for the symbol within the time range
+     * @throws NoCryptoDataFoundException if no data is found for the given symbol within the time range
+     */
+    @Override
+    public CryptoStatsDto getStats(String symbol, TimeRange timeRange) {
+        var upperCaseSymbol = symbol.toUpperCase();
 
-        var max = cryptoRepository.findFirstByIdSymbolOrderByPriceDesc(upperCaseSymbol)
-                .map(cryptoEntityMapper::toDomain)
+        var stats = cryptoPriceStore.findStats(upperCaseSymbol, timeRange.startMillis(), timeRange.endMillis())
                 .orElseThrow(noCryptoDataFoundException(upperCaseSymbol));
 
+        return toDto(stats);
+    }
+
+    /**
+     * Retrieves statistics for each of the given crypto symbols within the given time range, computed in one pass
+     * over the data. Symbols without data in the time range are left out instead of failing the whole batch.
+     *
+     * @param symbols   the crypto symbols (case-insensitive)
+     * @param timeRange the time range of the data points to consider
+     * @return the stats by upper case symbol in the order of the given symbols, without the symbols having no data
+     */
+    @Override
+    public Map<String, CryptoStatsDto> getStats(Collection<String> symbols, TimeRange timeRange) {
+        var upperCaseSymbols = symbols.stream()
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+
+        var statsBySymbol = cryptoPriceStore.findStats(upperCaseSymbols, timeRange.startMillis(), timeRange.endMillis());
+
+        Map<String, CryptoStatsDto> result = new LinkedHashMap<>();
+        for (String symbol : upperCaseSymbols) {
+            var stats = statsBySymbol.get(symbol);
+            if (stats != null) {
+                result.put(symbol, toDto(stats));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves statistics for all cryptos having data within the given time range, computed in one pass over the data.
+     *
+     * @param timeRange the time range of the data points to consider
+     * @return the stats by symbol, sorted by symbol
+     */
+    @Override
+    public Map<String, CryptoStatsDto> getAllStats(TimeRange timeRange) {
+        Map<String, CryptoStatsDto> result = new TreeMap<>();
+        cryptoPriceStore.findAllStats(timeRange.startMillis(), timeRange.endMillis())
+                .forEach((symbol, stats) -> result.put(symbol, toDto(stats)));
+        return result;
+    }
+
+    private static CryptoStatsDto toDto(CryptoStats stats) {
         return new CryptoStatsDto(
-                upperCaseSymbol,
-                new CryptoValueDto(oldest.timestamp(), oldest.price()),
-                new CryptoValueDto(newest.timestamp(), newest.price()),
-                new CryptoValueDto(min.timestamp(), min.price()),
-                new CryptoValueDto(max.timestamp(), max.price())
+                stats.symbol(),
+                new CryptoValueDto(stats.oldest().timestamp(), stats.oldest().price()),
+                new CryptoValueDto(stats.newest().timestamp(), stats.newest().price()),
+                new CryptoValueDto(stats.min().timestamp(), stats.min().price()),
+                new CryptoValueDto(stats.max().timestamp(), stats.max().price()),
+                stats.count()
         );
     }
 
@@ -75,6 +129,6 @@ public class CryptoStatsServiceImpl implements CryptoStatsService {
      * @return a supplier of {@link NoCryptoDataFoundException}
      */
     private static Supplier<NoCryptoDataFoundException> noCryptoDataFoundException(String symbol) {
-        return () -> new NoCryptoDataFoundException("There is no data for the requested crypto: " + symbol);
+        return () -> NoCryptoDataFoundException.forSymbol(symbol);
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service interface for exporting the raw data points of a cryptocurrency page by page.
+ */
+public interface CryptoValuesService {
+
+    /**
+     * Finds the page of the data points of the given crypto within the given time range, starting at the cursor.
+     *
+     * @param symbol    the crypto symbol (case-insensitive)
+     * @param timeRange the time range of the data points to export
+     * @param cursor    the cursor of the page returned by {@link PricePage#nextCursor()}, or null for the first page
+     * @return the page of the data points
+     * @throws NoCryptoDataFoundException if no data is found for the given symbol within the time range
+     * @throws InvalidCursorException     if the cursor is invalid
+     */
+    PricePage findPage(String symbol, TimeRange timeRange, String cursor);
+
+    /**
+     * Streams the data points of the page to the output stream in timestamp order.
+     *
+     * @param page         the page of the data points
+     * @param format       the format of the data points
+     * @param outputStream the output stream to write to
+     * @throws IOException if the data points cannot be written
+     */
+    void writeValues(PricePage page, ExportFormat format, OutputStream outputStream) throws IOException;
+}
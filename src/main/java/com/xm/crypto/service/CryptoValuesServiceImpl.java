@@ -0,0 +1,77 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.exception.InvalidCursorException;
+import com.xm.crypto.exception.NoCryptoDataFoundException;
+import com.xm.crypto.model.domain.PriceCursor;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.ExportFormat;
+import com.xm.crypto.repository.CryptoPriceStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service implementation for exporting the raw data points of a cryptocurrency page by page.
+ * A page holds at most {@code crypto.export.page-size} data points and is streamed straight from the price store,
+ * so an export never holds more than one buffer of formatted rows in memory.
+ */
+@Service
+public class CryptoValuesServiceImpl implements CryptoValuesService {
+
+    private final CryptoPriceStore cryptoPriceStore;
+    private final int pageSize;
+
+    /**
+     * Constructs a new CryptoValuesServiceImpl with the required dependencies.
+     *
+     * @param cryptoPriceStore The store for accessing crypto data
+     * @param pageSize         The maximum number of data points per page
+     */
+    public CryptoValuesServiceImpl(
+            CryptoPriceStore cryptoPriceStore,
+            @Value("${crypto.export.page-size:100000}") int pageSize
+    ) {
+        this.cryptoPriceStore = cryptoPriceStore;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Finds the page of the data points of the given crypto within the given time range, starting at the cursor.
+     *
+     * @param symbol    the crypto symbol (case-insensitive)
+     * @param timeRange the time range of the data points to export
+     * @param cursor    the cursor of the page returned by {@link PricePage#nextCursor()}, or null for the first page
+     * @return the page of the data points
+     * @throws NoCryptoDataFoundException if no data is found for the given symbol within the time range
+     * @throws InvalidCursorException     if the cursor is invalid
+     */
+    @Override
+    public PricePage findPage(String symbol, TimeRange timeRange, String cursor) {
+        var upperCaseSymbol = symbol.toUpperCase();
+        long startMillis = cursor == null
+                ? timeRange.startMillis()
+                : Math.max(timeRange.startMillis(), PriceCursor.decode(cursor));
+
+        return cryptoPriceStore.findPage(upperCaseSymbol, startMillis, timeRange.endMillis(), pageSize)
+                .orElseThrow(() -> NoCryptoDataFoundException.forSymbol(upperCaseSymbol));
+    }
+
+    /**
+     * Streams the data points of the page to the output stream in timestamp order.
+     *
+     * @param page         the page of the data points
+     * @param format       the format of the data points
+     * @param outputStream the output stream to write to
+     * @throws IOException if the data points cannot be written
+     */
+    @Override
+    public void writeValues(PricePage page, ExportFormat format, OutputStream outputStream) throws IOException {
+        var writer = new PriceValuesWriter(outputStream, format, page.symbol());
+        writer.writeHeader();
+        cryptoPriceStore.forEachPrice(page.symbol(), page.startMillis(), page.endMillis(), writer);
+        writer.flush();
+    }
+}
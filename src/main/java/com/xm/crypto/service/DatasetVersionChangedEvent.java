@@ -0,0 +1,21 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.DatasetVersion;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published by the {@link DatasetVersionService} after new price data was loaded.
+ */
+public class DatasetVersionChangedEvent extends ApplicationEvent {
+
+    private final DatasetVersion version;
+
+    public DatasetVersionChangedEvent(Object source, DatasetVersion version) {
+        super(source);
+        this.version = version;
+    }
+
+    public DatasetVersion getVersion() {
+        return version;
+    }
+}
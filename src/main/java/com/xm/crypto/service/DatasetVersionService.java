@@ -0,0 +1,78 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.DatasetVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service keeping the {@link DatasetVersion} of the loaded price data. The version is increased by the
+ * {@link CryptoDataLoaderService} after each successful load, so the responses derived from the price data can be
+ * validated by the clients with the version instead of being computed again.
+ * <p>
+ * The version is at least the epoch millisecond of the load, so it also increases across restarts of the application
+ * and a version seen before a restart is never reused for different data. Every new version is published as a
+ * {@link DatasetVersionChangedEvent}.
+ * <p>
+ * {@code Last-Modified} and {@code If-Modified-Since} only have a precision of a second, so the time of the load is
+ * rounded up to the next second, and to a second after the one of the previous version. Two loads within the same
+ * second thus still get different times, and a client validating with the time only never gets a stale
+ * {@code 304 Not Modified}.
+ */
+@Service
+public class DatasetVersionService {
+
+    private final Clock clock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicReference<DatasetVersion> current;
+
+    @Autowired
+    public DatasetVersionService(ApplicationEventPublisher eventPublisher) {
+        this(Clock.systemUTC(), eventPublisher);
+    }
+
+    DatasetVersionService(Clock clock, ApplicationEventPublisher eventPublisher) {
+        this.clock = clock;
+        this.eventPublisher = eventPublisher;
+        this.current = new AtomicReference<>(new DatasetVersion(0, Instant.EPOCH));
+    }
+
+    /**
+     * Returns the current version of the price data.
+     *
+     * @return the current dataset version
+     */
+    public DatasetVersion current() {
+        return current.get();
+    }
+
+    /**
+     * Increases the version after new price data was loaded. It must be called after the data was saved,
+     * so a client never caches the old data under the new version.
+     *
+     * @return the new dataset version
+     */
+    public DatasetVersion increment() {
+        DatasetVersion version = current.updateAndGet(previous -> {
+            Instant now = clock.instant();
+            Instant lastModified = max(roundUpToSecond(now), previous.lastModified().plusSeconds(1));
+            return new DatasetVersion(Math.max(previous.version() + 1, now.toEpochMilli()), lastModified);
+        });
+        eventPublisher.publishEvent(new DatasetVersionChangedEvent(this, version));
+        return version;
+    }
+
+    private static Instant roundUpToSecond(Instant instant) {
+        Instant second = instant.truncatedTo(ChronoUnit.SECONDS);
+        return second.equals(instant) ? second : second.plusSeconds(1);
+    }
+
+    private static Instant max(Instant first, Instant second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
@@ -1,13 +1,17 @@
 package com.xm.crypto.service;
 
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.DailyNormalizedCryptosDto;
 import com.xm.crypto.model.dto.NormalizedCryptoDto;
+import com.xm.crypto.model.dto.RankingOrder;
 
 import java.time.LocalDate;
 import java.util.List;
 
 /**
  * Service interface for calculating normalized range statistics for cryptocurrencies.
- * Provides methods to list all cryptos by normalized range and to find the crypto with the highest normalized range for a specific day.
+ * Provides methods to list all cryptos by normalized range, to page through the ranking and to find the crypto with the highest
+ * normalized range for a specific day.
  */
 public interface NormalizedRangeService {
 
@@ -19,6 +23,29 @@ public interface NormalizedRangeService {
      */
     List<NormalizedCryptoDto> listByNormalizedRange();
 
+    /**
+     * Returns a descending sorted list of the cryptos having data within the given time range, comparing
+     * the normalized range (i.e., (max - min) / min) of each symbol within the time range.
+     *
+     * @param timeRange the time range of the data points to consider
+     * @return a list of {@link NormalizedCryptoDto} sorted by normalized range in descending order
+     */
+    List<NormalizedCryptoDto> listByNormalizedRange(TimeRange timeRange);
+
+    /**
+     * Returns a page of the cryptos ranked by normalized range (i.e., (max - min) / min) in the given order,
+     * without sorting the whole ranking. Cryptos with an equal normalized range are ranked by their symbol.
+     *
+     * @param timeRange the time range of the data points to consider, or null for all data
+     * @param order     the order of the ranking
+     * @param offset    the number of cryptos to skip from the start of the ranking
+     * @param limit     the maximum number of cryptos to return
+     * @return a list of {@link NormalizedCryptoDto} sorted by normalized range in the given order
+     * @throws InvalidOffsetException if the offset is negative
+     * @throws InvalidLimitException  if the limit is not positive
+     */
+    List<NormalizedCryptoDto> listByNormalizedRange(TimeRange timeRange, RankingOrder order, int offset, int limit);
+
     /**
      * Returns the crypto with the highest normalized range for a specific day.
      * The normalized range is calculated as (max - min) / min for each symbol within the given date.
@@ -28,4 +55,18 @@ public interface NormalizedRangeService {
      * @throws NoCryptoDataFoundException if no data is found for the requested date
      */
     NormalizedCryptoDto getHighestNormalizedRange(LocalDate date);
+
+    /**
+     * Returns the cryptos with the highest normalized range of each UTC day within the given date range,
+     * at most {@code limit} per day in descending order. Days without data are left out.
+     *
+     * @param from  the first day of the date range (inclusive)
+     * @param to    the last day of the date range (exclusive)
+     * @param limit the maximum number of cryptos per day
+     * @return a list of {@link DailyNormalizedCryptosDto} in ascending order of the days
+     * @throws InvalidTimeRangeException if the date range is empty or longer than the supported number of days
+     * @throws InvalidLimitException     if the limit is out of the supported range
+     * @throws NoCryptoDataFoundException if no data is found within the date range
+     */
+    List<DailyNormalizedCryptosDto> getHighestNormalizedRanges(LocalDate from, LocalDate to, int limit);
 }
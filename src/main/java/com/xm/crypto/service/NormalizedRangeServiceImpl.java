@@ -1,69 +1,134 @@
 package com.xm.crypto.service;
 
+import com.xm.crypto.exception.InvalidLimitException;
+import com.xm.crypto.exception.InvalidOffsetException;
+import com.xm.crypto.exception.InvalidTimeRangeException;
 import com.xm.crypto.exception.NoCryptoDataFoundException;
+import com.xm.crypto.model.domain.DailyPriceRange;
+import com.xm.crypto.model.domain.FixedPoint;
 import com.xm.crypto.model.domain.NormalizedCrypto;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.DailyNormalizedCryptosDto;
 import com.xm.crypto.model.dto.NormalizedCryptoDto;
+import com.xm.crypto.model.dto.RankingOrder;
 import com.xm.crypto.model.mapper.NormalizedCryptoMapper;
-import com.xm.crypto.repository.CryptoRepository;
+import com.xm.crypto.repository.CryptoPriceStore;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for calculating normalized range statistics for cryptocurrencies.
- * Provides methods to list all cryptos by normalized range and to find the crypto with the highest normalized range for a specific day.
+ * Provides methods to list all cryptos by normalized range, to page through the ranking and to find the crypto with the highest
+ * normalized range for a specific day.
  */
 @Service
 public class NormalizedRangeServiceImpl implements NormalizedRangeService {
+    static final int MAX_DAYS = 366;
+    static final int MAX_DAILY_LIMIT = 100;
 
-    private final CryptoRepository cryptoRepository;
+    private static final Comparator<NormalizedCrypto> HIGHEST_FIRST = Comparator
+            .comparingLong(NormalizedCrypto::normalizedRange).reversed()
+            .thenComparing(NormalizedCrypto::symbol);
+    private static final Comparator<NormalizedCrypto> LOWEST_FIRST = Comparator
+            .comparingLong(NormalizedCrypto::normalizedRange)
+            .thenComparing(NormalizedCrypto::symbol);
+
+    private final CryptoPriceStore cryptoPriceStore;
     private final NormalizedCryptoMapper normalizedCryptoMapper;
 
     /**
      * Constructs a new NormalizedRangeServiceImpl with the required dependencies.
      *
-     * @param cryptoRepository       the repository for accessing crypto data
+     * @param cryptoPriceStore       the store for accessing crypto data
      * @param normalizedCryptoMapper the mapper for converting domain objects to DTOs
      */
-    public NormalizedRangeServiceImpl(CryptoRepository cryptoRepository, NormalizedCryptoMapper normalizedCryptoMapper) {
-        this.cryptoRepository = cryptoRepository;
+    public NormalizedRangeServiceImpl(CryptoPriceStore cryptoPriceStore, NormalizedCryptoMapper normalizedCryptoMapper) {
+        this.cryptoPriceStore = cryptoPriceStore;
         this.normalizedCryptoMapper = normalizedCryptoMapper;
     }
 
     /**
      * Returns a descending sorted list of all cryptos, comparing the normalized range
-     * (i.e., (max - min) / min) for each symbol.
+     * (i.e., (max - min) / min) for each symbol, ties broken by the symbol.
      *
      * @return a list of {@link NormalizedCryptoDto} sorted by normalized range in descending order
      */
     @Override
     public List<NormalizedCryptoDto> listByNormalizedRange() {
-        List<String> symbols = cryptoRepository.findAllSymbols();
-
-        return symbols.stream()
-                .map(symbol -> {
-                    BigDecimal min = cryptoRepository.findMinPriceBySymbol(symbol);
-                    BigDecimal max = cryptoRepository.findMaxPriceBySymbol(symbol);
-                    if (min == null || min.compareTo(BigDecimal.ZERO) == 0) {
-                        return null; // Avoid division by zero
-                    }
-                    BigDecimal normalizedRange = (max.subtract(min)).divide(min, 8, RoundingMode.HALF_UP);
-                    return new NormalizedCrypto(symbol, normalizedRange);
-                })
+        return cryptoPriceStore.findPriceRanges().stream()
+                .map(NormalizedRangeServiceImpl::toNormalizedCrypto)
                 .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(NormalizedCrypto::normalizedRange).reversed())
+                .sorted(HIGHEST_FIRST)
                 .map(normalizedCryptoMapper::toDto)
                 .toList();
     }
 
     /**
-     * Returns the crypto with the highest normalized range for a specific day.
+     * Returns a descending sorted list of the cryptos having data within the given time range, comparing
+     * the normalized range (i.e., (max - min) / min) of each symbol within the time range, ties broken by the symbol.
+     *
+     * @param timeRange the time range of the data points to consider
+     * @return a list of {@link NormalizedCryptoDto} sorted by normalized range in descending order
+     */
+    @Override
+    public List<NormalizedCryptoDto> listByNormalizedRange(TimeRange timeRange) {
+        return cryptoPriceStore.findPriceRanges(timeRange.startMillis(), timeRange.endMillis()).stream()
+                .map(NormalizedRangeServiceImpl::toNormalizedCrypto)
+                .filter(Objects::nonNull)
+                .sorted(HIGHEST_FIRST)
+                .map(normalizedCryptoMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Returns the page of the cryptos ranked by normalized range in the given order, ties broken by the symbol.
+     * Only the first {@code offset + limit} cryptos of the ranking are kept in a bounded heap while the normalized
+     * ranges are calculated, so a page costs O(n log(offset + limit)) and the rest of the ranking is never sorted.
+     *
+     * @param timeRange the time range of the data points to consider, or null for all data
+     * @param order     the order of the ranking
+     * @param offset    the number of cryptos to skip from the start of the ranking
+     * @param limit     the maximum number of cryptos to return
+     * @return a list of {@link NormalizedCryptoDto} sorted by normalized range in the given order
+     * @throws InvalidOffsetException if the offset is negative
+     * @throws InvalidLimitException  if the limit is not positive
+     */
+    @Override
+    public List<NormalizedCryptoDto> listByNormalizedRange(TimeRange timeRange, RankingOrder order, int offset, int limit) {
+        if (offset < 0) {
+            throw new InvalidOffsetException("The offset must not be negative.");
+        }
+        if (limit < 1) {
+            throw new InvalidLimitException("The limit must be positive.");
+        }
+
+        List<PriceRange> priceRanges = timeRange == null
+                ? cryptoPriceStore.findPriceRanges()
+                : cryptoPriceStore.findPriceRanges(timeRange.startMillis(), timeRange.endMillis());
+        List<NormalizedCrypto> ranking = first(
+                priceRanges.stream().map(NormalizedRangeServiceImpl::toNormalizedCrypto).filter(Objects::nonNull),
+                order == RankingOrder.ASC ? LOWEST_FIRST : HIGHEST_FIRST,
+                (int) Math.min((long) offset + limit, Integer.MAX_VALUE)
+        );
+        return ranking.subList(Math.min(offset, ranking.size()), ranking.size()).stream()
+                .map(normalizedCryptoMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Returns the crypto with the highest normalized range for a specific day, ties broken by the symbol.
      * The normalized range is calculated as (max - min) / min for each symbol within the given date.
      *
      * @param date the date for which to find the highest normalized range
@@ -72,23 +137,93 @@ public class NormalizedRangeServiceImpl implements NormalizedRangeService {
      */
     @Override
     public NormalizedCryptoDto getHighestNormalizedRange(LocalDate date) {
-        long startMillis = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
-        long endMillis = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
-        List<String> symbols = cryptoRepository.findAllSymbols();
-
-        return symbols.stream()
-                .map(symbol -> {
-                    BigDecimal min = cryptoRepository.findMinPriceBySymbolAndTimeRange(symbol, startMillis, endMillis);
-                    BigDecimal max = cryptoRepository.findMaxPriceBySymbolAndTimeRange(symbol, startMillis, endMillis);
-                    if (min == null || min.compareTo(BigDecimal.ZERO) == 0) {
-                        return null; // Avoid division by zero
-                    }
-                    BigDecimal normalizedRange = (max.subtract(min)).divide(min, 8, RoundingMode.HALF_UP);
-                    return new NormalizedCrypto(symbol, normalizedRange);
-                })
+        return cryptoPriceStore.findDailyPriceRanges(date).stream()
+                .map(NormalizedRangeServiceImpl::toNormalizedCrypto)
                 .filter(Objects::nonNull)
-                .max(Comparator.comparing(NormalizedCrypto::normalizedRange))
+                .min(HIGHEST_FIRST)
                 .map(normalizedCryptoMapper::toDto)
                 .orElseThrow(() -> new NoCryptoDataFoundException("No crypto data found for the requested date: " + date));
     }
+
+    /**
+     * Returns the cryptos with the highest normalized range of each UTC day within the given date range,
+     * at most {@code limit} per day in descending order. The daily price ranges of all cryptos are read at once
+     * and merged per day, ties are broken by the symbol.
+     *
+     * @param from  the first day of the date range (inclusive)
+     * @param to    the last day of the date range (exclusive)
+     * @param limit the maximum number of cryptos per day
+     * @return a list of {@link DailyNormalizedCryptosDto} in ascending order of the days
+     * @throws InvalidTimeRangeException if the date range is empty or longer than {@value #MAX_DAYS} days
+     * @throws InvalidLimitException     if the limit is not between 1 and {@value #MAX_DAILY_LIMIT}
+     * @throws NoCryptoDataFoundException if no data is found within the date range
+     */
+    @Override
+    public List<DailyNormalizedCryptosDto> getHighestNormalizedRanges(LocalDate from, LocalDate to, int limit) {
+        if (!from.isBefore(to)) {
+            throw new InvalidTimeRangeException("The start of the date range (" + from + ") must be before its end (" + to + ").");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_DAYS) {
+            throw new InvalidTimeRangeException("The date range must not be longer than " + MAX_DAYS + " days.");
+        }
+        if (limit < 1 || limit > MAX_DAILY_LIMIT) {
+            throw new InvalidLimitException("The limit must be between 1 and " + MAX_DAILY_LIMIT + ".");
+        }
+
+        long startMillis = from.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long endMillis = to.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        Map<LocalDate, List<NormalizedCrypto>> cryptosByDay = new TreeMap<>();
+        for (DailyPriceRange dailyPriceRange : cryptoPriceStore.findDailyPriceRanges(startMillis, endMillis)) {
+            NormalizedCrypto normalizedCrypto = toNormalizedCrypto(dailyPriceRange.priceRange());
+            if (normalizedCrypto != null) {
+                cryptosByDay.computeIfAbsent(dailyPriceRange.date(), date -> new ArrayList<>()).add(normalizedCrypto);
+            }
+        }
+        if (cryptosByDay.isEmpty()) {
+            throw new NoCryptoDataFoundException("No crypto data found for the requested date range: " + from + " - " + to);
+        }
+
+        List<DailyNormalizedCryptosDto> days = new ArrayList<>(cryptosByDay.size());
+        cryptosByDay.forEach((date, cryptos) -> days.add(new DailyNormalizedCryptosDto(
+                date,
+                first(cryptos.stream(), HIGHEST_FIRST, limit).stream()
+                        .map(normalizedCryptoMapper::toDto)
+                        .toList()
+        )));
+        return days;
+    }
+
+    /**
+     * Returns the first {@code count} cryptos in the given order, sorted. The kept cryptos are held in a heap whose
+     * head is the last one of them, so each further crypto is compared to it and replaces it only if it comes first.
+     */
+    private static List<NormalizedCrypto> first(Stream<NormalizedCrypto> cryptos, Comparator<NormalizedCrypto> order, int count) {
+        PriorityQueue<NormalizedCrypto> heap = new PriorityQueue<>(order.reversed());
+        cryptos.forEach(crypto -> {
+            if (heap.size() < count) {
+                heap.add(crypto);
+            } else if (order.compare(crypto, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(crypto);
+            }
+        });
+        List<NormalizedCrypto> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted;
+    }
+
+    /**
+     * Calculates the normalized range (i.e., (max - min) / min) of a price range with fixed-point arithmetic,
+     * rounded half up to 8 decimal places.
+     *
+     * @param priceRange the price range of a crypto
+     * @return the {@link NormalizedCrypto}, or null if the minimum price is zero
+     */
+    private static NormalizedCrypto toNormalizedCrypto(PriceRange priceRange) {
+        if (priceRange.unscaledMin() == 0) {
+            return null; // Avoid division by zero
+        }
+        long normalizedRange = FixedPoint.normalizedRange(priceRange.unscaledMin(), priceRange.unscaledMax());
+        return new NormalizedCrypto(priceRange.symbol(), normalizedRange);
+    }
 }
@@ -0,0 +1,149 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.FixedPoint;
+import com.xm.crypto.model.dto.ExportFormat;
+import com.xm.crypto.repository.PricePointConsumer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes streamed data points as {@link ExportFormat#NDJSON} or {@link ExportFormat#CSV} rows.
+ * The digits are formatted straight into a fixed-size byte buffer, which is written to the output stream
+ * whenever it is full, so the memory used does not depend on the number of data points and nothing is
+ * allocated per row. Writing blocks while a slow client does not read, which in turn pauses the iteration.
+ */
+final class PriceValuesWriter implements PricePointConsumer {
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] CSV_HEADER = "timestamp,symbol,price\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_TIMESTAMP = "{\"timestamp\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_PRICE = ",\"price\":".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Upper bound of the length of a row without the symbol: two numbers of at most 20 characters each,
+     * a decimal point and the JSON punctuation.
+     */
+    private static final int MAX_ROW_LENGTH_WITHOUT_SYMBOL = 80;
+
+    private final OutputStream outputStream;
+    private final ExportFormat format;
+    private final byte[] symbolColumn;
+    private final byte[] buffer;
+    private int position;
+
+    PriceValuesWriter(OutputStream outputStream, ExportFormat format, String symbol) {
+        this.outputStream = outputStream;
+        this.format = format;
+        this.symbolColumn = switch (format) {
+            case NDJSON -> (",\"symbol\":\"" + symbol.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                    .getBytes(StandardCharsets.UTF_8);
+            case CSV -> ("," + symbol + ",").getBytes(StandardCharsets.UTF_8);
+        };
+        this.buffer = new byte[Math.max(BUFFER_SIZE, 2 * (symbolColumn.length + MAX_ROW_LENGTH_WITHOUT_SYMBOL))];
+    }
+
+    /**
+     * Writes the header of the format, if it has one.
+     */
+    void writeHeader() {
+        if (format == ExportFormat.CSV) {
+            write(CSV_HEADER);
+        }
+    }
+
+    @Override
+    public void accept(long timestamp, long unscaledPrice, int scale) throws IOException {
+        if (position + symbolColumn.length + MAX_ROW_LENGTH_WITHOUT_SYMBOL > buffer.length) {
+            flushBuffer();
+        }
+        switch (format) {
+            case NDJSON -> {
+                write(JSON_TIMESTAMP);
+                writeLong(timestamp);
+                write(symbolColumn);
+                write(JSON_PRICE);
+                writeDecimal(unscaledPrice, scale);
+                buffer[position++] = '}';
+            }
+            case CSV -> {
+                writeLong(timestamp);
+                write(symbolColumn);
+                writeDecimal(unscaledPrice, scale);
+            }
+        }
+        buffer[position++] = '\n';
+    }
+
+    /**
+     * Writes the buffered rows and flushes the output stream.
+     *
+     * @throws IOException if the rows cannot be written
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        outputStream.flush();
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void write(byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        writeDigits(value, digitCount(value));
+    }
+
+    private void writeDecimal(long unscaled, int scale) {
+        if (scale == 0) {
+            writeLong(unscaled);
+            return;
+        }
+        if (unscaled < 0 || scale > FixedPoint.MAX_SCALE) {
+            writeAscii(BigDecimal.valueOf(unscaled, scale).toPlainString());
+            return;
+        }
+        long divisor = FixedPoint.powerOfTen(scale);
+        writeLong(unscaled / divisor);
+        buffer[position++] = '.';
+        writeDigits(unscaled % divisor, scale);
+    }
+
+    /**
+     * Writes the value left padded with zeros to the given number of digits.
+     */
+    private void writeDigits(long value, int digits) {
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void writeAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (digits <= FixedPoint.MAX_SCALE && value >= FixedPoint.powerOfTen(digits)) {
+            digits++;
+        }
+        return digits;
+    }
+}
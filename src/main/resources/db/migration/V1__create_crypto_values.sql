@@ -0,0 +1,14 @@
+-- The data points of all cryptos, one row per symbol and timestamp (epoch milliseconds).
+-- Prices keep up to 18 decimal places, the most the CSV parsers accept.
+CREATE TABLE crypto_values (
+    timestamp BIGINT          NOT NULL,
+    symbol    VARCHAR(255)    NOT NULL,
+    price     NUMERIC(38, 18) NOT NULL,
+    CONSTRAINT crypto_values_pk PRIMARY KEY (timestamp, symbol)
+);
+
+-- The primary key serves the queries over all cryptos within a time range.
+-- The per-symbol time range queries (stats, export pages, candles) seek on (symbol, timestamp),
+-- the per-symbol price ordered queries (min and max of a crypto) on (symbol, price).
+CREATE INDEX crypto_values_symbol_timestamp_idx ON crypto_values (symbol, timestamp);
+CREATE INDEX crypto_values_symbol_price_idx ON crypto_values (symbol, price);
@@ -0,0 +1,48 @@
+-- Summary of the data points of each crypto in each UTC calendar month (the partition), maintained on every write.
+-- Range queries answer the months fully covered by their time range from these rows and only read the data points
+-- of the partially covered months at their edges. Ties of the min and max price are broken by the older data point.
+CREATE TABLE crypto_value_partitions (
+    month_start      BIGINT          NOT NULL,
+    symbol           VARCHAR(255)    NOT NULL,
+    first_timestamp  BIGINT          NOT NULL,
+    first_price      NUMERIC(38, 18) NOT NULL,
+    last_timestamp   BIGINT          NOT NULL,
+    last_price       NUMERIC(38, 18) NOT NULL,
+    min_timestamp    BIGINT          NOT NULL,
+    min_price        NUMERIC(38, 18) NOT NULL,
+    max_timestamp    BIGINT          NOT NULL,
+    max_price        NUMERIC(38, 18) NOT NULL,
+    data_point_count BIGINT          NOT NULL,
+    CONSTRAINT crypto_value_partitions_pk PRIMARY KEY (month_start, symbol)
+);
+
+-- Like for crypto_values, the primary key serves the queries over all cryptos, this index the ones of a single crypto.
+CREATE INDEX crypto_value_partitions_symbol_month_idx ON crypto_value_partitions (symbol, month_start);
+
+-- Deliberately drops the (symbol, price) index created by V1: it served the min and max price queries of a crypto,
+-- which are answered from the min_price and max_price of the partition summaries above now, and only read the data
+-- points of the partially covered months at the edges of a time range through the (symbol, timestamp) index. Kept,
+-- it would only slow down the writes.
+DROP INDEX crypto_values_symbol_price_idx;
+
+-- Summarizes the data points stored before this migration.
+INSERT INTO crypto_value_partitions
+SELECT DISTINCT month_start,
+       symbol,
+       FIRST_VALUE(timestamp) OVER (PARTITION BY symbol, month_start ORDER BY timestamp),
+       FIRST_VALUE(price) OVER (PARTITION BY symbol, month_start ORDER BY timestamp),
+       FIRST_VALUE(timestamp) OVER (PARTITION BY symbol, month_start ORDER BY timestamp DESC),
+       FIRST_VALUE(price) OVER (PARTITION BY symbol, month_start ORDER BY timestamp DESC),
+       FIRST_VALUE(timestamp) OVER (PARTITION BY symbol, month_start ORDER BY price, timestamp),
+       FIRST_VALUE(price) OVER (PARTITION BY symbol, month_start ORDER BY price, timestamp),
+       FIRST_VALUE(timestamp) OVER (PARTITION BY symbol, month_start ORDER BY price DESC, timestamp),
+       FIRST_VALUE(price) OVER (PARTITION BY symbol, month_start ORDER BY price DESC, timestamp),
+       COUNT(*) OVER (PARTITION BY symbol, month_start)
+FROM (
+    SELECT symbol,
+           timestamp,
+           price,
+           DATEDIFF(MILLISECOND, TIMESTAMP '1970-01-01 00:00:00',
+                    DATE_TRUNC(MONTH, DATEADD(MILLISECOND, timestamp, TIMESTAMP '1970-01-01 00:00:00'))) AS month_start
+    FROM crypto_values
+) points;
@@ -0,0 +1,168 @@
+package com.xm.crypto;
+
+import com.xm.crypto.service.CryptoStatsService;
+import com.xm.crypto.service.DatasetVersionService;
+import com.xm.crypto.service.NormalizedRangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the crypto endpoints are validated with the dataset version and answered with 304 without any
+ * service work while the prices did not change.
+ */
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices"
+        }
+)
+@AutoConfigureMockMvc
+class ConditionalRequestIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatasetVersionService datasetVersionService;
+
+    @MockitoSpyBean
+    private NormalizedRangeService normalizedRangeService;
+
+    @MockitoSpyBean
+    private CryptoStatsService cryptoStatsService;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.clearInvocations(normalizedRangeService, cryptoStatsService);
+    }
+
+    @Test
+    @DisplayName("Should send the dataset version as ETag and Last-Modified")
+    void testValidators() throws Exception {
+        String eTag = "\"" + datasetVersionService.current().version() + "\"";
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        mockMvc.perform(get("/cryptos/BTC/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        mockMvc.perform(get("/cryptos/highest-normalized-range").param("date", "2022-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    @DisplayName("Should answer a matching If-None-Match with 304 without calling the services")
+    void testNotModified() throws Exception {
+        String eTag = "\"" + datasetVersionService.current().version() + "\"";
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/cryptos/BTC/stats").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/cryptos/highest-normalized-range")
+                        .param("date", "2022-01-01")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(normalizedRangeService, never()).listByNormalizedRange();
+        verify(normalizedRangeService, never()).getHighestNormalizedRange(any());
+        verify(cryptoStatsService, never()).getStats(any());
+    }
+
+    @Test
+    @DisplayName("Should send another ETag for the gzip compressed response and vary the 304 by Accept-Encoding")
+    void testGzipValidators() throws Exception {
+        String eTag = "\"" + datasetVersionService.current().version() + "\"";
+        String gzipETag = "\"" + datasetVersionService.current().version() + "-gzip\"";
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, gzipETag));
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/cryptos/list-by-normalized-range").header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    @DisplayName("Should send the same ETag to every client of the endpoints not serving gzip compressed responses")
+    void testNoGzipValidatorsOfUncachedEndpoints() throws Exception {
+        String eTag = "\"" + datasetVersionService.current().version() + "\"";
+
+        mockMvc.perform(get("/cryptos/BTC/stats").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().doesNotExist(HttpHeaders.VARY));
+        mockMvc.perform(get("/cryptos/BTC/candles")
+                        .param("interval", "1d")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Should not send the dataset version with error responses")
+    void testNoValidatorsOfErrors() throws Exception {
+        mockMvc.perform(get("/cryptos/UNKNOWN/stats"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+        mockMvc.perform(get("/cryptos/highest-normalized-range").param("date", "not-a-date"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    @DisplayName("Should answer with 200 and a new ETag after the prices were loaded again")
+    void testModifiedAfterLoad() throws Exception {
+        String eTag = "\"" + datasetVersionService.current().version() + "\"";
+
+        datasetVersionService.increment();
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    @DisplayName("Should answer with 200 to If-Modified-Since after the prices were loaded again within the second")
+    void testModifiedSinceAfterLoad() throws Exception {
+        datasetVersionService.increment();
+        String lastModified = mockMvc.perform(get("/cryptos/list-by-normalized-range"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.LAST_MODIFIED);
+
+        datasetVersionService.increment();
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -12,6 +13,7 @@ import static com.xm.crypto.model.dto.ErrorCode.CRYPTO_DATA_NOT_FOUND;
 import static com.xm.crypto.model.dto.ErrorCode.INVALID_PARAMETER;
 import static com.xm.crypto.model.dto.ErrorCode.MISSING_PARAMETER;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +39,28 @@ class CryptoInvestmentServiceApplicationTests {
                 .andExpect(jsonPath("$.normalizedCryptos[0].normalizedRange").exists());
     }
 
+    @Test
+    @DisplayName("Should return the gzip compressed list of cryptos if the client accepts it")
+    void testListByNormalizedRangeGzip() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("Should return the uncompressed list of cryptos if the client refuses gzip")
+    void testListByNormalizedRangeGzipRefused() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.normalizedCryptos").isArray());
+    }
+
     @Test
     @DisplayName("Should return stats for a valid crypto symbol")
     void testGetStats() throws Exception {
@@ -55,7 +79,8 @@ class CryptoInvestmentServiceApplicationTests {
                 .andExpect(jsonPath("$.stats.min.timestamp").exists())
                 .andExpect(jsonPath("$.stats.min.price").exists())
                 .andExpect(jsonPath("$.stats.max.timestamp").exists())
-                .andExpect(jsonPath("$.stats.max.price").exists());
+                .andExpect(jsonPath("$.stats.max.price").exists())
+                .andExpect(jsonPath("$.stats.count").value(99));
     }
 
     @Test
@@ -68,6 +93,151 @@ class CryptoInvestmentServiceApplicationTests {
                 .andExpect(jsonPath("$.message").value("There is no data for the requested crypto: UNKNOWN"));
     }
 
+    @Test
+    @DisplayName("Should return stats of the requested cryptos and an error for each unknown one")
+    void testGetStatsBatch() throws Exception {
+        mockMvc.perform(get("/cryptos/stats")
+                        .param("symbols", "btc,ETH,UNKNOWN")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stats.BTC.symbol").value("BTC"))
+                .andExpect(jsonPath("$.stats.BTC.count").value(99))
+                .andExpect(jsonPath("$.stats.ETH.symbol").value("ETH"))
+                .andExpect(jsonPath("$.stats.UNKNOWN").doesNotExist())
+                .andExpect(jsonPath("$.errors.UNKNOWN.errorCode").value(CRYPTO_DATA_NOT_FOUND.name()))
+                .andExpect(jsonPath("$.errors.UNKNOWN.message").value("There is no data for the requested crypto: UNKNOWN"));
+    }
+
+    @Test
+    @DisplayName("Should return stats of all cryptos within the requested time range if no symbol is requested")
+    void testGetStatsBatchOfAllCryptos() throws Exception {
+        mockMvc.perform(get("/cryptos/stats")
+                        .param("from", "2022-01-01T00:00:00")
+                        .param("to", "2022-01-01T12:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stats.length()").value(2))
+                .andExpect(jsonPath("$.stats.ETH.oldest.price").value(3123.47))
+                .andExpect(jsonPath("$.stats.ETH.count").value(2))
+                .andExpect(jsonPath("$.errors").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return the daily candles of a crypto within the requested time range")
+    void testGetCandles() throws Exception {
+        mockMvc.perform(get("/cryptos/eth/candles")
+                        .param("interval", "1d")
+                        .param("from", "2022-01-01T00:00:00")
+                        .param("to", "2022-01-03T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbol").value("ETH"))
+                .andExpect(jsonPath("$.interval").value("1d"))
+                .andExpect(jsonPath("$.candles.length()").value(2))
+                .andExpect(jsonPath("$.candles[0].timestamp").value("2022-01-01T00:00:00"))
+                .andExpect(jsonPath("$.candles[0].open").value(3123.47))
+                .andExpect(jsonPath("$.candles[0].high").value(3412.89))
+                .andExpect(jsonPath("$.candles[0].low").value(2598.12))
+                .andExpect(jsonPath("$.candles[0].close").value(3412.89))
+                .andExpect(jsonPath("$.candles[0].count").value(3))
+                .andExpect(jsonPath("$.candles[1].timestamp").value("2022-01-02T00:00:00"));
+    }
+
+    @Test
+    @DisplayName("Should return 400 for candles of an unknown interval")
+    void testGetCandlesInvalidInterval() throws Exception {
+        mockMvc.perform(get("/cryptos/ETH/candles")
+                        .param("interval", "2m")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()));
+    }
+
+    @Test
+    @DisplayName("Should return stats of a crypto within the requested time range")
+    void testGetStatsWithinTimeRange() throws Exception {
+        mockMvc.perform(get("/cryptos/ETH/stats")
+                        .param("from", "2022-01-01T00:00:00")
+                        .param("to", "2022-01-01T12:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stats.symbol").value("ETH"))
+                .andExpect(jsonPath("$.stats.oldest.price").value(3123.47))
+                .andExpect(jsonPath("$.stats.newest.price").value(2598.12))
+                .andExpect(jsonPath("$.stats.min.price").value(2598.12))
+                .andExpect(jsonPath("$.stats.max.price").value(3123.47))
+                .andExpect(jsonPath("$.stats.count").value(2));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request if the time range of the stats is empty")
+    void testGetStatsInvalidTimeRange() throws Exception {
+        mockMvc.perform(get("/cryptos/ETH/stats")
+                        .param("from", "2022-01-02T00:00:00")
+                        .param("to", "2022-01-01T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()));
+    }
+
+    @Test
+    @DisplayName("Should return sorted list of cryptos by normalized range within the requested time range")
+    void testListByNormalizedRangeWithinTimeRange() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("from", "2022-01-01T00:00:00")
+                        .param("to", "2022-01-01T12:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.normalizedCryptos[0].symbol").value("ETH"))
+                .andExpect(jsonPath("$.normalizedCryptos[0].normalizedRange").value(0.20220390))
+                .andExpect(jsonPath("$.normalizedCryptos[1].symbol").value("BTC"));
+    }
+
+    @Test
+    @DisplayName("Should return a page of the cryptos ranked by normalized range in the requested order")
+    void testListByNormalizedRangePage() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("from", "2022-01-01T00:00:00")
+                        .param("to", "2022-01-01T12:00:00")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.normalizedCryptos.length()").value(1))
+                .andExpect(jsonPath("$.normalizedCryptos[0].symbol").value("ETH"));
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("order", "ASC")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.normalizedCryptos.length()").value(1))
+                .andExpect(jsonPath("$.normalizedCryptos[0].symbol").value("BTC"));
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("offset", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.normalizedCryptos.length()").value(1))
+                .andExpect(jsonPath("$.normalizedCryptos[0].symbol").value("BTC"));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request if the page of the ranking is invalid")
+    void testListByNormalizedRangeInvalidPage() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("offset", "-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()))
+                .andExpect(jsonPath("$.message").value("The offset must not be negative."));
+
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("order", "SIDEWAYS")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()));
+    }
+
     @Test
     @DisplayName("Should return crypto with highest normalized range for a specific day")
     void testGetHighestNormalizedRange() throws Exception {
@@ -111,4 +281,59 @@ class CryptoInvestmentServiceApplicationTests {
                 .andExpect(jsonPath("$.errorCode").value(CRYPTO_DATA_NOT_FOUND.name()))
                 .andExpect(jsonPath("$.message").value("No crypto data found for the requested date: 1999-01-01"));
     }
+
+    @Test
+    @DisplayName("Should return the cryptos with the highest normalized range of each day within the date range")
+    void testGetDailyHighestNormalizedRanges() throws Exception {
+        mockMvc.perform(get("/cryptos/highest-normalized-range/daily")
+                        .param("from", "2022-01-01")
+                        .param("to", "2022-01-03")
+                        .param("limit", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days.length()").value(2))
+                .andExpect(jsonPath("$.days[0].date").value("2022-01-01"))
+                .andExpect(jsonPath("$.days[0].normalizedCryptos[0].symbol").value("ETH"))
+                .andExpect(jsonPath("$.days[0].normalizedCryptos[0].normalizedRange").value(0.31359983))
+                .andExpect(jsonPath("$.days[0].normalizedCryptos[1].symbol").value("BTC"))
+                .andExpect(jsonPath("$.days[1].date").value("2022-01-02"))
+                .andExpect(jsonPath("$.days[1].normalizedCryptos.length()").value(2));
+
+        mockMvc.perform(get("/cryptos/highest-normalized-range/daily")
+                        .param("from", "2022-01-01")
+                        .param("to", "2022-02-01")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days.length()").value(31))
+                .andExpect(jsonPath("$.days[2].date").value("2022-01-03"))
+                .andExpect(jsonPath("$.days[2].normalizedCryptos.length()").value(1))
+                .andExpect(jsonPath("$.days[2].normalizedCryptos[0].symbol").value("ETH"));
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request if the date range or the limit of the daily highest normalized range is invalid")
+    void testGetDailyHighestNormalizedRangesInvalidParameters() throws Exception {
+        mockMvc.perform(get("/cryptos/highest-normalized-range/daily")
+                        .param("from", "2022-01-03")
+                        .param("to", "2022-01-03")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()));
+
+        mockMvc.perform(get("/cryptos/highest-normalized-range/daily")
+                        .param("from", "2022-01-01")
+                        .param("to", "2022-01-03")
+                        .param("limit", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()))
+                .andExpect(jsonPath("$.message").value("The limit must be between 1 and 100."));
+
+        mockMvc.perform(get("/cryptos/highest-normalized-range/daily")
+                        .param("from", "1999-01-01")
+                        .param("to", "1999-01-03")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorCode").value(CRYPTO_DATA_NOT_FOUND.name()));
+    }
 }
@@ -0,0 +1,112 @@
+package com.xm.crypto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.xm.crypto.model.dto.ErrorCode.CRYPTO_DATA_NOT_FOUND;
+import static com.xm.crypto.model.dto.ErrorCode.INVALID_PARAMETER;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the values of a crypto are exported as a stream, page by page with cursors.
+ */
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices",
+                "crypto.export.page-size=40"
+        }
+)
+@AutoConfigureMockMvc
+class CryptoValuesExportIntegrationTest {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should export all values of a crypto as CSV page by page, the same rows as the imported file")
+    void testExportCsvPages() throws Exception {
+        List<String> rows = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/cryptos/BTC/values").param("format", "CSV");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = export(request);
+            List<String> lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals("timestamp,symbol,price", lines.getFirst());
+            rows.addAll(lines.subList(1, lines.size()));
+            pageSizes.add(lines.size() - 1);
+            cursor = result.getResponse().getHeader(NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        List<String> imported = new ClassPathResource("prices/BTC_values.csv").getContentAsString(StandardCharsets.UTF_8)
+                .lines()
+                .skip(1)
+                .toList();
+        assertEquals(List.of(40, 40, 19), pageSizes);
+        assertEquals(imported, rows);
+    }
+
+    @Test
+    @DisplayName("Should export the values of a crypto within the requested time range as NDJSON")
+    void testExportNdjsonWithinTimeRange() throws Exception {
+        MvcResult result = export(get("/cryptos/eth/values")
+                .param("from", "2022-01-01T00:00:00")
+                .param("to", "2022-01-01T12:00:00"));
+
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, result.getResponse().getContentType());
+        assertNull(result.getResponse().getHeader(NEXT_CURSOR_HEADER));
+        assertEquals("""
+                {"timestamp":1640995200000,"symbol":"ETH","price":3123.47}
+                {"timestamp":1641024000000,"symbol":"ETH","price":2598.12}
+                """, result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should return 404 for the values of an unknown crypto and 400 for an invalid cursor")
+    void testExportErrors() throws Exception {
+        mockMvc.perform(get("/cryptos/UNKNOWN/values"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errorCode").value(CRYPTO_DATA_NOT_FOUND.name()));
+
+        mockMvc.perform(get("/cryptos/BTC/values").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(INVALID_PARAMETER.name()));
+    }
+
+    private MvcResult export(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        MvcResult started = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(content().string(not(emptyString())))
+                .andReturn();
+    }
+}
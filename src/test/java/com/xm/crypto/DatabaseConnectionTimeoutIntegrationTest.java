@@ -0,0 +1,62 @@
+package com.xm.crypto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static com.xm.crypto.model.dto.ErrorCode.SERVICE_UNAVAILABLE;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that a request which does not get a database connection within the connection timeout is answered with 503.
+ */
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices",
+                "crypto.store.type=jpa",
+                "crypto.loader.parallelism=1",
+                "crypto.watcher.enabled=false",
+                "spring.datasource.url=jdbc:h2:mem:connection-timeout-test;DB_CLOSE_DELAY=-1",
+                "spring.datasource.hikari.maximum-pool-size=1",
+                "spring.datasource.hikari.connection-timeout=250",
+                // the migrations run on their own connection, so the single pooled connection stays free at startup
+                "spring.flyway.url=jdbc:h2:mem:connection-timeout-test;DB_CLOSE_DELAY=-1",
+                "spring.flyway.user=sa"
+        }
+)
+@AutoConfigureMockMvc
+class DatabaseConnectionTimeoutIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @DisplayName("Should return 503 with Retry-After while all database connections are in use")
+    void testConnectionPoolExhausted() throws Exception {
+        try (Connection ignored = dataSource.getConnection()) {
+            mockMvc.perform(get("/cryptos/BTC/stats")
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                    .andExpect(jsonPath("$.errorCode").value(SERVICE_UNAVAILABLE.name()));
+        }
+
+        mockMvc.perform(get("/cryptos/BTC/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,52 @@
+package com.xm.crypto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the endpoint, repository, loader and rate limit metrics are exposed on the Prometheus scrape endpoint.
+ */
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices",
+                "crypto.store.type=jpa",
+                "spring.datasource.url=jdbc:h2:mem:prometheus-test"
+        }
+)
+@AutoConfigureMockMvc
+class PrometheusEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should expose the endpoint, repository, loader and rate limit metrics")
+    void testPrometheusEndpoint() throws Exception {
+        mockMvc.perform(get("/cryptos/BTC/stats")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/cryptos/{symbol}/stats\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket{")))
+                .andExpect(content().string(containsString("method=\"findStatsBySymbolsAndTimeRange\"")))
+                .andExpect(content().string(containsString("crypto_loader_rows_total{parser=\"mapped\"}")))
+                .andExpect(content().string(containsString("crypto_loader_parse_seconds_bucket{")))
+                .andExpect(content().string(containsString("crypto_rate_limit_requests_total{outcome=\"accepted\"}")))
+                .andExpect(content().string(containsString("crypto_rate_limit_buckets")))
+                .andExpect(content().string(not(containsString("127.0.0.1"))));
+    }
+}
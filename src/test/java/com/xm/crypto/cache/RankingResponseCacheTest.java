@@ -0,0 +1,122 @@
+package com.xm.crypto.cache;
+
+import com.xm.crypto.cache.RankingResponseCache.SerializedResponse;
+import com.xm.crypto.model.dto.NormalizedCryptoDto;
+import com.xm.crypto.service.DatasetVersionChangedEvent;
+import com.xm.crypto.service.DatasetVersionService;
+import com.xm.crypto.service.NormalizedRangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link RankingResponseCache}.
+ */
+class RankingResponseCacheTest {
+
+    private NormalizedRangeService normalizedRangeService;
+    private DatasetVersionService datasetVersionService;
+    private List<Runnable> rebuilds;
+    private RankingResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        normalizedRangeService = mock(NormalizedRangeService.class);
+        datasetVersionService = new DatasetVersionService(event -> cache.onApplicationEvent((DatasetVersionChangedEvent) event));
+        rebuilds = new ArrayList<>();
+        cache = new RankingResponseCache(
+                normalizedRangeService, datasetVersionService, JsonMapper.builder().build(), rebuilds::add);
+        when(normalizedRangeService.listByNormalizedRange())
+                .thenReturn(List.of(new NormalizedCryptoDto("BTC", new BigDecimal("0.50000000"))));
+        when(normalizedRangeService.getHighestNormalizedRange(LocalDate.of(2022, 1, 1)))
+                .thenReturn(new NormalizedCryptoDto("ETH", new BigDecimal("0.25000000")));
+    }
+
+    @Test
+    void listByNormalizedRange_servesSerializedBytes_whileTheVersionIsUnchanged() throws IOException {
+        // GIVEN
+        SerializedResponse first = cache.listByNormalizedRange(null);
+
+        // WHEN
+        SerializedResponse second = cache.listByNormalizedRange(null);
+
+        // THEN
+        assertSame(first, second);
+        verify(normalizedRangeService, times(1)).listByNormalizedRange();
+        assertEquals(
+                "{\"normalizedCryptos\":[{\"symbol\":\"BTC\",\"normalizedRange\":0.50000000}]}",
+                new String(second.json(), StandardCharsets.UTF_8)
+        );
+        assertArrayEquals(second.json(), gunzip(second.gzip()));
+    }
+
+    @Test
+    void onApplicationEvent_rebuildsCachedQueriesEagerly() {
+        // GIVEN
+        cache.getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+
+        // WHEN
+        long version = datasetVersionService.increment().version();
+        runRebuilds();
+
+        // THEN
+        verify(normalizedRangeService, times(2)).getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+        verify(normalizedRangeService, times(1)).listByNormalizedRange();
+        assertEquals(version, cache.getHighestNormalizedRange(LocalDate.of(2022, 1, 1)).version());
+        assertEquals(version, cache.listByNormalizedRange(null).version());
+        verify(normalizedRangeService, times(2)).getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+        verify(normalizedRangeService, times(1)).listByNormalizedRange();
+    }
+
+    @Test
+    void onApplicationEvent_coalescesLoadsIntoOnePendingRebuild() {
+        // GIVEN
+        cache.getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+
+        // WHEN
+        datasetVersionService.increment();
+        datasetVersionService.increment();
+        long version = datasetVersionService.increment().version();
+
+        // THEN: nothing is computed on the loading thread, and one rebuild computes the latest version
+        verify(normalizedRangeService, times(1)).getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+        assertEquals(1, rebuilds.size());
+        runRebuilds();
+        verify(normalizedRangeService, times(2)).getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+        assertEquals(version, cache.getHighestNormalizedRange(LocalDate.of(2022, 1, 1)).version());
+        verify(normalizedRangeService, times(2)).getHighestNormalizedRange(LocalDate.of(2022, 1, 1));
+
+        // a load after the rebuild started schedules another one
+        datasetVersionService.increment();
+        assertEquals(1, rebuilds.size());
+    }
+
+    private void runRebuilds() {
+        List<Runnable> pending = List.copyOf(rebuilds);
+        rebuilds.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return gzip.readAllBytes();
+        }
+    }
+}
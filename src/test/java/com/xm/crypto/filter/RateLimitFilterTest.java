@@ -0,0 +1,172 @@
+package com.xm.crypto.filter;
+
+import com.xm.crypto.repository.CryptoPriceStore;
+import com.xm.crypto.service.DatasetVersionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link RateLimitFilter}.
+ */
+class RateLimitFilterTest {
+    private static final long MAX_CLIENTS = 10_000;
+    private static final long REQUESTS_PER_MINUTE = 100;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private CryptoPriceStore cryptoPriceStore;
+    private DatasetVersionService datasetVersionService;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cryptoPriceStore = mock(CryptoPriceStore.class);
+        datasetVersionService = new DatasetVersionService(event -> {});
+        filter = new RateLimitFilter(
+                meterRegistry, cryptoPriceStore, datasetVersionService, MAX_CLIENTS, REQUESTS_PER_MINUTE);
+    }
+
+    @Test
+    void doFilter_rejectsRequestsOverTheLimit_perClient() throws Exception {
+        // GIVEN
+        for (int i = 0; i < 100; i++) {
+            assertEquals(200, filter("10.0.0.1").getStatus());
+        }
+
+        // WHEN
+        MockHttpServletResponse rejected = filter("10.0.0.1");
+        MockHttpServletResponse otherClient = filter("10.0.0.2");
+
+        // THEN
+        assertEquals(429, rejected.getStatus());
+        assertEquals(200, otherClient.getStatus());
+        assertEquals(101, meterRegistry.get("crypto.rate.limit.requests").tag("outcome", "accepted").counter().count());
+        assertEquals(1, meterRegistry.get("crypto.rate.limit.requests").tag("outcome", "rejected").counter().count());
+        assertEquals(2, meterRegistry.get("crypto.rate.limit.buckets").gauge().value());
+    }
+
+    @Test
+    void doFilter_chargesBatchStatsRequests_perDistinctSymbol() throws Exception {
+        // GIVEN
+        for (int i = 0; i < 32; i++) {
+            // 3 distinct symbols, BTC is requested twice
+            assertEquals(200, filterBatchStats("10.0.0.1", "BTC,ETH", "xrp,btc").getStatus());
+        }
+
+        // WHEN
+        MockHttpServletResponse accepted = filterBatchStats("10.0.0.1", "DOGE,LTC,SOL,BTC");
+        MockHttpServletResponse rejected = filter("10.0.0.1");
+
+        // THEN
+        assertEquals(200, accepted.getStatus());
+        assertEquals(429, rejected.getStatus());
+    }
+
+    @Test
+    void doFilter_chargesAllStatsRequests_perStoredSymbol_upToTheCapacity() throws Exception {
+        // GIVEN
+        when(cryptoPriceStore.findAllSymbols()).thenReturn(List.of("BTC", "ETH", "XRP", "DOGE", "LTC"));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(200, filterBatchStats("10.0.0.1").getStatus());
+        }
+        when(cryptoPriceStore.findAllSymbols()).thenReturn(symbols(1000));
+        datasetVersionService.increment();
+        assertEquals(429, filterBatchStats("10.0.0.1").getStatus());
+
+        // WHEN
+        MockHttpServletResponse fullBucket = filterBatchStats("10.0.0.2");
+
+        // THEN
+        assertEquals(200, fullBucket.getStatus());
+        assertEquals(429, filter("10.0.0.2").getStatus());
+        verify(cryptoPriceStore, times(2)).findAllSymbols();
+    }
+
+    /**
+     * Load test, only run with the {@code load-test} profile.
+     */
+    @Test
+    @Tag("load")
+    void doFilter_keepsMemoryFlat_forTenMillionDistinctClients() throws Exception {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        sendFromDistinctClients(request, response, 0, 1_000_000);
+        long usedAfterOneMillion = usedHeapAfterGc();
+
+        // WHEN
+        sendFromDistinctClients(request, response, 1_000_000, 10_000_000);
+
+        // THEN
+        long usedAfterTenMillion = usedHeapAfterGc();
+        assertTrue(
+                usedAfterTenMillion - usedAfterOneMillion < 32 << 20,
+                "heap grew from " + usedAfterOneMillion + " to " + usedAfterTenMillion + " bytes"
+        );
+        assertTrue(meterRegistry.get("crypto.rate.limit.buckets").gauge().value() <= MAX_CLIENTS * 1.1);
+        assertEquals(10_000_000, meterRegistry.get("crypto.rate.limit.requests").tag("outcome", "accepted").counter().count());
+    }
+
+    private MockHttpServletResponse filter(String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+
+    private MockHttpServletResponse filterBatchStats(String ip, String... symbols) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cryptos/stats");
+        request.setRemoteAddr(ip);
+        if (symbols.length > 0) {
+            request.addParameter("symbols", symbols);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+
+    private static List<String> symbols(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "C" + i).toList();
+    }
+
+    private void sendFromDistinctClients(
+            MockHttpServletRequest request,
+            MockHttpServletResponse response,
+            int from,
+            int to
+    ) throws Exception {
+        for (int i = from; i < to; i++) {
+            // the 10.0.0.0/8 network has 16.7M addresses
+            request.setRemoteAddr("10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF));
+            filter.doFilter(request, response, NO_OP_CHAIN);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,42 @@
+package com.xm.crypto.interceptor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link AcceptEncoding}.
+ */
+class AcceptEncodingTest {
+
+    @Test
+    @DisplayName("Should accept gzip if it is listed with a positive quality value")
+    void acceptsGzip_whenListed() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip"));
+        assertTrue(AcceptEncoding.acceptsGzip("deflate, GZIP"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, gzip;q=0.8, *;q=0.1"));
+        assertTrue(AcceptEncoding.acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    @DisplayName("Should refuse gzip if it is listed with a quality value of 0")
+    void refusesGzip_withZeroQuality() {
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip; q=0.000, deflate"));
+        assertFalse(AcceptEncoding.acceptsGzip("*, gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=invalid"));
+    }
+
+    @Test
+    @DisplayName("Should accept gzip if it is not listed only if any encoding is accepted")
+    void acceptsGzip_whenAnyEncodingIsAccepted() {
+        assertTrue(AcceptEncoding.acceptsGzip("*"));
+        assertFalse(AcceptEncoding.acceptsGzip("*;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("deflate, br"));
+        assertFalse(AcceptEncoding.acceptsGzip("identity"));
+        assertFalse(AcceptEncoding.acceptsGzip(""));
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+    }
+}
@@ -0,0 +1,151 @@
+package com.xm.crypto.model.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CompressedPriceRollup}.
+ */
+class CompressedPriceRollupTest {
+    private static final long JAN_01_2022 = 1640995200000L;
+
+    @Test
+    @DisplayName("Should hold the same buckets as the rollup of the series, from the series and from a finer rollup")
+    void scan_matchesPriceRollup_ofTheSeries() {
+        // GIVEN: gaps of up to a few minutes and prices that only fit into 64 bits
+        Random random = new Random(42);
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        long timestamp = JAN_01_2022;
+        for (int i = 0; i < 5_000; i++) {
+            long price = i % 7 == 0 ? Long.MAX_VALUE - random.nextInt(10) : random.nextLong(1L << 40);
+            builder.add(timestamp, price, 2);
+            timestamp += random.nextInt(200_000);
+        }
+        CompressedPriceSeries series = CompressedPriceSeries.of(builder.build());
+
+        // WHEN
+        CompressedPriceRollup minutes = CompressedPriceRollup.of(series, CandleInterval.ONE_MINUTE.millis());
+        CompressedPriceRollup fiveMinutes = CompressedPriceRollup.of(minutes, CandleInterval.FIVE_MINUTES.millis());
+
+        // THEN
+        assertSameBuckets(PriceRollup.of(series, CandleInterval.ONE_MINUTE.millis()), minutes);
+        assertSameBuckets(PriceRollup.of(series, CandleInterval.FIVE_MINUTES.millis()), fiveMinutes);
+        long startMillis = JAN_01_2022 + CandleInterval.ONE_DAY.millis();
+        PriceRollup expected = PriceRollup.of(series, CandleInterval.ONE_MINUTE.millis());
+        CompressedPriceRollup.Scanner scanner = minutes.scan(startMillis, startMillis + CandleInterval.ONE_HOUR.millis());
+        for (int i = expected.lowerBound(startMillis); expected.bucketStart(i) < startMillis + 3_600_000L; i++) {
+            assertTrue(scanner.next());
+            assertEquals(expected.bucketStart(i), scanner.bucketStart());
+        }
+        assertFalse(scanner.next());
+    }
+
+    @Test
+    @DisplayName("Should update the rollup to the same bytes as rolling up the merged series")
+    void update_matchesRebuiltRollup_afterDataPointsWereMerged() {
+        // GIVEN
+        Random random = new Random(7);
+        CompressedPriceSeries series = CompressedPriceSeries.of(randomSeries(random, JAN_01_2022, 5_000));
+        CompressedPriceRollup minutes = CompressedPriceRollup.of(series, CandleInterval.ONE_MINUTE.millis());
+        CompressedPriceRollup fiveMinutes = CompressedPriceRollup.of(minutes, CandleInterval.FIVE_MINUTES.millis());
+        long changedFrom = series.timestamp(3_000) + 1;
+        CompressedPriceSeries merged = series.merge(randomSeries(random, changedFrom, 2_000));
+
+        // WHEN
+        CompressedPriceRollup updatedMinutes = minutes.update(merged, changedFrom);
+        CompressedPriceRollup updatedFiveMinutes = fiveMinutes.update(updatedMinutes, changedFrom);
+
+        // THEN
+        CompressedPriceRollup rebuiltMinutes = CompressedPriceRollup.of(merged, CandleInterval.ONE_MINUTE.millis());
+        assertArrayEquals(serialized(rebuiltMinutes), serialized(updatedMinutes));
+        assertArrayEquals(
+                serialized(CompressedPriceRollup.of(rebuiltMinutes, CandleInterval.FIVE_MINUTES.millis())),
+                serialized(updatedFiveMinutes)
+        );
+        assertSameBuckets(PriceRollup.of(merged, CandleInterval.FIVE_MINUTES.millis()), updatedFiveMinutes);
+    }
+
+    @Test
+    @DisplayName("Should read back the written rollup and reject one whose blocks don't match its size")
+    void writeTo_readFrom_roundTrip() {
+        // GIVEN
+        CompressedPriceSeries series = CompressedPriceSeries.of(randomSeries(new Random(3), JAN_01_2022, 1_000));
+        CompressedPriceRollup rollup = CompressedPriceRollup.of(series, CandleInterval.ONE_MINUTE.millis());
+        byte[] bytes = serialized(rollup);
+
+        // WHEN
+        CompressedPriceRollup read = CompressedPriceRollup.readFrom(ByteBuffer.wrap(bytes), "BTC");
+
+        // THEN
+        assertArrayEquals(bytes, serialized(read));
+        assertSameBuckets(PriceRollup.of(series, CandleInterval.ONE_MINUTE.millis()), read);
+        // the size is written after the bucket width and the scale
+        ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone());
+        corrupt.putInt(Long.BYTES + Integer.BYTES, rollup.size() + CompressedPriceRollup.BLOCK_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> CompressedPriceRollup.readFrom(corrupt, "BTC"));
+    }
+
+    @Test
+    @DisplayName("Should take less than 5 bytes per bucket of regular ticks")
+    void of_takesFewBytesPerBucket_ofRegularTicks() {
+        // GIVEN: 5 minute ticks moving by at most 10.00
+        Random random = new Random(42);
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        long price = 4_000_000;
+        for (int i = 0; i < 100_000; i++) {
+            price += random.nextInt(2001) - 1000;
+            builder.add(JAN_01_2022 + i * 300_000L, price, 2);
+        }
+        CompressedPriceSeries series = CompressedPriceSeries.of(builder.build());
+
+        // WHEN
+        CompressedPriceRollup minutes = CompressedPriceRollup.of(series, CandleInterval.ONE_MINUTE.millis());
+
+        // THEN: a bucket per data point, 1 byte for the gap, 2 or 3 for the price and 1 for the count
+        assertEquals(series.size(), minutes.size());
+        assertTrue(minutes.sizeInBytes() < 5L * minutes.size(), minutes.sizeInBytes() + " bytes");
+    }
+
+    /**
+     * Returns a series with a data point every 0 to 60 seconds.
+     */
+    private static PriceSeries randomSeries(Random random, long start, int size) {
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        long timestamp = start;
+        for (int i = 0; i < size; i++) {
+            builder.add(timestamp, 4_000_000 + random.nextInt(100_000), 2);
+            timestamp += random.nextInt(60_000);
+        }
+        return builder.build();
+    }
+
+    private static void assertSameBuckets(PriceRollup expected, CompressedPriceRollup actual) {
+        assertEquals(expected.size(), actual.size());
+        CompressedPriceRollup.Scanner scanner = actual.scan(Long.MIN_VALUE, Long.MAX_VALUE);
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(scanner.next(), "bucket " + i);
+            assertEquals(expected.bucketStart(i), scanner.bucketStart(), "start of bucket " + i);
+            assertEquals(expected.unscaledFirst(i), scanner.unscaledFirst(), "open of bucket " + i);
+            assertEquals(expected.unscaledMax(i), scanner.unscaledMax(), "high of bucket " + i);
+            assertEquals(expected.unscaledMin(i), scanner.unscaledMin(), "low of bucket " + i);
+            assertEquals(expected.unscaledLast(i), scanner.unscaledLast(), "close of bucket " + i);
+            assertEquals(expected.count(i), scanner.count(), "count of bucket " + i);
+        }
+        assertFalse(scanner.next());
+    }
+
+    private static byte[] serialized(CompressedPriceRollup rollup) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) rollup.serializedSize());
+        rollup.writeTo(buffer);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,254 @@
+package com.xm.crypto.model.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CompressedPriceSeries}.
+ */
+class CompressedPriceSeriesTest {
+
+    @Test
+    @DisplayName("Should restore every data point of a series with irregular gaps and price moves")
+    void toSeries_restoresEveryDataPoint_ofIrregularSeries() {
+        // GIVEN: gaps and price moves of every size, including ones that only fit into 64 bits
+        Random random = new Random(42);
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        long timestamp = -1_000_000L;
+        for (int i = 0; i < 1000; i++) {
+            timestamp += 1 + switch (i % 4) {
+                case 0 -> 60_000L;
+                case 1 -> random.nextInt(100);
+                case 2 -> random.nextLong(1L << 40);
+                default -> 60_000L + random.nextInt(5000);
+            };
+            long price = switch (i % 5) {
+                case 0 -> Long.MAX_VALUE - random.nextInt(10);
+                case 1 -> Long.MIN_VALUE + random.nextInt(10);
+                default -> random.nextLong(1L << (1 + random.nextInt(62)));
+            };
+            builder.add(timestamp, price, 8);
+        }
+        PriceSeries series = builder.build();
+
+        // WHEN
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+
+        // THEN
+        assertSameDataPoints(series, compressed.toSeries());
+        assertEquals(series.size(), compressed.size());
+    }
+
+    @Test
+    @DisplayName("Should scan the data points and price range of any time range like the series")
+    void scanAndPriceRange_matchTheSeries_forAllTimeRanges() {
+        // GIVEN
+        Random random = new Random(7);
+        PriceSeries.Builder builder = PriceSeries.builder("ETH");
+        for (int i = 0; i < 400; i++) {
+            builder.add(i * 1000L, random.nextInt(1000), 2);
+        }
+        PriceSeries series = builder.build();
+
+        // WHEN
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+
+        // THEN
+        for (long start = -500; start < 401_000; start += 3_700) {
+            for (long end = start + 1; end < 402_000; end += 9_100) {
+                int from = series.lowerBound(start);
+                int to = series.lowerBound(end);
+                CompressedPriceSeries.Scanner scanner = compressed.scan(start, end);
+                for (int i = from; i < to; i++) {
+                    assertTrue(scanner.next(), "data point " + i + " of [" + start + ", " + end + ")");
+                    assertEquals(series.timestamp(i), scanner.timestamp());
+                    assertEquals(series.unscaledPrice(i), scanner.unscaledPrice());
+                }
+                assertFalse(scanner.next(), "end of [" + start + ", " + end + ")");
+                assertEquals(scanPriceRange(series, from, to), compressed.priceRange(start, end));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the statistics of any time range like a linear scan, the oldest data point on equal prices")
+    void stats_matchLinearScan_forAllTimeRanges() {
+        // GIVEN: a small value range produces plenty of equal prices to check the tie-breaking
+        Random random = new Random(42);
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        for (int i = 0; i < 300; i++) {
+            builder.add(i * 1000L, random.nextInt(50), 2);
+        }
+        PriceSeries series = builder.build();
+
+        // WHEN
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+
+        // THEN
+        for (int from = 0; from < series.size(); from++) {
+            for (int to = from + 1; to <= series.size(); to++) {
+                CryptoStats stats = compressed.stats(from * 1000L, to * 1000L - 999).orElseThrow();
+                String range = "[" + from + ", " + to + ")";
+                assertEquals(series.crypto(from), stats.oldest(), "oldest of " + range);
+                assertEquals(series.crypto(to - 1), stats.newest(), "newest of " + range);
+                assertEquals(series.crypto(scanExtremum(series, from, to, false)), stats.min(), "min of " + range);
+                assertEquals(series.crypto(scanExtremum(series, from, to, true)), stats.max(), "max of " + range);
+                assertEquals(to - from, stats.count(), "count of " + range);
+            }
+        }
+        assertEquals(Optional.empty(), compressed.stats(300_000L, Long.MAX_VALUE));
+        assertEquals(series.lowerBound(12_345L), compressed.lowerBound(12_345L));
+    }
+
+    @Test
+    @DisplayName("Should merge data points like the series and encode the same bits as compressing the merged series")
+    void merge_matchesCompressedMergedSeries() {
+        // GIVEN
+        Random random = new Random(7);
+        PriceSeries.Builder builder = PriceSeries.builder("ETH");
+        for (int i = 0; i < 500; i++) {
+            builder.add(i * 1000L, random.nextInt(1000), 2);
+        }
+        PriceSeries series = builder.build();
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+        List<PriceSeries> changes = List.of(
+                // overlapping the series from its third block on
+                randomSeries(random, 300_500L, 300, 2),
+                // appended to the last block
+                randomSeries(random, 500_000L, 10, 2),
+                // appended after full blocks
+                randomSeries(random, 600_000L, 140, 2),
+                // of a higher scale
+                randomSeries(random, 100_500L, 5, 4)
+        );
+
+        for (PriceSeries change : changes) {
+            // WHEN
+            CompressedPriceSeries merged = compressed.merge(change);
+
+            // THEN
+            series = series.merge(change);
+            assertSameDataPoints(series, merged.toSeries());
+            assertEquals(serialized(CompressedPriceSeries.of(series)), serialized(merged));
+            assertEquals(CompressedPriceSeries.of(series).stats(0, 250_000L), merged.stats(0, 250_000L));
+            compressed = merged;
+        }
+    }
+
+    @Test
+    @DisplayName("Should read back the written compressed series")
+    void writeTo_readFrom_roundTrip() {
+        // GIVEN
+        PriceSeries series = PriceSeries.builder("XRP")
+                .add(1640995200000L, 8298, 4)
+                .add(1641002400000L, 8301, 4)
+                .add(1641009600000L, 8276, 4)
+                .build();
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+        ByteBuffer buffer = ByteBuffer.allocate((int) compressed.serializedSize());
+
+        // WHEN
+        compressed.writeTo(buffer);
+        CompressedPriceSeries read = CompressedPriceSeries.readFrom(buffer.flip());
+
+        // THEN
+        assertFalse(buffer.hasRemaining());
+        assertSameDataPoints(series, read.toSeries());
+        assertEquals("XRP", read.symbol());
+        assertEquals(4, read.scale());
+    }
+
+    @Test
+    @DisplayName("Should reject a compressed series whose blocks don't match its size")
+    void readFrom_rejectsInconsistentBlocks() {
+        // GIVEN: a series of 3 data points claiming to hold 200
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(PriceSeries.builder("XRP")
+                .add(1000L, 1, 0)
+                .add(2000L, 2, 0)
+                .add(3000L, 3, 0)
+                .build());
+        ByteBuffer buffer = ByteBuffer.allocate((int) compressed.serializedSize());
+        compressed.writeTo(buffer);
+        buffer.putInt(Integer.BYTES + 3 + Integer.BYTES, 200);
+
+        // WHEN / THEN
+        assertThrows(IllegalArgumentException.class, () -> CompressedPriceSeries.readFrom(buffer.flip()));
+    }
+
+    @Test
+    @DisplayName("Should take less than 3.5 bytes per data point of regular ticks, including the range index")
+    void of_takesFewBytesPerDataPoint_ofRegularTicks() {
+        // GIVEN: 5 minute ticks moving by at most 10.00
+        Random random = new Random(42);
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        long price = 4_000_000;
+        for (int i = 0; i < 100_000; i++) {
+            price += random.nextInt(2001) - 1000;
+            builder.add(1640995200000L + i * 300_000L, price, 2);
+        }
+        PriceSeries series = builder.build();
+
+        // WHEN
+        CompressedPriceSeries compressed = CompressedPriceSeries.of(series);
+
+        // THEN: 1 bit for the timestamp and 19 bits for the price, instead of 16 bytes, and the block headers
+        assertTrue(compressed.sizeInBytes() < 3.5 * series.size(), compressed.sizeInBytes() + " bytes");
+    }
+
+    private static void assertSameDataPoints(PriceSeries expected, PriceSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.scale(), actual.scale());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timestamp(i), actual.timestamp(i), "timestamp " + i);
+            assertEquals(expected.unscaledPrice(i), actual.unscaledPrice(i), "price " + i);
+        }
+    }
+
+    private static PriceSeries randomSeries(Random random, long start, int size, int scale) {
+        PriceSeries.Builder builder = PriceSeries.builder("ETH");
+        for (int i = 0; i < size; i++) {
+            builder.add(start + i * 1000L, random.nextInt(1000), scale);
+        }
+        return builder.build();
+    }
+
+    private static ByteBuffer serialized(CompressedPriceSeries compressed) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) compressed.serializedSize());
+        compressed.writeTo(buffer);
+        return buffer.flip();
+    }
+
+    private static int scanExtremum(PriceSeries series, int from, int to, boolean highest) {
+        int result = from;
+        for (int i = from + 1; i < to; i++) {
+            long price = series.unscaledPrice(i);
+            if (highest ? price > series.unscaledPrice(result) : price < series.unscaledPrice(result)) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private static Optional<PriceRange> scanPriceRange(PriceSeries series, int from, int to) {
+        if (from >= to) {
+            return Optional.empty();
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, series.unscaledPrice(i));
+            max = Math.max(max, series.unscaledPrice(i));
+        }
+        return Optional.of(new PriceRange(series.symbol(), min, max, series.scale()));
+    }
+}
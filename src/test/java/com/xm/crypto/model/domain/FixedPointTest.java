@@ -0,0 +1,54 @@
+package com.xm.crypto.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link FixedPoint}.
+ */
+class FixedPointTest {
+
+    @Test
+    void normalizedRange_matchesBigDecimalDivision() {
+        // GIVEN
+        Random random = new Random(42);
+        long[][] ranges = new long[10_000][];
+        for (int i = 0; i < ranges.length; i++) {
+            // mins of every magnitude, including ones where (max - min) * 10^8 no longer fits into a long
+            long min = 1 + random.nextLong(1L << (1 + random.nextInt(60)));
+            long max = min + random.nextLong(Math.min(min, Long.MAX_VALUE / 4) * 4);
+            ranges[i] = new long[]{min, max};
+        }
+
+        for (long[] range : ranges) {
+            // WHEN
+            long normalizedRange = FixedPoint.normalizedRange(range[0], range[1]);
+
+            // THEN
+            assertEquals(bigDecimalNormalizedRange(range[0], range[1]), normalizedRange, range[0] + ", " + range[1]);
+        }
+    }
+
+    @Test
+    void normalizedRange_roundsHalfUp() {
+        // (3 - 2) / 2 = 0.5 and (5 - 3) / 3 = 0.666666666..., in units of 1e-8
+        assertEquals(50_000_000L, FixedPoint.normalizedRange(2, 3));
+        assertEquals(66_666_667L, FixedPoint.normalizedRange(3, 5));
+        assertEquals(0L, FixedPoint.normalizedRange(7, 7));
+        assertEquals(200_000_000L, FixedPoint.normalizedRange(1_000_000_000_000_000L, 3_000_000_000_000_000L));
+    }
+
+    private static long bigDecimalNormalizedRange(long min, long max) {
+        BigDecimal minPrice = BigDecimal.valueOf(min, 4);
+        BigDecimal maxPrice = BigDecimal.valueOf(max, 4);
+        return maxPrice.subtract(minPrice)
+                .divide(minPrice, FixedPoint.NORMALIZED_RANGE_SCALE, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+}
@@ -0,0 +1,131 @@
+package com.xm.crypto.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link PriceRollup} and {@link CandleRollups}.
+ */
+class PriceRollupTest {
+    private static final long JAN_01_2022 = 1640995200000L;
+
+    @Test
+    void of_buildsTheSameRollupFromAFinerRollup_asFromTheSeries() {
+        // GIVEN
+        CompressedPriceSeries series = CompressedPriceSeries.of(randomSeries(new Random(42), JAN_01_2022, 5_000));
+        PriceRollup minutes = PriceRollup.of(series, CandleInterval.ONE_MINUTE.millis());
+
+        // WHEN
+        PriceRollup hours = PriceRollup.of(minutes, CandleInterval.ONE_HOUR.millis());
+
+        // THEN
+        assertSameRollup(PriceRollup.of(series, CandleInterval.ONE_HOUR.millis()), hours);
+    }
+
+    @Test
+    void of_buildsTheSameRollupFromACompressedFinerRollup_asFromTheSeries() {
+        // GIVEN
+        CompressedPriceSeries series = CompressedPriceSeries.of(randomSeries(new Random(42), JAN_01_2022, 5_000));
+        CompressedPriceRollup fiveMinutes = CompressedPriceRollup.of(series, CandleInterval.FIVE_MINUTES.millis());
+
+        // WHEN
+        PriceRollup hours = PriceRollup.of(fiveMinutes, CandleInterval.ONE_HOUR.millis());
+
+        // THEN
+        assertSameRollup(PriceRollup.of(series, CandleInterval.ONE_HOUR.millis()), hours);
+    }
+
+    @Test
+    void update_matchesRebuiltCandles_afterDataPointsWereMerged() {
+        // GIVEN
+        Random random = new Random(7);
+        CompressedPriceSeries series = CompressedPriceSeries.of(randomSeries(random, JAN_01_2022, 5_000));
+        CandleRollups candles = CandleRollups.of(series);
+        long changedFrom = series.timestamp(3_000) + 1;
+        CompressedPriceSeries merged = series.merge(randomSeries(random, changedFrom, 2_000));
+
+        // WHEN
+        CandleRollups updated = candles.update(merged, changedFrom);
+
+        // THEN
+        CandleRollups rebuilt = CandleRollups.of(merged);
+        for (CandleInterval interval : CandleInterval.values()) {
+            assertSameRollup(
+                    rebuilt.get(interval, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE),
+                    updated.get(interval, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE)
+            );
+        }
+        assertEquals(merged.size(), sumOfCounts(updated.get(CandleInterval.ONE_DAY)));
+    }
+
+    @Test
+    void get_decodesCandlesShorterThanAnHour_withinTheTimeRange() {
+        // GIVEN
+        CompressedPriceSeries series = CompressedPriceSeries.of(randomSeries(new Random(11), JAN_01_2022, 5_000));
+        CandleRollups candles = CandleRollups.of(series);
+        long startMillis = JAN_01_2022 + CandleInterval.ONE_HOUR.millis();
+        long endMillis = JAN_01_2022 + CandleInterval.ONE_DAY.millis();
+
+        for (CandleInterval interval : List.of(CandleInterval.ONE_MINUTE, CandleInterval.FIVE_MINUTES)) {
+            // WHEN
+            PriceRollup all = candles.get(interval, startMillis, endMillis, Integer.MAX_VALUE);
+            PriceRollup limited = candles.get(interval, startMillis, endMillis, 10);
+
+            // THEN
+            PriceRollup expected = PriceRollup.of(series, interval.millis());
+            int from = expected.lowerBound(startMillis);
+            assertEquals(expected.lowerBound(endMillis) - from, all.size(), interval.code());
+            assertEquals(10, limited.size(), interval.code());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(expected.bucketStart(from + i), all.bucketStart(i), "start of bucket " + i);
+                assertEquals(expected.unscaledFirst(from + i), all.unscaledFirst(i), "open of bucket " + i);
+                assertEquals(expected.unscaledMax(from + i), all.unscaledMax(i), "high of bucket " + i);
+                assertEquals(expected.unscaledMin(from + i), all.unscaledMin(i), "low of bucket " + i);
+                assertEquals(expected.unscaledLast(from + i), all.unscaledLast(i), "close of bucket " + i);
+                assertEquals(expected.count(from + i), all.count(i), "count of bucket " + i);
+            }
+            assertEquals(all.bucketStart(9), limited.bucketStart(9));
+            assertEquals(all.count(9), limited.count(9));
+        }
+        assertThrows(IllegalArgumentException.class, () -> candles.get(CandleInterval.ONE_MINUTE));
+    }
+
+    /**
+     * Returns a series with a data point every 0 to 60 seconds.
+     */
+    private static PriceSeries randomSeries(Random random, long start, int size) {
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        long timestamp = start;
+        for (int i = 0; i < size; i++) {
+            builder.add(timestamp, 4_000_000 + random.nextInt(100_000), 2);
+            timestamp += random.nextInt(60_000);
+        }
+        return builder.build();
+    }
+
+    private static void assertSameRollup(PriceRollup expected, PriceRollup actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.bucketMillis(), actual.bucketMillis());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.bucketStart(i), actual.bucketStart(i), "start of bucket " + i);
+            assertEquals(expected.unscaledFirst(i), actual.unscaledFirst(i), "open of bucket " + i);
+            assertEquals(expected.unscaledMax(i), actual.unscaledMax(i), "high of bucket " + i);
+            assertEquals(expected.unscaledMin(i), actual.unscaledMin(i), "low of bucket " + i);
+            assertEquals(expected.unscaledLast(i), actual.unscaledLast(i), "close of bucket " + i);
+            assertEquals(expected.count(i), actual.count(i), "count of bucket " + i);
+        }
+    }
+
+    private static long sumOfCounts(PriceRollup rollup) {
+        long sum = 0;
+        for (int i = 0; i < rollup.size(); i++) {
+            sum += rollup.count(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,86 @@
+package com.xm.crypto.model.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RangeExtremaIndex}.
+ */
+class RangeExtremaIndexTest {
+
+    @Test
+    @DisplayName("Should return the block of the lowest and highest price of any block range like a linear scan")
+    void blockOfMinAndMax_matchLinearScan_forAllRanges() {
+        // GIVEN: a small value range produces plenty of equal prices to check the tie-breaking
+        Random random = new Random(42);
+        long[] minPrices = randomPrices(random, 100, 20);
+        long[] maxPrices = randomPrices(random, 100, 20);
+
+        // WHEN
+        RangeExtremaIndex index = RangeExtremaIndex.of(minPrices, maxPrices);
+
+        // THEN
+        for (int from = 0; from < minPrices.length; from++) {
+            for (int to = from + 1; to <= minPrices.length; to++) {
+                String range = "[" + from + ", " + to + ")";
+                assertEquals(scanExtremum(minPrices, from, to, false), index.blockOfMin(from, to), "min of " + range);
+                assertEquals(scanExtremum(maxPrices, from, to, true), index.blockOfMax(from, to), "max of " + range);
+            }
+        }
+        assertTrue(index.sizeInBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Should update the index like rebuilding it after the last blocks changed")
+    void update_matchesRebuiltIndex_afterBlocksChanged() {
+        // GIVEN
+        Random random = new Random(7);
+        long[] minPrices = randomPrices(random, 70, 1000);
+        long[] maxPrices = randomPrices(random, 70, 1000);
+        RangeExtremaIndex index = RangeExtremaIndex.of(minPrices, maxPrices);
+        long[] changedMinPrices = Arrays.copyOf(minPrices, 90);
+        long[] changedMaxPrices = Arrays.copyOf(maxPrices, 90);
+        for (int block = 40; block < 90; block++) {
+            changedMinPrices[block] = random.nextInt(1000);
+            changedMaxPrices[block] = random.nextInt(1000);
+        }
+
+        // WHEN
+        RangeExtremaIndex updated = index.update(changedMinPrices, changedMaxPrices, 40);
+
+        // THEN
+        RangeExtremaIndex rebuilt = RangeExtremaIndex.of(changedMinPrices, changedMaxPrices);
+        for (int from = 0; from < changedMinPrices.length; from++) {
+            for (int to = from + 1; to <= changedMinPrices.length; to++) {
+                String range = "[" + from + ", " + to + ")";
+                assertEquals(rebuilt.blockOfMin(from, to), updated.blockOfMin(from, to), "min of " + range);
+                assertEquals(rebuilt.blockOfMax(from, to), updated.blockOfMax(from, to), "max of " + range);
+            }
+        }
+        assertEquals(rebuilt.sizeInBytes(), updated.sizeInBytes());
+    }
+
+    private static long[] randomPrices(Random random, int blocks, int bound) {
+        long[] prices = new long[blocks];
+        for (int block = 0; block < blocks; block++) {
+            prices[block] = random.nextInt(bound);
+        }
+        return prices;
+    }
+
+    private static int scanExtremum(long[] prices, int from, int to, boolean highest) {
+        int result = from;
+        for (int block = from + 1; block < to; block++) {
+            if (highest ? prices[block] > prices[result] : prices[block] < prices[result]) {
+                result = block;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package com.xm.crypto.parser;
+
+import com.xm.crypto.model.domain.PriceSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link MappedPriceCsvParser}.
+ */
+class MappedPriceCsvParserTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void parse_readsRowsAcrossWindows_andHandsOverBatchesPerSymbol() throws IOException {
+        // GIVEN
+        // a window of 32 bytes cuts most rows, CRLF line breaks and the missing final line break are handled too
+        Path file = write("timestamp,symbol,price\r\n"
+                + "1641009600000,btc,46813.21\r\n"
+                + "1641020400000,BTC,46979.6\r\n"
+                + "\r\n"
+                + "1641009600000,ETH,3715\r\n"
+                + "1641020400000,BTC,0.000000001");
+        MappedPriceCsvParser parser = new MappedPriceCsvParser(32);
+        List<List<PriceSeries>> batches = new ArrayList<>();
+
+        // WHEN
+        ParseResult result = parser.parse(file, 3, batches::add);
+
+        // THEN
+        assertEquals(4, result.rows());
+        assertEquals(Files.size(file), result.endOffset());
+        assertEquals(2, batches.size());
+        PriceSeries firstBtc = batches.get(0).get(0);
+        assertEquals("BTC", firstBtc.symbol());
+        assertEquals(2, firstBtc.size());
+        assertEquals(1641009600000L, firstBtc.timestamp(0));
+        assertEquals(new BigDecimal("46813.21"), firstBtc.price(0));
+        assertEquals(new BigDecimal("46979.60"), firstBtc.price(1));
+        PriceSeries eth = batches.get(0).get(1);
+        assertEquals("ETH", eth.symbol());
+        assertEquals(new BigDecimal("3715"), eth.price(0));
+        PriceSeries secondBtc = batches.get(1).get(0);
+        assertEquals("BTC", secondBtc.symbol());
+        assertEquals(new BigDecimal("0.000000001"), secondBtc.price(0));
+    }
+
+    @Test
+    void parseAppended_readsRowsAfterOffset_andLeavesUnterminatedRow() throws IOException {
+        // GIVEN
+        Path file = write("""
+                timestamp,symbol,price
+                1641009600000,BTC,46813.21
+                """);
+        MappedPriceCsvParser parser = new MappedPriceCsvParser();
+        long loadedOffset = parser.parse(file, 100, batch -> {
+        }).endOffset();
+        Files.writeString(file, "1641020400000,BTC,46979.61\n1641031200000,BTC,471", StandardOpenOption.APPEND);
+        List<List<PriceSeries>> batches = new ArrayList<>();
+
+        // WHEN
+        ParseResult appended = parser.parseAppended(file, loadedOffset, 100, batches::add);
+        Files.writeString(file, "43.98\n", StandardOpenOption.APPEND);
+        ParseResult completed = parser.parseAppended(file, appended.endOffset(), 100, batches::add);
+
+        // THEN
+        assertEquals(1, appended.rows());
+        assertEquals(1, completed.rows());
+        assertEquals(Files.size(file), completed.endOffset());
+        assertEquals(1641020400000L, batches.get(0).get(0).timestamp(0));
+        assertEquals(new BigDecimal("47143.98"), batches.get(1).get(0).price(0));
+    }
+
+    @Test
+    void supports_acceptsOnlyTheStandardHeader() throws IOException {
+        assertTrue(new MappedPriceCsvParser().supports(write("timestamp,symbol,price\n")));
+        assertTrue(new MappedPriceCsvParser().supports(write("timestamp,symbol,price")));
+        assertFalse(new MappedPriceCsvParser().supports(write("symbol,timestamp,price\n")));
+        assertFalse(new MappedPriceCsvParser().supports(write("timestamp,symbol,price,volume\n")));
+    }
+
+    @Test
+    void parse_throwsException_withLineOfInvalidRow() throws IOException {
+        // GIVEN
+        Path file = write("""
+                timestamp,symbol,price
+                1641009600000,BTC,46813.21
+                1641020400000,BTC,4.7E4
+                """);
+
+        // WHEN
+        IOException exception = assertThrows(
+                IOException.class,
+                () -> new MappedPriceCsvParser().parse(file, 100, batch -> {
+                })
+        );
+
+        // THEN
+        assertEquals("Invalid price at line 3 of " + file.getFileName(), exception.getMessage());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(dir, "prices", ".csv");
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,117 @@
+package com.xm.crypto.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with {@code EXPLAIN} that every query of {@link CryptoRepository} is answered through an index of the schema
+ * created by the Flyway migrations, and never by a table scan, neither of the data points nor of the month partitions.
+ * The SQL executed by each repository method is captured with a {@link StatementInspector}.
+ */
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices",
+                "crypto.store.type=jpa",
+                "spring.datasource.url=jdbc:h2:mem:query-plan-test",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + "com.xm.crypto.repository.CryptoRepositoryQueryPlanTest$CapturingStatementInspector"
+        }
+)
+class CryptoRepositoryQueryPlanTest {
+    private static final String PRIMARY_KEY = "PUBLIC.PRIMARY_KEY";
+    private static final String SYMBOL_TIMESTAMP_INDEX = "PUBLIC.CRYPTO_VALUES_SYMBOL_TIMESTAMP_IDX";
+    private static final String PARTITION_SYMBOL_MONTH_INDEX = "PUBLIC.CRYPTO_VALUE_PARTITIONS_SYMBOL_MONTH_IDX";
+
+    @Autowired
+    private CryptoRepository cryptoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should answer every repository query through an index instead of a table scan")
+    void everyQuery_usesIndex() {
+        // GIVEN
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("existsByIdSymbolAndIdTimestampBetween",
+                () -> cryptoRepository.existsByIdSymbolAndIdTimestampBetween("BTC", 0, Long.MAX_VALUE));
+        queries.put("findAllSymbols", () -> cryptoRepository.findAllSymbols());
+        queries.put("findPriceRangesGroupedBySymbol", () -> cryptoRepository.findPriceRangesGroupedBySymbol());
+        queries.put("findPriceRangesGroupedBySymbolAndTimeRange",
+                () -> cryptoRepository.findPriceRangesGroupedBySymbolAndTimeRange(0, Long.MAX_VALUE, 1, 2));
+        queries.put("findStatsBySymbolsAndTimeRange",
+                () -> cryptoRepository.findStatsBySymbolsAndTimeRange(List.of("BTC"), 0, Long.MAX_VALUE, 1, 2));
+        queries.put("findStatsByTimeRange", () -> cryptoRepository.findStatsByTimeRange(0, Long.MAX_VALUE, 1, 2));
+        queries.put("findTimestampAfter", () -> cryptoRepository.findTimestampAfter("BTC", 0, Long.MAX_VALUE, 10));
+        queries.put("findCandles", () -> cryptoRepository.findCandles("BTC", 3_600_000, 0, Long.MAX_VALUE, 10));
+        queries.put("findDailyPriceRanges", () -> cryptoRepository.findDailyPriceRanges(0, Long.MAX_VALUE));
+
+        // the time range queries read the month partitions and the data points, each with its own index
+        Map<String, List<String>> expectedIndexes = Map.of(
+                "existsByIdSymbolAndIdTimestampBetween", List.of(SYMBOL_TIMESTAMP_INDEX),
+                "findAllSymbols", List.of(PRIMARY_KEY),
+                "findPriceRangesGroupedBySymbol", List.of(PARTITION_SYMBOL_MONTH_INDEX),
+                "findPriceRangesGroupedBySymbolAndTimeRange", List.of(PRIMARY_KEY),
+                "findStatsBySymbolsAndTimeRange", List.of(PARTITION_SYMBOL_MONTH_INDEX, SYMBOL_TIMESTAMP_INDEX),
+                "findStatsByTimeRange", List.of(PRIMARY_KEY),
+                "findTimestampAfter", List.of(SYMBOL_TIMESTAMP_INDEX),
+                "findCandles", List.of(SYMBOL_TIMESTAMP_INDEX),
+                "findDailyPriceRanges", List.of(PRIMARY_KEY)
+        );
+
+        // WHEN
+        Map<String, List<String>> plans = new LinkedHashMap<>();
+        queries.forEach((method, query) -> {
+            CapturingStatementInspector.STATEMENTS.clear();
+            query.run();
+            plans.put(method, CapturingStatementInspector.STATEMENTS.stream()
+                    .map(sql -> jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class))
+                    .toList());
+        });
+
+        // THEN
+        assertEquals(
+                Arrays.stream(CryptoRepository.class.getDeclaredMethods())
+                        .map(Method::getName)
+                        .collect(Collectors.toSet()),
+                plans.keySet(),
+                "Every query method of the repository has to be checked"
+        );
+        plans.forEach((method, methodPlans) -> {
+            assertEquals(1, methodPlans.size(), method);
+            String plan = methodPlans.getFirst();
+            assertFalse(plan.contains("tableScan"), method + " scans the table:\n" + plan);
+            expectedIndexes.get(method).forEach(index ->
+                    assertTrue(plan.contains("/* " + index), method + " does not use " + index + ":\n" + plan));
+        });
+    }
+
+    /**
+     * Records the SQL of the statements prepared by Hibernate.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.cache.RankingResponseCache;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.model.domain.TimeRange;
+import com.xm.crypto.model.dto.CryptoStatsDto;
+import com.xm.crypto.model.dto.DailyNormalizedCryptosDto;
+import com.xm.crypto.service.CryptoStatsService;
+import com.xm.crypto.service.NormalizedRangeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the ranking, daily ranking, batch stats and candle endpoints are answered by a single query on the JPA store,
+ * independently of the number of cryptos, or from the response cache without any query.
+ */
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices",
+                "crypto.store.type=jpa",
+                "spring.jpa.properties.hibernate.generate_statistics=true"
+        }
+)
+@AutoConfigureMockMvc
+class CryptoRepositoryStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private NormalizedRangeService normalizedRangeService;
+
+    @Autowired
+    private CryptoStatsService cryptoStatsService;
+
+    @Autowired
+    private CryptoPriceStore cryptoPriceStore;
+
+    @Autowired
+    private RankingResponseCache rankingResponseCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        rankingResponseCache.awaitRebuild();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Should list cryptos by normalized range with a single statement")
+    void listByNormalizedRange_executesSingleStatement() {
+        assertEquals(2, normalizedRangeService.listByNormalizedRange().size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should list cryptos by normalized range from the cache warmed after the load without any statement")
+    void listByNormalizedRange_isServedFromCacheWarmedAfterLoad() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.normalizedCryptos.length()").value(2));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should list cryptos by normalized range within a time range with a single statement")
+    void listByNormalizedRangeWithinTimeRange_executesSingleStatement() throws Exception {
+        mockMvc.perform(get("/cryptos/list-by-normalized-range")
+                        .param("from", "2022-01-01T00:00:00")
+                        .param("to", "2022-01-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.normalizedCryptos.length()").value(2));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should return the highest normalized range of a day with a single statement")
+    void getHighestNormalizedRange_executesSingleStatement() throws Exception {
+        mockMvc.perform(get("/cryptos/highest-normalized-range")
+                        .param("date", "2022-01-01")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.highestNormalizedRangeCrypto.symbol").exists());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should return the stats of many cryptos with a single statement, equal to the stats of each crypto")
+    void getStatsOfManySymbols_executesSingleStatement() {
+        TimeRange timeRange = TimeRange.of(LocalDateTime.of(2022, 1, 1, 0, 0), LocalDateTime.of(2022, 1, 15, 0, 0));
+
+        Map<String, CryptoStatsDto> stats = cryptoStatsService.getStats(List.of("BTC", "ETH", "UNKNOWN"), timeRange);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(List.of("BTC", "ETH"), List.copyOf(stats.keySet()));
+        assertEquals(cryptoStatsService.getStats("BTC", timeRange), stats.get("BTC"));
+        assertEquals(cryptoStatsService.getStats("ETH", timeRange), stats.get("ETH"));
+        assertEquals(cryptoStatsService.getStats("ETH"), cryptoStatsService.getAllStats(TimeRange.of(null, null)).get("ETH"));
+    }
+
+    @Test
+    @DisplayName("Should export the values of a crypto page by page with two repository queries per page")
+    void exportPages_executesTwoQueriesPerPage() throws Exception {
+        List<Long> timestamps = new ArrayList<>();
+        long startMillis = Long.MIN_VALUE;
+        int pages = 0;
+        PricePage page;
+        do {
+            page = cryptoPriceStore.findPage("BTC", startMillis, Long.MAX_VALUE, 40).orElseThrow();
+            cryptoPriceStore.forEachPrice("BTC", page.startMillis(), page.endMillis(),
+                    (timestamp, unscaledPrice, scale) -> timestamps.add(timestamp));
+            startMillis = page.endMillis();
+            pages++;
+        } while (page.hasNext());
+
+        assertEquals(3, pages);
+        assertEquals(99, timestamps.size());
+        assertEquals(timestamps.stream().sorted().distinct().toList(), timestamps);
+        // the page bounds are two repository queries, the rows are streamed through JDBC
+        assertEquals(2L * pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should aggregate the candles of a crypto with a single statement, equal to the in-memory candles")
+    void findCandles_executesSingleStatement_andMatchesInMemoryCandles() throws Exception {
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        cryptoPriceStore.forEachPrice("BTC", Long.MIN_VALUE, Long.MAX_VALUE, builder::add);
+        InMemoryCryptoPriceStore inMemoryStore = new InMemoryCryptoPriceStore();
+        inMemoryStore.saveAll(builder.build());
+        statistics.clear();
+
+        for (CandleInterval interval : CandleInterval.values()) {
+            assertEquals(
+                    inMemoryStore.findCandles("BTC", interval, 0, Long.MAX_VALUE, 50),
+                    cryptoPriceStore.findCandles("BTC", interval, 0, Long.MAX_VALUE, 50),
+                    interval.code()
+            );
+        }
+        assertEquals(CandleInterval.values().length, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should return the highest normalized range of each day with a single statement, equal to the single days")
+    void getHighestNormalizedRanges_executesSingleStatement_andMatchesSingleDays() {
+        LocalDate from = LocalDate.of(2022, 1, 1);
+
+        List<DailyNormalizedCryptosDto> days = normalizedRangeService.getHighestNormalizedRanges(from, from.plusDays(31), 1);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(31, days.size());
+        for (DailyNormalizedCryptosDto day : days) {
+            assertEquals(List.of(normalizedRangeService.getHighestNormalizedRange(day.date())), day.normalizedCryptos());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.model.domain.Crypto;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.DailyPriceRange;
+import com.xm.crypto.model.domain.PricePage;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.domain.PriceSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link InMemoryCryptoPriceStore}.
+ */
+class InMemoryCryptoPriceStoreTest {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final long JAN_01_2022 = 1640995200000L;
+
+    private InMemoryCryptoPriceStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryCryptoPriceStore();
+    }
+
+    @Test
+    void findStats_returnsOldestNewestMinMaxAndCount_whenDataIsUnordered() {
+        // GIVEN
+        store.saveAll(PriceSeries.builder("BTC")
+                .add(JAN_01_2022 + 2 * DAY_MILLIS, new BigDecimal("47000.5"))
+                .add(JAN_01_2022, new BigDecimal("46000.25"))
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("48000"))
+                .build());
+
+        // WHEN
+        CryptoStats stats = store.findStats("BTC").orElseThrow();
+
+        // THEN
+        Crypto oldest = stats.oldest();
+        Crypto newest = stats.newest();
+        Crypto min = stats.min();
+        Crypto max = stats.max();
+        assertEquals(LocalDateTime.of(2022, 1, 1, 0, 0), oldest.timestamp());
+        assertEquals(new BigDecimal("46000.25"), oldest.price());
+        assertEquals(LocalDateTime.of(2022, 1, 3, 0, 0), newest.timestamp());
+        assertEquals(new BigDecimal("47000.50"), newest.price());
+        assertEquals(new BigDecimal("46000.25"), min.price());
+        assertEquals(new BigDecimal("48000.00"), max.price());
+        assertEquals(LocalDateTime.of(2022, 1, 2, 0, 0), max.timestamp());
+        assertEquals(3, stats.count());
+        assertEquals(3, store.count());
+    }
+
+    @Test
+    void saveAll_mergesSeries_andOverwritesEqualTimestamps() {
+        // GIVEN
+        store.saveAll(PriceSeries.builder("ETH")
+                .add(JAN_01_2022, new BigDecimal("3000"))
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("3100"))
+                .build());
+
+        // WHEN
+        store.saveAll(PriceSeries.builder("ETH")
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("2900.5"))
+                .add(JAN_01_2022 + 2 * DAY_MILLIS, new BigDecimal("3200"))
+                .build());
+
+        // THEN
+        assertEquals(3, store.count());
+        CryptoStats stats = store.findStats("ETH").orElseThrow();
+        assertEquals(new BigDecimal("2900.5"), stats.min().price());
+        assertEquals(new BigDecimal("3200.0"), stats.newest().price());
+        assertEquals(
+                List.of(new PriceRange("ETH", new BigDecimal("2900.5"), new BigDecimal("3200.0"))),
+                store.findPriceRanges()
+        );
+    }
+
+    @Test
+    void saveAll_returnsWhetherTheStoreChanged() {
+        // GIVEN
+        PriceSeries series = PriceSeries.builder("ETH")
+                .add(JAN_01_2022, new BigDecimal("3000"))
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("3100"))
+                .build();
+
+        // WHEN
+        boolean first = store.saveAll(series);
+        boolean again = store.saveAll(series);
+        boolean stored = store.saveAll(PriceSeries.builder("ETH")
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("3100"))
+                .build());
+        boolean overwritten = store.saveAll(PriceSeries.builder("ETH")
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("3100.5"))
+                .build());
+
+        // THEN
+        assertTrue(first);
+        assertFalse(again);
+        assertFalse(stored);
+        assertTrue(overwritten);
+        assertEquals(2, store.count());
+    }
+
+    @Test
+    void replaceAll_replacesTheDataPointsOfTheSymbol_andKeepsOtherSymbols() {
+        // GIVEN
+        store.saveAll(List.of(
+                PriceSeries.builder("ETH")
+                        .add(JAN_01_2022, new BigDecimal("3000"))
+                        .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("3100"))
+                        .build(),
+                PriceSeries.builder("BTC")
+                        .add(JAN_01_2022, new BigDecimal("46000"))
+                        .build()
+        ));
+        PriceSeries replacement = PriceSeries.builder("ETH")
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("2900"))
+                .build();
+
+        // WHEN
+        boolean replaced = store.replaceAll(List.of(replacement));
+        boolean again = store.replaceAll(List.of(replacement));
+
+        // THEN
+        assertTrue(replaced);
+        assertFalse(again);
+        assertEquals(2, store.count());
+        CryptoStats stats = store.findStats("ETH").orElseThrow();
+        assertEquals(1, stats.count());
+        assertEquals(new BigDecimal("2900"), stats.max().price());
+        assertEquals(1, store.findStats("BTC").orElseThrow().count());
+    }
+
+    @Test
+    void findStats_returnsStatsOfTheRequestedSymbols_withoutTheSymbolsHavingNoData() {
+        // GIVEN
+        store.saveAll(List.of(
+                PriceSeries.builder("BTC")
+                        .add(JAN_01_2022, new BigDecimal("46000"))
+                        .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("47000"))
+                        .build(),
+                PriceSeries.builder("ETH")
+                        .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("3000"))
+                        .build(),
+                PriceSeries.builder("XRP")
+                        .add(JAN_01_2022, new BigDecimal("0.8"))
+                        .build()
+        ));
+
+        // WHEN
+        Map<String, CryptoStats> requested = store.findStats(List.of("BTC", "ETH", "UNKNOWN"), Long.MIN_VALUE, Long.MAX_VALUE);
+        Map<String, CryptoStats> firstDay = store.findAllStats(JAN_01_2022, JAN_01_2022 + DAY_MILLIS);
+
+        // THEN
+        assertEquals(Map.of("BTC", store.findStats("BTC").orElseThrow(), "ETH", store.findStats("ETH").orElseThrow()), requested);
+        assertEquals(2, firstDay.size());
+        assertEquals(1, firstDay.get("BTC").count());
+        assertEquals(new BigDecimal("46000"), firstDay.get("BTC").max().price());
+        assertEquals(new BigDecimal("0.8"), firstDay.get("XRP").min().price());
+    }
+
+    @Test
+    void findPage_endsAtTheFirstDataPointOfTheNextPage_andForEachPriceStreamsThePage() throws Exception {
+        // GIVEN
+        PriceSeries.Builder builder = PriceSeries.builder("BTC");
+        for (int i = 0; i < 10; i++) {
+            builder.add(JAN_01_2022 + i * DAY_MILLIS, BigDecimal.valueOf(46000 + i));
+        }
+        store.saveAll(builder.build());
+
+        // WHEN
+        PricePage firstPage = store.findPage("BTC", JAN_01_2022 + DAY_MILLIS, Long.MAX_VALUE, 4).orElseThrow();
+        PricePage lastPage = store.findPage("BTC", firstPage.endMillis(), Long.MAX_VALUE, 5).orElseThrow();
+        List<Long> firstPageTimestamps = new ArrayList<>();
+        store.forEachPrice("BTC", firstPage.startMillis(), firstPage.endMillis(),
+                (timestamp, unscaledPrice, scale) -> firstPageTimestamps.add(timestamp));
+
+        // THEN
+        assertEquals(new PricePage("BTC", JAN_01_2022 + DAY_MILLIS, JAN_01_2022 + 5 * DAY_MILLIS, true), firstPage);
+        assertEquals(new PricePage("BTC", JAN_01_2022 + 5 * DAY_MILLIS, Long.MAX_VALUE, false), lastPage);
+        assertEquals(List.of(JAN_01_2022 + DAY_MILLIS, JAN_01_2022 + 2 * DAY_MILLIS, JAN_01_2022 + 3 * DAY_MILLIS,
+                JAN_01_2022 + 4 * DAY_MILLIS), firstPageTimestamps);
+        assertTrue(store.findPage("BTC", JAN_01_2022 + 10 * DAY_MILLIS, Long.MAX_VALUE, 4).isEmpty());
+        assertTrue(store.findPage("UNKNOWN", Long.MIN_VALUE, Long.MAX_VALUE, 4).isEmpty());
+    }
+
+    @Test
+    void findPriceRanges_returnsRangesWithinTimeRange_andEmptyOutsideOfData() {
+        // GIVEN
+        store.saveAll(PriceSeries.builder("XRP")
+                .add(JAN_01_2022, new BigDecimal("0.8"))
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("0.9"))
+                .add(JAN_01_2022 + DAY_MILLIS + 1, new BigDecimal("0.7"))
+                .add(JAN_01_2022 + 2 * DAY_MILLIS, new BigDecimal("0.6"))
+                .build());
+        store.saveAll(PriceSeries.builder("DOGE")
+                .add(JAN_01_2022, new BigDecimal("0.17"))
+                .build());
+
+        // WHEN
+        List<PriceRange> secondDay = store.findPriceRanges(JAN_01_2022 + DAY_MILLIS, JAN_01_2022 + 2 * DAY_MILLIS);
+        List<PriceRange> noData = store.findPriceRanges(JAN_01_2022 + 3 * DAY_MILLIS, JAN_01_2022 + 4 * DAY_MILLIS);
+
+        // THEN
+        assertEquals(List.of(new PriceRange("XRP", new BigDecimal("0.7"), new BigDecimal("0.9"))), secondDay);
+        assertTrue(noData.isEmpty());
+        assertTrue(store.findStats("UNKNOWN").isEmpty());
+    }
+
+    @Test
+    void findDailyPriceRanges_returnsRollupOfTheDay_andKeepsItCurrentOnChanges() {
+        // GIVEN
+        LocalDate secondDay = LocalDate.of(2022, 1, 2);
+        store.saveAll(PriceSeries.builder("BTC")
+                .add(JAN_01_2022, new BigDecimal("100"))
+                .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("110"))
+                .add(JAN_01_2022 + DAY_MILLIS + 1, new BigDecimal("105"))
+                .add(JAN_01_2022 + 2 * DAY_MILLIS, new BigDecimal("120"))
+                .build());
+        store.saveAll(PriceSeries.builder("ETH")
+                .add(JAN_01_2022, new BigDecimal("10"))
+                .build());
+
+        // WHEN
+        List<PriceRange> beforeChange = store.findDailyPriceRanges(secondDay);
+        store.saveAll(PriceSeries.builder("BTC")
+                .add(JAN_01_2022 + DAY_MILLIS + 2, new BigDecimal("90"))
+                .build());
+        List<PriceRange> afterChange = store.findDailyPriceRanges(secondDay);
+
+        // THEN
+        assertEquals(List.of(new PriceRange("BTC", new BigDecimal("105"), new BigDecimal("110"))), beforeChange);
+        assertEquals(List.of(new PriceRange("BTC", new BigDecimal("90"), new BigDecimal("110"))), afterChange);
+        assertEquals(
+                List.of(new PriceRange("BTC", new BigDecimal("120"), new BigDecimal("120"))),
+                store.findDailyPriceRanges(LocalDate.of(2022, 1, 3))
+        );
+        assertTrue(store.findDailyPriceRanges(LocalDate.of(2022, 1, 4)).isEmpty());
+    }
+
+    @Test
+    void findDailyPriceRanges_returnsEachDayOfEachSymbolWithinTimeRange() {
+        // GIVEN
+        store.saveAll(List.of(
+                PriceSeries.builder("BTC")
+                        .add(JAN_01_2022, new BigDecimal("100"))
+                        .add(JAN_01_2022 + DAY_MILLIS, new BigDecimal("110"))
+                        .add(JAN_01_2022 + DAY_MILLIS + 1, new BigDecimal("105"))
+                        .add(JAN_01_2022 + 3 * DAY_MILLIS, new BigDecimal("120"))
+                        .build(),
+                PriceSeries.builder("ETH")
+                        .add(JAN_01_2022 + DAY_MILLIS - 1, new BigDecimal("10"))
+                        .add(JAN_01_2022 + 2 * DAY_MILLIS, new BigDecimal("12"))
+                        .build()
+        ));
+
+        // WHEN
+        List<DailyPriceRange> dailyPriceRanges = store.findDailyPriceRanges(JAN_01_2022, JAN_01_2022 + 3 * DAY_MILLIS);
+
+        // THEN
+        assertEquals(
+                Set.of(
+                        new DailyPriceRange(LocalDate.of(2022, 1, 1), new PriceRange("BTC", new BigDecimal("100"), new BigDecimal("100"))),
+                        new DailyPriceRange(LocalDate.of(2022, 1, 2), new PriceRange("BTC", new BigDecimal("105"), new BigDecimal("110"))),
+                        new DailyPriceRange(LocalDate.of(2022, 1, 1), new PriceRange("ETH", new BigDecimal("10"), new BigDecimal("10"))),
+                        new DailyPriceRange(LocalDate.of(2022, 1, 3), new PriceRange("ETH", new BigDecimal("12"), new BigDecimal("12")))
+                ),
+                Set.copyOf(dailyPriceRanges)
+        );
+        assertEquals(4, dailyPriceRanges.size());
+        assertTrue(store.findDailyPriceRanges(JAN_01_2022 + 4 * DAY_MILLIS, JAN_01_2022 + 5 * DAY_MILLIS).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.xm.crypto.repository;
+
+import com.xm.crypto.model.domain.TimeRange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link MonthPartitions}.
+ */
+class MonthPartitionsTest {
+
+    @Test
+    @DisplayName("Should return the UTC calendar month boundaries of a timestamp")
+    void monthStart_returnsCalendarMonth() {
+        assertEquals(millis("2022-02-01T00:00"), MonthPartitions.monthStart(millis("2022-02-28T23:59")));
+        assertEquals(millis("2022-02-01T00:00"), MonthPartitions.monthStart(millis("2022-02-01T00:00")));
+        assertEquals(millis("2022-03-01T00:00"), MonthPartitions.nextMonthStart(millis("2022-02-01T00:00")));
+        assertEquals(millis("1969-12-01T00:00"), MonthPartitions.monthStart(-1));
+    }
+
+    @Test
+    @DisplayName("Should cover only the months lying completely within the time range")
+    void coveredMonths_excludesPartialMonths() {
+        // GIVEN
+        long start = millis("2022-01-10T00:00");
+        long end = millis("2022-04-10T00:00");
+
+        // WHEN
+        TimeRange covered = MonthPartitions.coveredMonths(start, end);
+
+        // THEN
+        assertEquals(new TimeRange(millis("2022-02-01T00:00"), millis("2022-04-01T00:00")), covered);
+    }
+
+    @Test
+    @DisplayName("Should cover the months at the bounds of a time range aligned to months")
+    void coveredMonths_includesAlignedBounds() {
+        long start = millis("2022-01-01T00:00");
+        long end = millis("2022-03-01T00:00");
+
+        assertEquals(new TimeRange(start, end), MonthPartitions.coveredMonths(start, end));
+    }
+
+    @Test
+    @DisplayName("Should cover no month if the time range lies within a month or two partial ones")
+    void coveredMonths_isEmptyForShortRanges() {
+        long start = millis("2022-01-10T00:00");
+        long withinMonth = millis("2022-01-20T00:00");
+        long nextMonth = millis("2022-02-10T00:00");
+
+        assertEquals(new TimeRange(withinMonth, withinMonth), MonthPartitions.coveredMonths(start, withinMonth));
+        assertEquals(new TimeRange(nextMonth, nextMonth), MonthPartitions.coveredMonths(start, nextMonth));
+    }
+
+    @Test
+    @DisplayName("Should clamp the months of an unbounded time range to the range of epoch milliseconds")
+    void coveredMonths_clampsUnboundedRange() {
+        // WHEN
+        TimeRange covered = MonthPartitions.coveredMonths(Long.MIN_VALUE, Long.MAX_VALUE);
+
+        // THEN
+        assertEquals(Long.MIN_VALUE, covered.startMillis());
+        assertEquals(MonthPartitions.monthStart(Long.MAX_VALUE), covered.endMillis());
+        assertEquals(Long.MAX_VALUE, MonthPartitions.nextMonthStart(Long.MAX_VALUE));
+    }
+
+    private static long millis(String dateTime) {
+        return LocalDateTime.parse(dateTime).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -1,6 +1,6 @@
 package com.xm.crypto.service;
 
-import com.xm.crypto.repository.CryptoRepository;
+import com.xm.crypto.repository.CryptoPriceStore;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,19 +18,19 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 class CryptoDataLoaderServiceIntegrationTest {
 
     @Autowired
-    private CryptoRepository cryptoRepository;
+    private CryptoPriceStore cryptoPriceStore;
 
     @Test
-    @DisplayName("Should load crypto data from CSV files into the database on startup")
+    @DisplayName("Should load crypto data from CSV files into the price store on startup")
     void shouldLoadCryptoDataFromCsvFiles() {
         // WHEN: The Spring context loads, @PostConstruct triggers data loading
 
-        // THEN: Data should be present in the database
-        long count = cryptoRepository.count();
-        assertTrue(count > 0, "At least on crypto should be present in the database");
+        // THEN: Data should be present in the price store
+        long count = cryptoPriceStore.count();
+        assertTrue(count > 0, "At least on crypto should be present in the price store");
 
         // Check the existence of specific symbols
-        List<String> symbols = cryptoRepository.findAllSymbols();
+        List<String> symbols = cryptoPriceStore.findAllSymbols();
         assertTrue(symbols.contains("BTC"), "BTC symbol should be present");
         assertTrue(symbols.contains("ETH"), "ETH symbol should be present");
     }
@@ -0,0 +1,285 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.exception.CryptoDataLoadException;
+import com.xm.crypto.model.domain.CandleInterval;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.mapper.CryptoCsvDtoMapper;
+import com.xm.crypto.parser.JacksonPriceCsvParser;
+import com.xm.crypto.parser.MappedPriceCsvParser;
+import com.xm.crypto.parser.ParseResult;
+import com.xm.crypto.repository.InMemoryCryptoPriceStore;
+import com.xm.crypto.repository.PriceSnapshotFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CryptoDataLoaderServiceTest {
+
+    @TempDir
+    private Path pricesDir;
+
+    private InMemoryCryptoPriceStore cryptoPriceStore;
+    private DatasetVersionService datasetVersionService;
+    private SimpleMeterRegistry meterRegistry;
+    private CryptoDataLoaderService service;
+
+    @BeforeEach
+    void setUp() {
+        cryptoPriceStore = new InMemoryCryptoPriceStore();
+        datasetVersionService = new DatasetVersionService(event -> {});
+        meterRegistry = new SimpleMeterRegistry();
+        service = loader(cryptoPriceStore, datasetVersionService, meterRegistry);
+    }
+
+    @Test
+    void loadCryptoData_loadsAllFiles() throws IOException {
+        // GIVEN
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21", "1641020400000,BTC,46979.61");
+        writeCsv("ETH_values.csv", "1641009600000,ETH,3715.32");
+        writeCsv("XRP_values.csv", "1641009600000,XRP,0.8298");
+
+        // WHEN
+        service.loadCryptoData();
+
+        // THEN
+        assertEquals(4, cryptoPriceStore.count());
+        assertEquals(3, cryptoPriceStore.findAllSymbols().size());
+        assertTrue(datasetVersionService.current().version() > 0);
+    }
+
+    @Test
+    void loadCryptoData_recordsLoaderMetricsByParser() throws IOException {
+        // GIVEN
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21", "1641020400000,BTC,46979.61");
+        Files.writeString(pricesDir.resolve("DOGE_values.csv"), """
+                symbol,timestamp,price
+                DOGE,1641009600000,0.1702
+                """);
+
+        // WHEN
+        service.loadCryptoData();
+
+        // THEN
+        assertEquals(1, meterRegistry.get("crypto.loader.files").tag("parser", "mapped").counter().count());
+        assertEquals(1, meterRegistry.get("crypto.loader.files").tag("parser", "jackson").counter().count());
+        assertEquals(2, meterRegistry.get("crypto.loader.rows").tag("parser", "mapped").counter().count());
+        assertEquals(1, meterRegistry.get("crypto.loader.rows").tag("parser", "jackson").counter().count());
+        assertEquals(
+                Files.size(pricesDir.resolve("BTC_values.csv")),
+                meterRegistry.get("crypto.loader.bytes").tag("parser", "mapped").counter().count()
+        );
+        assertEquals(1, meterRegistry.get("crypto.loader.parse").tag("parser", "mapped").timer().count());
+        assertEquals(1, meterRegistry.get("crypto.loader.persist").tag("parser", "mapped").timer().count());
+        assertEquals(0, meterRegistry.get("crypto.loader.failures").counter().count());
+        assertTrue(meterRegistry.get("crypto.loader.rows.per.second").gauge().value() > 0);
+    }
+
+    @Test
+    void loadCryptoData_fallsBackToJackson_whenHeaderIsNonStandard() throws IOException {
+        // GIVEN
+        Files.writeString(pricesDir.resolve("DOGE_values.csv"), """
+                symbol,timestamp,price
+                DOGE,1641009600000,"0.1702"
+                DOGE,1641020400000,0.1722
+                """);
+
+        // WHEN
+        service.loadCryptoData();
+
+        // THEN
+        CryptoStats stats = cryptoPriceStore.findStats("DOGE").orElseThrow();
+        assertEquals(2, stats.count());
+        assertEquals(new BigDecimal("0.1722"), stats.max().price());
+    }
+
+    @Test
+    void loadAppendedRows_keepsTheDatasetVersion_whenAnUnchangedFileIsLoadedAgain() throws IOException {
+        // GIVEN
+        Path file = pricesDir.resolve("DOGE_values.csv");
+        Files.writeString(file, """
+                symbol,timestamp,price
+                DOGE,1641009600000,0.1702
+                DOGE,1641020400000,0.1722
+                """);
+        service.loadAppendedRows(file, 0);
+        long version = datasetVersionService.current().version();
+
+        // WHEN
+        service.loadAppendedRows(file, Files.size(file));
+
+        // THEN
+        assertEquals(version, datasetVersionService.current().version());
+        assertEquals(2, cryptoPriceStore.count());
+    }
+
+    @Test
+    void loadAppendedRows_replacesTheStoredDataPoints_whenTheFileIsLoadedFromTheStart() throws IOException {
+        // GIVEN
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21", "1641020400000,BTC,46979.61", "1641031200000,BTC,47143.98");
+        Path file = pricesDir.resolve("BTC_values.csv");
+        service.loadAppendedRows(file, 0);
+        long version = datasetVersionService.current().version();
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21", "1641020400000,BTC,46000.00");
+
+        // WHEN
+        ParseResult result = service.loadAppendedRows(file, 0);
+
+        // THEN
+        assertEquals(2, result.rows());
+        CryptoStats stats = cryptoPriceStore.findStats("BTC").orElseThrow();
+        assertEquals(2, stats.count());
+        assertEquals(new BigDecimal("46000.00"), stats.newest().price());
+        assertTrue(datasetVersionService.current().version() > version);
+    }
+
+    @Test
+    void loadCryptoData_savesRowsInBatches_andKeepsTheLastPriceOfEqualTimestamps() throws IOException {
+        // GIVEN
+        ReflectionTestUtils.setField(service, "loaderBatchSize", 2);
+        writeCsv(
+                "BTC_values.csv",
+                "1641020400000,BTC,46979.61",
+                "1641009600000,BTC,46813.21",
+                "1641031200000,BTC,47143.98",
+                "1641009600000,BTC,46000.00",
+                "1641042000000,BTC,46871.09"
+        );
+
+        // WHEN
+        service.loadCryptoData();
+
+        // THEN
+        assertEquals(4, cryptoPriceStore.count());
+        CryptoStats stats = cryptoPriceStore.findStats("BTC").orElseThrow();
+        assertEquals(new BigDecimal("46000.00"), stats.oldest().price());
+        assertEquals(new BigDecimal("46871.09"), stats.newest().price());
+    }
+
+    @Test
+    void loadCryptoData_attemptsAllFiles_andReportsEveryFailedFile() throws IOException {
+        // GIVEN
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21");
+        writeCsv("ETH_values.csv", "1641009600000,ETH,not-a-price");
+        writeCsv("XRP_values.csv", "yesterday,XRP,0.8298");
+
+        // WHEN
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> service.loadCryptoData());
+
+        // THEN
+        CryptoDataLoadException cause = assertInstanceOf(CryptoDataLoadException.class, exception.getCause());
+        assertTrue(cause.getMessage().startsWith("Failed to load 2 of 3 crypto CSV files"));
+        assertTrue(cause.getMessage().contains("ETH_values.csv"));
+        assertTrue(cause.getMessage().contains("XRP_values.csv"));
+        assertEquals(2, cause.getSuppressed().length);
+        assertEquals(2, meterRegistry.get("crypto.loader.failures").counter().count());
+        assertEquals(List.of("BTC"), cryptoPriceStore.findAllSymbols());
+        assertEquals(0, datasetVersionService.current().version());
+    }
+
+    @Test
+    void loadCryptoData_restoresSnapshot_whenCsvFilesAreUnchanged() throws IOException {
+        // GIVEN
+        Path snapshotFile = pricesDir.resolve("prices.snapshot");
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21", "1641020400000,BTC,46979.61", "1641031200000,BTC,47143.98");
+        writeCsv("ETH_values.csv", "1641009600000,ETH,3715.32");
+        ReflectionTestUtils.setField(service, "snapshotFile", snapshotFile.toString());
+        service.loadCryptoData();
+        InMemoryCryptoPriceStore restoredStore = new InMemoryCryptoPriceStore();
+        SimpleMeterRegistry restoredMeterRegistry = new SimpleMeterRegistry();
+        CryptoDataLoaderService restoredService = loader(restoredStore, datasetVersionService, restoredMeterRegistry);
+        ReflectionTestUtils.setField(restoredService, "snapshotFile", snapshotFile.toString());
+
+        // WHEN
+        restoredService.loadCryptoData();
+
+        // THEN
+        assertTrue(Files.exists(snapshotFile));
+        assertNull(restoredMeterRegistry.find("crypto.loader.files").counter());
+        assertEquals(1, restoredMeterRegistry.get("crypto.loader.snapshot").tag("operation", "restore").timer().count());
+        assertEquals(cryptoPriceStore.count(), restoredStore.count());
+        assertEquals(cryptoPriceStore.sizeInBytes(), restoredStore.sizeInBytes());
+        assertEquals(cryptoPriceStore.findStats("BTC"), restoredStore.findStats("BTC"));
+        assertEquals(
+                Set.copyOf(cryptoPriceStore.findPriceRanges(0, 1641025000000L)),
+                Set.copyOf(restoredStore.findPriceRanges(0, 1641025000000L))
+        );
+        for (CandleInterval interval : CandleInterval.values()) {
+            assertEquals(
+                    cryptoPriceStore.findCandles("BTC", interval, 0, Long.MAX_VALUE, 10),
+                    restoredStore.findCandles("BTC", interval, 0, Long.MAX_VALUE, 10)
+            );
+        }
+        assertEquals(service.getLoadedOffsets(), restoredService.getLoadedOffsets());
+    }
+
+    @Test
+    void loadCryptoData_loadsCsvFiles_whenSnapshotIsOutdatedOrCorrupt() throws IOException {
+        // GIVEN
+        Path snapshotFile = pricesDir.resolve("prices.snapshot");
+        writeCsv("BTC_values.csv", "1641009600000,BTC,46813.21");
+        ReflectionTestUtils.setField(service, "snapshotFile", snapshotFile.toString());
+        service.loadCryptoData();
+        Files.writeString(pricesDir.resolve("BTC_values.csv"), "1641020400000,BTC,46979.61\n", StandardOpenOption.APPEND);
+
+        // WHEN
+        InMemoryCryptoPriceStore outdatedStore = new InMemoryCryptoPriceStore();
+        CryptoDataLoaderService outdatedService = loader(outdatedStore, datasetVersionService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outdatedService, "snapshotFile", snapshotFile.toString());
+        outdatedService.loadCryptoData();
+
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshotFile, bytes);
+        InMemoryCryptoPriceStore corruptStore = new InMemoryCryptoPriceStore();
+        CryptoDataLoaderService corruptService = loader(corruptStore, datasetVersionService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(corruptService, "snapshotFile", snapshotFile.toString());
+        corruptService.loadCryptoData();
+
+        // THEN
+        assertEquals(2, outdatedStore.count());
+        assertEquals(2, corruptStore.count());
+        assertEquals(new BigDecimal("46979.61"), corruptStore.findStats("BTC").orElseThrow().max().price());
+        assertTrue(PriceSnapshotFile.read(
+                snapshotFile,
+                List.of(PriceSnapshotFile.SourceFile.of(pricesDir.resolve("BTC_values.csv"), -1))
+        ).isPresent());
+    }
+
+    private CryptoDataLoaderService loader(
+            InMemoryCryptoPriceStore store,
+            DatasetVersionService versionService,
+            SimpleMeterRegistry registry
+    ) {
+        CryptoDataLoaderService loader = new CryptoDataLoaderService(
+                store,
+                new MappedPriceCsvParser(),
+                new JacksonPriceCsvParser(new CryptoCsvDtoMapper()),
+                versionService,
+                registry
+        );
+        ReflectionTestUtils.setField(loader, "cryptoPricesDir", pricesDir.toString());
+        ReflectionTestUtils.setField(loader, "loaderParallelism", 2);
+        ReflectionTestUtils.setField(loader, "loaderBatchSize", 100);
+        return loader;
+    }
+
+    private void writeCsv(String fileName, String... rows) throws IOException {
+        Files.writeString(pricesDir.resolve(fileName), "timestamp,symbol,price\n" + String.join("\n", rows) + "\n");
+    }
+}
@@ -0,0 +1,89 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.mapper.CryptoCsvDtoMapper;
+import com.xm.crypto.parser.JacksonPriceCsvParser;
+import com.xm.crypto.parser.MappedPriceCsvParser;
+import com.xm.crypto.repository.InMemoryCryptoPriceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CryptoPriceWatcherServiceTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    private Path pricesDir;
+
+    private InMemoryCryptoPriceStore cryptoPriceStore;
+    private CryptoPriceWatcherService watcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.writeString(pricesDir.resolve("BTC_values.csv"), """
+                timestamp,symbol,price
+                1641009600000,BTC,46813.21
+                """);
+        cryptoPriceStore = new InMemoryCryptoPriceStore();
+        CryptoDataLoaderService loader = new CryptoDataLoaderService(
+                cryptoPriceStore,
+                new MappedPriceCsvParser(),
+                new JacksonPriceCsvParser(new CryptoCsvDtoMapper()),
+                new DatasetVersionService(event -> {}),
+                new SimpleMeterRegistry()
+        );
+        ReflectionTestUtils.setField(loader, "cryptoPricesDir", pricesDir.toString());
+        ReflectionTestUtils.setField(loader, "loaderParallelism", 2);
+        ReflectionTestUtils.setField(loader, "loaderBatchSize", 100);
+        loader.loadCryptoData();
+
+        watcher = new CryptoPriceWatcherService(loader);
+        watcher.startWatching();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        watcher.stopWatching();
+    }
+
+    @Test
+    void loadsAppendedRows_andNewFiles() throws Exception {
+        // WHEN
+        Files.writeString(
+                pricesDir.resolve("BTC_values.csv"),
+                "1641020400000,BTC,46979.61\n1641031200000,BTC,47143.98\n",
+                StandardOpenOption.APPEND
+        );
+        Files.writeString(pricesDir.resolve("ETH_values.csv"), """
+                timestamp,symbol,price
+                1641009600000,ETH,3715.32
+                """);
+
+        // THEN
+        awaitUntil(() -> cryptoPriceStore.count() == 4);
+        assertEquals(3, cryptoPriceStore.findStats("BTC").orElseThrow().count());
+        assertEquals(new BigDecimal("47143.98"), cryptoPriceStore.findStats("BTC").orElseThrow().max().price());
+        assertEquals(new BigDecimal("3715.32"), cryptoPriceStore.findStats("ETH").orElseThrow().newest().price());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met within " + TIMEOUT);
+    }
+}
@@ -2,15 +2,17 @@ package com.xm.crypto.service;
 
 import com.xm.crypto.exception.NoCryptoDataFoundException;
 import com.xm.crypto.model.domain.Crypto;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.TimeRange;
 import com.xm.crypto.model.dto.CryptoStatsDto;
-import com.xm.crypto.model.entity.CryptoEntity;
-import com.xm.crypto.model.mapper.CryptoEntityMapper;
-import com.xm.crypto.repository.CryptoRepository;
+import com.xm.crypto.repository.CryptoPriceStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -25,15 +27,13 @@ import static org.mockito.Mockito.when;
 class CryptoStatsServiceImplTest {
     private static final String EXPECTED_MESSAGE = "There is no data for the requested crypto: ";
 
-    private CryptoRepository cryptoRepository;
-    private CryptoEntityMapper cryptoEntityMapper;
+    private CryptoPriceStore cryptoPriceStore;
     private CryptoStatsServiceImpl service;
 
     @BeforeEach
     void setUp() {
-        cryptoRepository = mock(CryptoRepository.class);
-        cryptoEntityMapper = mock(CryptoEntityMapper.class);
-        service = new CryptoStatsServiceImpl(cryptoRepository, cryptoEntityMapper);
+        cryptoPriceStore = mock(CryptoPriceStore.class);
+        service = new CryptoStatsServiceImpl(cryptoPriceStore);
     }
 
     @Test
@@ -44,14 +44,10 @@ class CryptoStatsServiceImplTest {
         LocalDateTime now = LocalDateTime.now();
         BigDecimal price = BigDecimal.valueOf(100);
 
-        CryptoEntity entity = mock(CryptoEntity.class);
         Crypto crypto = new Crypto(now, upperCaseSymbol, price);
+        CryptoStats stats = new CryptoStats(upperCaseSymbol, crypto, crypto, crypto, crypto, 1);
 
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampAsc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampDesc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByPriceAsc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByPriceDesc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoEntityMapper.toDomain(entity)).thenReturn(crypto);
+        when(cryptoPriceStore.findStats(upperCaseSymbol)).thenReturn(Optional.of(stats));
 
         // WHEN
         CryptoStatsDto result = service.getStats(symbol);
@@ -67,15 +63,16 @@ class CryptoStatsServiceImplTest {
         assertEquals(price, result.min().price());
         assertEquals(now, result.max().timestamp());
         assertEquals(price, result.max().price());
+        assertEquals(1, result.count());
     }
 
     @Test
-    void getStats_throwsException_whenOldestIsMissing() {
+    void getStats_throwsException_whenStatsAreMissing() {
         // GIVEN
         String symbol = "btc";
         String upperCaseSymbol = "BTC";
 
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampAsc(upperCaseSymbol)).thenReturn(Optional.empty());
+        when(cryptoPriceStore.findStats(upperCaseSymbol)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         NoCryptoDataFoundException ex = assertThrows(
@@ -86,65 +83,78 @@ class CryptoStatsServiceImplTest {
     }
 
     @Test
-    void getStats_throwsException_whenNewestIsMissing() {
+    void getStats_returnsStatsWithinTimeRange_whenDataExists() {
         // GIVEN
-        String symbol = "btc";
-        String upperCaseSymbol = "BTC";
-        CryptoEntity entity = mock(CryptoEntity.class);
-        Crypto crypto = new Crypto(LocalDateTime.now(), upperCaseSymbol, BigDecimal.ONE);
+        LocalDateTime from = LocalDateTime.of(2022, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2022, 1, 2, 0, 0);
+        TimeRange timeRange = TimeRange.of(from, to);
+        Crypto oldest = new Crypto(from, "BTC", BigDecimal.valueOf(100));
+        Crypto newest = new Crypto(from.plusHours(12), "BTC", BigDecimal.valueOf(120));
+        CryptoStats stats = new CryptoStats("BTC", oldest, newest, oldest, newest, 2);
 
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampAsc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampDesc(upperCaseSymbol)).thenReturn(Optional.empty());
-        when(cryptoEntityMapper.toDomain(entity)).thenReturn(crypto);
+        when(cryptoPriceStore.findStats("BTC", timeRange.startMillis(), timeRange.endMillis())).thenReturn(Optional.of(stats));
 
-        // WHEN & THEN
-        NoCryptoDataFoundException ex = assertThrows(
-                NoCryptoDataFoundException.class,
-                () -> service.getStats(symbol)
-        );
-        assertEquals(EXPECTED_MESSAGE + upperCaseSymbol, ex.getMessage());
+        // WHEN
+        CryptoStatsDto result = service.getStats("btc", timeRange);
+
+        // THEN
+        assertEquals("BTC", result.symbol());
+        assertEquals(BigDecimal.valueOf(100), result.oldest().price());
+        assertEquals(BigDecimal.valueOf(120), result.newest().price());
+        assertEquals(2, result.count());
     }
 
     @Test
-    void getStats_throwsException_whenMinIsMissing() {
+    void getStats_throwsException_whenNoDataWithinTimeRange() {
         // GIVEN
-        String symbol = "btc";
-        String upperCaseSymbol = "BTC";
-        CryptoEntity entity = mock(CryptoEntity.class);
-        Crypto crypto = new Crypto(LocalDateTime.now(), upperCaseSymbol, BigDecimal.ONE);
+        TimeRange timeRange = TimeRange.of(LocalDateTime.of(1999, 1, 1, 0, 0), null);
 
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampAsc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampDesc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByPriceAsc(upperCaseSymbol)).thenReturn(Optional.empty());
-        when(cryptoEntityMapper.toDomain(entity)).thenReturn(crypto);
+        when(cryptoPriceStore.findStats("BTC", timeRange.startMillis(), Long.MAX_VALUE)).thenReturn(Optional.empty());
 
         // WHEN & THEN
         NoCryptoDataFoundException ex = assertThrows(
                 NoCryptoDataFoundException.class,
-                () -> service.getStats(symbol)
+                () -> service.getStats("btc", timeRange)
         );
-        assertEquals(EXPECTED_MESSAGE + upperCaseSymbol, ex.getMessage());
+        assertEquals(EXPECTED_MESSAGE + "BTC", ex.getMessage());
     }
 
     @Test
-    void getStats_throwsException_whenMaxIsMissing() {
+    void getStatsOfManySymbols_returnsStatsInRequestedOrder_withoutTheSymbolsHavingNoData() {
         // GIVEN
-        String symbol = "btc";
-        String upperCaseSymbol = "BTC";
-        CryptoEntity entity = mock(CryptoEntity.class);
-        Crypto crypto = new Crypto(LocalDateTime.now(), upperCaseSymbol, BigDecimal.ONE);
+        TimeRange timeRange = TimeRange.of(null, null);
+        CryptoStats btc = stats("BTC");
+        CryptoStats eth = stats("ETH");
 
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampAsc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByIdTimestampDesc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByPriceAsc(upperCaseSymbol)).thenReturn(Optional.of(entity));
-        when(cryptoRepository.findFirstByIdSymbolOrderByPriceDesc(upperCaseSymbol)).thenReturn(Optional.empty());
-        when(cryptoEntityMapper.toDomain(entity)).thenReturn(crypto);
+        when(cryptoPriceStore.findStats(List.of("ETH", "UNKNOWN", "BTC"), Long.MIN_VALUE, Long.MAX_VALUE))
+                .thenReturn(Map.of("BTC", btc, "ETH", eth));
 
-        // WHEN & THEN
-        NoCryptoDataFoundException ex = assertThrows(
-                NoCryptoDataFoundException.class,
-                () -> service.getStats(symbol)
-        );
-        assertEquals(EXPECTED_MESSAGE + upperCaseSymbol, ex.getMessage());
+        // WHEN
+        Map<String, CryptoStatsDto> result = service.getStats(List.of("eth", "unknown", "BTC", "btc"), timeRange);
+
+        // THEN
+        assertEquals(List.of("ETH", "BTC"), List.copyOf(result.keySet()));
+        assertEquals("ETH", result.get("ETH").symbol());
+        assertEquals(BigDecimal.ONE, result.get("BTC").max().price());
+    }
+
+    @Test
+    void getAllStats_returnsStatsOfAllSymbols_sortedBySymbol() {
+        // GIVEN
+        TimeRange timeRange = TimeRange.of(LocalDateTime.of(2022, 1, 1, 0, 0), null);
+
+        when(cryptoPriceStore.findAllStats(timeRange.startMillis(), Long.MAX_VALUE))
+                .thenReturn(Map.of("XRP", stats("XRP"), "BTC", stats("BTC"), "ETH", stats("ETH")));
+
+        // WHEN
+        Map<String, CryptoStatsDto> result = service.getAllStats(timeRange);
+
+        // THEN
+        assertEquals(List.of("BTC", "ETH", "XRP"), List.copyOf(result.keySet()));
+    }
+
+    private static CryptoStats stats(String symbol) {
+        Crypto crypto = new Crypto(LocalDateTime.of(2022, 1, 1, 0, 0), symbol, BigDecimal.ONE);
+        return new CryptoStats(symbol, crypto, crypto, crypto, crypto, 1);
     }
 }
@@ -0,0 +1,54 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.DatasetVersion;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Unit tests for {@link DatasetVersionService}.
+ */
+class DatasetVersionServiceTest {
+
+    @Test
+    void increment_startsFromTheLoadTime_andIncreasesWithinTheSameMillisecond() {
+        // GIVEN
+        Instant now = Instant.parse("2022-01-01T00:00:00Z");
+        List<Object> events = new ArrayList<>();
+        DatasetVersionService service = new DatasetVersionService(Clock.fixed(now, ZoneOffset.UTC), events::add);
+
+        // WHEN
+        DatasetVersion first = service.increment();
+        DatasetVersion second = service.increment();
+
+        // THEN
+        assertEquals(now.toEpochMilli(), first.version());
+        assertEquals(now.toEpochMilli() + 1, second.version());
+        assertEquals(now, first.lastModified());
+        assertEquals(now.plusSeconds(1), second.lastModified());
+        assertEquals(second, service.current());
+        assertEquals(2, events.size());
+        assertEquals(second, assertInstanceOf(DatasetVersionChangedEvent.class, events.get(1)).getVersion());
+    }
+
+    @Test
+    void increment_roundsTheLoadTimeUpToTheNextSecond() {
+        // GIVEN
+        Instant now = Instant.parse("2022-01-01T00:00:00.250Z");
+        DatasetVersionService service = new DatasetVersionService(Clock.fixed(now, ZoneOffset.UTC), event -> {});
+
+        // WHEN
+        DatasetVersion version = service.increment();
+
+        // THEN
+        assertEquals(now.toEpochMilli(), version.version());
+        assertEquals(Instant.parse("2022-01-01T00:00:01Z"), version.lastModified());
+    }
+}
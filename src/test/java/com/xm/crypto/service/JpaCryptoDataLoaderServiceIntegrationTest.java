@@ -0,0 +1,191 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.domain.Crypto;
+import com.xm.crypto.model.domain.CryptoStats;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.domain.PriceSeries;
+import com.xm.crypto.repository.CryptoPriceStore;
+import com.xm.crypto.repository.CryptoRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        properties = {
+                "crypto.prices.dir=classpath:prices",
+                "crypto.store.type=jpa",
+                "spring.datasource.url=jdbc:h2:mem:jpa-loader-test"
+        }
+)
+class JpaCryptoDataLoaderServiceIntegrationTest {
+
+    @Autowired
+    private CryptoRepository cryptoRepository;
+
+    @Autowired
+    private CryptoPriceStore cryptoPriceStore;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    @DisplayName("Should load crypto data from CSV files into the database on startup when the JPA store is selected")
+    void shouldLoadCryptoDataFromCsvFiles() {
+        // WHEN: The Spring context loads, @PostConstruct triggers data loading
+
+        // THEN: Data should be present in the database
+        long count = cryptoRepository.count();
+        assertTrue(count > 0, "At least on crypto should be present in the database");
+
+        // Check the existence of specific symbols
+        List<String> symbols = cryptoRepository.findAllSymbols();
+        assertTrue(symbols.contains("BTC"), "BTC symbol should be present");
+        assertTrue(symbols.contains("ETH"), "ETH symbol should be present");
+    }
+
+    @Test
+    @DisplayName("Should export more values than fit into a chunk without holding a connection while writing them")
+    void shouldExportChunksWithoutHoldingAConnection() throws Exception {
+        // GIVEN
+        PriceSeries.Builder builder = PriceSeries.builder("ADA");
+        for (int i = 0; i < 2500; i++) {
+            builder.add(1640995200000L + i * 60_000L, 1000 + i, 3);
+        }
+        cryptoPriceStore.saveAll(builder.build());
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        List<Long> timestamps = new ArrayList<>();
+
+        // WHEN
+        cryptoPriceStore.forEachPrice("ADA", Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, unscaledPrice, scale) -> {
+            assertEquals(0, pool.getActiveConnections(), "active connections while writing");
+            assertEquals(0, BigDecimal.valueOf(1000 + timestamps.size(), 3).compareTo(BigDecimal.valueOf(unscaledPrice, scale)));
+            timestamps.add(timestamp);
+        });
+
+        // THEN
+        assertEquals(2500, timestamps.size());
+        assertEquals(timestamps.stream().sorted().distinct().toList(), timestamps);
+    }
+
+    @Test
+    @DisplayName("Should overwrite the price of an already stored data point")
+    void shouldOverwriteExistingDataPoints() {
+        // GIVEN
+        long count = cryptoRepository.count();
+
+        // WHEN
+        cryptoPriceStore.saveAll(PriceSeries.builder("DOGE")
+                .add(1640995200000L, new BigDecimal("0.17"))
+                .add(1641081600000L, new BigDecimal("0.16"))
+                .build());
+        cryptoPriceStore.saveAll(PriceSeries.builder("DOGE")
+                .add(1641081600000L, new BigDecimal("0.19"))
+                .build());
+
+        // THEN
+        assertEquals(count + 2, cryptoRepository.count());
+        assertTrue(cryptoPriceStore.findPriceRanges().contains(
+                new PriceRange("DOGE", new BigDecimal("0.17"), new BigDecimal("0.19"))
+        ));
+    }
+
+    @Test
+    @DisplayName("Should report only changing saves and replace the data points of a symbol with its series")
+    void shouldReplaceTheDataPointsOfASymbol() {
+        // GIVEN
+        long count = cryptoRepository.count();
+        PriceSeries series = PriceSeries.builder("AVAX")
+                .add(millis("2022-01-15T00:00"), new BigDecimal("110"))
+                .add(millis("2022-02-15T00:00"), new BigDecimal("90"))
+                .build();
+        assertTrue(cryptoPriceStore.saveAll(series));
+        assertFalse(cryptoPriceStore.saveAll(series));
+        PriceSeries replacement = PriceSeries.builder("AVAX")
+                .add(millis("2022-01-15T00:00"), new BigDecimal("100"))
+                .build();
+
+        // WHEN
+        boolean replaced = cryptoPriceStore.replaceAll(List.of(replacement));
+        boolean again = cryptoPriceStore.replaceAll(List.of(replacement));
+
+        // THEN
+        assertTrue(replaced);
+        assertFalse(again);
+        assertEquals(count + 1, cryptoRepository.count());
+        assertEquals(new Crypto(LocalDateTime.parse("2022-01-15T00:00"), "AVAX", new BigDecimal("100")),
+                cryptoPriceStore.findStats("AVAX", Long.MIN_VALUE, Long.MAX_VALUE).orElseThrow().min());
+        assertTrue(cryptoPriceStore.findStats("AVAX", millis("2022-02-01T00:00"), millis("2022-03-01T00:00")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep every decimal place of the stored prices")
+    void shouldKeepTheScaleOfThePrices() {
+        // WHEN
+        cryptoPriceStore.saveAll(PriceSeries.builder("XRP")
+                .add(1640995200000L, new BigDecimal("0.8298"))
+                .add(1641081600000L, new BigDecimal("0.000000012345678912"))
+                .build());
+
+        // THEN
+        CryptoStats stats = cryptoPriceStore.findStats("XRP").orElseThrow();
+        assertEquals(new BigDecimal("0.000000012345678912"), stats.min().price());
+        assertEquals(new BigDecimal("0.8298"), stats.max().price());
+    }
+
+    @Test
+    @DisplayName("Should combine the summaries of the covered months with the data points of the partial months")
+    void shouldAnswerRangeQueriesFromMonthPartitions() {
+        // GIVEN: February is covered by the time range, January and March only partially
+        cryptoPriceStore.saveAll(PriceSeries.builder("SOL")
+                .add(millis("2021-12-31T12:00"), new BigDecimal("100"))
+                .add(millis("2022-01-15T00:00"), new BigDecimal("5"))
+                .add(millis("2022-02-01T00:00"), new BigDecimal("1"))
+                .add(millis("2022-02-20T00:00"), new BigDecimal("50"))
+                .add(millis("2022-03-05T00:00"), new BigDecimal("7"))
+                .add(millis("2022-03-20T00:00"), new BigDecimal("0.5"))
+                .build());
+        long start = millis("2022-01-10T00:00");
+        long end = millis("2022-03-10T00:00");
+
+        // WHEN
+        CryptoStats stats = cryptoPriceStore.findStats("SOL", start, end).orElseThrow();
+
+        // THEN
+        assertEquals(new Crypto(LocalDateTime.parse("2022-01-15T00:00"), "SOL", new BigDecimal("5")), stats.oldest());
+        assertEquals(new Crypto(LocalDateTime.parse("2022-03-05T00:00"), "SOL", new BigDecimal("7")), stats.newest());
+        assertEquals(new Crypto(LocalDateTime.parse("2022-02-01T00:00"), "SOL", new BigDecimal("1")), stats.min());
+        assertEquals(new Crypto(LocalDateTime.parse("2022-02-20T00:00"), "SOL", new BigDecimal("50")), stats.max());
+        assertEquals(4, stats.count());
+        assertTrue(cryptoPriceStore.findPriceRanges(start, end).contains(
+                new PriceRange("SOL", new BigDecimal("1"), new BigDecimal("50"))
+        ));
+
+        // WHEN: the max of the covered month is overwritten
+        cryptoPriceStore.saveAll(PriceSeries.builder("SOL")
+                .add(millis("2022-02-20T00:00"), new BigDecimal("3"))
+                .build());
+
+        // THEN
+        assertEquals(new Crypto(LocalDateTime.parse("2022-03-05T00:00"), "SOL", new BigDecimal("7")),
+                cryptoPriceStore.findStats("SOL", start, end).orElseThrow().max());
+        assertEquals(6, cryptoPriceStore.findStats("SOL").orElseThrow().count());
+    }
+
+    private static long millis(String dateTime) {
+        return LocalDateTime.parse(dateTime).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
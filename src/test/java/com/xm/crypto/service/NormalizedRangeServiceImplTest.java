@@ -1,54 +1,61 @@
 package com.xm.crypto.service;
 
+import com.xm.crypto.exception.InvalidLimitException;
+import com.xm.crypto.exception.InvalidOffsetException;
+import com.xm.crypto.exception.InvalidTimeRangeException;
 import com.xm.crypto.exception.NoCryptoDataFoundException;
+import com.xm.crypto.model.domain.DailyPriceRange;
 import com.xm.crypto.model.domain.NormalizedCrypto;
+import com.xm.crypto.model.domain.PriceRange;
+import com.xm.crypto.model.dto.DailyNormalizedCryptosDto;
 import com.xm.crypto.model.dto.NormalizedCryptoDto;
+import com.xm.crypto.model.dto.RankingOrder;
 import com.xm.crypto.model.mapper.NormalizedCryptoMapper;
-import com.xm.crypto.repository.CryptoRepository;
+import com.xm.crypto.repository.CryptoPriceStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 class NormalizedRangeServiceImplTest {
 
-    private CryptoRepository cryptoRepository;
+    private CryptoPriceStore cryptoPriceStore;
     private NormalizedCryptoMapper normalizedCryptoMapper;
     private NormalizedRangeServiceImpl service;
 
     @BeforeEach
     void setUp() {
-        cryptoRepository = mock(CryptoRepository.class);
+        cryptoPriceStore = mock(CryptoPriceStore.class);
         normalizedCryptoMapper = mock(NormalizedCryptoMapper.class);
-        service = new NormalizedRangeServiceImpl(cryptoRepository, normalizedCryptoMapper);
+        service = new NormalizedRangeServiceImpl(cryptoPriceStore, normalizedCryptoMapper);
     }
 
     @Test
     void listByNormalizedRange_returnsSortedList_whenDataExists() {
         // GIVEN
-        List<String> symbols = List.of("BTC", "ETH");
-        when(cryptoRepository.findAllSymbols()).thenReturn(symbols);
-
-        // BTC: min=100, max=200, normalizedRange=1.0
         // ETH: min=50, max=100, normalizedRange=1.0
-        when(cryptoRepository.findMinPriceBySymbol("BTC")).thenReturn(BigDecimal.valueOf(100));
-        when(cryptoRepository.findMaxPriceBySymbol("BTC")).thenReturn(BigDecimal.valueOf(200));
-        when(cryptoRepository.findMinPriceBySymbol("ETH")).thenReturn(BigDecimal.valueOf(50));
-        when(cryptoRepository.findMaxPriceBySymbol("ETH")).thenReturn(BigDecimal.valueOf(100));
-
-        NormalizedCrypto btcNorm = new NormalizedCrypto("BTC", BigDecimal.valueOf(100000000, 8));
-        NormalizedCrypto ethNorm = new NormalizedCrypto("ETH", BigDecimal.valueOf(100000000, 8));
+        // BTC: min=100, max=200, normalizedRange=1.0, tied with ETH
+        when(cryptoPriceStore.findPriceRanges()).thenReturn(List.of(
+                new PriceRange("ETH", BigDecimal.valueOf(50), BigDecimal.valueOf(100)),
+                new PriceRange("BTC", BigDecimal.valueOf(100), BigDecimal.valueOf(200))
+        ));
+
+        NormalizedCrypto btcNorm = new NormalizedCrypto("BTC", 100000000L);
+        NormalizedCrypto ethNorm = new NormalizedCrypto("ETH", 100000000L);
         NormalizedCryptoDto btcDto = new NormalizedCryptoDto("BTC", BigDecimal.valueOf(100000000, 8));
         NormalizedCryptoDto ethDto = new NormalizedCryptoDto("ETH", BigDecimal.valueOf(100000000, 8));
 
@@ -58,23 +65,17 @@ class NormalizedRangeServiceImplTest {
         // WHEN
         List<NormalizedCryptoDto> result = service.listByNormalizedRange();
 
-        // THEN
+        // THEN: the tie is broken by the symbol
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertTrue(result.stream().anyMatch(dto -> dto.symbol().equals("BTC")));
-        assertTrue(result.stream().anyMatch(dto -> dto.symbol().equals("ETH")));
+        assertEquals(List.of(btcDto, ethDto), result);
     }
 
     @Test
-    void listByNormalizedRange_skipsSymbol_whenMinIsNullOrZero() {
+    void listByNormalizedRange_skipsSymbol_whenMinIsZero() {
         // GIVEN
-        List<String> symbols = List.of("BTC", "ETH");
-        when(cryptoRepository.findAllSymbols()).thenReturn(symbols);
-
-        // BTC: min is null, should be skipped
-        when(cryptoRepository.findMinPriceBySymbol("BTC")).thenReturn(null);
         // ETH: min is zero, should be skipped
-        when(cryptoRepository.findMinPriceBySymbol("ETH")).thenReturn(BigDecimal.ZERO);
+        when(cryptoPriceStore.findPriceRanges())
+                .thenReturn(List.of(new PriceRange("ETH", BigDecimal.ZERO, BigDecimal.ONE)));
 
         // WHEN
         List<NormalizedCryptoDto> result = service.listByNormalizedRange();
@@ -85,23 +86,57 @@ class NormalizedRangeServiceImplTest {
     }
 
     @Test
-    void getHighestNormalizedRange_returnsDto_whenDataExists() {
+    void listByNormalizedRangePage_returnsPageOfTheRanking_inTheRequestedOrder() {
         // GIVEN
-        List<String> symbols = List.of("BTC", "ETH");
-        when(cryptoRepository.findAllSymbols()).thenReturn(symbols);
+        List<PriceRange> priceRanges = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            // the normalized range of C<i> is i, C25 and X25 are tied
+            priceRanges.add(new PriceRange("C" + i, BigDecimal.ONE, BigDecimal.valueOf(i + 1)));
+        }
+        priceRanges.add(new PriceRange("X25", BigDecimal.ONE, BigDecimal.valueOf(26)));
+        priceRanges.add(new PriceRange("ZERO", BigDecimal.ZERO, BigDecimal.ONE));
+        Collections.shuffle(priceRanges, new Random(42));
+        when(cryptoPriceStore.findPriceRanges()).thenReturn(priceRanges);
+        when(normalizedCryptoMapper.toDto(any())).thenAnswer(invocation -> {
+            NormalizedCrypto normalizedCrypto = invocation.getArgument(0);
+            return new NormalizedCryptoDto(normalizedCrypto.symbol(), BigDecimal.valueOf(normalizedCrypto.normalizedRange(), 8));
+        });
+
+        // WHEN
+        List<NormalizedCryptoDto> top = service.listByNormalizedRange(null, RankingOrder.DESC, 0, 3);
+        List<NormalizedCryptoDto> page = service.listByNormalizedRange(null, RankingOrder.DESC, 25, 3);
+        List<NormalizedCryptoDto> bottom = service.listByNormalizedRange(null, RankingOrder.ASC, 0, 2);
+        List<NormalizedCryptoDto> beyond = service.listByNormalizedRange(null, RankingOrder.ASC, 100, 10);
+
+        // THEN
+        assertEquals(List.of("C50", "C49", "C48"), top.stream().map(NormalizedCryptoDto::symbol).toList());
+        assertEquals(List.of("C25", "X25", "C24"), page.stream().map(NormalizedCryptoDto::symbol).toList());
+        assertEquals(List.of("C1", "C2"), bottom.stream().map(NormalizedCryptoDto::symbol).toList());
+        assertTrue(beyond.isEmpty());
+    }
 
+    @Test
+    void listByNormalizedRangePage_throwsException_whenOffsetOrLimitIsInvalid() {
+        // WHEN & THEN
+        assertThrows(InvalidOffsetException.class, () -> service.listByNormalizedRange(null, RankingOrder.DESC, -1, 10));
+        assertThrows(InvalidLimitException.class, () -> service.listByNormalizedRange(null, RankingOrder.DESC, 0, 0));
+    }
+
+    @Test
+    void getHighestNormalizedRange_returnsDto_whenDataExists() {
+        // GIVEN
         LocalDate date = LocalDate.of(2022, 1, 1);
-        long startMillis = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
-        long endMillis = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
 
         // BTC: min=100, max=200, normalizedRange=1.0
-        // ETH: min=50, max=150, normalizedRange=2.0 (should be highest)
-        when(cryptoRepository.findMinPriceBySymbolAndTimeRange("BTC", startMillis, endMillis)).thenReturn(BigDecimal.valueOf(100));
-        when(cryptoRepository.findMaxPriceBySymbolAndTimeRange("BTC", startMillis, endMillis)).thenReturn(BigDecimal.valueOf(200));
-        when(cryptoRepository.findMinPriceBySymbolAndTimeRange("ETH", startMillis, endMillis)).thenReturn(BigDecimal.valueOf(50));
-        when(cryptoRepository.findMaxPriceBySymbolAndTimeRange("ETH", startMillis, endMillis)).thenReturn(BigDecimal.valueOf(150));
-
-        NormalizedCrypto ethNorm = new NormalizedCrypto("ETH", BigDecimal.valueOf(200000000, 8));
+        // XRP: min=1, max=3, normalizedRange=2.0, tied with ETH
+        // ETH: min=50, max=150, normalizedRange=2.0 (should be highest, first by symbol)
+        when(cryptoPriceStore.findDailyPriceRanges(date)).thenReturn(List.of(
+                new PriceRange("BTC", BigDecimal.valueOf(100), BigDecimal.valueOf(200)),
+                new PriceRange("XRP", BigDecimal.valueOf(1), BigDecimal.valueOf(3)),
+                new PriceRange("ETH", BigDecimal.valueOf(50), BigDecimal.valueOf(150))
+        ));
+
+        NormalizedCrypto ethNorm = new NormalizedCrypto("ETH", 200000000L);
         NormalizedCryptoDto ethDto = new NormalizedCryptoDto("ETH", BigDecimal.valueOf(200000000, 8));
 
         when(normalizedCryptoMapper.toDto(ethNorm)).thenReturn(ethDto);
@@ -118,17 +153,57 @@ class NormalizedRangeServiceImplTest {
     @Test
     void getHighestNormalizedRange_throwsException_whenNoValidData() {
         // GIVEN
-        List<String> symbols = List.of("BTC");
-        when(cryptoRepository.findAllSymbols()).thenReturn(symbols);
-
         LocalDate date = LocalDate.of(2022, 1, 1);
-        long startMillis = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
-        long endMillis = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
 
-        // BTC: min is null, so should be skipped
-        when(cryptoRepository.findMinPriceBySymbolAndTimeRange("BTC", startMillis, endMillis)).thenReturn(null);
+        // BTC: min is zero, so should be skipped
+        when(cryptoPriceStore.findDailyPriceRanges(date))
+                .thenReturn(List.of(new PriceRange("BTC", BigDecimal.ZERO, BigDecimal.ONE)));
 
         // WHEN & THEN
         assertThrows(NoCryptoDataFoundException.class, () -> service.getHighestNormalizedRange(date));
     }
+
+    @Test
+    void getHighestNormalizedRanges_returnsTopCryptosOfEachDay_inOrderOfTheDays() {
+        // GIVEN
+        LocalDate firstDay = LocalDate.of(2022, 1, 1);
+        LocalDate secondDay = LocalDate.of(2022, 1, 2);
+        when(cryptoPriceStore.findDailyPriceRanges(1640995200000L, 1641168000000L)).thenReturn(List.of(
+                new DailyPriceRange(secondDay, new PriceRange("BTC", BigDecimal.valueOf(100), BigDecimal.valueOf(300))),
+                new DailyPriceRange(firstDay, new PriceRange("BTC", BigDecimal.valueOf(100), BigDecimal.valueOf(200))),
+                new DailyPriceRange(firstDay, new PriceRange("ETH", BigDecimal.valueOf(50), BigDecimal.valueOf(150))),
+                new DailyPriceRange(firstDay, new PriceRange("XRP", BigDecimal.valueOf(50), BigDecimal.valueOf(100))),
+                new DailyPriceRange(secondDay, new PriceRange("ETH", BigDecimal.ZERO, BigDecimal.ONE))
+        ));
+        when(normalizedCryptoMapper.toDto(any())).thenAnswer(invocation -> {
+            NormalizedCrypto normalizedCrypto = invocation.getArgument(0);
+            return new NormalizedCryptoDto(normalizedCrypto.symbol(), BigDecimal.valueOf(normalizedCrypto.normalizedRange(), 8));
+        });
+
+        // WHEN
+        List<DailyNormalizedCryptosDto> result = service.getHighestNormalizedRanges(firstDay, secondDay.plusDays(1), 2);
+
+        // THEN
+        assertEquals(List.of(
+                new DailyNormalizedCryptosDto(firstDay, List.of(
+                        new NormalizedCryptoDto("ETH", BigDecimal.valueOf(200000000, 8)),
+                        new NormalizedCryptoDto("BTC", BigDecimal.valueOf(100000000, 8))
+                )),
+                new DailyNormalizedCryptosDto(secondDay, List.of(
+                        new NormalizedCryptoDto("BTC", BigDecimal.valueOf(200000000, 8))
+                ))
+        ), result);
+    }
+
+    @Test
+    void getHighestNormalizedRanges_throwsException_whenParametersAreInvalid() {
+        // GIVEN
+        LocalDate date = LocalDate.of(2022, 1, 1);
+
+        // WHEN & THEN
+        assertThrows(InvalidTimeRangeException.class, () -> service.getHighestNormalizedRanges(date, date, 1));
+        assertThrows(InvalidTimeRangeException.class, () -> service.getHighestNormalizedRanges(date, date.plusYears(2), 1));
+        assertThrows(InvalidLimitException.class, () -> service.getHighestNormalizedRanges(date, date.plusDays(1), 0));
+        assertThrows(NoCryptoDataFoundException.class, () -> service.getHighestNormalizedRanges(date, date.plusDays(1), 1));
+    }
 }
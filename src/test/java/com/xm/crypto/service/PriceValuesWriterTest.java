@@ -0,0 +1,75 @@
+package com.xm.crypto.service;
+
+import com.xm.crypto.model.dto.ExportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link PriceValuesWriter}.
+ */
+class PriceValuesWriterTest {
+
+    @Test
+    void accept_writesNdjsonRows_withPlainDecimals() throws Exception {
+        // GIVEN
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PriceValuesWriter writer = new PriceValuesWriter(outputStream, ExportFormat.NDJSON, "BTC");
+
+        // WHEN
+        writer.writeHeader();
+        writer.accept(1640995200000L, 4701237, 2);
+        writer.accept(1641024000000L, 5, 3);
+        writer.accept(1641052800000L, 47000, 0);
+        writer.flush();
+
+        // THEN
+        assertEquals("""
+                {"timestamp":1640995200000,"symbol":"BTC","price":47012.37}
+                {"timestamp":1641024000000,"symbol":"BTC","price":0.005}
+                {"timestamp":1641052800000,"symbol":"BTC","price":47000}
+                """, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void accept_writesCsvRows_withTheHeaderOfTheImportedFiles() throws Exception {
+        // GIVEN
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PriceValuesWriter writer = new PriceValuesWriter(outputStream, ExportFormat.CSV, "ETH");
+
+        // WHEN
+        writer.writeHeader();
+        writer.accept(1640995200000L, 312347, 2);
+        writer.accept(1641024000000L, Long.MAX_VALUE, 18);
+        writer.flush();
+
+        // THEN
+        assertEquals("""
+                timestamp,symbol,price
+                1640995200000,ETH,3123.47
+                1641024000000,ETH,%s
+                """.formatted(BigDecimal.valueOf(Long.MAX_VALUE, 18).toPlainString()), outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void accept_writesAllRows_whenTheyExceedTheBuffer() throws Exception {
+        // GIVEN
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PriceValuesWriter writer = new PriceValuesWriter(outputStream, ExportFormat.CSV, "XRP");
+        StringBuilder expected = new StringBuilder();
+
+        // WHEN
+        for (int i = 0; i < 10_000; i++) {
+            writer.accept(i * 1000L, i, 4);
+            expected.append(i * 1000L).append(",XRP,").append(BigDecimal.valueOf(i, 4).toPlainString()).append('\n');
+        }
+        writer.flush();
+
+        // THEN
+        assertEquals(expected.toString(), outputStream.toString(StandardCharsets.UTF_8));
+    }
+}